@@ -1,12 +1,28 @@
 package com.techstore;
 
+import com.techstore.dao.LocationDAO;
+import com.techstore.dao.LocationStockDAO;
 import com.techstore.dao.ProductDAO;
 import com.techstore.dao.StockMovementDAO;
+import com.techstore.model.Location;
 import com.techstore.model.Product;
+import com.techstore.model.ReorderSuggestion;
 import com.techstore.model.StockMovement;
+import com.techstore.service.CatalogCache;
+import com.techstore.service.CatalogSnapshotService;
 import com.techstore.service.InventoryService;
+import com.techstore.service.ProductSearchIndex;
 import com.techstore.service.ReportService;
+import com.techstore.service.SalesVelocityService;
+import com.techstore.service.SkuIndex;
+import com.techstore.service.StartupService;
+import com.techstore.service.StockEventBus;
+import com.techstore.util.SchemaMigrator;
 
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
@@ -24,15 +40,52 @@ public class TechStoreApp {
     // --- VARIABLES GLOBALES (STATIC) ---
     private static final Scanner scanner = new Scanner(System.in);
     private static final ProductDAO productDAO = new ProductDAO();
-    private static final InventoryService inventoryService = new InventoryService();
     private static final ReportService reportService = new ReportService();
     private static final StockMovementDAO stockMovementDAO = new StockMovementDAO();
+    private static final SkuIndex skuIndex = new SkuIndex();
+    private static final LocationDAO locationDAO = new LocationDAO();
+    private static final LocationStockDAO locationStockDAO = new LocationStockDAO();
+    private static final InventoryService inventoryService =
+            new InventoryService(productDAO, stockMovementDAO, StockEventBus.getDefault(), skuIndex, locationStockDAO);
+    private static final CatalogCache catalogCache = new CatalogCache();
+    private static final ProductSearchIndex searchIndex = new ProductSearchIndex();
+    private static final SalesVelocityService velocityService = new SalesVelocityService();
+    private static final CatalogSnapshotService snapshotService = new CatalogSnapshotService(catalogCache);
+    private static final StartupService startupService =
+            new StartupService(catalogCache, searchIndex, skuIndex, snapshotService);
 
     public static void main(String[] args) {
         System.out.println("=======================================");
         System.out.println("BIENVENIDO AL TECHSTORE MAIN v1.0");
         System.out.println("=======================================");
 
+        // Con --migrate se ponen al día las tablas e índices antes de empezar
+        if (Arrays.asList(args).contains("--migrate")) {
+            try {
+                int aplicadas = new SchemaMigrator().migrate();
+                System.out.println("Esquema actualizado (" + aplicadas + " migraciones aplicadas).");
+            } catch (Exception e) {
+                System.out.println("ERROR al migrar el esquema: " + e.getMessage());
+                return;
+            }
+        }
+
+        // Arranque rápido: la instantánea local da catálogo y búsqueda al momento,
+        // y el pool y el catálogo en vivo se calientan mientras se muestra el menú
+        if (startupService.restoreSnapshot() != null) {
+            System.out.println("Catálogo local del " + formatearFecha(catalogCache.getDataAsOf())
+                    + " (se actualizará al conectar con la base de datos).");
+        }
+        catalogCache.subscribeTo(StockEventBus.getDefault());
+        searchIndex.subscribeTo(StockEventBus.getDefault(), catalogCache);
+        skuIndex.subscribeTo(StockEventBus.getDefault());
+        velocityService.subscribeTo(StockEventBus.getDefault());
+        snapshotService.subscribeTo(StockEventBus.getDefault());
+        snapshotService.start();
+        if (!Arrays.asList(args).contains("--no-warmup")) {
+            startupService.startInBackground();
+        }
+
         // Bucle Infinito
         while (true) {
             System.out.println("\n=== MENÚ PRINCIPAL ===");
@@ -43,7 +96,8 @@ public class TechStoreApp {
             System.out.println("5. Productos Estrella (Best Sellers)");
             System.out.println("6. Reabastecer Almacén");
             System.out.println("7. Exportar a Excel (CSV)");
-            System.out.println("8. SALIR");
+            System.out.println("8. Sugerencias de Reposición");
+            System.out.println("9. SALIR");
             System.out.print("Seleccione una opción: ");
 
             // Validación de entrada numérica robusta
@@ -64,12 +118,14 @@ public class TechStoreApp {
                 case 5: mostrarBestSellers(); break;
                 case 6: procesarReabastecimiento(); break;
                 case 7: exportarReporte(); break;
-                case 8:
+                case 8: mostrarSugerenciasReposicion(); break;
+                case 9:
                     System.out.println("Cerrando sistema...");
+                    snapshotService.close();
                     System.exit(0);
                     break;
                 default:
-                    System.out.println("Opción no válida. Intente del 1 al 8.");
+                    System.out.println("Opción no válida. Intente del 1 al 9.");
             }
         }
     }
@@ -79,7 +135,8 @@ public class TechStoreApp {
     private static void mostrarCatalogo() {
         System.out.println("\n=== CATÁLOGO DE PRODUCTOS ===");
         try {
-            List<Product> productos = productDAO.getAllProducts();
+            List<Product> productos = conStockTotal(catalogCache.getProducts());
+            avisarSiDesactualizado();
             if (productos.isEmpty()) {
                 System.out.println("El catálogo está vacío.");
             } else {
@@ -100,8 +157,9 @@ public class TechStoreApp {
     private static void procesarVenta() {
         System.out.println("\n--- NUEVA VENTA ---");
         try {
-            System.out.print("ID del producto: ");
-            int idVenta = scanner.nextInt();
+            Integer idVenta = pedirProducto();
+            if (idVenta == null) return;
+            Integer ubicacion = pedirUbicacion();
 
             System.out.print("Cantidad: ");
             int cantVenta = scanner.nextInt();
@@ -110,11 +168,16 @@ public class TechStoreApp {
             System.out.print("Cliente / Notas: ");
             String notas = scanner.nextLine();
 
-            inventoryService.sellProduct(idVenta, cantVenta, notas);
+            if (ubicacion != null) {
+                inventoryService.sellProduct(ubicacion, idVenta, cantVenta, notas);
+            } else {
+                inventoryService.sellProduct(idVenta, cantVenta, notas);
+            }
             System.out.println("VENTA COMPLETADA EXITOSAMENTE.");
+            startupService.recordFirstSale();
 
         } catch (java.util.InputMismatchException e) {
-            System.out.println("ERROR: Debes ingresar números enteros para ID y Cantidad.");
+            System.out.println("ERROR: La cantidad debe ser un número entero.");
             scanner.nextLine(); // Limpiar basura
         } catch (com.techstore.exception.StockInsufficientException e) {
             System.out.println("AVISO DE STOCK: " + e.getMessage());
@@ -126,6 +189,74 @@ public class TechStoreApp {
         }
     }
 
+    /**
+     * Pide el producto por SKU, ID o parte del nombre (venta y reabastecimiento).
+     * Lo escrito se prueba primero como SKU exacto a través de {@link InventoryService#findProductIdBySku}, que
+     * carga el índice si aún no está y consulta la BBDD si el SKU es de otra caja: los códigos de barras
+     * EAN/UPC son solo dígitos y nunca deben tomarse por un ID. Un ID se indica con '#' delante
+     * (por ejemplo #42); unos dígitos que no son ningún SKU solo se usan como ID si el usuario lo confirma.
+     * Si no es nada de eso, se busca en el índice en memoria y se deja elegir entre los resultados.
+     *
+     * @return ID del producto elegido o null si se cancela.
+     */
+    private static Integer pedirProducto() throws Exception {
+        while (true) {
+            System.out.print("SKU, #ID o nombre del producto (Enter para cancelar): ");
+            String entrada = scanner.nextLine().trim();
+            if (entrada.isEmpty()) return null;
+
+            if (entrada.startsWith("#")) {
+                Integer porId = parsearEntero(entrada.substring(1).trim());
+                if (porId != null) return porId;
+                System.out.println("'" + entrada + "' no es un ID válido.");
+                continue;
+            }
+
+            // SKU exacto (escáner)
+            int porSku = inventoryService.findProductIdBySku(entrada);
+            if (porSku != SkuIndex.NOT_FOUND) return porSku;
+
+            if (entrada.matches("\\d+")) {
+                Integer porId = parsearEntero(entrada);
+                if (porId != null) {
+                    System.out.print("No hay ningún SKU '" + entrada + "'. ¿Es el ID de producto " + porId + "? (s/N): ");
+                    if (scanner.nextLine().trim().equalsIgnoreCase("s")) return porId;
+                } else {
+                    System.out.println("No hay ningún producto con el código '" + entrada + "'.");
+                }
+                continue;
+            }
+
+            if (searchIndex.isEmpty()) {
+                searchIndex.rebuild(catalogCache.getProducts());
+            }
+            List<Product> resultados = searchIndex.search(entrada, 5);
+            if (resultados.isEmpty()) {
+                System.out.println("Sin coincidencias para '" + entrada + "'. Prueba con otro texto.");
+                continue;
+            }
+            for (int i = 0; i < resultados.size(); i++) {
+                Product p = resultados.get(i);
+                System.out.printf("  %d) [%s] %s (ID %d)%n", i + 1, p.getSku(), p.getName(), p.getId());
+            }
+            System.out.print("Elige 1-" + resultados.size() + " (Enter para buscar de nuevo): ");
+            Integer n = parsearEntero(scanner.nextLine().trim());
+            if (n != null && n >= 1 && n <= resultados.size()) {
+                return resultados.get(n - 1).getId();
+            }
+        }
+    }
+
+    /**
+     * Convierte a entero una entrada de solo dígitos; null si no lo es o no cabe en un int
+     * (un código de barras de 12-13 dígitos que no está en el índice no es un ID).
+     */
+    private static Integer parsearEntero(String entrada) {
+        if (!entrada.matches("\\d{1,10}")) return null;
+        long valor = Long.parseLong(entrada);
+        return valor <= Integer.MAX_VALUE ? (int) valor : null;
+    }
+
     private static void mostrarRadarStock() {
         System.out.println("\n--- RADAR DE STOCK BAJO ---");
         try {
@@ -137,8 +268,23 @@ public class TechStoreApp {
             }
             int limite = scanner.nextInt();
             scanner.nextLine(); // Limpiar buffer
+            Integer ubicacion = pedirUbicacion();
 
-            List<Product> alertas = productDAO.getProductWithLowStock(limite);
+            List<Product> alertas;
+            if (ubicacion != null) {
+                alertas = productDAO.getProductWithLowStockAt(ubicacion, limite);
+            } else if (catalogCache.isStale()) {
+                alertas = catalogCache.getLowStock(limite);
+            } else {
+                try {
+                    alertas = productDAO.getProductWithLowTotalStock(limite);
+                } catch (java.sql.SQLException e) {
+                    // Sin conexión: calculamos el radar sobre la caché si tenemos algo
+                    if (catalogCache.getDataAsOf() == 0) throw e;
+                    alertas = catalogCache.getLowStock(limite);
+                }
+            }
+            avisarSiDesactualizado();
             if (alertas.isEmpty()) {
                 System.out.println("TODO EN ORDEN. No hay stock bajo.");
             } else {
@@ -152,10 +298,76 @@ public class TechStoreApp {
         }
     }
 
+    /**
+     * Si hay tiendas o almacenes dados de alta, pregunta desde cuál se opera.
+     *
+     * @return ID de la ubicación, o null para el stock central (o si no hay ubicaciones).
+     */
+    private static Integer pedirUbicacion() {
+        List<Location> ubicaciones;
+        try {
+            ubicaciones = locationDAO.getActive();
+        } catch (java.sql.SQLException e) {
+            return null; // Sin tabla de ubicaciones (esquema sin migrar) o sin conexión: stock central
+        }
+        if (ubicaciones.isEmpty()) return null;
+
+        for (Location l : ubicaciones) {
+            System.out.printf("  %d) [%s] %s%n", l.getId(), l.getCode(), l.getName());
+        }
+        while (true) {
+            System.out.print("Ubicación (Enter para el stock central): ");
+            String entrada = scanner.nextLine().trim();
+            if (entrada.isEmpty()) return null;
+            for (Location l : ubicaciones) {
+                if (entrada.equals(String.valueOf(l.getId())) || entrada.equalsIgnoreCase(l.getCode())) {
+                    return l.getId();
+                }
+            }
+            System.out.println("Ubicación no válida.");
+        }
+    }
+
+    /**
+     * Copia de los productos con el stock total: central + suma de todas las ubicaciones.
+     * Si no se pueden leer las ubicaciones se devuelven tal cual (solo stock central).
+     */
+    private static List<Product> conStockTotal(List<Product> productos) {
+        Map<Integer, Integer> porUbicaciones;
+        try {
+            porUbicaciones = locationStockDAO.getTotalsByProduct();
+        } catch (java.sql.SQLException e) {
+            return productos;
+        }
+        if (porUbicaciones.isEmpty()) return productos;
+
+        List<Product> conTotal = new ArrayList<>(productos.size());
+        for (Product p : productos) {
+            Integer extra = porUbicaciones.get(p.getId());
+            // No se modifica el producto de la caché: se comparte con otros listados
+            conTotal.add(extra == null ? p : p.toBuilder().stock(p.getStock() + extra).build());
+        }
+        return conTotal;
+    }
+
+    /**
+     * Avisa cuando el catálogo en pantalla viene de la instantánea local o de antes de perder la conexión.
+     */
+    private static void avisarSiDesactualizado() {
+        if (catalogCache.isStale()) {
+            System.out.println("AVISO: sin conexión con la base de datos. Datos del "
+                    + formatearFecha(catalogCache.getDataAsOf()) + ", pueden estar desactualizados.");
+        }
+    }
+
+    private static String formatearFecha(long epochMillis) {
+        return new SimpleDateFormat("dd/MM/yyyy HH:mm").format(new Date(epochMillis));
+    }
+
     private static void mostrarHistorial() {
         System.out.println("\n--- ÚLTIMOS MOVIMIENTOS ---");
         try {
-            List<StockMovement> movimientos = stockMovementDAO.getRecentMovements(10);
+            List<StockMovement> movimientos = stockMovementDAO.getLatestMovements(10);
             if (movimientos.isEmpty()) {
                 System.out.println("No hay movimientos registrados.");
             } else {
@@ -197,8 +409,9 @@ public class TechStoreApp {
     private static void procesarReabastecimiento() {
         System.out.println("\n--- REABASTECIMIENTO ---");
         try {
-            System.out.print("ID del producto a reponer: ");
-            int idProd = scanner.nextInt();
+            Integer idProd = pedirProducto();
+            if (idProd == null) return;
+            Integer ubicacion = pedirUbicacion();
 
             System.out.print("Cantidad a ingresar: ");
             int cant = scanner.nextInt();
@@ -207,10 +420,14 @@ public class TechStoreApp {
             System.out.print("Proveedor / Notas de entrada: ");
             String notas = scanner.nextLine();
 
-            inventoryService.addStock(idProd, cant, notas);
+            if (ubicacion != null) {
+                inventoryService.addStock(ubicacion, idProd, cant, notas);
+            } else {
+                inventoryService.addStock(idProd, cant, notas);
+            }
             System.out.println("STOCK ACTUALIZADO CORRECTAMENTE.");
         } catch (java.util.InputMismatchException e) {
-            System.out.println("ERROR: Solo se aceptan números para ID y Cantidad.");
+            System.out.println("ERROR: Solo se aceptan números para la Cantidad.");
             scanner.nextLine();
         } catch (com.techstore.exception.TechStoreException e) {
             System.out.println("NO SE PUDO REABASTECER: " + e.getMessage());
@@ -219,6 +436,41 @@ public class TechStoreApp {
         }
     }
 
+    private static void mostrarSugerenciasReposicion() {
+        System.out.println("\n--- SUGERENCIAS DE REPOSICIÓN ---");
+        try {
+            System.out.print("Plazo de entrega del proveedor (días): ");
+            int plazo = scanner.nextInt();
+            System.out.print("Días de venta a cubrir con el pedido: ");
+            int cobertura = scanner.nextInt();
+            scanner.nextLine(); // Limpiar buffer
+
+            if (!velocityService.isSeeded()) {
+                System.out.println("⏳ Calculando velocidad de ventas (primera vez)...");
+                velocityService.seed(60);
+            }
+
+            Map<Integer, List<ReorderSuggestion>> porProveedor =
+                    velocityService.suggestReorders(conStockTotal(catalogCache.getProducts()), plazo, cobertura);
+            if (porProveedor.isEmpty()) {
+                System.out.println("TODO EN ORDEN. El stock cubre el plazo de entrega en todos los productos.");
+                return;
+            }
+            for (Map.Entry<Integer, List<ReorderSuggestion>> entry : porProveedor.entrySet()) {
+                System.out.println("\nProveedor " + (entry.getKey() != null ? "#" + entry.getKey() : "(sin asignar)") + ":");
+                for (ReorderSuggestion s : entry.getValue()) {
+                    System.out.printf("  [SKU: %s] %-30s | Stock: %-4d | %.1f/día | Cubre %.1f días | PEDIR: %d%n",
+                            s.getSku(), s.getName(), s.getStock(), s.getDailySales(), s.getDaysOfCover(), s.getReorderQuantity());
+                }
+            }
+        } catch (java.util.InputMismatchException e) {
+            System.out.println("ERROR: Debes ingresar números enteros.");
+            scanner.nextLine();
+        } catch (Exception e) {
+            System.out.println("Error al calcular sugerencias: " + e.getMessage());
+        }
+    }
+
     private static void exportarReporte() {
         System.out.println("\n--- EXPORTAR A EXCEL (CSV) ---");
         System.out.print("Nombre del archivo (Enter para 'inventario.csv'): ");
@@ -2,6 +2,8 @@ package com.techstore.dao;
 
 import com.techstore.model.Category;
 import com.techstore.util.DatabaseConnection;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -17,6 +19,8 @@ import java.util.List;
 
 public class CategoryDAO {
 
+    private static final Logger log = LogManager.getLogger(CategoryDAO.class);
+
     /**
      * Inserta una nueva categoría en la base de datos
      * Convierte el estado activo (boolean) a numérico (1/0) para Oracle.
@@ -38,7 +42,7 @@ public class CategoryDAO {
             pstmt.setInt(3, category.isActive() ? 1 : 0);
 
             pstmt.executeUpdate();
-            System.out.println("Categoría insertada con éxito: " + category.getName());
+            log.debug("Categoría insertada: nombre={}", category.getName());
         }
     }
 
@@ -54,7 +58,7 @@ public class CategoryDAO {
         List<Category> categories = new ArrayList<>();
         String sql = "SELECT * FROM CATEGORIAS ORDER BY categoria_id";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
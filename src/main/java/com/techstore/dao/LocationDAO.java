@@ -0,0 +1,77 @@
+package com.techstore.dao;
+
+import com.techstore.model.Location;
+import com.techstore.util.DatabaseConnection;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Clase de Acceso a Datos (DAO) para las ubicaciones (tiendas y almacenes).
+ * Se encarga de las operaciones CRUD en la tabla UBICACIONES de Oracle.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+
+public class LocationDAO {
+
+    private static final Logger log = LogManager.getLogger(LocationDAO.class);
+
+    /**
+     * Inserta una nueva ubicación y le asigna el ID generado por Oracle.
+     *
+     * @param location Ubicación a insertar.
+     * @throws SQLException Si ocurre un error de conexión o el código ya existe.
+     */
+    public void insert(Location location) throws SQLException {
+        String sql = "INSERT INTO UBICACIONES (codigo, nombre, tipo, activo) VALUES (?, ?, ?, ?)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, new String[]{"UBICACION_ID"})) {
+
+            pstmt.setString(1, location.getCode());
+            pstmt.setString(2, location.getName());
+            pstmt.setString(3, location.getType() != null ? location.getType() : "TIENDA");
+            pstmt.setInt(4, location.isActive() ? 1 : 0);
+            pstmt.executeUpdate();
+
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    location.setId(keys.getInt(1));
+                }
+            }
+            log.debug("Ubicación insertada: codigo={} id={}", location.getCode(), location.getId());
+        }
+    }
+
+    /**
+     * Obtiene las ubicaciones activas ordenadas por código.
+     *
+     * @return                  Lista de ubicaciones.
+     * @throws SQLException     Si falla la consulta SQL.
+     */
+    public List<Location> getActive() throws SQLException {
+        List<Location> locations = new ArrayList<>();
+        String sql = "SELECT * FROM UBICACIONES WHERE activo = 1 ORDER BY codigo";
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                locations.add(Location.builder()
+                        .id(rs.getInt("ubicacion_id"))
+                        .code(rs.getString("codigo"))
+                        .name(rs.getString("nombre"))
+                        .type(rs.getString("tipo"))
+                        .active(rs.getInt("activo") == 1)
+                        .build());
+            }
+        }
+        return locations;
+    }
+}
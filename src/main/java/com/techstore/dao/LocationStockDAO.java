@@ -0,0 +1,156 @@
+package com.techstore.dao;
+
+import com.techstore.util.DatabaseConnection;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.apache.logging.log4j.util.Unbox.box;
+
+/**
+ * Clase de Acceso a Datos (DAO) para el stock por ubicación (tabla STOCK_UBICACION).
+ * Cada par ubicación × producto es una fila independiente: las ventas de tiendas distintas
+ * actualizan filas distintas y nunca se esperan entre sí (ni a la fila de PRODUCTOS).
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class LocationStockDAO {
+
+    private static final Logger log = LogManager.getLogger(LocationStockDAO.class);
+
+    // Los parámetros se copian a variables locales para enlazar cada valor una sola vez
+    private static final String SQL_INCREASE =
+            "DECLARE l NUMBER := ?; p NUMBER := ?; q NUMBER := ?; n NUMBER; BEGIN " +
+            "UPDATE STOCK_UBICACION SET cantidad = cantidad + q, actualizado_en = CURRENT_TIMESTAMP " +
+            "WHERE ubicacion_id = l AND producto_id = p RETURNING cantidad INTO n; " +
+            "IF SQL%ROWCOUNT = 0 THEN " +
+            "BEGIN " +
+            "INSERT INTO STOCK_UBICACION (ubicacion_id, producto_id, cantidad) VALUES (l, p, q) RETURNING cantidad INTO n; " +
+            "EXCEPTION WHEN DUP_VAL_ON_INDEX THEN " +
+            "UPDATE STOCK_UBICACION SET cantidad = cantidad + q, actualizado_en = CURRENT_TIMESTAMP " +
+            "WHERE ubicacion_id = l AND producto_id = p RETURNING cantidad INTO n; " +
+            "END; " +
+            "END IF; " +
+            "? := n; END;";
+    private static final String SQL_DECREASE =
+            "DECLARE n NUMBER; BEGIN " +
+            "UPDATE STOCK_UBICACION SET cantidad = cantidad - ?, actualizado_en = CURRENT_TIMESTAMP " +
+            "WHERE ubicacion_id = ? AND producto_id = ? AND cantidad >= ? RETURNING cantidad INTO n; " +
+            "? := CASE WHEN SQL%ROWCOUNT = 0 THEN -1 ELSE n END; END;";
+
+    /**
+     * Stock de un producto en una ubicación.
+     *
+     * @return Cantidad disponible (0 si el producto nunca tuvo stock en esa ubicación).
+     * @throws SQLException Si falla la consulta.
+     */
+    public int getStock(int locationId, int productId) throws SQLException {
+        String sql = "SELECT cantidad FROM STOCK_UBICACION WHERE ubicacion_id = ? AND producto_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, locationId);
+            pstmt.setInt(2, productId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Suma stock en una ubicación, creando la fila si el producto aún no estaba allí, y devuelve la cantidad
+     * que queda. Es un bloque PL/SQL: UPDATE con RETURNING y, si no había fila, INSERT (si otra caja la crea
+     * entre medias, DUP_VAL_ON_INDEX y se repite el UPDATE). La existencia del producto y de la ubicación
+     * la comprueban las claves foráneas al insertar.
+     *
+     * @return Cantidad en la ubicación tras la entrada.
+     * @throws SQLException Si falla la actualización (ORA-02291 si la ubicación o el producto no existen).
+     */
+    public int increaseStock(int locationId, int productId, int quantity) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             CallableStatement cstmt = conn.prepareCall(SQL_INCREASE)) {
+            cstmt.setInt(1, locationId);
+            cstmt.setInt(2, productId);
+            cstmt.setInt(3, quantity);
+            cstmt.registerOutParameter(4, Types.INTEGER);
+            cstmt.execute();
+            int newStock = cstmt.getInt(4);
+            log.debug("Stock en ubicación {} del producto {}: +{} = {}", box(locationId), box(productId), box(quantity), box(newStock));
+            return newStock;
+        }
+    }
+
+    /**
+     * Resta stock en una ubicación solo si hay suficiente (UPDATE condicional, igual que en PRODUCTOS),
+     * devolviendo con RETURNING la cantidad que deja.
+     *
+     * @return Cantidad tras la venta; -1 si no había stock suficiente (o ninguna fila) en esa ubicación.
+     * @throws SQLException Si falla la actualización.
+     */
+    public int decreaseStockIfAvailable(int locationId, int productId, int quantity) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             CallableStatement cstmt = conn.prepareCall(SQL_DECREASE)) {
+            cstmt.setInt(1, quantity);
+            cstmt.setInt(2, locationId);
+            cstmt.setInt(3, productId);
+            cstmt.setInt(4, quantity);
+            cstmt.registerOutParameter(5, Types.INTEGER);
+            cstmt.execute();
+            return cstmt.getInt(5);
+        }
+    }
+
+    /**
+     * Stock de un producto en cada ubicación donde lo hay o lo hubo.
+     *
+     * @return Mapa código de ubicación -> cantidad, ordenado por código.
+     * @throws SQLException Si falla la consulta.
+     */
+    public Map<String, Integer> getStockByLocation(int productId) throws SQLException {
+        Map<String, Integer> stock = new LinkedHashMap<>();
+        String sql = "SELECT u.codigo, s.cantidad FROM STOCK_UBICACION s " +
+                "JOIN UBICACIONES u ON u.ubicacion_id = s.ubicacion_id " +
+                "WHERE s.producto_id = ? ORDER BY u.codigo";
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, productId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    stock.put(rs.getString(1), rs.getInt(2));
+                }
+            }
+        }
+        return stock;
+    }
+
+    /**
+     * Suma del stock de todas las ubicaciones por producto (sin el stock central).
+     *
+     * @return Mapa producto_id -> cantidad en ubicaciones (solo productos con alguna fila).
+     * @throws SQLException Si falla la consulta.
+     */
+    public Map<Integer, Integer> getTotalsByProduct() throws SQLException {
+        Map<Integer, Integer> totals = new HashMap<>();
+        String sql = "SELECT producto_id, SUM(cantidad) FROM STOCK_UBICACION GROUP BY producto_id";
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                totals.put(rs.getInt(1), rs.getInt(2));
+            }
+        }
+        return totals;
+    }
+}
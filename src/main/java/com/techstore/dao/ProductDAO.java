@@ -2,10 +2,15 @@ package com.techstore.dao;
 
 import com.techstore.model.Product;
 import com.techstore.util.DatabaseConnection;
+import com.techstore.util.DatabaseExecutor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.ObjIntConsumer;
 
 /**
  * Clase de Acceso a Datos (DAO) para la entidad Producto.
@@ -17,6 +22,39 @@ import java.util.List;
 
 public class ProductDAO {
 
+    private static final Logger log = LogManager.getLogger(ProductDAO.class);
+
+    // Consultas públicas para que SchemaPlanCheck compruebe el plan de exactamente el mismo SQL
+    public static final String SQL_ID_BY_SKU = "SELECT producto_id FROM PRODUCTOS WHERE sku = ?";
+    public static final String SQL_BY_ID = "SELECT * FROM PRODUCTOS WHERE PRODUCTO_ID = ?";
+    public static final String SQL_LOW_STOCK = "SELECT * FROM PRODUCTOS WHERE stock_actual < ?";
+    // El total nunca es menor que el stock central: el primer filtro deja usar el índice de stock_actual
+    public static final String SQL_LOW_TOTAL_STOCK =
+            "SELECT p.*, p.stock_actual + NVL(s.total, 0) AS STOCK_TOTAL FROM PRODUCTOS p " +
+            "LEFT JOIN (SELECT producto_id, SUM(cantidad) AS total FROM STOCK_UBICACION GROUP BY producto_id) s " +
+            "ON s.producto_id = p.producto_id " +
+            "WHERE p.stock_actual < ? AND p.stock_actual + NVL(s.total, 0) < ?";
+    public static final String SQL_LOW_STOCK_AT =
+            "SELECT p.*, s.cantidad AS STOCK_UBICACION FROM STOCK_UBICACION s " +
+            "JOIN PRODUCTOS p ON p.producto_id = s.producto_id " +
+            "WHERE s.ubicacion_id = ? AND s.cantidad < ?";
+
+    // Bloques PL/SQL: el UPDATE devuelve el stock que deja (RETURNING) y el bloque lo entrega como
+    // parámetro de salida, o -1 si no actualizó ninguna fila (sin stock suficiente o sin producto)
+    private static final String SQL_DECREASE_STOCK =
+            "DECLARE n NUMBER; BEGIN " +
+            "UPDATE PRODUCTOS SET stock_actual = stock_actual - ?, actualizado_en = CURRENT_TIMESTAMP " +
+            "WHERE producto_id = ? AND stock_actual >= ? RETURNING stock_actual INTO n; " +
+            "? := CASE WHEN SQL%ROWCOUNT = 0 THEN -1 ELSE n END; END;";
+    private static final String SQL_INCREASE_STOCK =
+            "DECLARE n NUMBER; BEGIN " +
+            "UPDATE PRODUCTOS SET stock_actual = stock_actual + ?, actualizado_en = CURRENT_TIMESTAMP " +
+            "WHERE producto_id = ? RETURNING stock_actual INTO n; " +
+            "? := CASE WHEN SQL%ROWCOUNT = 0 THEN -1 ELSE n END; END;";
+    private static final String SQL_LOCK_STOCK = "SELECT stock_actual FROM PRODUCTOS WHERE producto_id = ? FOR UPDATE";
+    private static final String SQL_SET_STOCK =
+            "UPDATE PRODUCTOS SET stock_actual = ?, actualizado_en = CURRENT_TIMESTAMP WHERE producto_id = ?";
+
     /**
      * Obtiene el stock actual de un producto específico consultando la BBDD.
      *
@@ -41,9 +79,55 @@ public class ProductDAO {
         }
     }
 
+    /**
+     * Busca el ID de un producto por su SKU.
+     *
+     * @param sku                   Código SKU exacto.
+     * @return                      El ID del producto o -1 si no existe.
+     * @throws SQLException         Si ocurre un error de conexión o consulta.
+     */
+    public int getProductIdBySku(String sku) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_ID_BY_SKU)) {
+
+            pstmt.setString(1, sku);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        }
+    }
+
+    /**
+     * Recorre todos los pares SKU -> ID de PRODUCTOS (para construir índices en memoria).
+     * Solo lee las dos columnas necesarias, en bloques grandes y sin boxing del ID.
+     *
+     * @param sink                  Recibe cada (sku, productoId).
+     * @return                      Número de productos recorridos.
+     * @throws SQLException         Si falla la consulta.
+     */
+    public int forEachSku(ObjIntConsumer<String> sink) throws SQLException {
+        String sql = "SELECT producto_id, sku FROM PRODUCTOS";
+        int count = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.setFetchSize(1000);
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    sink.accept(rs.getString(2), rs.getInt(1));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
     /**
      * Registra un nuevo producto en la base de datos.
      * Gestiona la conversión de tipos (BigDecimal, Boolean) y nulos.
+     * Al terminar, asigna al objeto el ID generado por Oracle.
      *
      * @param product               Objeto Product con los datos a insertar.
      * @throws SQLException         Si falla la inserción (ej: SKU duplicado).
@@ -53,7 +137,7 @@ public class ProductDAO {
         String sql = "INSERT INTO PRODUCTOS (sku, nombre, descripcion, precio_venta, precio_costo, stock_actual, categoria_id, proveedor_id, activo) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
         try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+             PreparedStatement pstmt = connection.prepareStatement(sql, new String[]{"PRODUCTO_ID"})) {
 
             pstmt.setString(1, product.getSku());
             pstmt.setString(2, product.getName());
@@ -72,21 +156,36 @@ public class ProductDAO {
             pstmt.setInt(9, product.isActive() ? 1 : 0);
 
             pstmt.executeUpdate();
-            System.out.println("✅ Producto registrado: " + product.getSku() + " - " + product.getName());
+
+            // Recuperamos el ID que ha generado Oracle (identity) para devolverlo en el objeto
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    product.setId(keys.getInt(1));
+                }
+            }
+            log.debug("Producto registrado: sku={} productId={} nombre={}", product.getSku(), product.getId(), product.getName());
         }
     }
 
+    /**
+     * Igual que {@link #getAllProducts(boolean)}, leyendo de la réplica si está configurada.
+     */
+    public List<Product> getAllProducts() throws SQLException {
+        return getAllProducts(false);
+    }
+
     /**
      * Recupera el catálogo completo de productos ordenados por ID
      *
+     * @param fresh                 true para leer de la principal (datos al día) en lugar de la réplica.
      * @return                      Lista de objetos Product.
      * @throws SQLException         Si falla la consulta.
      */
-    public List<Product> getAllProducts() throws SQLException {
+    public List<Product> getAllProducts(boolean fresh) throws SQLException {
         List<Product> products = new ArrayList<>();
         String sql = "SELECT * FROM PRODUCTOS ORDER BY producto_id";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection(fresh);
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -121,19 +220,112 @@ public class ProductDAO {
         }
     }
 
+    /**
+     * Resta stock solo si hay unidades suficientes, en una única sentencia.
+     * Evita que dos ventas simultáneas dejen el stock en negativo (check-then-act).
+     * El UPDATE devuelve con RETURNING el stock que deja, así que no hace falta leerlo antes ni después.
+     *
+     * @param productId                 ID del producto a vender.
+     * @param quantity                  Unidades a restar (positivo).
+     * @return                          Stock tras la venta; -1 si no había stock suficiente o no existe.
+     * @throws SQLException             Si falla la actualización.
+     */
+    public int decreaseStockIfAvailable(int productId, int quantity) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             CallableStatement cstmt = conn.prepareCall(SQL_DECREASE_STOCK)) {
+
+            cstmt.setInt(1, quantity);
+            cstmt.setInt(2, productId);
+            cstmt.setInt(3, quantity);
+            cstmt.registerOutParameter(4, Types.INTEGER);
+            cstmt.execute();
+            return cstmt.getInt(4);
+        }
+    }
+
+    /**
+     * Suma stock (reabastecimiento) y devuelve el que queda, con RETURNING en el mismo UPDATE.
+     *
+     * @param productId                 ID del producto a reponer.
+     * @param quantity                  Unidades a sumar (positivo).
+     * @return                          Stock tras la entrada; -1 si el producto no existe.
+     * @throws SQLException             Si falla la actualización.
+     */
+    public int increaseStock(int productId, int quantity) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             CallableStatement cstmt = conn.prepareCall(SQL_INCREASE_STOCK)) {
+
+            cstmt.setInt(1, quantity);
+            cstmt.setInt(2, productId);
+            cstmt.registerOutParameter(3, Types.INTEGER);
+            cstmt.execute();
+            return cstmt.getInt(3);
+        }
+    }
+
+    /**
+     * Fija el stock a un valor absoluto (recuento físico) en una transacción: bloquea la fila con
+     * SELECT ... FOR UPDATE, lee el stock anterior y escribe el contado. Una venta que llegue entre medias
+     * espera al commit, así que la diferencia devuelta es exactamente la que se corrige.
+     *
+     * @param productId                 ID del producto a ajustar.
+     * @param countedStock              Stock contado (no negativo).
+     * @return                          Stock anterior al ajuste; -1 si el producto no existe.
+     * @throws SQLException             Si falla la lectura o la actualización.
+     */
+    public int setStock(int productId, int countedStock) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int previous;
+                try (PreparedStatement pstmt = conn.prepareStatement(SQL_LOCK_STOCK)) {
+                    pstmt.setInt(1, productId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (!rs.next()) {
+                            conn.rollback();
+                            return -1;
+                        }
+                        previous = rs.getInt(1);
+                    }
+                }
+                if (previous != countedStock) {
+                    try (PreparedStatement pstmt = conn.prepareStatement(SQL_SET_STOCK)) {
+                        pstmt.setInt(1, countedStock);
+                        pstmt.setInt(2, productId);
+                        pstmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+                return previous;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Igual que {@link #getProductWithLowStock(int, boolean)}, leyendo de la réplica si está configurada.
+     */
+    public List<Product> getProductWithLowStock(int minimumStock) throws SQLException {
+        return getProductWithLowStock(minimumStock, false);
+    }
+
     /**
      * Busca productos cuyo stock esté por debajo del mínimo indicado.
      *
      * @param minimumStock          Cantidad límite para considerar stock crítico.
+     * @param fresh                 true para leer de la principal (datos al día) en lugar de la réplica.
      * @return                      Lista de productos en alerta.
      * @throws SQLException         Si falla la consulta.
      */
-    public List<Product> getProductWithLowStock(int minimumStock) throws SQLException {
+    public List<Product> getProductWithLowStock(int minimumStock, boolean fresh) throws SQLException {
         List<Product> lowStockProducts = new ArrayList<>();
-        String sql = "SELECT * FROM PRODUCTOS WHERE stock_actual < ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection(fresh);
+             PreparedStatement pstmt = conn.prepareStatement(SQL_LOW_STOCK)) {
 
             pstmt.setInt(1, minimumStock);
 
@@ -146,21 +338,85 @@ public class ProductDAO {
         return lowStockProducts;
     }
 
+    /**
+     * Busca productos cuyo stock TOTAL (central + todas las ubicaciones) esté por debajo del mínimo.
+     * El stock devuelto en cada producto es ese total.
+     *
+     * @param minimumStock          Cantidad límite para considerar stock crítico.
+     * @return                      Lista de productos en alerta.
+     * @throws SQLException         Si falla la consulta.
+     */
+    public List<Product> getProductWithLowTotalStock(int minimumStock) throws SQLException {
+        List<Product> lowStockProducts = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_LOW_TOTAL_STOCK)) {
+
+            pstmt.setInt(1, minimumStock);
+            pstmt.setInt(2, minimumStock);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Product product = mapRowToProduct(rs);
+                    product.setStock(rs.getInt("STOCK_TOTAL"));
+                    lowStockProducts.add(product);
+                }
+            }
+        }
+        return lowStockProducts;
+    }
+
+    /**
+     * Busca productos cuyo stock en una ubicación esté por debajo del mínimo
+     * (solo los que esa ubicación tiene o ha tenido). El stock devuelto es el de la ubicación.
+     *
+     * @param locationId            Tienda o almacén.
+     * @param minimumStock          Cantidad límite para considerar stock crítico.
+     * @return                      Lista de productos en alerta en esa ubicación.
+     * @throws SQLException         Si falla la consulta.
+     */
+    public List<Product> getProductWithLowStockAt(int locationId, int minimumStock) throws SQLException {
+        List<Product> lowStockProducts = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_LOW_STOCK_AT)) {
+
+            pstmt.setInt(1, locationId);
+            pstmt.setInt(2, minimumStock);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Product product = mapRowToProduct(rs);
+                    product.setStock(rs.getInt("STOCK_UBICACION"));
+                    lowStockProducts.add(product);
+                }
+            }
+        }
+        return lowStockProducts;
+    }
+
+    /**
+     * Igual que {@link #getProductById(int, boolean)}, leyendo de la réplica si está configurada.
+     */
+    public Product getProductById(int id) throws SQLException {
+        return getProductById(id, false);
+    }
+
     /**
      * Busca un producto específico por su ID único.
      *
      * @param id                ID del producto.
+     * @param fresh             true para leer de la principal (datos al día) en lugar de la réplica.
      * @return                  Product encontrado o null si no existe.
      * @throws SQLException     Si falla la consulta.
      */
-    public Product getProductById(int id) throws SQLException {
+    public Product getProductById(int id, boolean fresh) throws SQLException {
         // CORRECCIÓN FINAL: Usamos SELECT * para traer todo y reutilizar mapRowToProduct
         // (Es más seguro traer todo si ya mapeamos todo en el objeto)
-        String sql = "SELECT * FROM PRODUCTOS WHERE PRODUCTO_ID = ?";
         Product product = null;
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection(fresh);
+             PreparedStatement pstmt = conn.prepareStatement(SQL_BY_ID)) {
 
             pstmt.setInt(1, id);
 
@@ -173,6 +429,40 @@ public class ProductDAO {
         return product;
     }
 
+    // --- VARIANTES ASÍNCRONAS ---
+    // Se ejecutan en el DatabaseExecutor (acotado al tamaño del pool) para poder lanzar
+    // consultas independientes a la vez y componerlas (allOf, thenCombine, orTimeout...).
+
+    public CompletableFuture<Integer> getCurrentStockAsync(int productId) {
+        return DatabaseExecutor.supply(() -> getCurrentStock(productId));
+    }
+
+    public CompletableFuture<Product> insertAsync(Product product) {
+        return DatabaseExecutor.supply(() -> {
+            insert(product);
+            return product;
+        });
+    }
+
+    public CompletableFuture<List<Product>> getAllProductsAsync() {
+        return DatabaseExecutor.supply(this::getAllProducts);
+    }
+
+    public CompletableFuture<Void> updateStockAsync(int productId, int quantityChange) {
+        return DatabaseExecutor.supply(() -> {
+            updateStock(productId, quantityChange);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<Product>> getProductWithLowStockAsync(int minimumStock) {
+        return DatabaseExecutor.supply(() -> getProductWithLowStock(minimumStock));
+    }
+
+    public CompletableFuture<Product> getProductByIdAsync(int id) {
+        return DatabaseExecutor.supply(() -> getProductById(id));
+    }
+
     // --- MÉTODOS PRIVADOS (AUXILIARES) ---
 
     /**
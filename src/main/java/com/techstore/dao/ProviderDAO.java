@@ -2,6 +2,8 @@ package com.techstore.dao;
 
 import com.techstore.model.Provider;
 import com.techstore.util.DatabaseConnection;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -17,6 +19,8 @@ import java.util.List;
 
 public class ProviderDAO {
 
+    private static final Logger log = LogManager.getLogger(ProviderDAO.class);
+
     /**
      * Registra un nuevo proveedor en la base de datos.
      *
@@ -36,7 +40,7 @@ public class ProviderDAO {
             pstmt.setInt(4, provider.isActive() ? 1: 0);
 
             pstmt.executeUpdate();
-            System.out.println("Proveedor registrado: "+ provider.getName());
+            log.debug("Proveedor registrado: nombre={}", provider.getName());
         }
     }
 
@@ -51,7 +55,7 @@ public class ProviderDAO {
         List<Provider> providers = new ArrayList<>();
         String sql = "SELECT * FROM PROVEEDORES ORDER BY proveedor_id";
 
-        try(Connection conn = DatabaseConnection.getConnection();
+        try(Connection conn = DatabaseConnection.getReadConnection();
         Statement stmt = conn.createStatement();
         ResultSet rs = stmt.executeQuery(sql)){
 
@@ -2,43 +2,246 @@ package com.techstore.dao;
 
 import com.techstore.model.StockMovement;
 import com.techstore.util.DatabaseConnection;
+import com.techstore.util.DatabaseExecutor;
+import com.techstore.util.RecentMovementsBuffer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Clase de Acceso a Datos (DAO) para el historial de movimientos.
  * Registra entradas y salidas de stock y genera reportes de actividad.
+ * Cada movimiento registrado se añade también al anillo de movimientos recientes,
+ * que sirve el historial corto sin consultar la base de datos.
  *
  * @author César Gálvez
  * @version 1.0
  */
 public class StockMovementDAO {
 
+    private static final Logger log = LogManager.getLogger(StockMovementDAO.class);
+
+    private static final String SQL_INSERT =
+            "INSERT INTO MOVIMIENTOS_STOCK (producto_id, tipo, cantidad, notas, ubicacion_id) VALUES (?, ?, ?, ?, ?)";
+
+    // Consultas públicas para que SchemaPlanCheck compruebe el plan de exactamente el mismo SQL
+    public static final String SQL_RECENT =
+            "SELECT * FROM MOVIMIENTOS_STOCK ORDER BY movimiento_id DESC FETCH FIRST ? ROWS ONLY";
+    public static final String SQL_RECENT_AFTER =
+            "SELECT * FROM MOVIMIENTOS_STOCK WHERE movimiento_id > ? ORDER BY movimiento_id DESC FETCH FIRST ? ROWS ONLY";
+    public static final String SQL_BETWEEN =
+            "SELECT movimiento_id, producto_id, tipo, cantidad, fecha_mov, notas, ubicacion_id FROM MOVIMIENTOS_STOCK " +
+            "WHERE fecha_mov >= ? AND fecha_mov < ? " +
+            "UNION ALL " +
+            "SELECT movimiento_id, producto_id, tipo, cantidad, fecha_mov, notas, ubicacion_id FROM MOVIMIENTOS_STOCK_HIST " +
+            "WHERE fecha_mov >= ? AND fecha_mov < ? " +
+            "ORDER BY movimiento_id";
+    // Lo archivado entra ya agregado por producto, así que la consulta solo recorre el conjunto activo.
+    public static final String SQL_BEST_SELLERS =
+            "SELECT p.NOMBRE, SUM(m.CANTIDAD) as TOTAL_VENDIDO " +
+            "FROM (SELECT PRODUCTO_ID, CANTIDAD FROM MOVIMIENTOS_STOCK WHERE TIPO = 'VENTA' " +
+            "      UNION ALL " +
+            "      SELECT PRODUCTO_ID, CANTIDAD_TOTAL FROM MOVIMIENTOS_RESUMEN WHERE TIPO = 'VENTA') m " +
+            "JOIN PRODUCTOS p ON m.PRODUCTO_ID = p.PRODUCTO_ID " +
+            "GROUP BY p.NOMBRE " +
+            "ORDER BY TOTAL_VENDIDO DESC " +
+            "FETCH FIRST 3 ROWS ONLY";
+    public static final String SQL_LEDGER =
+            "SELECT producto_id, " +
+            "SUM(CASE WHEN tipo = 'VENTA' THEN -cantidad ELSE cantidad END) AS SALDO " +
+            "FROM (SELECT producto_id, tipo, cantidad FROM MOVIMIENTOS_STOCK WHERE ubicacion_id IS NULL " +
+            "      UNION ALL " +
+            "      SELECT producto_id, tipo, cantidad_total FROM MOVIMIENTOS_RESUMEN WHERE ubicacion_id = 0) " +
+            "GROUP BY producto_id";
+    public static final String SQL_SALES_AND_PURCHASES_SINCE =
+            "SELECT producto_id, tipo, cantidad, fecha_mov, movimiento_id FROM MOVIMIENTOS_STOCK " +
+            "WHERE fecha_mov >= ? AND tipo IN ('VENTA', 'COMPRA') ORDER BY fecha_mov";
+
+    // Cada cuánto se completa el anillo con lo que otras cajas hayan confirmado
+    private static final long RECENT_TOP_UP_MILLIS = 1_000;
+
+    private final RecentMovementsBuffer recentBuffer;
+
+    public StockMovementDAO() {
+        this(RecentMovementsBuffer.getDefault());
+    }
+
+    // Constructor para inyección de dependencias (Testing)
+    public StockMovementDAO(RecentMovementsBuffer recentBuffer) {
+        this.recentBuffer = recentBuffer;
+    }
+
     /**
      * Registra un nuevo movimiento (Venta o Compra) en la base de datos.
      * La fecha se asigna automáticamente por defecto en Oracle.
+     * Sin ubicación, el movimiento es del stock central (PRODUCTOS.stock_actual).
+     * Al terminar, asigna al objeto el ID generado y lo añade al anillo de movimientos recientes.
      *
      * @param movement Objeto StockMovement con los detalles.
      * @throws SQLException Si ocurre un error al guardar.
      */
     public void insert(StockMovement movement) throws SQLException {
-        String sql = "INSERT INTO MOVIMIENTOS_STOCK (producto_id, tipo, cantidad, notas) VALUES (?, ?, ?, ?)";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(SQL_INSERT, new String[]{"MOVIMIENTO_ID"})) {
 
             pstmt.setInt(1, movement.getProductId());
             pstmt.setString(2, movement.getType());
             pstmt.setInt(3, movement.getQuantity());
             pstmt.setString(4, movement.getNotes());
+            if (movement.getLocationId() != null) {
+                pstmt.setInt(5, movement.getLocationId());
+            } else {
+                pstmt.setNull(5, Types.INTEGER);
+            }
 
             pstmt.executeUpdate();
             // Silencio operativo: El servicio principal confirmará el éxito.
+
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    movement.setId(keys.getInt(1));
+                }
+            }
+        }
+        if (movement.getId() != null) {
+            // Copia propia (el llamador puede reutilizar su objeto); la fecha real la pone Oracle, esta es casi la misma
+            recentBuffer.append(movement.toBuilder()
+                    .date(movement.getDate() != null ? movement.getDate() : LocalDateTime.now())
+                    .build());
+        }
+    }
+
+    /**
+     * Ejecuta el INSERT de {@link #insert} dentro de una transacción que se deshace, para que la primera
+     * venta encuentre la sentencia ya parseada en la caché de la conexión. No deja ningún movimiento
+     * (solo consume un valor de la identidad) ni pasa por el anillo de recientes.
+     *
+     * @return false si no hay productos con los que probar el INSERT.
+     * @throws SQLException Si falla la base de datos.
+     */
+    public boolean primeInsert() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            int productId;
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT MIN(producto_id) FROM PRODUCTOS");
+                 ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                productId = rs.getInt(1);
+                if (rs.wasNull()) return false;
+            }
+
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(SQL_INSERT, new String[]{"MOVIMIENTO_ID"})) {
+                pstmt.setInt(1, productId);
+                pstmt.setString(2, "VENTA");
+                pstmt.setInt(3, 0);
+                pstmt.setString(4, "Calentamiento");
+                pstmt.setNull(5, Types.INTEGER);
+                pstmt.executeUpdate();
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Últimos movimientos servidos desde memoria (anillo de recientes).
+     * Si el anillo aún no se sembró (arranque sin precalentar) se siembra en esta llamada;
+     * si se piden más de los que guarda, se consulta la BBDD. En el resto de casos no hay consulta.
+     *
+     * El anillo solo recibe en vivo lo que inserta este proceso. Lo que confirman otras cajas, los lotes
+     * o los procesos aparte lo añade un hilo de fondo ({@link #startRecentTopUp()}): una vez por segundo
+     * pide a la principal los movimientos con ID mayor que el último leído de la base de datos.
+     * Es un rango sobre la clave primaria que casi siempre devuelve pocas filas o ninguna.
+     *
+     * @param limit Número máximo de movimientos.
+     * @return Lista de movimientos ordenados del más reciente al más antiguo.
+     * @throws SQLException Si hay que ir a la base de datos y falla la consulta.
+     */
+    public List<StockMovement> getLatestMovements(int limit) throws SQLException {
+        if (limit > recentBuffer.getCapacity()) {
+            return getRecentMovements(limit);
+        }
+        if (!recentBuffer.isSeeded()) {
+            seedRecentMovements();
+            startRecentTopUp();
+        }
+        return recentBuffer.getRecent(limit);
+    }
+
+    /**
+     * Arranca en un hilo daemon la actualización periódica del anillo con lo confirmado por otras cajas.
+     * Solo una por anillo: si otro DAO ya la arrancó sobre el mismo anillo, no hace nada.
+     * Un fallo de la base de datos se anota y se reintenta en el siguiente intervalo.
+     */
+    public void startRecentTopUp() {
+        if (!recentBuffer.claimRefresher()) return;
+        Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "recent-movements-topup");
+            t.setDaemon(true);
+            return t;
+        }).scheduleWithFixedDelay(() -> {
+            try {
+                topUpRecentMovements();
+            } catch (Exception e) {
+                log.debug("No se pudo actualizar el historial reciente: {}", e.getMessage());
+            }
+        }, RECENT_TOP_UP_MILLIS, RECENT_TOP_UP_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Siembra el anillo de movimientos recientes con los últimos de la base de datos (al arrancar).
+     * Lee de la principal: con la réplica retrasada faltarían los más nuevos.
+     *
+     * @return Movimientos cargados en el anillo.
+     * @throws SQLException Si falla la consulta.
+     */
+    public int seedRecentMovements() throws SQLException {
+        return recentBuffer.seed(getRecentMovements(recentBuffer.getCapacity(), true));
+    }
+
+    /**
+     * Añade al anillo los movimientos confirmados en la base de datos desde la última lectura
+     * (los de otras cajas y procesos). Lee de la principal, por el mismo motivo que la siembra.
+     * Los que este proceso ya añadió al registrarlos no se repiten.
+     *
+     * @return Movimientos añadidos.
+     * @throws SQLException Si falla la consulta.
+     */
+    public int topUpRecentMovements() throws SQLException {
+        List<StockMovement> movements = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getReadConnection(true);
+             PreparedStatement pstmt = conn.prepareStatement(SQL_RECENT_AFTER)) {
+
+            pstmt.setInt(1, recentBuffer.getHighestLoadedId());
+            pstmt.setInt(2, recentBuffer.getCapacity());
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    movements.add(mapRowToMovement(rs));
+                }
+            }
         }
+        return recentBuffer.topUp(movements);
+    }
+
+    /**
+     * Igual que {@link #getRecentMovements(int, boolean)}, leyendo de la réplica si está configurada.
+     */
+    public List<StockMovement> getRecentMovements(int limit) throws SQLException {
+        return getRecentMovements(limit, false);
     }
 
     /**
@@ -46,59 +249,79 @@ public class StockMovementDAO {
      * Utiliza sintaxis optimizada de Oracle 12c (FETCH FIRST).
      *
      * @param limit Número máximo de movimientos a recuperar.
+     * @param fresh true para leer de la principal (datos al día) en lugar de la réplica.
      * @return Lista de movimientos ordenados del más reciente al más antiguo.
      * @throws SQLException Si falla la consulta.
      */
-    public List<StockMovement> getRecentMovements(int limit) throws SQLException {
+    public List<StockMovement> getRecentMovements(int limit, boolean fresh) throws SQLException {
         List<StockMovement> movements = new ArrayList<>();
-        String sql = "SELECT * FROM MOVIMIENTOS_STOCK ORDER BY movimiento_id DESC FETCH FIRST ? ROWS ONLY";
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection(fresh);
+             PreparedStatement pstmt = conn.prepareStatement(SQL_RECENT)) {
 
             pstmt.setInt(1, limit);
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    Timestamp fecha = rs.getTimestamp("fecha_mov");
-
-                    StockMovement mov = StockMovement.builder()
-                            .id(rs.getInt("movimiento_id"))
-                            .productId(rs.getInt("producto_id"))
-                            .type(rs.getString("tipo"))
-                            .quantity(rs.getInt("cantidad"))
-                            .date(fecha != null ? fecha.toLocalDateTime() : null) // Protección contra nulos
-                            .notes(rs.getString("notas"))
-                            .build();
-                    movements.add(mov);
+                    movements.add(mapRowToMovement(rs));
+                }
+            }
+        }
+        return movements;
+    }
+
+    /**
+     * Obtiene los movimientos de un rango de fechas, incluidos los ya archivados.
+     * Consulta la tabla activa y MOVIMIENTOS_STOCK_HIST, así el archivado es transparente.
+     *
+     * @param from Fecha inicial (incluida).
+     * @param to Fecha final (excluida).
+     * @return Lista de movimientos del rango ordenados por ID.
+     * @throws SQLException Si falla la consulta.
+     */
+    public List<StockMovement> getMovementsBetween(LocalDateTime from, LocalDateTime to) throws SQLException {
+        List<StockMovement> movements = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_BETWEEN)) {
+
+            pstmt.setTimestamp(1, Timestamp.valueOf(from));
+            pstmt.setTimestamp(2, Timestamp.valueOf(to));
+            pstmt.setTimestamp(3, Timestamp.valueOf(from));
+            pstmt.setTimestamp(4, Timestamp.valueOf(to));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    movements.add(mapRowToMovement(rs));
                 }
             }
         }
         return movements;
     }
 
+    /**
+     * Igual que {@link #getBestSellers(boolean)}, leyendo de la réplica si está configurada.
+     */
+    public Map<String, Integer> getBestSellers() throws SQLException {
+        return getBestSellers(false);
+    }
+
     /**
      * Genera un ranking de los productos más vendidos.
      * Realiza una agregación (SUM) y un JOIN con la tabla de productos.
+     * Suma las ventas activas y el resumen de las ya archivadas (MOVIMIENTOS_RESUMEN).
      *
+     * @param fresh true para leer de la principal (datos al día) en lugar de la réplica.
      * @return Mapa ordenado (Top 1, Top 2...) con NombreProducto -> CantidadVendida.
      * @throws SQLException Si falla el reporte.
      */
-    public Map<String, Integer> getBestSellers() throws SQLException {
+    public Map<String, Integer> getBestSellers(boolean fresh) throws SQLException {
         // Uso LinkedHashMap para mantener el orden de inserción (El 1º sigue siendo el 1º).
         Map<String, Integer> ranking = new LinkedHashMap<>();
 
         // Este Query es una belleza. Agrupa por nombre y suma cantidades, solo tipo 'VENTA'
-        String sql = "SELECT p.NOMBRE, SUM(m.CANTIDAD) as TOTAL_VENDIDO " +
-                "FROM MOVIMIENTOS_STOCK m " +
-                "JOIN PRODUCTOS p ON m.PRODUCTO_ID = p.PRODUCTO_ID " +
-                "WHERE m.TIPO = 'VENTA' " +
-                "GROUP BY p.NOMBRE " +
-                "ORDER BY TOTAL_VENDIDO DESC " +
-                "FETCH FIRST 3 ROWS ONLY";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql);
+        try (Connection conn = DatabaseConnection.getReadConnection(fresh);
+             PreparedStatement pstmt = conn.prepareStatement(SQL_BEST_SELLERS);
              ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
@@ -110,4 +333,104 @@ public class StockMovementDAO {
         }
         return ranking;
     }
-}
\ No newline at end of file
+
+    /**
+     * Calcula el stock esperado de cada producto según el histórico de movimientos.
+     * Las ventas restan, el resto de tipos (COMPRA, AJUSTE con signo) suman.
+     * Incluye los movimientos archivados a través de su resumen por producto.
+     * Solo cuenta el stock central: los movimientos de tiendas y almacenes se cuadran con STOCK_UBICACION.
+     *
+     * @return Mapa productoId -> saldo del libro de movimientos.
+     * @throws SQLException Si falla la consulta.
+     */
+    public Map<Integer, Integer> getLedgerStockByProduct() throws SQLException {
+        Map<Integer, Integer> ledger = new HashMap<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_LEDGER);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                ledger.put(rs.getInt("producto_id"), rs.getInt("SALDO"));
+            }
+        }
+        return ledger;
+    }
+
+    /**
+     * Receptor de movimientos para recorridos en streaming (sin crear un objeto por fila).
+     */
+    @FunctionalInterface
+    public interface MovementSink {
+        void accept(int movementId, int productId, String type, int quantity, long epochMillis);
+    }
+
+    /**
+     * Recorre en una sola pasada, en orden cronológico, las ventas y compras desde una fecha.
+     * Lee por bloques grandes y entrega cada fila al receptor sin acumularlas en memoria.
+     *
+     * @param since Fecha desde la que leer (incluida).
+     * @param sink Receptor de cada movimiento.
+     * @return Número de movimientos recorridos.
+     * @throws SQLException Si falla la consulta.
+     */
+    public int streamSalesAndPurchasesSince(LocalDateTime since, MovementSink sink) throws SQLException {
+        int count = 0;
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_SALES_AND_PURCHASES_SINCE)) {
+
+            pstmt.setTimestamp(1, Timestamp.valueOf(since));
+            pstmt.setFetchSize(5000);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    sink.accept(rs.getInt(5), rs.getInt(1), rs.getString(2), rs.getInt(3), rs.getTimestamp(4).getTime());
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // --- VARIANTES ASÍNCRONAS ---
+    // Se ejecutan en el DatabaseExecutor para poder solapar consultas independientes.
+
+    public CompletableFuture<Void> insertAsync(StockMovement movement) {
+        return DatabaseExecutor.supply(() -> {
+            insert(movement);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<StockMovement>> getRecentMovementsAsync(int limit) {
+        return DatabaseExecutor.supply(() -> getRecentMovements(limit));
+    }
+
+    public CompletableFuture<Map<String, Integer>> getBestSellersAsync() {
+        return DatabaseExecutor.supply(this::getBestSellers);
+    }
+
+    public CompletableFuture<Map<Integer, Integer>> getLedgerStockByProductAsync() {
+        return DatabaseExecutor.supply(this::getLedgerStockByProduct);
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    /**
+     * Mapea una fila del ResultSet a un objeto StockMovement.
+     */
+    private StockMovement mapRowToMovement(ResultSet rs) throws SQLException {
+        Timestamp fecha = rs.getTimestamp("fecha_mov");
+
+        return StockMovement.builder()
+                .id(rs.getInt("movimiento_id"))
+                .productId(rs.getInt("producto_id"))
+                .type(rs.getString("tipo"))
+                .quantity(rs.getInt("cantidad"))
+                .date(fecha != null ? fecha.toLocalDateTime() : null) // Protección contra nulos
+                .notes(rs.getString("notas"))
+                .locationId(rs.getObject("ubicacion_id", Integer.class))
+                .build();
+    }
+}
@@ -5,4 +5,9 @@ public class TechStoreException extends Exception {
     public TechStoreException(String message) {
         super(message);
     }
+
+    // Conserva el error original (y su traza) cuando el fallo viene de otra capa u otro hilo
+    public TechStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
@@ -0,0 +1,35 @@
+package com.techstore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva: filas leídas, cargadas y rechazadas con su motivo.
+ */
+@Data
+public class ImportReport {
+    private String source;                                  // Archivo de origen
+    private int rowsRead;
+    private int imported;
+    private String fatalError;                              // Error que impidió procesar el archivo (null si no hubo)
+    private final List<RejectedRow> rejected = new ArrayList<>();
+
+    public ImportReport(String source) {
+        this.source = source;
+    }
+
+    public void reject(int rowNumber, String sku, String reason) {
+        rejected.add(new RejectedRow(rowNumber, sku, reason));
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class RejectedRow {
+        private int rowNumber;          // Número de fila en el archivo (base 0, como POI)
+        private String sku;             // Puede ser null si la fila no llegó a leerse
+        private String reason;
+    }
+}
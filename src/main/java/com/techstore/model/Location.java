@@ -0,0 +1,19 @@
+package com.techstore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+
+public class Location {
+    private Integer id;               // ubicacion_id
+    private String code;             // codigo (corto, único: "T01", "ALM")
+    private String name;             // nombre
+    private String type;             // tipo ('TIENDA' o 'ALMACEN')
+    private boolean active;          // activo ( 1 = true, 0 = false)
+}
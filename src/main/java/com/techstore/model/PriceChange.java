@@ -0,0 +1,26 @@
+package com.techstore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Petición de cambio masivo de precios.
+ * Se indica exactamente un ámbito: categoría, proveedor o lista de SKUs.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceChange {
+    private PriceChangeMode mode;
+    private BigDecimal value;           // Porcentaje o importe, según mode (puede ser negativo)
+    private Integer categoryId;         // Ámbito: todos los productos de la categoría
+    private Integer providerId;         // Ámbito: todos los productos del proveedor
+    private List<String> skus;          // Ámbito: productos concretos
+    private String reason;              // Motivo que queda en la auditoría
+}
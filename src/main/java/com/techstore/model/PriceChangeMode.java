@@ -0,0 +1,9 @@
+package com.techstore.model;
+
+/**
+ * Forma de aplicar un cambio masivo de precios sobre el precio de venta actual.
+ */
+public enum PriceChangeMode {
+    PORCENTAJE,     // +10 = subir un 10 %, -15 = rebajar un 15 %
+    IMPORTE         // Suma (o resta, si es negativo) un importe fijo
+}
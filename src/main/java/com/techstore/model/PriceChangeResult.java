@@ -0,0 +1,16 @@
+package com.techstore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Resultado de un cambio masivo de precios.
+ */
+@Data
+@AllArgsConstructor
+public class PriceChangeResult {
+    private long batchId;               // lote_id en PRECIOS_AUDITORIA
+    private int updated;                // Productos con precio cambiado
+    private int chunks;                 // Transacciones confirmadas
+    private long millis;
+}
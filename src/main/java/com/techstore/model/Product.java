@@ -9,7 +9,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data // Genera Getters, setters, toString, equals y hashCode automágicamente
-@Builder //Genera el constructor con todos los argumentos
+@Builder(toBuilder = true) //Genera el constructor con todos los argumentos (y copias con cambios)
 @NoArgsConstructor // Genera el constructor vacío (necesario para JPA/Hibernate más adelante)
 @AllArgsConstructor
 
@@ -0,0 +1,18 @@
+package com.techstore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Resultado de una conciliación de stock contra el libro de movimientos.
+ */
+@Data
+@AllArgsConstructor
+public class ReconciliationReport {
+    private long productsChecked;
+    private int partitions;
+    private long millis;
+    private List<StockDrift> drifts;    // Ordenados de mayor a menor diferencia absoluta
+}
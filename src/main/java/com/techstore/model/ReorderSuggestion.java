@@ -0,0 +1,25 @@
+package com.techstore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+
+public class ReorderSuggestion {
+    private Integer productId;
+    private String sku;
+    private String name;
+    private Integer providerId;         // Proveedor al que pedir (puede ser null)
+    private int stock;                  // Stock actual
+    private double dailySales;          // Unidades/día (media móvil exponencial)
+    private double daysOfCover;         // Días que aguanta el stock al ritmo actual
+    private int reorderQuantity;        // Unidades sugeridas para el pedido
+    private LocalDateTime lastRestock;  // Última COMPRA vista (null si no hay)
+}
@@ -0,0 +1,32 @@
+package com.techstore.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento inmutable que describe un cambio ya confirmado en la base de datos.
+ * Es inmutable (@Value) porque viaja entre hilos hacia los suscriptores.
+ * Casi siempre es el stock de un producto; PRECIOS es la excepción: cambio de catálogo sin productId
+ * y con oldStock/newStock a 0 (ver {@link StockChangeType}).
+ */
+@Value
+@Builder
+public class StockChangeEvent {
+    StockChangeType type;
+    Integer productId;          // null en PRECIOS
+    String sku;                 // Puede ser null si el origen no lo conoce
+    int oldStock;
+    int newStock;
+    String reason;
+    Product product;            // Solo en IMPORTACION: el producto recién creado
+    Integer locationId;         // Ubicación cuyo stock cambió (null = stock central de PRODUCTOS)
+    Integer movementId;         // MOVIMIENTOS_STOCK.movimiento_id registrado con el cambio (null si no deja movimiento)
+    LocalDateTime timestamp;
+
+    /** Variación neta de stock (negativa en ventas). */
+    public int getDelta() {
+        return newStock - oldStock;
+    }
+}
@@ -0,0 +1,16 @@
+package com.techstore.model;
+
+/**
+ * Tipos de cambio que se publican en el bus de eventos.
+ * VENTA, COMPRA y AJUSTE son movimientos de stock y coinciden con los valores de la columna 'tipo'
+ * de MOVIMIENTOS_STOCK; IMPORTACION y PRECIOS no dejan movimiento.
+ * Todos llevan productId salvo PRECIOS, que afecta a muchos productos a la vez: sin productId y con
+ * stock anterior y nuevo a 0 (delta 0). Un suscriptor que use el producto o el stock debe filtrar por tipo.
+ */
+public enum StockChangeType {
+    VENTA,          // Salida por venta en caja
+    COMPRA,         // Entrada por reabastecimiento
+    IMPORTACION,    // Alta de producto desde carga masiva (stock inicial sin movimiento)
+    AJUSTE,         // Corrección manual tras un recuento
+    PRECIOS         // Cambio masivo de precios (sin movimiento ni productId): el catálogo en memoria debe recargarse
+}
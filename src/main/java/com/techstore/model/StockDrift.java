@@ -0,0 +1,25 @@
+package com.techstore.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Descuadre de un producto: el stock central de PRODUCTOS no coincide con el saldo del libro de movimientos.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockDrift {
+    private int productId;
+    private String sku;
+    private int stock;                  // PRODUCTOS.stock_actual
+    private int ledgerStock;            // Saldo de movimientos centrales (activos + resumen archivado)
+
+    /** Diferencia con signo (positiva = hay más stock del que justifican los movimientos). */
+    public int getDifference() {
+        return stock - ledgerStock;
+    }
+}
@@ -7,7 +7,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 
@@ -18,4 +18,5 @@ public class StockMovement {
     private Integer quantity;
     private LocalDateTime date;
     private String notes;
+    private Integer locationId;         // ubicacion_id (null = stock central)
 }
\ No newline at end of file
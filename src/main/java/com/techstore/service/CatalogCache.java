@@ -0,0 +1,257 @@
+package com.techstore.service;
+
+import com.techstore.dao.ProductDAO;
+import com.techstore.model.Product;
+import com.techstore.model.StockChangeEvent;
+import com.techstore.model.StockChangeType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caché en memoria del catálogo de productos (ordenado por ID).
+ * Se precarga en el arranque, se mantiene al día con los eventos de stock de esta aplicación,
+ * se recarga entera tras un cambio masivo de precios publicado en el bus (evento PRECIOS)
+ * y desde Oracle cuando supera su TTL (para recoger cambios de otras cajas).
+ *
+ * Si la base de datos no responde, sigue sirviendo lo último que tenga (o la instantánea local
+ * cargada con {@link #seed}) marcado como "posiblemente desactualizado", y reintenta la recarga
+ * en segundo plano sin bloquear al que consulta.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class CatalogCache {
+
+    private static final long DEFAULT_TTL_MILLIS = 60 * 1000L;
+    private static final int EVENT_BACKLOG = 10_000;
+    private static final long STALE_RETRY_MILLIS = 15 * 1000L;
+
+    private static final Logger log = LogManager.getLogger(CatalogCache.class);
+
+    private final ProductDAO productDAO;
+    private final long ttlMillis;
+
+    // Cada recarga construye un mapa nuevo y lo publica de una vez: nadie ve el catálogo vacío o a medias
+    private volatile ConcurrentSkipListMap<Integer, Product> products = new ConcurrentSkipListMap<>();
+    private volatile long loadedAt;     // 0 = nunca cargado desde Oracle
+    private volatile boolean stale;     // Datos de la instantánea o de antes de perder la conexión
+    private volatile long dataAsOf;     // Momento al que corresponden los datos servidos
+    private volatile long retryAt;      // Próximo intento de recarga estando desactualizada
+    private final AtomicBoolean reloading = new AtomicBoolean();
+
+    public CatalogCache() {
+        this(new ProductDAO(), DEFAULT_TTL_MILLIS);
+    }
+
+    public CatalogCache(ProductDAO productDAO, long ttlMillis) {
+        this.productDAO = productDAO;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Carga (o recarga) el catálogo completo desde la base de datos.
+     *
+     * @return Número de productos en caché.
+     * @throws SQLException Si falla la consulta.
+     */
+    public synchronized int load() throws SQLException {
+        long startedAt = System.currentTimeMillis(); // Lo confirmado antes de la consulta seguro que entra
+        ConcurrentSkipListMap<Integer, Product> fresh = new ConcurrentSkipListMap<>();
+        for (Product p : productDAO.getAllProducts()) {
+            fresh.put(p.getId(), p);
+        }
+        products = fresh;
+        loadedAt = System.currentTimeMillis();
+        dataAsOf = startedAt;
+        stale = false;
+        return fresh.size();
+    }
+
+    /**
+     * Recarga el catálogo si sus datos son anteriores al momento indicado (un cambio confirmado en la BBDD).
+     * Si ya se recargó después de ese momento no hace nada, así varios interesados en el mismo cambio
+     * provocan una sola recarga.
+     *
+     * @param changedAt Momento del cambio (epoch millis).
+     * @return El catálogo ordenado por ID, ya incluyendo el cambio.
+     * @throws SQLException Si hace falta recargar y falla la consulta.
+     */
+    public synchronized List<Product> refreshIfOlderThan(long changedAt) throws SQLException {
+        if (stale || dataAsOf < changedAt) {
+            load();
+        }
+        return new ArrayList<>(products.values());
+    }
+
+    /**
+     * Rellena la caché con datos locales (instantánea en disco) mientras no haya datos de Oracle.
+     * Quedan marcados como desactualizados hasta el primer {@link #load()} correcto.
+     *
+     * @param snapshot Productos de la instantánea.
+     * @param asOf     Momento en que se guardó la instantánea (epoch millis).
+     * @return false si la caché ya tenía datos de la base de datos (no se toca).
+     */
+    public synchronized boolean seed(Collection<Product> snapshot, long asOf) {
+        if (isLoaded()) return false;
+        ConcurrentSkipListMap<Integer, Product> restored = new ConcurrentSkipListMap<>();
+        for (Product p : snapshot) {
+            restored.put(p.getId(), p);
+        }
+        products = restored;
+        dataAsOf = asOf;
+        stale = true;
+        retryAt = System.currentTimeMillis() + STALE_RETRY_MILLIS;
+        return true;
+    }
+
+    /**
+     * Devuelve el catálogo ordenado por ID, recargándolo si está caducado.
+     * Si la recarga falla pero hay datos en caché, los devuelve y la marca como desactualizada.
+     *
+     * @throws SQLException Si hay que recargar, falla la consulta y no hay nada en caché.
+     */
+    public List<Product> getProducts() throws SQLException {
+        if (stale) {
+            // Con datos desactualizados no hacemos esperar a nadie: se reintenta en segundo plano
+            if (System.currentTimeMillis() >= retryAt) {
+                reloadInBackground();
+            }
+        } else if (isExpired()) {
+            try {
+                load();
+            } catch (SQLException e) {
+                if (products.isEmpty()) throw e;
+                markStale(e);
+            }
+        }
+        return new ArrayList<>(products.values());
+    }
+
+    /**
+     * Productos con stock por debajo del límite, calculados sobre la caché.
+     * Sirve de respaldo al radar cuando no hay conexión.
+     */
+    public List<Product> getLowStock(int minimumStock) throws SQLException {
+        List<Product> result = new ArrayList<>();
+        for (Product p : getProducts()) {
+            if (p.getStock() != null && p.getStock() < minimumStock) {
+                result.add(p);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Busca un producto en caché sin ir a la base de datos.
+     *
+     * @return El producto o null si no está en caché.
+     */
+    public Product get(int productId) {
+        return products.get(productId);
+    }
+
+    public boolean isLoaded() {
+        return loadedAt != 0;
+    }
+
+    /**
+     * true si los datos vienen de la instantánea local o de antes de perder la conexión.
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Momento (epoch millis) al que corresponden los datos servidos; 0 si no hay datos.
+     */
+    public long getDataAsOf() {
+        return dataAsOf;
+    }
+
+    /**
+     * Mantiene la caché al día con los cambios de stock publicados en el bus
+     * y la recarga entera tras un cambio masivo de precios.
+     */
+    public StockEventBus.Subscription subscribeTo(StockEventBus bus) {
+        return bus.subscribe("catalog-cache", EVENT_BACKLOG, this::apply);
+    }
+
+    private void apply(StockChangeEvent event) {
+        if (event.getType() == StockChangeType.PRECIOS) {
+            try {
+                refreshIfOlderThan(toEpochMillis(event.getTimestamp()));
+            } catch (SQLException e) {
+                markStale(e); // Se reintenta en segundo plano como cualquier recarga fallida
+            }
+            return;
+        }
+        if (event.getType() == StockChangeType.IMPORTACION && event.getProduct() != null) {
+            products.put(event.getProductId(), event.getProduct());
+            return;
+        }
+        if (event.getLocationId() != null) {
+            return; // Stock de una tienda o almacén: el stock central de la caché no cambia
+        }
+        Product cached = products.get(event.getProductId());
+        if (cached != null) {
+            // Aplicamos la variación (no el valor absoluto): con varias cajas a la vez es lo único fiable.
+            // Sustituimos el objeto en lugar de modificarlo, porque los listados ya entregados lo comparten.
+            products.put(cached.getId(), withStock(cached, cached.getStock() + event.getDelta()));
+        }
+    }
+
+    private boolean isExpired() {
+        return loadedAt == 0 || System.currentTimeMillis() - loadedAt > ttlMillis;
+    }
+
+    private void markStale(SQLException cause) {
+        stale = true;
+        retryAt = System.currentTimeMillis() + STALE_RETRY_MILLIS;
+        log.warn("Sin conexión al recargar el catálogo, se sirven datos desactualizados: {}", cause.getMessage());
+    }
+
+    private void reloadInBackground() {
+        if (!reloading.compareAndSet(false, true)) return;
+        retryAt = System.currentTimeMillis() + STALE_RETRY_MILLIS;
+        CompletableFuture.runAsync(() -> {
+            try {
+                int count = load();
+                log.info("Catálogo de nuevo en vivo: {} productos", count);
+            } catch (SQLException e) {
+                log.debug("La base de datos sigue sin responder: {}", e.getMessage());
+            } finally {
+                reloading.set(false);
+            }
+        });
+    }
+
+    static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static Product withStock(Product p, int stock) {
+        return Product.builder()
+                .id(p.getId())
+                .sku(p.getSku())
+                .name(p.getName())
+                .description(p.getDescription())
+                .price(p.getPrice())
+                .costPrice(p.getCostPrice())
+                .stock(stock)
+                .categoryId(p.getCategoryId())
+                .providerId(p.getProviderId())
+                .active(p.isActive())
+                .createdAt(p.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,360 @@
+package com.techstore.service;
+
+import com.techstore.model.Product;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+import static org.apache.logging.log4j.util.Unbox.box;
+
+/**
+ * Instantánea local del catálogo en un archivo binario compacto, leído y escrito con memoria mapeada.
+ * Permite arrancar con el catálogo, la búsqueda y el radar disponibles al instante (aunque Oracle
+ * tarde o no responda) y se refresca periódicamente y cuando cambia el stock.
+ *
+ * Formato (big-endian):
+ *   cabecera:  MAGIC (int) | VERSION (int) | guardado en (long, epoch millis) | nº productos (int)
+ *   producto:  id | sku | nombre | descripcion | precio | coste | stock | categoria | proveedor | activo | creado_en
+ *   final:     CRC32 de todo lo anterior (long)
+ * Textos: longitud en bytes (int, -1 = null) + UTF-8. Importes: escala (byte, MIN_VALUE = null) + valor sin escala (long).
+ * Enteros opcionales: Integer.MIN_VALUE = null. Fechas: segundos desde epoch (long, MIN_VALUE = null).
+ *
+ * Ruta y frecuencia se configuran con -Dtechstore.snapshot.path (por defecto data/catalogo.snap)
+ * y -Dtechstore.snapshot.interval.seconds (por defecto 60).
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class CatalogSnapshotService implements AutoCloseable {
+
+    private static final Logger log = LogManager.getLogger(CatalogSnapshotService.class);
+
+    private static final int MAGIC = 0x54534E50; // "TSNP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+    private static final int EVENT_BACKLOG = 10_000;
+
+    private final Path file;
+    private final long intervalSeconds;
+    private final CatalogCache catalogCache;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private volatile long lastSavedDataAsOf;
+    private ScheduledExecutorService scheduler;
+
+    public CatalogSnapshotService(CatalogCache catalogCache) {
+        this(catalogCache,
+                Paths.get(System.getProperty("techstore.snapshot.path", "data/catalogo.snap")),
+                Long.getLong("techstore.snapshot.interval.seconds", 60));
+    }
+
+    public CatalogSnapshotService(CatalogCache catalogCache, Path file, long intervalSeconds) {
+        this.catalogCache = catalogCache;
+        this.file = file;
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    /**
+     * Instantánea leída del disco.
+     */
+    public static final class Snapshot {
+        private final long savedAt;
+        private final List<Product> products;
+
+        private Snapshot(long savedAt, List<Product> products) {
+            this.savedAt = savedAt;
+            this.products = products;
+        }
+
+        public long getSavedAt() {
+            return savedAt;
+        }
+
+        public List<Product> getProducts() {
+            return products;
+        }
+    }
+
+    /**
+     * Carga la instantánea en la caché del catálogo (marcada como desactualizada).
+     *
+     * @return La instantánea aplicada o null si no existe, está dañada o la caché ya tenía datos en vivo.
+     */
+    public Snapshot restore() {
+        Snapshot snapshot = read();
+        if (snapshot == null || !catalogCache.seed(snapshot.getProducts(), snapshot.getSavedAt())) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Marca la instantánea como pendiente de guardar cada vez que cambia el stock.
+     */
+    public StockEventBus.Subscription subscribeTo(StockEventBus bus) {
+        return bus.subscribe("catalog-snapshot", EVENT_BACKLOG, event -> dirty.set(true));
+    }
+
+    /**
+     * Arranca el refresco periódico en un hilo daemon: guarda si hubo cambios o si la caché se recargó.
+     */
+    public synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "catalog-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::refreshIfNeeded, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Guarda ya el catálogo en caché, siempre que sean datos en vivo
+     * (nunca se sobrescribe la instantánea con sus propios datos desactualizados).
+     * Se llama desde el refresco periódico, el precalentamiento y el cierre: las escrituras van
+     * de una en una, porque todas usan el mismo temporal.
+     *
+     * @return true si se escribió.
+     */
+    public synchronized boolean saveNow() {
+        if (!catalogCache.isLoaded() || catalogCache.isStale()) return false;
+        try {
+            long asOf = catalogCache.getDataAsOf();
+            dirty.set(false);
+            List<Product> products = catalogCache.getProducts();
+            long t0 = System.nanoTime();
+            long bytes = write(products, System.currentTimeMillis());
+            lastSavedDataAsOf = asOf;
+            log.debug("Instantánea del catálogo: {} productos, {} bytes en {} ms",
+                    box(products.size()), box(bytes), box((System.nanoTime() - t0) / 1_000_000));
+            return true;
+        } catch (Exception e) {
+            dirty.set(true);
+            log.warn("No se pudo guardar la instantánea del catálogo: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Detiene el refresco periódico, espera a que termine un guardado en curso y hace el último.
+     * La espera va fuera del monitor: el guardado en curso lo necesita para terminar.
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = scheduler;
+            scheduler = null;
+        }
+        if (running != null) {
+            running.shutdown();
+            try {
+                if (!running.awaitTermination(30, TimeUnit.SECONDS)) {
+                    log.warn("El guardado periódico de la instantánea no terminó a tiempo");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        saveNow();
+    }
+
+    /**
+     * Lee la instantánea del disco sin tocar la caché.
+     *
+     * @return La instantánea o null si no existe o no es válida.
+     */
+    public Snapshot read() {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + 8 || size > Integer.MAX_VALUE) {
+                log.warn("Instantánea del catálogo con tamaño inválido ({} bytes), se ignora", box(size));
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().limit((int) size - 8));
+            if (buffer.getLong((int) size - 8) != crc.getValue()) {
+                log.warn("Instantánea del catálogo dañada (CRC), se ignora");
+                return null;
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                log.warn("Instantánea del catálogo con formato desconocido, se ignora");
+                return null;
+            }
+            long savedAt = buffer.getLong();
+            int count = buffer.getInt();
+            List<Product> products = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                products.add(readProduct(buffer));
+            }
+            return new Snapshot(savedAt, products);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            log.warn("No se pudo leer la instantánea del catálogo: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    private void refreshIfNeeded() {
+        if (dirty.get() || catalogCache.getDataAsOf() != lastSavedDataAsOf) {
+            saveNow();
+        }
+    }
+
+    /**
+     * Escribe en un temporal mapeado y lo renombra encima del anterior,
+     * para que un lector nunca vea un archivo a medias.
+     */
+    private long write(List<Product> products, long savedAt) throws IOException {
+        // Primera pasada: codificar textos y calcular el tamaño exacto
+        byte[][] texts = new byte[products.size() * 3][];
+        long size = HEADER_BYTES + 8;
+        for (int i = 0; i < products.size(); i++) {
+            Product p = products.get(i);
+            texts[i * 3] = utf8(p.getSku());
+            texts[i * 3 + 1] = utf8(p.getName());
+            texts[i * 3 + 2] = utf8(p.getDescription());
+            size += 4 + 3 * 4 + 2 * 9 + 3 * 4 + 1 + 8;
+            for (int t = 0; t < 3; t++) {
+                if (texts[i * 3 + t] != null) size += texts[i * 3 + t].length;
+            }
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Catálogo demasiado grande para la instantánea (" + size + " bytes)");
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = parent.resolve(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(savedAt).putInt(products.size());
+            for (int i = 0; i < products.size(); i++) {
+                writeProduct(buffer, products.get(i), texts[i * 3], texts[i * 3 + 1], texts[i * 3 + 2]);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().flip());
+            buffer.putLong(crc.getValue());
+            buffer.force();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return size;
+    }
+
+    private static void writeProduct(ByteBuffer b, Product p, byte[] sku, byte[] name, byte[] description) {
+        b.putInt(p.getId());
+        putText(b, sku);
+        putText(b, name);
+        putText(b, description);
+        putDecimal(b, p.getPrice());
+        putDecimal(b, p.getCostPrice());
+        putOptionalInt(b, p.getStock());
+        putOptionalInt(b, p.getCategoryId());
+        putOptionalInt(b, p.getProviderId());
+        b.put((byte) (p.isActive() ? 1 : 0));
+        b.putLong(p.getCreatedAt() == null ? Long.MIN_VALUE : p.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+    }
+
+    private static Product readProduct(ByteBuffer b) {
+        int id = b.getInt();
+        String sku = getText(b);
+        String name = getText(b);
+        String description = getText(b);
+        BigDecimal price = getDecimal(b);
+        BigDecimal costPrice = getDecimal(b);
+        Integer stock = getOptionalInt(b);
+        Integer categoryId = getOptionalInt(b);
+        Integer providerId = getOptionalInt(b);
+        boolean active = b.get() == 1;
+        long created = b.getLong();
+        return Product.builder()
+                .id(id)
+                .sku(sku)
+                .name(name)
+                .description(description)
+                .price(price)
+                .costPrice(costPrice)
+                .stock(stock)
+                .categoryId(categoryId)
+                .providerId(providerId)
+                .active(active)
+                .createdAt(created == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(created, 0, ZoneOffset.UTC))
+                .build();
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putText(ByteBuffer b, byte[] bytes) {
+        if (bytes == null) {
+            b.putInt(-1);
+        } else {
+            b.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static String getText(ByteBuffer b) {
+        int len = b.getInt();
+        if (len < 0) return null;
+        byte[] bytes = new byte[len];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putDecimal(ByteBuffer b, BigDecimal value) {
+        if (value == null) {
+            b.put(Byte.MIN_VALUE).putLong(0);
+            return;
+        }
+        BigDecimal v = value.scale() < 0 ? value.setScale(0) : value;
+        if (v.scale() >= Byte.MAX_VALUE || v.unscaledValue().bitLength() > 63) {
+            throw new IllegalArgumentException("Importe fuera de rango para la instantánea: " + value);
+        }
+        b.put((byte) v.scale()).putLong(v.unscaledValue().longValueExact());
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer b) {
+        byte scale = b.get();
+        long unscaled = b.getLong();
+        return scale == Byte.MIN_VALUE ? null : BigDecimal.valueOf(unscaled, scale);
+    }
+
+    private static void putOptionalInt(ByteBuffer b, Integer value) {
+        b.putInt(value == null ? Integer.MIN_VALUE : value);
+    }
+
+    private static Integer getOptionalInt(ByteBuffer b) {
+        int v = b.getInt();
+        return v == Integer.MIN_VALUE ? null : v;
+    }
+}
@@ -0,0 +1,328 @@
+package com.techstore.service;
+
+import com.techstore.model.ImportReport;
+import com.techstore.model.Product;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Servicio de importación masiva desde CSV.
+ * Lee el formato que genera ReportService.exportInventoryToCSV (separador ';', cabecera,
+ * comillas dobles para campos con ';', comillas o saltos de línea, y "" como comilla escapada),
+ * de modo que un inventario exportado se puede volver a importar tal cual.
+ *
+ * El archivo se mapea en memoria y se recorre byte a byte: los números se convierten
+ * directamente desde los bytes y solo se crean String para los textos que necesita el Product.
+ * La validación y la escritura son las mismas que en la importación Excel (ProductImportWriter).
+ *
+ * Columnas: ID;SKU;NOMBRE;DESCRIPCION;PRECIO_VENTA;PRECIO_COSTO;STOCK;CATEGORIA;PROVEEDOR;ACTIVO
+ * (el ID se ignora: Oracle asigna uno nuevo).
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class CsvImportService {
+
+    private static final Logger log = LogManager.getLogger(CsvImportService.class);
+
+    private static final byte SEPARADOR = ';';
+    private static final byte COMILLA = '"';
+    private static final int COLUMNAS_MINIMAS = 9;
+
+    private final ProductImportWriter writer;
+
+    public CsvImportService() {
+        this(new ProductImportWriter());
+    }
+
+    // Constructor para inyección de dependencias (Testing)
+    public CsvImportService(ProductImportWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Lee un archivo CSV e inserta sus productos.
+     *
+     * @param rutaArchivo Ruta absoluta o relativa del archivo .csv
+     * @return Informe con las filas cargadas y las rechazadas (con su motivo).
+     */
+    public ImportReport cargarProductosDesdeCsv(String rutaArchivo) {
+        return cargarProductosDesdeCsv(rutaArchivo, 0, null);
+    }
+
+    /**
+     * Igual que {@link #cargarProductosDesdeCsv(String)}, con reanudación y seguimiento por fila.
+     * La fila 0 es la cabecera; los datos empiezan en la 1 (igual que en Excel).
+     *
+     * @param rutaArchivo     Ruta absoluta o relativa del archivo .csv
+     * @param resumeAfterRow  Se omiten las filas con número menor o igual (0 = desde el principio).
+     * @param onRowImported   Se invoca con el número de fila tras cada inserción correcta (puede ser null).
+     * @return Informe con las filas cargadas y las rechazadas (con su motivo).
+     */
+    public ImportReport cargarProductosDesdeCsv(String rutaArchivo, int resumeAfterRow, IntConsumer onRowImported) {
+        ImportReport report = new ImportReport(rutaArchivo);
+        ThreadContext.put("archivo", rutaArchivo);
+        try {
+            log.info("⏳ Iniciando lectura del CSV...");
+            List<ProductImportWriter.Row> filas = parse(Paths.get(rutaArchivo), resumeAfterRow, report);
+            writer.write(filas, report, "Importación CSV: " + rutaArchivo, onRowImported);
+        } catch (IOException e) {
+            log.error("Error fatal leyendo el archivo CSV: {}", e.getMessage());
+            report.setFatalError(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error inesperado: {}", e.getMessage(), e);
+            report.setFatalError(e.getMessage());
+        } finally {
+            ThreadContext.remove("archivo");
+        }
+        return report;
+    }
+
+    /**
+     * Convierte el CSV en filas de productos sin tocar la base de datos.
+     * Las filas mal formadas se anotan como rechazadas en el informe.
+     */
+    List<ProductImportWriter.Row> parse(Path path, int resumeAfterRow, ImportReport report) throws IOException {
+        List<ProductImportWriter.Row> filas = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Archivo demasiado grande para importarlo de una vez (" + size + " bytes).");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            Cursor cursor = new Cursor(buffer, (int) size);
+
+            cursor.skipBom();
+            if (cursor.hasMore()) {
+                cursor.nextRecord(); // Cabecera
+            }
+
+            int rowNumber = 0;
+            while (cursor.hasMore()) {
+                int fields = cursor.nextRecord();
+                rowNumber++;
+                if (rowNumber <= resumeAfterRow) continue;
+                if (fields == 1 && cursor.isEmpty(0) && !cursor.isUnclosed()) continue; // Línea vacía
+
+                report.setRowsRead(report.getRowsRead() + 1);
+                if (cursor.isUnclosed()) {
+                    report.reject(rowNumber, fields > 1 ? cursor.text(1) : null, "Comillas sin cerrar");
+                    continue;
+                }
+                if (fields < COLUMNAS_MINIMAS) {
+                    report.reject(rowNumber, fields > 1 ? cursor.text(1) : null, "Faltan columnas (" + fields + ")");
+                    continue;
+                }
+                try {
+                    filas.add(new ProductImportWriter.Row(rowNumber, toProduct(cursor, fields)));
+                } catch (IllegalArgumentException e) {
+                    report.reject(rowNumber, cursor.text(1), "Formato inválido: " + e.getMessage());
+                }
+            }
+        }
+        return filas;
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    private Product toProduct(Cursor c, int fields) {
+        String descripcion = c.text(3);
+        return Product.builder()
+                .sku(c.text(1))
+                .name(c.text(2))
+                .description(descripcion.isEmpty() ? null : descripcion) // El export escribe null como vacío
+                .price(c.decimal(4))
+                .costPrice(c.decimal(5))
+                .stock(c.integer(6))
+                .categoryId(c.integer(7))
+                .providerId(c.isEmpty(8) ? null : c.integer(8))
+                .active(fields < 10 || c.isEmpty(9) || c.integer(9) == 1)
+                .build();
+    }
+
+    /**
+     * Recorre los registros del buffer guardando solo las posiciones de cada campo
+     * (inicio, fin y si lleva comillas escapadas). Los arrays se reutilizan entre registros.
+     */
+    private static final class Cursor {
+        private final MappedByteBuffer buf;
+        private final int limit;
+        private int pos;
+
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private boolean[] escaped = new boolean[16];
+        private int count;
+        private boolean unclosed;
+        private byte[] scratch = new byte[256];
+
+        private Cursor(MappedByteBuffer buf, int limit) {
+            this.buf = buf;
+            this.limit = limit;
+        }
+
+        private boolean hasMore() {
+            return pos < limit;
+        }
+
+        private void skipBom() {
+            if (limit >= 3 && (buf.get(0) & 0xFF) == 0xEF && (buf.get(1) & 0xFF) == 0xBB && (buf.get(2) & 0xFF) == 0xBF) {
+                pos = 3;
+            }
+        }
+
+        /**
+         * Avanza un registro completo (puede ocupar varias líneas si hay saltos entre comillas).
+         * Si unas comillas no se cierran antes del final del archivo, el registro queda marcado
+         * ({@link #isUnclosed()}) y la lectura sigue en la línea siguiente a la que las abrió,
+         * así solo se pierde esa fila.
+         *
+         * @return Número de campos del registro.
+         */
+        private int nextRecord() {
+            count = 0;
+            unclosed = false;
+            while (true) {
+                ensureCapacity();
+                boolean fieldEscaped = false;
+                int start;
+                int end;
+
+                if (pos < limit && buf.get(pos) == COMILLA) {
+                    // Campo entre comillas: termina en una comilla que no va seguida de otra
+                    start = ++pos;
+                    while (true) {
+                        if (pos >= limit) {
+                            return skipUnclosed(start);
+                        }
+                        byte b = buf.get(pos);
+                        if (b == COMILLA) {
+                            if (pos + 1 < limit && buf.get(pos + 1) == COMILLA) {
+                                fieldEscaped = true;
+                                pos += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        pos++;
+                    }
+                    end = pos++;
+                    // Tras la comilla de cierre solo puede venir separador o fin de línea
+                    while (pos < limit && buf.get(pos) != SEPARADOR && buf.get(pos) != '\n') pos++;
+                } else {
+                    start = pos;
+                    while (pos < limit && buf.get(pos) != SEPARADOR && buf.get(pos) != '\n') pos++;
+                    end = pos;
+                    if (end > start && buf.get(end - 1) == '\r') end--;
+                }
+
+                starts[count] = start;
+                ends[count] = end;
+                escaped[count] = fieldEscaped;
+                count++;
+
+                if (pos >= limit) return count;
+                byte delimiter = buf.get(pos++);
+                if (delimiter == '\n') return count;
+            }
+        }
+
+        /** true si el último registro tenía comillas sin cerrar (sus campos no son fiables). */
+        private boolean isUnclosed() {
+            return unclosed;
+        }
+
+        private int skipUnclosed(int quoteStart) {
+            pos = quoteStart;
+            while (pos < limit && buf.get(pos) != '\n') pos++;
+            if (pos < limit) pos++;
+            unclosed = true;
+            return count;
+        }
+
+        private boolean isEmpty(int field) {
+            return ends[field] == starts[field];
+        }
+
+        /** Texto del campo (UTF-8), quitando el escape de comillas dobles. */
+        private String text(int field) {
+            int len = ends[field] - starts[field];
+            if (scratch.length < len) scratch = new byte[Math.max(len, scratch.length * 2)];
+            buf.get(starts[field], scratch, 0, len);
+            if (escaped[field]) {
+                int w = 0;
+                for (int r = 0; r < len; r++) {
+                    scratch[w++] = scratch[r];
+                    if (scratch[r] == COMILLA) r++; // "" -> "
+                }
+                len = w;
+            }
+            return new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
+
+        /** Entero leído directamente de los bytes. */
+        private int integer(int field) {
+            int i = starts[field];
+            int end = ends[field];
+            if (i == end) throw new IllegalArgumentException("número vacío en columna " + (field + 1));
+            boolean negative = buf.get(i) == '-';
+            if (negative) i++;
+            long value = 0;
+            for (; i < end; i++) {
+                int d = buf.get(i) - '0';
+                if (d < 0 || d > 9) throw new IllegalArgumentException("número inválido en columna " + (field + 1));
+                value = value * 10 + d;
+                if (value > Integer.MAX_VALUE) throw new IllegalArgumentException("número demasiado grande en columna " + (field + 1));
+            }
+            return (int) (negative ? -value : value);
+        }
+
+        /** Decimal (punto o coma) leído de los bytes como valor sin escala + escala. */
+        private BigDecimal decimal(int field) {
+            int i = starts[field];
+            int end = ends[field];
+            if (i == end) throw new IllegalArgumentException("importe vacío en columna " + (field + 1));
+            boolean negative = buf.get(i) == '-';
+            if (negative) i++;
+            long unscaled = 0;
+            int scale = -1;
+            for (; i < end; i++) {
+                byte b = buf.get(i);
+                if ((b == '.' || b == ',') && scale < 0) {
+                    scale = 0;
+                    continue;
+                }
+                int d = b - '0';
+                if (d < 0 || d > 9 || unscaled > (Long.MAX_VALUE - d) / 10) {
+                    throw new IllegalArgumentException("importe inválido en columna " + (field + 1));
+                }
+                unscaled = unscaled * 10 + d;
+                if (scale >= 0) scale++;
+            }
+            return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+        }
+
+        private void ensureCapacity() {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+                escaped = Arrays.copyOf(escaped, count * 2);
+            }
+        }
+    }
+}
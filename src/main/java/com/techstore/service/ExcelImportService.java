@@ -1,14 +1,19 @@
 package com.techstore.service;
 
-import com.techstore.dao.ProductDAO;
+import com.techstore.model.ImportReport;
 import com.techstore.model.Product;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
 import org.apache.poi.ss.usermodel.*;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
 
 /**
  * Servicio encargado de la importación masiva de datos.
@@ -19,15 +24,45 @@ import java.sql.SQLException;
  */
 public class ExcelImportService {
 
-    private final ProductDAO productDAO = new ProductDAO();
+    private static final Logger log = LogManager.getLogger(ExcelImportService.class);
+
+    private final ProductImportWriter writer;
+
+    public ExcelImportService() {
+        this(new ProductImportWriter());
+    }
+
+    // Constructor para inyección de dependencias (Testing)
+    public ExcelImportService(ProductImportWriter writer) {
+        this.writer = writer;
+    }
 
     /**
      * Lee un archivo Excel y procesa cada fila para insertar productos.
      * Omite la cabecera y maneja errores por fila individualmente.
+     * Antes de escribir nada valida en memoria que la categoría y el proveedor existan,
+     * así las filas con claves foráneas incorrectas nunca llegan a Oracle.
      *
      * @param rutaArchivo Ruta absoluta o relativa del archivo .xlsx
+     * @return Informe con las filas cargadas y las rechazadas (con su motivo).
+     */
+    public ImportReport cargarProductosDesdeExcel(String rutaArchivo) {
+        return cargarProductosDesdeExcel(rutaArchivo, 0, null);
+    }
+
+    /**
+     * Igual que {@link #cargarProductosDesdeExcel(String)}, pero permite reanudar una importación
+     * interrumpida y seguir su avance fila a fila (para guardar puntos de control).
+     *
+     * @param rutaArchivo     Ruta absoluta o relativa del archivo .xlsx
+     * @param resumeAfterRow  Se omiten las filas con número menor o igual (0 = desde el principio).
+     * @param onRowImported   Se invoca con el número de fila tras cada inserción correcta (puede ser null).
+     * @return Informe con las filas cargadas y las rechazadas (con su motivo).
      */
-    public void cargarProductosDesdeExcel(String rutaArchivo) {
+    public ImportReport cargarProductosDesdeExcel(String rutaArchivo, int resumeAfterRow, IntConsumer onRowImported) {
+        ImportReport report = new ImportReport(rutaArchivo);
+        // Contexto común a todas las líneas de log de esta importación
+        ThreadContext.put("archivo", rutaArchivo);
 
         // Try-with-resources para asegurar que el archivo se cierra al terminar
         try (FileInputStream file = new FileInputStream(new File(rutaArchivo));
@@ -36,63 +71,69 @@ public class ExcelImportService {
             // Leemos la primera hoja (índice 0)
             Sheet sheet = workbook.getSheetAt(0);
 
-            int contador = 0;
-            System.out.println("⏳ Iniciando lectura de filas del Excel...");
+            log.info("⏳ Iniciando lectura de filas del Excel...");
 
-            // Iteramos sobre las filas
+            // 1. Lectura: convertimos las filas a productos sin tocar la BBDD
+            List<ProductImportWriter.Row> filas = new ArrayList<>();
             for (Row row : sheet) {
-                // Saltamos la cabecera (Fila 0) o filas vacías
+                // Saltamos la cabecera (Fila 0), filas vacías y las ya importadas en un intento anterior
                 if (row.getRowNum() == 0 || row == null) continue;
+                if (row.getRowNum() <= resumeAfterRow) continue;
 
-                // Extraemos datos celda por celda
-                try {
-                    // Verificación de seguridad básica para celdas nulas
-                    if (row.getCell(0) == null) continue;
-
-                    String nombre = row.getCell(0).getStringCellValue();
-                    String descripcion = row.getCell(1).getStringCellValue();
-                    String sku = row.getCell(2).getStringCellValue();
-
-                    // POI devuelve números como double. Convertimos.
-                    double precioVenta = row.getCell(3).getNumericCellValue();
-                    double precioCosto = row.getCell(4).getNumericCellValue();
-                    double stock = row.getCell(5).getNumericCellValue();
-                    double catId = row.getCell(6).getNumericCellValue();
-                    double provId = row.getCell(7).getNumericCellValue();
-
-                    // Construimos el Producto
-                    Product producto = Product.builder()
-                            .name(nombre)
-                            .description(descripcion)
-                            .sku(sku)
-                            .price(BigDecimal.valueOf(precioVenta))
-                            .costPrice(BigDecimal.valueOf(precioCosto))
-                            .stock((int) stock)      // Cast a entero
-                            .categoryId((int) catId) // Cast a entero
-                            .providerId((int) provId)// Cast a entero
-                            .active(true)
-                            .build();
-
-                    // Insertamos en Base de Datos de forma segura
-                    try {
-                        productDAO.insert(producto);
-                        contador++;
-                        // Feedback visual (punto por cada carga)
-                        System.out.print(".");
-                    } catch (SQLException e) {
-                        System.out.println("\nError al insertar SKU " + sku + ": " + e.getMessage());
-                    }
+                // Verificación de seguridad básica para celdas nulas
+                if (row.getCell(0) == null) continue;
 
+                report.setRowsRead(report.getRowsRead() + 1);
+                try {
+                    filas.add(new ProductImportWriter.Row(row.getRowNum(), leerProducto(row)));
                 } catch (Exception e) {
-                    System.err.println("\n⚠️ Fila " + row.getRowNum() + " omitida: Formato de celda inválido o incompleto.");
+                    report.reject(row.getRowNum(), null, "Formato de celda inválido o incompleto");
                 }
             }
-            System.out.println("\nIMPORTACIÓN COMPLETADA. Productos cargados exitosamente: " + contador);
+
+            // 2. Validación y escritura (camino común a todas las importaciones)
+            writer.write(filas, report, "Importación Excel: " + rutaArchivo, onRowImported);
 
         } catch (IOException e) {
-            System.err.println("Error fatal leyendo el archivo Excel: " + e.getMessage());
+            log.error("Error fatal leyendo el archivo Excel: {}", e.getMessage());
+            report.setFatalError(e.getMessage());
         } catch (Exception e) {
-            System.err.println("Error inesperado: " + e.getMessage());
+            log.error("Error inesperado: {}", e.getMessage(), e);
+            report.setFatalError(e.getMessage());
+        } finally {
+            ThreadContext.remove("archivo");
         }
+        return report;
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    /**
+     * Extrae un producto de una fila del Excel (celdas 0-7).
+     */
+    private Product leerProducto(Row row) {
+        String nombre = row.getCell(0).getStringCellValue();
+        String descripcion = row.getCell(1).getStringCellValue();
+        String sku = row.getCell(2).getStringCellValue();
+
+        // POI devuelve números como double. Convertimos.
+        double precioVenta = row.getCell(3).getNumericCellValue();
+        double precioCosto = row.getCell(4).getNumericCellValue();
+        double stock = row.getCell(5).getNumericCellValue();
+        double catId = row.getCell(6).getNumericCellValue();
+        double provId = row.getCell(7).getNumericCellValue();
+
+        // Construimos el Producto
+        return Product.builder()
+                .name(nombre)
+                .description(descripcion)
+                .sku(sku)
+                .price(BigDecimal.valueOf(precioVenta))
+                .costPrice(BigDecimal.valueOf(precioCosto))
+                .stock((int) stock)      // Cast a entero
+                .categoryId((int) catId) // Cast a entero
+                .providerId((int) provId)// Cast a entero
+                .active(true)
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,339 @@
+package com.techstore.service;
+
+import com.techstore.model.ImportReport;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.apache.logging.log4j.util.Unbox.box;
+
+/**
+ * Servicio de ingesta por carpeta de entrada ("drop folder").
+ * Vigila un directorio con WatchService y procesa los archivos que dejan los proveedores
+ * en paralelo con un pool acotado de trabajadores. Cada archivo guarda puntos de control
+ * para que, si la aplicación cae, al reiniciar continúe donde se quedó.
+ * Al terminar, el archivo pasa a 'archivados' (con su informe) o a 'cuarentena' si no se pudo procesar;
+ * en los dos casos se borra su punto de control.
+ *
+ * El punto de control guarda, además de la última fila confirmada, el tamaño y la fecha de modificación
+ * del archivo: los proveedores repiten nombres, y un checkpoint solo se aplica al mismo archivo que lo escribió.
+ * Formatos admitidos: .xlsx y .csv (el mismo formato que genera la exportación de inventario).
+ *
+ * Estructura de carpetas (se crean si no existen):
+ *   entrada/               archivos pendientes
+ *   entrada/archivados/    procesados correctamente
+ *   entrada/cuarentena/    ilegibles, formato no soportado o error fatal
+ *   entrada/.checkpoints/  avance de cada archivo en curso
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class ImportWatcherService implements AutoCloseable {
+
+    private static final Logger log = LogManager.getLogger(ImportWatcherService.class);
+
+    private static final int CHECKPOINT_EVERY_ROWS = 50;
+    private static final long STABLE_WAIT_MILLIS = 1000;   // Un archivo se da por copiado si no cambia en este tiempo
+    private static final int MAX_PENDING_FILES = 100;
+
+    private final Path inbox;
+    private final Path archiveDir;
+    private final Path quarantineDir;
+    private final Path checkpointDir;
+    private final ExcelImportService excelImportService;
+    private final CsvImportService csvImportService;
+    private final ThreadPoolExecutor workers;
+    private final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running;
+    private Thread watcherThread;
+
+    public ImportWatcherService(Path inbox, int workerCount) {
+        this(inbox, workerCount, new ExcelImportService(), new CsvImportService());
+    }
+
+    public ImportWatcherService(Path inbox, int workerCount, ExcelImportService excelImportService,
+                                CsvImportService csvImportService) {
+        this.inbox = inbox;
+        this.archiveDir = inbox.resolve("archivados");
+        this.quarantineDir = inbox.resolve("cuarentena");
+        this.checkpointDir = inbox.resolve(".checkpoints");
+        this.excelImportService = excelImportService;
+        this.csvImportService = csvImportService;
+
+        AtomicInteger counter = new AtomicInteger();
+        // Cola acotada: si se llena, el hilo vigilante espera (ver submit) en lugar de acumular sin límite
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_PENDING_FILES),
+                r -> new Thread(r, "ingesta-" + counter.incrementAndGet()));
+    }
+
+    /**
+     * Crea las carpetas, encola lo que ya había en la entrada (incluidos archivos a medias
+     * de una ejecución anterior) y empieza a vigilar nuevos archivos en segundo plano.
+     *
+     * @throws IOException Si no se pueden crear las carpetas o registrar la vigilancia.
+     */
+    public void start() throws IOException {
+        Files.createDirectories(archiveDir);
+        Files.createDirectories(quarantineDir);
+        Files.createDirectories(checkpointDir);
+
+        WatchService watchService = FileSystems.getDefault().newWatchService();
+        inbox.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        running = true;
+
+        // Lo que llegó mientras la aplicación estaba parada
+        try (DirectoryStream<Path> existing = Files.newDirectoryStream(inbox, Files::isRegularFile)) {
+            for (Path file : existing) {
+                submit(file);
+            }
+        }
+
+        watcherThread = new Thread(() -> watch(watchService), "ingesta-vigilante");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        log.info("Vigilando carpeta de entrada {} con {} trabajadores", inbox.toAbsolutePath(), workers.getCorePoolSize());
+    }
+
+    /**
+     * Deja de vigilar y espera a que terminen los archivos en curso.
+     * Si se interrumpe la espera, vuelve enseguida con el hilo marcado como interrumpido
+     * (los archivos a medias se retoman desde su checkpoint).
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (watcherThread != null) {
+            watcherThread.interrupt();
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(1, TimeUnit.HOURS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    private void watch(WatchService watchService) {
+        try (watchService) {
+            while (running) {
+                WatchKey key = watchService.poll(1, TimeUnit.SECONDS);
+                if (key == null) continue;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        rescan(); // Se perdieron eventos: revisamos la carpeta entera
+                        continue;
+                    }
+                    Path file = inbox.resolve((Path) event.context());
+                    if (Files.isRegularFile(file)) {
+                        submit(file);
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("La vigilancia de {} se detuvo: {}", inbox, e.getMessage());
+        }
+    }
+
+    private void rescan() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(inbox, Files::isRegularFile)) {
+            for (Path file : files) {
+                submit(file);
+            }
+        }
+    }
+
+    private void submit(Path file) {
+        if (file.getFileName().toString().startsWith(".")) return; // Temporales/ocultos
+        if (!inFlight.add(file)) return; // Ya está en cola o procesándose
+
+        while (running) {
+            try {
+                workers.execute(() -> {
+                    try {
+                        process(file);
+                    } finally {
+                        inFlight.remove(file);
+                    }
+                });
+                return;
+            } catch (java.util.concurrent.RejectedExecutionException e) {
+                // Cola llena: esperamos un poco en lugar de descartar el archivo
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        inFlight.remove(file);
+    }
+
+    private void process(Path file) {
+        try {
+            if (!waitUntilStable(file)) return; // Desapareció mientras esperábamos
+
+            String name = file.getFileName().toString().toLowerCase();
+            boolean csv = name.endsWith(".csv");
+            if (!csv && !name.endsWith(".xlsx")) {
+                moveTo(file, quarantineDir, "Formato no soportado");
+                return;
+            }
+
+            Path checkpoint = checkpointFor(file);
+            String identity = identityOf(file);
+            int resumeAfter = readCheckpoint(checkpoint, identity);
+            if (resumeAfter > 0) {
+                log.info("Reanudando {} tras la fila {}", file.getFileName(), box(resumeAfter));
+            }
+
+            long t0 = System.nanoTime();
+            int[] sinceLastCheckpoint = {0};
+            IntConsumer onRow = row -> {
+                if (++sinceLastCheckpoint[0] >= CHECKPOINT_EVERY_ROWS) {
+                    writeCheckpoint(checkpoint, row, identity);
+                    sinceLastCheckpoint[0] = 0;
+                }
+            };
+            ImportReport report = csv
+                    ? csvImportService.cargarProductosDesdeCsv(file.toString(), resumeAfter, onRow)
+                    : excelImportService.cargarProductosDesdeExcel(file.toString(), resumeAfter, onRow);
+            double seconds = (System.nanoTime() - t0) / 1e9;
+
+            if (report.getFatalError() != null) {
+                moveTo(file, quarantineDir, report.getFatalError());
+            } else {
+                writeReport(file, report, seconds);
+                moveTo(file, archiveDir, null);
+            }
+
+            log.info("Archivo {}: {} filas leídas, {} importadas, {} rechazadas en {} s ({} filas/s)",
+                    file.getFileName(), box(report.getRowsRead()), box(report.getImported()),
+                    box(report.getRejected().size()), String.format("%.2f", seconds),
+                    String.format("%.0f", report.getRowsRead() / Math.max(seconds, 1e-9)));
+        } catch (Exception e) {
+            log.error("Error procesando {}: {}", file.getFileName(), e.getMessage(), e);
+            try {
+                moveTo(file, quarantineDir, e.getMessage());
+            } catch (IOException moveError) {
+                log.error("No se pudo mover {} a cuarentena: {}", file.getFileName(), moveError.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Espera a que el proveedor termine de copiar el archivo (tamaño y fecha estables).
+     *
+     * @return false si el archivo ya no existe.
+     */
+    private boolean waitUntilStable(Path file) throws IOException, InterruptedException {
+        long lastSize = -1;
+        long lastModified = -1;
+        while (Files.exists(file)) {
+            long size = Files.size(file);
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            if (size == lastSize && modified == lastModified) return true;
+            lastSize = size;
+            lastModified = modified;
+            Thread.sleep(STABLE_WAIT_MILLIS);
+        }
+        return false;
+    }
+
+    private Path checkpointFor(Path file) {
+        return checkpointDir.resolve(file.getFileName() + ".ckpt");
+    }
+
+    /**
+     * Identifica el contenido del archivo sin leerlo: tamaño y fecha de modificación (ya estables).
+     */
+    private static String identityOf(Path file) throws IOException {
+        return Files.size(file) + " " + Files.getLastModifiedTime(file).toMillis();
+    }
+
+    /**
+     * Lee la última fila confirmada ("fila tamaño fecha").
+     *
+     * @return 0 si no hay checkpoint, es ilegible o es de otro archivo con el mismo nombre.
+     */
+    private int readCheckpoint(Path checkpoint, String identity) {
+        try {
+            if (!Files.exists(checkpoint)) return 0;
+            String[] parts = Files.readString(checkpoint, StandardCharsets.UTF_8).trim().split(" ", 2);
+            if (parts.length < 2 || !parts[1].equals(identity)) {
+                log.warn("Punto de control {} de otro archivo con el mismo nombre, se empieza desde el principio",
+                        checkpoint.getFileName());
+                return 0;
+            }
+            return Integer.parseInt(parts[0]);
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Punto de control ilegible {}, se empieza desde el principio", checkpoint.getFileName());
+            return 0;
+        }
+    }
+
+    private void writeCheckpoint(Path checkpoint, int row, String identity) {
+        try {
+            // Escritura atómica: temporal + renombrado, para no dejar un checkpoint a medias si caemos aquí
+            Path tmp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+            Files.writeString(tmp, row + " " + identity, StandardCharsets.UTF_8);
+            Files.move(tmp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("No se pudo guardar el punto de control {}: {}", checkpoint.getFileName(), e.getMessage());
+        }
+    }
+
+    private void writeReport(Path file, ImportReport report, double seconds) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("Archivo: " + file.getFileName());
+        lines.add(String.format("Leídas: %d | Importadas: %d | Rechazadas: %d | %.2f s",
+                report.getRowsRead(), report.getImported(), report.getRejected().size(), seconds));
+        for (ImportReport.RejectedRow r : report.getRejected()) {
+            lines.add("Fila " + r.getRowNumber() + (r.getSku() != null ? " [SKU " + r.getSku() + "]" : "") + ": " + r.getReason());
+        }
+        Files.write(archiveDir.resolve(file.getFileName() + ".informe.txt"), lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Saca el archivo de la entrada y borra su punto de control (un archivo nuevo con el mismo nombre empieza de cero).
+     */
+    private void moveTo(Path file, Path dir, String reason) throws IOException {
+        Path target = dir.resolve(file.getFileName());
+        if (Files.exists(target)) {
+            // No pisamos un archivo anterior con el mismo nombre
+            target = dir.resolve(System.currentTimeMillis() + "_" + file.getFileName());
+        }
+        Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(checkpointFor(file));
+        if (reason != null) {
+            log.warn("Archivo {} movido a cuarentena: {}", file.getFileName(), reason);
+        }
+    }
+}
@@ -1,17 +1,28 @@
 package com.techstore.service;
 
+import com.techstore.dao.LocationStockDAO;
 import com.techstore.dao.ProductDAO;
 import com.techstore.dao.StockMovementDAO;
-import com.techstore.model.Product;
+import com.techstore.model.StockChangeEvent;
+import com.techstore.model.StockChangeType;
 import com.techstore.model.StockMovement;
 import com.techstore.exception.StockInsufficientException;
 import com.techstore.exception.TechStoreException;
+import com.techstore.util.DatabaseExecutor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import static org.apache.logging.log4j.util.Unbox.box;
 
 /**
  * Servicio encargado de la lógica de negocio del inventario.
  * Gestiona las ventas, el reabastecimiento y el registro de movimientos
+ * Las operaciones sin ubicación trabajan con el stock central (PRODUCTOS); las que indican
+ * tienda o almacén, con su contador en STOCK_UBICACION.
  *
  * @author Cesar Galvez
  * @version 1.0
@@ -19,17 +30,37 @@ import java.sql.SQLException;
 
 public class InventoryService {
 
+    private static final Logger log = LogManager.getLogger(InventoryService.class);
+
+    // ORA-02291: la fila nueva de STOCK_UBICACION apunta a un producto o una ubicación que no existen
+    private static final int ORA_PARENT_KEY_NOT_FOUND = 2291;
+    private static final String FK_LOCATION_PRODUCT = "FK_STOCK_UBICACION_PRODUCTO";
+
     private final ProductDAO productDAO;
     private final StockMovementDAO movementDAO;
+    private final StockEventBus eventBus;
+    private final SkuIndex skuIndex;
+    private final LocationStockDAO locationStockDAO;
 
     public InventoryService(){
-        this.productDAO = new ProductDAO();
-        this.movementDAO = new StockMovementDAO();
+        this(new ProductDAO(), new StockMovementDAO(), StockEventBus.getDefault(), new SkuIndex());
     }
 
     public InventoryService(ProductDAO productDAO, StockMovementDAO movementDAO){
+        this(productDAO, movementDAO, StockEventBus.getDefault(), new SkuIndex());
+    }
+
+    public InventoryService(ProductDAO productDAO, StockMovementDAO movementDAO, StockEventBus eventBus, SkuIndex skuIndex){
+        this(productDAO, movementDAO, eventBus, skuIndex, new LocationStockDAO());
+    }
+
+    public InventoryService(ProductDAO productDAO, StockMovementDAO movementDAO, StockEventBus eventBus, SkuIndex skuIndex,
+                            LocationStockDAO locationStockDAO){
         this.productDAO = productDAO;
         this.movementDAO = movementDAO;
+        this.eventBus = eventBus;
+        this.skuIndex = skuIndex;
+        this.locationStockDAO = locationStockDAO;
     }
 
     /**
@@ -45,22 +76,20 @@ public class InventoryService {
     // VENDER (Salida de Stock)
     public void sellProduct(int productId, int quantity, String reason) throws TechStoreException, StockInsufficientException {
         try {
-            // 1. Verificar stock actual
-            int currentStock = productDAO.getCurrentStock(productId);
-
-            if (currentStock == -1) {
-                throw new TechStoreException("El producto con ID " + productId + " no existe en la base de datos.");
-            }
+            // 1. Restar Stock de forma condicional: si otra caja vendió entre medias, no bajamos de 0.
+            //    El UPDATE devuelve el stock que deja, así que el anterior es ese más lo vendido
+            int newStock = productDAO.decreaseStockIfAvailable(productId, quantity);
 
-            // 2. Verificar disponibilidad
-            if (currentStock < quantity) {
-                throw new StockInsufficientException("Stock insuficiente. Tienes " + currentStock + ", no puedes vender " + quantity);
+            // 2. Solo si no se restó se consulta el stock, para distinguir "no existe" de "insuficiente"
+            if (newStock == -1) {
+                int stockNow = productDAO.getCurrentStock(productId);
+                if (stockNow == -1) {
+                    throw new TechStoreException("El producto con ID " + productId + " no existe en la base de datos.");
+                }
+                throw new StockInsufficientException("Stock insuficiente. Tienes " + stockNow + ", no puedes vender " + quantity);
             }
 
-            // 3. Restar Stock (Paso negativo para que el SQL sume un negativo = resta)
-            productDAO.updateStock(productId, -quantity);
-
-            // 4. Registrar Movimiento (VENTA)
+            // 3. Registrar Movimiento (VENTA)
             StockMovement mov = StockMovement.builder()
                     .productId(productId)
                     .type("VENTA")
@@ -69,7 +98,11 @@ public class InventoryService {
                     .build();
             movementDAO.insert(mov);
 
-            System.out.println("VENTA REALIZADA: " + quantity + " unidades.");
+            // 4. Notificar a los suscriptores (ya confirmado en BBDD, no bloquea)
+            publish(StockChangeType.VENTA, mov, newStock + quantity, newStock);
+
+            // Unbox evita crear Integer por cada venta (logging sin basura)
+            log.debug("VENTA REALIZADA: productId={} quantity={} stock={}", box(productId), box(quantity), box(newStock));
 
         } catch (java.sql.SQLException e) {
             throw new TechStoreException("Error crítico de Base de Datos: " + e.getMessage());
@@ -92,15 +125,12 @@ public class InventoryService {
             if (quantity <= 0) {
                 throw new TechStoreException("La cantidad a añadir debe ser mayor a 0.");
             }
-            // Verifica que el producto existe
-            int currentStock = productDAO.getCurrentStock(productId);
-            if (currentStock == -1) {
+            // Suma y devuelve el stock resultante en la misma sentencia; -1 si el producto no existe
+            int newStock = productDAO.increaseStock(productId, quantity);
+            if (newStock == -1) {
                 throw new TechStoreException("No se puede reabastecer: EL producto ID " + productId + " no existe en la base de datos.");
             }
 
-            //Procede a actualizar
-            productDAO.updateStock(productId, quantity); //NOTA: quantity es positivo aquí
-
             //4. Registrar movimiento
             StockMovement mov = StockMovement.builder()
                     .productId(productId)
@@ -109,8 +139,246 @@ public class InventoryService {
                     .notes(reason)
                     .build();
             movementDAO.insert(mov);
+
+            publish(StockChangeType.COMPRA, mov, newStock - quantity, newStock);
+        } catch (SQLException e) {
+            throw new TechStoreException("Error al intentar guardar en BBDD: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Venta desde una tienda o almacén: descuenta de su contador en STOCK_UBICACION, no del stock central.
+     * Cada ubicación actualiza su propia fila, así que las ventas de tiendas distintas no compiten por
+     * el mismo bloqueo.
+     *
+     * @param locationId Ubicación que vende.
+     * @param productId ID del producto a vender.
+     * @param quantity Cantidad de unidades a vender.
+     * @param reason Nota o nombre del cliente asociado a la venta.
+     * @throws StockInsufficientException Si la ubicación no tiene stock suficiente (o nunca tuvo ese producto).
+     * @throws TechStoreException         Si la cantidad no es válida o hay un error de base de datos.
+     */
+    public void sellProduct(int locationId, int productId, int quantity, String reason) throws TechStoreException, StockInsufficientException {
+        try {
+            if (quantity <= 0) {
+                throw new TechStoreException("La cantidad a vender debe ser mayor a 0.");
+            }
+            // UPDATE condicional sobre la fila de la ubicación: si otra caja de la misma tienda vendió entre medias,
+            // no bajamos de 0. Devuelve la cantidad que deja; sin fila (producto que nunca estuvo allí) no hay nada que vender
+            int newStock = locationStockDAO.decreaseStockIfAvailable(locationId, productId, quantity);
+            if (newStock == -1) {
+                int stockNow = locationStockDAO.getStock(locationId, productId);
+                throw new StockInsufficientException("Stock insuficiente en la ubicación. Tienes " + stockNow + ", no puedes vender " + quantity);
+            }
+
+            StockMovement mov = StockMovement.builder()
+                    .productId(productId)
+                    .type("VENTA")
+                    .quantity(quantity)
+                    .notes(reason)
+                    .locationId(locationId)
+                    .build();
+            movementDAO.insert(mov);
+
+            publish(StockChangeType.VENTA, mov, newStock + quantity, newStock);
+
+            log.debug("VENTA REALIZADA: locationId={} productId={} quantity={} stock={}",
+                    box(locationId), box(productId), box(quantity), box(newStock));
+
+        } catch (SQLException e) {
+            throw new TechStoreException("Error crítico de Base de Datos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reabastecimiento de una tienda o almacén (suma a su contador en STOCK_UBICACION).
+     *
+     * @param locationId            Ubicación que recibe la mercancía.
+     * @param productId             ID del producto a reponer.
+     * @param quantity              Cantidad a ingresar (debe ser mayor a 0).
+     * @param reason                Proveedor o motivo de la entrada
+     * @throws TechStoreException   Si la cantidad no es válida, el producto o la ubicación no existen o falla la BBDD.
+     */
+    public void addStock(int locationId, int productId, int quantity, String reason) throws TechStoreException {
+        try {
+            if (quantity <= 0) {
+                throw new TechStoreException("La cantidad a añadir debe ser mayor a 0.");
+            }
+            // Las claves foráneas de STOCK_UBICACION comprueban que existan el producto y la ubicación
+            int newStock;
+            try {
+                newStock = locationStockDAO.increaseStock(locationId, productId, quantity);
+            } catch (SQLException e) {
+                if (e.getErrorCode() != ORA_PARENT_KEY_NOT_FOUND) throw e;
+                String missing = e.getMessage() != null && e.getMessage().toUpperCase().contains(FK_LOCATION_PRODUCT)
+                        ? "EL producto ID " + productId : "La ubicación ID " + locationId;
+                throw new TechStoreException("No se puede reabastecer: " + missing + " no existe en la base de datos.");
+            }
+
+            StockMovement mov = StockMovement.builder()
+                    .productId(productId)
+                    .type("COMPRA")
+                    .quantity(quantity)
+                    .notes(reason)
+                    .locationId(locationId)
+                    .build();
+            movementDAO.insert(mov);
+
+            publish(StockChangeType.COMPRA, mov, newStock - quantity, newStock);
         } catch (SQLException e) {
             throw new TechStoreException("Error al intentar guardar en BBDD: " + e.getMessage());
         }
     }
+
+    /**
+     * Ajusta el stock de un producto al valor contado físicamente (recuento de almacén).
+     * Se escribe el valor absoluto con la fila bloqueada, así que una venta concurrente no se pierde ni se
+     * duplica: el movimiento AJUSTE guarda con signo la diferencia con el stock que había al bloquear.
+     *
+     * @param productId             ID del producto a ajustar.
+     * @param countedStock          Stock real contado (no puede ser negativo).
+     * @param reason                Motivo del ajuste.
+     * @throws TechStoreException   Si el valor es negativo, el producto no existe o falla la BBDD.
+     */
+
+    // AJUSTAR (Recuento de inventario)
+    public void adjustStock(int productId, int countedStock, String reason) throws TechStoreException {
+        try {
+            if (countedStock < 0) {
+                throw new TechStoreException("El stock contado no puede ser negativo.");
+            }
+            int previousStock = productDAO.setStock(productId, countedStock);
+            if (previousStock == -1) {
+                throw new TechStoreException("No se puede ajustar: El producto ID " + productId + " no existe en la base de datos.");
+            }
+
+            int difference = countedStock - previousStock;
+            if (difference == 0) {
+                return; // Nada que corregir
+            }
+
+            StockMovement mov = StockMovement.builder()
+                    .productId(productId)
+                    .type("AJUSTE")
+                    .quantity(difference)
+                    .notes(reason)
+                    .build();
+            movementDAO.insert(mov);
+
+            publish(StockChangeType.AJUSTE, mov, previousStock, countedStock);
+        } catch (SQLException e) {
+            throw new TechStoreException("Error al ajustar stock en BBDD: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Venta por código SKU (lectura del escáner).
+     * El SKU se resuelve en memoria con el SkuIndex, sin consulta extra a la BBDD.
+     *
+     * @param sku Código SKU escaneado.
+     * @param quantity Cantidad de unidades a vender.
+     * @param reason Nota o nombre del cliente asociado a la venta.
+     * @throws StockInsufficientException Si la cantidad solicitada es mayor al stock disponible.
+     * @throws TechStoreException         Si el SKU no existe o hay un error de base de datos.
+     */
+    public void sellProductBySku(String sku, int quantity, String reason) throws TechStoreException, StockInsufficientException {
+        sellProduct(resolveSku(sku), quantity, reason);
+    }
+
+    /**
+     * Reabastecimiento por código SKU.
+     *
+     * @param sku                   Código SKU del producto a reponer.
+     * @param quantity              Cantidad a ingresar (debe ser mayor a 0).
+     * @param reason                Proveedor o motivo de la entrada
+     * @throws TechStoreException   Si el SKU no existe, la cantidad no es válida o falla la BBDD.
+     */
+    public void addStockBySku(String sku, int quantity, String reason) throws TechStoreException {
+        addStock(resolveSku(sku), quantity, reason);
+    }
+
+    /**
+     * Traduce un SKU a su ID usando el índice en memoria.
+     * Si no está (producto creado por otra caja o aún no indexado) se consulta una vez y se añade.
+     *
+     * @throws TechStoreException Si el SKU no existe o falla la BBDD.
+     */
+    public int resolveSku(String sku) throws TechStoreException {
+        if (sku == null || sku.isBlank()) {
+            throw new TechStoreException("Debe indicarse un SKU.");
+        }
+        int productId = findProductIdBySku(sku);
+        if (productId == SkuIndex.NOT_FOUND) {
+            throw new TechStoreException("El SKU " + sku + " no existe en la base de datos.");
+        }
+        return productId;
+    }
+
+    /**
+     * Igual que {@link #resolveSku}, pero un SKU inexistente no es un error: devuelve {@link SkuIndex#NOT_FOUND}
+     * (la consola lo usa para decidir si el código escaneado puede ser un ID).
+     * La primera llamada carga el índice si el precalentamiento aún no lo hizo.
+     *
+     * @throws TechStoreException Si falla la BBDD.
+     */
+    public int findProductIdBySku(String sku) throws TechStoreException {
+        if (sku == null || sku.isBlank()) return SkuIndex.NOT_FOUND;
+        try {
+            if (!skuIndex.isLoaded()) {
+                synchronized (skuIndex) {
+                    if (!skuIndex.isLoaded()) skuIndex.load(productDAO);
+                }
+            }
+            int productId = skuIndex.get(sku);
+            if (productId == SkuIndex.NOT_FOUND) {
+                productId = productDAO.getProductIdBySku(sku.trim());
+                if (productId == -1) return SkuIndex.NOT_FOUND;
+                skuIndex.put(sku, productId);
+            }
+            return productId;
+        } catch (SQLException e) {
+            throw new TechStoreException("Error al buscar el SKU en BBDD: " + e.getMessage());
+        }
+    }
+
+    // --- VARIANTES ASÍNCRONAS ---
+    // Mismas reglas que las versiones bloqueantes; las excepciones de negocio
+    // (StockInsufficientException, TechStoreException) llegan como causa de la CompletionException.
+
+    public CompletableFuture<Void> sellProductAsync(int productId, int quantity, String reason) {
+        return DatabaseExecutor.supply(() -> {
+            sellProduct(productId, quantity, reason);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> addStockAsync(int productId, int quantity, String reason) {
+        return DatabaseExecutor.supply(() -> {
+            addStock(productId, quantity, reason);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> adjustStockAsync(int productId, int countedStock, String reason) {
+        return DatabaseExecutor.supply(() -> {
+            adjustStock(productId, countedStock, reason);
+            return null;
+        });
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    // Producto, ubicación, motivo e ID salen del movimiento ya registrado
+    private void publish(StockChangeType type, StockMovement mov, int oldStock, int newStock) {
+        eventBus.publish(StockChangeEvent.builder()
+                .type(type)
+                .productId(mov.getProductId())
+                .locationId(mov.getLocationId())
+                .movementId(mov.getId())
+                .oldStock(oldStock)
+                .newStock(newStock)
+                .reason(mov.getNotes())
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
 }
\ No newline at end of file
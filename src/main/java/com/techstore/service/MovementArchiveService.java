@@ -0,0 +1,122 @@
+package com.techstore.service;
+
+import com.techstore.util.DatabaseConnection;
+import com.techstore.util.WorkloadClass;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Archivado del histórico de movimientos.
+ * Mueve por lotes los movimientos más antiguos que la edad indicada desde MOVIMIENTOS_STOCK
+ * a MOVIMIENTOS_STOCK_HIST y acumula sus totales por producto y tipo en MOVIMIENTOS_RESUMEN.
+ * Así la tabla activa solo guarda el conjunto "caliente", mientras que el ranking de ventas
+ * y el saldo del libro siguen siendo exactos gracias al resumen.
+ *
+ * Cada lote es una transacción: copia, resume y borra, o no hace nada.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class MovementArchiveService {
+
+    private static final Logger log = LogManager.getLogger(MovementArchiveService.class);
+
+    private static final String SQL_LIMITE_LOTE =
+            "SELECT MAX(movimiento_id) FROM (" +
+            "  SELECT movimiento_id FROM MOVIMIENTOS_STOCK WHERE fecha_mov < ? " +
+            "  ORDER BY movimiento_id FETCH FIRST ? ROWS ONLY)";
+
+    private static final String SQL_COPIAR =
+            "INSERT INTO MOVIMIENTOS_STOCK_HIST (movimiento_id, producto_id, tipo, cantidad, fecha_mov, notas, ubicacion_id) " +
+            "SELECT movimiento_id, producto_id, tipo, cantidad, fecha_mov, notas, ubicacion_id FROM MOVIMIENTOS_STOCK " +
+            "WHERE movimiento_id <= ? AND fecha_mov < ?";
+
+    // El resumen guarda el stock central con ubicacion_id = 0 (forma parte de la clave primaria, no admite nulos)
+    private static final String SQL_RESUMIR =
+            "MERGE INTO MOVIMIENTOS_RESUMEN r " +
+            "USING (SELECT producto_id, tipo, NVL(ubicacion_id, 0) AS ubicacion_id, SUM(cantidad) AS total, COUNT(*) AS num " +
+            "       FROM MOVIMIENTOS_STOCK WHERE movimiento_id <= ? AND fecha_mov < ? " +
+            "       GROUP BY producto_id, tipo, NVL(ubicacion_id, 0)) a " +
+            "ON (r.producto_id = a.producto_id AND r.tipo = a.tipo AND r.ubicacion_id = a.ubicacion_id) " +
+            "WHEN MATCHED THEN UPDATE SET r.cantidad_total = r.cantidad_total + a.total, " +
+            "     r.num_movimientos = r.num_movimientos + a.num, r.actualizado_en = CURRENT_TIMESTAMP " +
+            "WHEN NOT MATCHED THEN INSERT (producto_id, tipo, ubicacion_id, cantidad_total, num_movimientos, actualizado_en) " +
+            "     VALUES (a.producto_id, a.tipo, a.ubicacion_id, a.total, a.num, CURRENT_TIMESTAMP)";
+
+    private static final String SQL_BORRAR =
+            "DELETE FROM MOVIMIENTOS_STOCK WHERE movimiento_id <= ? AND fecha_mov < ?";
+
+    /**
+     * Archiva todos los movimientos más antiguos que la edad indicada.
+     *
+     * @param maxAgeDays    Edad máxima (en días) que se conserva en la tabla activa.
+     * @param batchSize     Movimientos por lote/transacción.
+     * @return              Total de movimientos archivados.
+     * @throws SQLException Si falla un lote (los anteriores ya quedan confirmados).
+     */
+    public int archiveOlderThan(int maxAgeDays, int batchSize) throws SQLException {
+        if (maxAgeDays < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("La edad y el tamaño de lote deben ser mayores a 0.");
+        }
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(maxAgeDays));
+        int total = 0;
+
+        while (true) {
+            // Cada lote es trabajo masivo: cuota propia y cede ante las cajas
+            int archived = WorkloadClass.BULK.call(() -> archiveBatch(cutoff, batchSize));
+            if (archived == 0) break;
+            total += archived;
+            log.info("Archivados {} movimientos...", total);
+        }
+        log.info("ARCHIVADO COMPLETADO. Movimientos movidos al histórico: {}", total);
+        return total;
+    }
+
+    private int archiveBatch(Timestamp cutoff, int batchSize) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // 1. Hasta qué ID llega este lote
+                long maxId;
+                try (PreparedStatement pstmt = conn.prepareStatement(SQL_LIMITE_LOTE)) {
+                    pstmt.setTimestamp(1, cutoff);
+                    pstmt.setInt(2, batchSize);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        rs.next();
+                        maxId = rs.getLong(1);
+                        if (rs.wasNull()) {
+                            conn.rollback();
+                            return 0;
+                        }
+                    }
+                }
+
+                // 2. Copiar, 3. Resumir, 4. Borrar (mismo predicado en los tres pasos)
+                executeRange(conn, SQL_COPIAR, maxId, cutoff);
+                executeRange(conn, SQL_RESUMIR, maxId, cutoff);
+                int deleted = executeRange(conn, SQL_BORRAR, maxId, cutoff);
+
+                conn.commit();
+                return deleted;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private int executeRange(Connection conn, String sql, long maxId, Timestamp cutoff) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, maxId);
+            pstmt.setTimestamp(2, cutoff);
+            return pstmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.techstore.service;
+
+import com.techstore.exception.TechStoreException;
+import com.techstore.model.PriceChange;
+import com.techstore.model.PriceChangeMode;
+import com.techstore.model.PriceChangeResult;
+import com.techstore.model.StockChangeEvent;
+import com.techstore.model.StockChangeType;
+import com.techstore.util.DatabaseConnection;
+import com.techstore.util.WorkloadClass;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cambios masivos de precio por categoría, proveedor o lista de SKUs.
+ * En lugar de un UPDATE por producto, recorre los productos afectados por tramos de ID
+ * (como el archivado de movimientos) y en cada tramo hace, en una sola transacción:
+ *   1. INSERT ... SELECT en PRECIOS_AUDITORIA con el precio anterior y el nuevo.
+ *   2. Un UPDATE de todos los precios del tramo.
+ * Así cada transacción bloquea pocas filas durante poco tiempo y las ventas no esperan al cambio completo.
+ *
+ * Al terminar publica un evento PRECIOS en el bus: la caché del catálogo y el índice de búsqueda de este
+ * proceso se recargan al recibirlo. Las demás cajas recogen los precios nuevos al caducar su caché.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class PriceUpdateService {
+
+    private static final Logger log = LogManager.getLogger(PriceUpdateService.class);
+
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+    private static final int MAX_SKUS_PER_SEGMENT = 500;       // Oracle admite hasta 1000 elementos en un IN
+
+    private final StockEventBus eventBus;
+    private final int chunkSize;
+
+    public PriceUpdateService() {
+        this(StockEventBus.getDefault(), DEFAULT_CHUNK_SIZE);
+    }
+
+    // Constructor para inyección de dependencias (Testing)
+    public PriceUpdateService(StockEventBus eventBus, int chunkSize) {
+        this.eventBus = eventBus;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Filtro SQL sobre PRODUCTOS con sus valores (una categoría, un proveedor o un grupo de SKUs).
+     */
+    static final class Segment {
+        final String predicate;
+        final List<Object> values;
+
+        private Segment(String predicate, List<Object> values) {
+            this.predicate = predicate;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Aplica el cambio de precio.
+     *
+     * @param change Modo, valor, ámbito y motivo.
+     * @return Lote de auditoría, productos actualizados y transacciones usadas.
+     * @throws TechStoreException Si la petición no es válida, algún precio quedaría en 0 o negativo
+     *                            (no se toca nada) o falla la BBDD (los tramos ya confirmados se quedan).
+     */
+    public PriceChangeResult applyPriceChange(PriceChange change) throws TechStoreException {
+        List<Segment> segments = validate(change);
+        String newPrice = newPriceExpression(change.getMode());
+        long t0 = System.nanoTime();
+
+        try {
+            // Trabajo masivo: cuota de conexiones propia y cede ante las cajas entre tramos
+            // Antes de tocar nada: ningún producto del ámbito puede quedar sin precio
+            int invalid = WorkloadClass.BULK.call(() -> {
+                int total = 0;
+                for (Segment segment : segments) {
+                    total += countInvalidPrices(segment, newPrice, change.getValue());
+                }
+                return total;
+            });
+            if (invalid > 0) {
+                throw new TechStoreException("El cambio dejaría " + invalid + " producto(s) con precio 0 o negativo. No se ha aplicado.");
+            }
+            return WorkloadClass.BULK.call(() -> applyAll(segments, newPrice, change, t0));
+
+        } catch (SQLException e) {
+            throw new TechStoreException("Error de Base de Datos en el cambio de precios: " + e.getMessage());
+        }
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    PriceChangeResult applyAll(List<Segment> segments, String newPrice, PriceChange change, long t0)
+            throws SQLException {
+        long batchId = nextBatchId();
+        int updated = 0;
+        int chunks = 0;
+        try {
+            for (Segment segment : segments) {
+                long lastId = 0;
+                while (true) {
+                    long[] range = {lastId, 0};
+                    int changed = applyChunk(segment, newPrice, change, batchId, range);
+                    if (changed < 0) break;
+                    updated += changed;
+                    chunks++;
+                    lastId = range[1];
+                }
+            }
+        } finally {
+            // También si falla a medias: los tramos confirmados ya tienen el precio nuevo
+            if (updated > 0) {
+                publishPriceChange(batchId, change.getReason());
+            }
+        }
+
+        long millis = (System.nanoTime() - t0) / 1_000_000;
+        log.info("CAMBIO DE PRECIOS (lote {}): {} productos en {} transacciones, {} ms", batchId, updated, chunks, millis);
+        return new PriceChangeResult(batchId, updated, chunks, millis);
+    }
+
+    /**
+     * Comprueba la petición y la parte en filtros sobre PRODUCTOS (los SKUs, en grupos de como mucho 500).
+     */
+    static List<Segment> validate(PriceChange change) throws TechStoreException {
+        if (change == null || change.getMode() == null || change.getValue() == null) {
+            throw new TechStoreException("Indica el modo (porcentaje o importe) y el valor del cambio.");
+        }
+        if (change.getMode() == PriceChangeMode.PORCENTAJE && change.getValue().compareTo(BigDecimal.valueOf(-100)) <= 0) {
+            throw new TechStoreException("Una rebaja no puede ser del 100 % o más.");
+        }
+        boolean hasSkus = change.getSkus() != null && !change.getSkus().isEmpty();
+        int scopes = (change.getCategoryId() != null ? 1 : 0) + (change.getProviderId() != null ? 1 : 0) + (hasSkus ? 1 : 0);
+        if (scopes != 1) {
+            throw new TechStoreException("Indica un único ámbito: categoría, proveedor o lista de SKUs.");
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        if (change.getCategoryId() != null) {
+            segments.add(new Segment("categoria_id = ?", Collections.singletonList(change.getCategoryId())));
+        } else if (change.getProviderId() != null) {
+            segments.add(new Segment("proveedor_id = ?", Collections.singletonList(change.getProviderId())));
+        } else {
+            List<String> skus = change.getSkus();
+            for (int from = 0; from < skus.size(); from += MAX_SKUS_PER_SEGMENT) {
+                List<Object> group = new ArrayList<>(skus.subList(from, Math.min(from + MAX_SKUS_PER_SEGMENT, skus.size())));
+                String placeholders = String.join(", ", Collections.nCopies(group.size(), "?"));
+                segments.add(new Segment("sku IN (" + placeholders + ")", group));
+            }
+        }
+        return segments;
+    }
+
+    private static String newPriceExpression(PriceChangeMode mode) {
+        return mode == PriceChangeMode.PORCENTAJE
+                ? "ROUND(precio_venta * (100 + ?) / 100, 2)"
+                : "(precio_venta + ?)";
+    }
+
+    /**
+     * Productos del filtro que quedarían con precio 0 o negativo.
+     */
+    int countInvalidPrices(Segment segment, String newPrice, BigDecimal value) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM PRODUCTOS WHERE " + segment.predicate + " AND " + newPrice + " <= 0";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = bindValues(pstmt, 1, segment.values);
+            pstmt.setBigDecimal(index, value);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private long nextBatchId() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT SEQ_PRECIOS_LOTE.NEXTVAL FROM DUAL");
+             ResultSet rs = pstmt.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Audita y actualiza el siguiente tramo de productos (ID > range[0]) en una transacción.
+     *
+     * @param range Entrada: último ID ya procesado. Salida (range[1]): último ID de este tramo.
+     * @return Productos actualizados, o -1 si no quedaban productos.
+     */
+    private int applyChunk(Segment segment, String newPrice, PriceChange change, long batchId, long[] range) throws SQLException {
+        String sqlLimit = "SELECT MAX(producto_id) FROM (SELECT producto_id FROM PRODUCTOS " +
+                "WHERE producto_id > ? AND " + segment.predicate + " ORDER BY producto_id FETCH FIRST ? ROWS ONLY)";
+        String sqlAudit = "INSERT INTO PRECIOS_AUDITORIA (lote_id, producto_id, precio_anterior, precio_nuevo, motivo) " +
+                "SELECT ?, producto_id, precio_venta, " + newPrice + ", ? FROM PRODUCTOS " +
+                "WHERE producto_id > ? AND producto_id <= ? AND " + segment.predicate;
+        String sqlUpdate = "UPDATE PRODUCTOS SET precio_venta = " + newPrice + ", actualizado_en = CURRENT_TIMESTAMP " +
+                "WHERE producto_id > ? AND producto_id <= ? AND " + segment.predicate;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // 1. Hasta qué ID llega este tramo
+                long maxId;
+                try (PreparedStatement pstmt = conn.prepareStatement(sqlLimit)) {
+                    pstmt.setLong(1, range[0]);
+                    int index = bindValues(pstmt, 2, segment.values);
+                    pstmt.setInt(index, chunkSize);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        rs.next();
+                        maxId = rs.getLong(1);
+                        if (rs.wasNull()) {
+                            conn.rollback();
+                            return -1;
+                        }
+                    }
+                }
+
+                // 2. Auditoría (precio anterior y nuevo) y 3. cambio, con el mismo predicado
+                try (PreparedStatement pstmt = conn.prepareStatement(sqlAudit)) {
+                    pstmt.setLong(1, batchId);
+                    pstmt.setBigDecimal(2, change.getValue());
+                    pstmt.setString(3, change.getReason());
+                    pstmt.setLong(4, range[0]);
+                    pstmt.setLong(5, maxId);
+                    bindValues(pstmt, 6, segment.values);
+                    pstmt.executeUpdate();
+                }
+                int updated;
+                try (PreparedStatement pstmt = conn.prepareStatement(sqlUpdate)) {
+                    pstmt.setBigDecimal(1, change.getValue());
+                    pstmt.setLong(2, range[0]);
+                    pstmt.setLong(3, maxId);
+                    bindValues(pstmt, 4, segment.values);
+                    updated = pstmt.executeUpdate();
+                }
+
+                conn.commit();
+                range[1] = maxId;
+                return updated;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Enlaza los valores del ámbito a partir de la posición indicada.
+     *
+     * @return Siguiente posición libre.
+     */
+    private static int bindValues(PreparedStatement pstmt, int index, List<Object> values) throws SQLException {
+        for (Object value : values) {
+            pstmt.setObject(index++, value);
+        }
+        return index;
+    }
+
+    private void publishPriceChange(long batchId, String reason) {
+        eventBus.publish(StockChangeEvent.builder()
+                .type(StockChangeType.PRECIOS)
+                .reason("Lote " + batchId + ": " + reason)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+}
@@ -0,0 +1,147 @@
+package com.techstore.service;
+
+import com.techstore.dao.ProductDAO;
+import com.techstore.model.ImportReport;
+import com.techstore.model.Product;
+import com.techstore.model.StockChangeEvent;
+import com.techstore.model.StockChangeType;
+import com.techstore.util.WorkloadClass;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static org.apache.logging.log4j.util.Unbox.box;
+
+/**
+ * Camino de escritura común a todas las importaciones masivas (Excel, CSV...).
+ * Valida en memoria las claves foráneas, inserta las filas válidas, publica el evento
+ * IMPORTACION de cada producto y deja constancia de todo en el ImportReport.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class ProductImportWriter {
+
+    private static final Logger log = LogManager.getLogger(ProductImportWriter.class);
+
+    private final ProductDAO productDAO;
+    private final ReferenceDataCache referenceData;
+    private final StockEventBus eventBus;
+
+    public ProductImportWriter() {
+        this(new ProductDAO(), new ReferenceDataCache(), StockEventBus.getDefault());
+    }
+
+    public ProductImportWriter(ProductDAO productDAO, ReferenceDataCache referenceData, StockEventBus eventBus) {
+        this.productDAO = productDAO;
+        this.referenceData = referenceData;
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * Valida y carga las filas leídas de un archivo.
+     *
+     * @param rows            Filas ya convertidas a Product, con su número de fila en el archivo.
+     * @param report          Informe donde se anotan importadas y rechazadas.
+     * @param source          Origen legible (se usa como motivo del evento IMPORTACION).
+     * @param onRowImported   Se invoca con el número de fila tras cada inserción correcta (puede ser null).
+     * @throws SQLException   Si no se pueden cargar los datos de referencia.
+     */
+    public void write(List<Row> rows, ImportReport report, String source, IntConsumer onRowImported) throws SQLException {
+        // Las inserciones cuentan como trabajo masivo: cuota propia y ceden ante las cajas
+        WorkloadClass.BULK.run(() -> escribir(rows, report, source, onRowImported));
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    private void escribir(List<Row> rows, ImportReport report, String source, IntConsumer onRowImported) throws SQLException {
+        // 1. Validación en memoria de claves foráneas (una sola carga de referencias)
+        List<Row> validas = validarReferencias(rows, report);
+
+        // 2. Escritura: solo las filas que han superado la validación
+        for (Row fila : validas) {
+            Product producto = fila.product;
+            // Insertamos en Base de Datos de forma segura
+            try {
+                productDAO.insert(producto);
+                report.setImported(report.getImported() + 1);
+                publicarImportacion(producto, source);
+                // Detalle por fila solo en DEBUG: sin E/S de consola en el camino caliente
+                log.debug("Fila importada: fila={} sku={}", box(fila.rowNumber), producto.getSku());
+                if (onRowImported != null) {
+                    onRowImported.accept(fila.rowNumber);
+                }
+            } catch (SQLException e) {
+                report.reject(fila.rowNumber, producto.getSku(), "Error de BBDD: " + e.getMessage());
+            }
+        }
+        log.info("IMPORTACIÓN COMPLETADA. Productos cargados exitosamente: {}", box(report.getImported()));
+        imprimirRechazos(report);
+    }
+
+    /**
+     * Descarta las filas cuya categoría o proveedor no existen, anotándolas en el informe.
+     */
+    private List<Row> validarReferencias(List<Row> filas, ImportReport report) throws SQLException {
+        List<Row> validas = new ArrayList<>(filas.size());
+        for (Row fila : filas) {
+            Product p = fila.product;
+            if (!referenceData.isValidCategory(p.getCategoryId())) {
+                report.reject(fila.rowNumber, p.getSku(), "Categoría inexistente: " + p.getCategoryId());
+            } else if (p.getProviderId() != null && !referenceData.isValidProvider(p.getProviderId())) {
+                report.reject(fila.rowNumber, p.getSku(), "Proveedor inexistente: " + p.getProviderId());
+            } else {
+                validas.add(fila);
+            }
+        }
+        return validas;
+    }
+
+    private void publicarImportacion(Product producto, String source) {
+        // El producto nace con su stock inicial: lo notificamos como IMPORTACION
+        eventBus.publish(StockChangeEvent.builder()
+                .type(StockChangeType.IMPORTACION)
+                .productId(producto.getId())
+                .sku(producto.getSku())
+                .oldStock(0)
+                .newStock(producto.getStock())
+                .reason(source)
+                .product(producto)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    private void imprimirRechazos(ImportReport report) {
+        if (report.getRejected().isEmpty()) return;
+
+        log.warn("⚠️ Filas rechazadas: {}", report.getRejected().size());
+        for (ImportReport.RejectedRow r : report.getRejected()) {
+            log.warn("  Fila {}{}: {}", r.getRowNumber(),
+                    r.getSku() != null ? " [SKU " + r.getSku() + "]" : "", r.getReason());
+        }
+    }
+
+    /** Fila leída de un archivo junto a su número, para poder reportar errores. */
+    public static final class Row {
+        private final int rowNumber;
+        private final Product product;
+
+        public Row(int rowNumber, Product product) {
+            this.rowNumber = rowNumber;
+            this.product = product;
+        }
+
+        public int getRowNumber() {
+            return rowNumber;
+        }
+
+        public Product getProduct() {
+            return product;
+        }
+    }
+}
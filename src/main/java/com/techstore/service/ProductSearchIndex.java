@@ -0,0 +1,295 @@
+package com.techstore.service;
+
+import com.techstore.model.Product;
+import com.techstore.model.StockChangeType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de búsqueda en memoria sobre nombre y SKU de los productos.
+ * Combina un índice de prefijos por palabra (TreeMap) con un índice de trigramas para
+ * búsquedas por fragmento ("usb" encuentra "Hub USB-C"), sin lanzar LIKE '%..%' contra Oracle.
+ * Se construye desde el catálogo, se actualiza con los productos importados y se reconstruye
+ * tras un cambio masivo de precios.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class ProductSearchIndex {
+
+    private static final Logger log = LogManager.getLogger(ProductSearchIndex.class);
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+    private static final int EVENT_BACKLOG = 10_000;
+
+    // Documentos indexados: la posición en la lista es el "docId" interno
+    private final List<Product> docs = new ArrayList<>();
+    private final List<String> normalizedNames = new ArrayList<>();
+    private final Map<Integer, Integer> docByProductId = new HashMap<>();
+    private final Map<String, Integer> docBySku = new HashMap<>();
+
+    // palabra (nombre o SKU) -> docIds que la contienen
+    private final TreeMap<String, IntList> tokens = new TreeMap<>();
+    // trigrama empaquetado en un int -> docIds
+    private final Map<Integer, IntList> trigrams = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Reconstruye el índice completo a partir del catálogo.
+     */
+    public void rebuild(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            docs.clear();
+            normalizedNames.clear();
+            docByProductId.clear();
+            docBySku.clear();
+            tokens.clear();
+            trigrams.clear();
+            for (Product p : products) {
+                addUnlocked(p);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Añade (o sustituye) un producto en el índice.
+     */
+    public void add(Product product) {
+        lock.writeLock().lock();
+        try {
+            addUnlocked(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        lock.readLock().lock();
+        try {
+            return docs.isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca productos por SKU o por nombre y los devuelve ordenados por relevancia:
+     * SKU exacto, luego coincidencias de prefijo en todas las palabras, luego por fragmento.
+     *
+     * @param query Texto introducido por el cajero.
+     * @param limit Número máximo de resultados.
+     * @return Productos encontrados (puede estar vacía).
+     */
+    public List<Product> search(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) return new ArrayList<>();
+        String[] words = Arrays.stream(SEPARADORES.split(q)).filter(w -> !w.isEmpty()).toArray(String[]::new);
+
+        lock.readLock().lock();
+        try {
+            int n = docs.size();
+            int[] scores = new int[n];
+
+            // 1. SKU exacto (lo que teclea o escanea el cajero)
+            Integer exact = docBySku.get(query.trim().toUpperCase());
+            if (exact != null) {
+                scores[exact] += 1000;
+            }
+
+            // 2. Prefijos: cada palabra de la consulta debe empezar alguna palabra del producto
+            boolean[] allWords = null;
+            for (String w : words) {
+                boolean[] matched = new boolean[n];
+                NavigableMap<String, IntList> range = tokens.subMap(w, true, w + Character.MAX_VALUE, false);
+                for (Map.Entry<String, IntList> e : range.entrySet()) {
+                    int bonus = e.getKey().length() == w.length() ? 3 : 1; // palabra completa puntúa más
+                    IntList ids = e.getValue();
+                    for (int i = 0; i < ids.size; i++) {
+                        int doc = ids.values[i];
+                        if (!matched[doc]) {
+                            matched[doc] = true;
+                            scores[doc] += 10 * bonus;
+                        }
+                    }
+                }
+                if (allWords == null) {
+                    allWords = matched;
+                } else {
+                    for (int d = 0; d < n; d++) allWords[d] &= matched[d];
+                }
+            }
+            if (allWords != null) {
+                for (int d = 0; d < n; d++) {
+                    if (allWords[d]) scores[d] += 100;
+                }
+            }
+
+            // 3. Fragmento (trigramas) como respaldo si el prefijo no encontró nada
+            if (q.length() >= 3 && noneScored(scores)) {
+                scoreBySubstring(q, scores);
+            }
+
+            return topResults(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Mantiene el índice al día con los productos que entran por importación
+     * y lo reconstruye desde el catálogo tras un cambio masivo de precios.
+     */
+    public StockEventBus.Subscription subscribeTo(StockEventBus bus, CatalogCache catalog) {
+        return bus.subscribe("search-index", EVENT_BACKLOG, event -> {
+            if (event.getType() == StockChangeType.IMPORTACION && event.getProduct() != null) {
+                add(event.getProduct());
+            } else if (event.getType() == StockChangeType.PRECIOS) {
+                // Se reconstruye desde el catálogo ya recargado con el cambio, aunque su propio
+                // suscriptor todavía no haya procesado el evento
+                try {
+                    rebuild(catalog.refreshIfOlderThan(CatalogCache.toEpochMillis(event.getTimestamp())));
+                } catch (SQLException e) {
+                    log.warn("No se pudo reconstruir el índice de búsqueda tras el cambio de precios: {}", e.getMessage());
+                }
+            }
+        });
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    private void addUnlocked(Product p) {
+        String name = normalize(p.getName());
+        Integer existing = docByProductId.get(p.getId());
+        int doc;
+        if (existing != null) {
+            // Producto ya indexado: se sustituye el documento. Si cambió el nombre, las palabras antiguas
+            // siguen apuntando a él hasta el próximo rebuild() (la aplicación no edita nombres).
+            doc = existing;
+            docs.set(doc, p);
+            normalizedNames.set(doc, name);
+        } else {
+            doc = docs.size();
+            docs.add(p);
+            normalizedNames.add(name);
+            docByProductId.put(p.getId(), doc);
+        }
+        if (p.getSku() != null) {
+            docBySku.put(p.getSku().trim().toUpperCase(), doc);
+        }
+
+        String text = name + " " + normalize(p.getSku());
+        for (String w : SEPARADORES.split(text)) {
+            if (!w.isEmpty()) {
+                tokens.computeIfAbsent(w, k -> new IntList()).addUnique(doc);
+            }
+        }
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.computeIfAbsent(trigram(text, i), k -> new IntList()).addUnique(doc);
+        }
+    }
+
+    private void scoreBySubstring(String q, int[] scores) {
+        // Intersección de las listas de trigramas, empezando por la más corta
+        IntList shortest = null;
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            IntList ids = trigrams.get(trigram(q, i));
+            if (ids == null) return; // Un trigrama inexistente: no puede haber coincidencias
+            if (shortest == null || ids.size < shortest.size) shortest = ids;
+        }
+        for (int i = 0; i < shortest.size; i++) {
+            int doc = shortest.values[i];
+            // Verificación final: los trigramas pueden dar falsos positivos
+            if (normalizedNames.get(doc).contains(q) || normalize(docs.get(doc).getSku()).contains(q)) {
+                scores[doc] += 5;
+            }
+        }
+    }
+
+    private List<Product> topResults(int[] scores, int limit) {
+        // Selección parcial: recorremos una vez y mantenemos los 'limit' mejores
+        int[] best = new int[limit];
+        int count = 0;
+        for (int d = 0; d < scores.length; d++) {
+            if (scores[d] == 0) continue;
+            int pos;
+            if (count < limit) {
+                pos = count++;
+            } else if (better(d, best[limit - 1], scores)) {
+                pos = limit - 1;
+            } else {
+                continue;
+            }
+            // Inserción ordenada dentro del top
+            while (pos > 0 && better(d, best[pos - 1], scores)) {
+                best[pos] = best[pos - 1];
+                pos--;
+            }
+            best[pos] = d;
+        }
+        List<Product> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(docs.get(best[i]));
+        }
+        return result;
+    }
+
+    // A igual puntuación gana el nombre más corto (más específico)
+    private boolean better(int a, int b, int[] scores) {
+        if (scores[a] != scores[b]) return scores[a] > scores[b];
+        return normalizedNames.get(a).length() < normalizedNames.get(b).length();
+    }
+
+    private static boolean noneScored(int[] scores) {
+        for (int s : scores) {
+            if (s != 0) return false;
+        }
+        return true;
+    }
+
+    private static int trigram(String s, int i) {
+        return (s.charAt(i) << 16) ^ (s.charAt(i + 1) << 8) ^ s.charAt(i + 2);
+    }
+
+    /** Minúsculas y sin tildes: "Ratón Óptico" -> "raton optico". */
+    static String normalize(String text) {
+        if (text == null) return "";
+        String sinTildes = DIACRITICOS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return sinTildes.toLowerCase().trim();
+    }
+
+    /** Lista de enteros primitiva para las posting lists. */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void addUnique(int v) {
+            // Normalmente los docIds llegan en orden creciente y basta con mirar el último;
+            // al sustituir un documento existente hay que recorrer la lista
+            if (size > 0 && values[size - 1] >= v) {
+                for (int i = 0; i < size; i++) {
+                    if (values[i] == v) return;
+                }
+            }
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.techstore.service;
+
+import com.techstore.dao.CategoryDAO;
+import com.techstore.dao.ProviderDAO;
+import com.techstore.model.Category;
+import com.techstore.model.Provider;
+import com.techstore.util.IntHashSet;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Caché en memoria de los IDs válidos de categorías y proveedores.
+ * Permite validar claves foráneas sin ir a Oracle en cada fila.
+ * Los datos caducan tras un TTL configurable y se recargan en el siguiente acceso.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class ReferenceDataCache {
+
+    private static final long DEFAULT_TTL_MILLIS = 5 * 60 * 1000L; // 5 minutos
+
+    private final CategoryDAO categoryDAO;
+    private final ProviderDAO providerDAO;
+    private final long ttlMillis;
+
+    // Instantánea inmutable: se sustituye entera al recargar
+    private volatile Snapshot snapshot;
+
+    public ReferenceDataCache() {
+        this(new CategoryDAO(), new ProviderDAO(), DEFAULT_TTL_MILLIS);
+    }
+
+    public ReferenceDataCache(CategoryDAO categoryDAO, ProviderDAO providerDAO, long ttlMillis) {
+        this.categoryDAO = categoryDAO;
+        this.providerDAO = providerDAO;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Comprueba si existe una categoría con ese ID.
+     *
+     * @throws SQLException Si hay que recargar y falla la consulta.
+     */
+    public boolean isValidCategory(int categoryId) throws SQLException {
+        return current().categories.contains(categoryId);
+    }
+
+    /**
+     * Comprueba si existe un proveedor con ese ID.
+     *
+     * @throws SQLException Si hay que recargar y falla la consulta.
+     */
+    public boolean isValidProvider(int providerId) throws SQLException {
+        return current().providers.contains(providerId);
+    }
+
+    /**
+     * Fuerza la recarga en el próximo acceso (ej: tras dar de alta una categoría).
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    private Snapshot current() throws SQLException {
+        Snapshot s = snapshot;
+        if (s == null || System.currentTimeMillis() - s.loadedAt > ttlMillis) {
+            synchronized (this) {
+                s = snapshot;
+                if (s == null || System.currentTimeMillis() - s.loadedAt > ttlMillis) {
+                    s = load();
+                    snapshot = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    private Snapshot load() throws SQLException {
+        List<Category> categories = categoryDAO.getAll();
+        List<Provider> providers = providerDAO.getAll();
+
+        IntHashSet categoryIds = new IntHashSet(categories.size());
+        for (Category c : categories) {
+            categoryIds.add(c.getId());
+        }
+        IntHashSet providerIds = new IntHashSet(providers.size());
+        for (Provider p : providers) {
+            providerIds.add(p.getId());
+        }
+        return new Snapshot(categoryIds, providerIds, System.currentTimeMillis());
+    }
+
+    private static final class Snapshot {
+        private final IntHashSet categories;
+        private final IntHashSet providers;
+        private final long loadedAt;
+
+        private Snapshot(IntHashSet categories, IntHashSet providers, long loadedAt) {
+            this.categories = categories;
+            this.providers = providers;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -2,10 +2,12 @@ package com.techstore.service;
 
 import com.techstore.dao.ProductDAO;
 import com.techstore.model.Product;
+import com.techstore.util.WorkloadClass;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -57,14 +59,14 @@ public class ReportService {
      */
     public void exportInventoryToCSV(String fileName) {
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName))) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName, StandardCharsets.UTF_8))) {
 
             // 1. Escribir Cabecera
             writer.write("ID;SKU;NOMBRE;DESCRIPCION;PRECIO_VENTA;PRECIO_COSTO;STOCK;CATEGORIA;PROVEEDOR;ACTIVO");
             writer.newLine();
 
-            // 2. Obtener datos
-            List<Product> products = productDAO.getAllProducts();
+            // 2. Obtener datos (exportación = informe: cuota de conexiones propia, no compite con las cajas)
+            List<Product> products = WorkloadClass.REPORTING.call(productDAO::getAllProducts);
 
             // 3. Escribir filas
             for (Product p : products) {
@@ -0,0 +1,222 @@
+package com.techstore.service;
+
+import com.techstore.dao.StockMovementDAO;
+import com.techstore.model.Product;
+import com.techstore.model.ReorderSuggestion;
+import com.techstore.model.StockChangeEvent;
+import com.techstore.model.StockChangeType;
+import com.techstore.util.WorkloadClass;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Motor de velocidad de ventas.
+ * Mantiene por producto una media móvil exponencial de unidades vendidas por día:
+ * se siembra con una sola pasada por MOVIMIENTOS_STOCK y después se actualiza en O(1)
+ * con cada VENTA/COMPRA publicada en el bus. Con eso calcula días de cobertura y
+ * cantidades de pedido sugeridas por proveedor en memoria, sin consultas por lotes.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class SalesVelocityService {
+
+    private static final double MILLIS_PER_DAY = 24 * 60 * 60 * 1000.0;
+    private static final int EVENT_BACKLOG = 10_000;
+
+    private final StockMovementDAO movementDAO;
+    private final double halfLifeDays;      // A los N días una venta pesa la mitad
+    private final double tauMillis;         // Constante de tiempo de la media (derivada de la semivida)
+
+    private Map<Integer, Velocity> velocities = new HashMap<>();
+    private int seededUpToId;               // Los movimientos con ID hasta aquí ya vienen en la siembra
+    private boolean seeded;
+    private List<StockChangeEvent> duringSeed; // Eventos llegados mientras se recorre el histórico (null = sin siembra en curso)
+
+    public SalesVelocityService() {
+        this(new StockMovementDAO(), 7.0);
+    }
+
+    public SalesVelocityService(StockMovementDAO movementDAO, double halfLifeDays) {
+        this.movementDAO = movementDAO;
+        this.halfLifeDays = halfLifeDays;
+        this.tauMillis = halfLifeDays * MILLIS_PER_DAY / Math.log(2);
+    }
+
+    /**
+     * Siembra las medias con una pasada en streaming por el histórico reciente.
+     * El recorrido llena un mapa nuevo sin bloquear el servicio (las consultas siguen respondiendo con las
+     * medias anteriores) y al final se sustituye de golpe. Los eventos que llegan mientras tanto se guardan
+     * y, al sustituir, se suman los de movimientos posteriores al mayor ID leído; desde ahí, los eventos
+     * de movimientos hasta ese ID se descartan porque ya vienen en la siembra.
+     *
+     * @param historyDays Días de histórico a recorrer (con 4-5 semividas basta).
+     * @return Número de movimientos procesados.
+     * @throws SQLException Si falla la lectura.
+     */
+    public int seed(int historyDays) throws SQLException {
+        synchronized (this) {
+            if (duringSeed != null) {
+                throw new IllegalStateException("Ya hay una siembra en curso.");
+            }
+            duringSeed = new ArrayList<>();
+        }
+        Map<Integer, Velocity> fresh = new HashMap<>();
+        int[] maxId = {0};
+        try {
+            int count = WorkloadClass.REPORTING.call(() -> movementDAO.streamSalesAndPurchasesSince(
+                    LocalDateTime.now().minusDays(historyDays), (movementId, productId, type, quantity, epochMillis) -> {
+                        maxId[0] = Math.max(maxId[0], movementId);
+                        record(fresh, productId, type, quantity, epochMillis);
+                    }));
+            synchronized (this) {
+                for (StockChangeEvent event : duringSeed) {
+                    if (event.getMovementId() == null || event.getMovementId() > maxId[0]) {
+                        applyTo(fresh, event);
+                    }
+                }
+                velocities = fresh;
+                seededUpToId = maxId[0];
+                seeded = true;
+            }
+            return count;
+        } finally {
+            synchronized (this) {
+                duringSeed = null;
+            }
+        }
+    }
+
+    public synchronized boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * Actualiza las medias con los movimientos que publica el inventario.
+     */
+    public StockEventBus.Subscription subscribeTo(StockEventBus bus) {
+        return bus.subscribe("sales-velocity", EVENT_BACKLOG, this::apply);
+    }
+
+    /**
+     * Unidades vendidas por día (media exponencial a fecha de hoy).
+     */
+    public synchronized double getDailySales(int productId) {
+        Velocity v = velocities.get(productId);
+        return v == null ? 0.0 : v.rateAt(System.currentTimeMillis(), tauMillis);
+    }
+
+    /**
+     * Calcula sugerencias de pedido para todo el catálogo, agrupadas por proveedor.
+     * Se sugiere pedir cuando el stock no cubre el plazo de entrega más el margen,
+     * y la cantidad repone hasta cubrir plazo + días objetivo.
+     *
+     * @param catalog           Productos con su stock actual (ej: CatalogCache).
+     * @param leadTimeDays      Días que tarda en llegar un pedido.
+     * @param targetCoverDays   Días de venta que debe cubrir el pedido tras llegar.
+     * @return Mapa proveedorId -> sugerencias (de menor a mayor cobertura). Clave null = sin proveedor.
+     */
+    public synchronized Map<Integer, List<ReorderSuggestion>> suggestReorders(Collection<Product> catalog,
+                                                                              int leadTimeDays, int targetCoverDays) {
+        long now = System.currentTimeMillis();
+        Map<Integer, List<ReorderSuggestion>> byProvider = new TreeMap<>(Comparator.nullsLast(Comparator.naturalOrder()));
+
+        for (Product p : catalog) {
+            Velocity v = velocities.get(p.getId());
+            double daily = v == null ? 0.0 : v.rateAt(now, tauMillis);
+            if (daily <= 0.0) continue; // Sin ventas: no hay nada que prever
+
+            int stock = p.getStock() == null ? 0 : Math.max(0, p.getStock());
+            double cover = stock / daily;
+            if (cover >= leadTimeDays + targetCoverDays / 2.0) continue;
+
+            int quantity = (int) Math.ceil(daily * (leadTimeDays + targetCoverDays)) - stock;
+            if (quantity <= 0) continue;
+
+            byProvider.computeIfAbsent(p.getProviderId(), k -> new ArrayList<>()).add(ReorderSuggestion.builder()
+                    .productId(p.getId())
+                    .sku(p.getSku())
+                    .name(p.getName())
+                    .providerId(p.getProviderId())
+                    .stock(stock)
+                    .dailySales(daily)
+                    .daysOfCover(cover)
+                    .reorderQuantity(quantity)
+                    .lastRestock(v.lastRestock == 0 ? null
+                            : LocalDateTime.ofInstant(Instant.ofEpochMilli(v.lastRestock), ZoneId.systemDefault()))
+                    .build());
+        }
+        for (List<ReorderSuggestion> list : byProvider.values()) {
+            list.sort(Comparator.comparingDouble(ReorderSuggestion::getDaysOfCover));
+        }
+        return byProvider;
+    }
+
+    public double getHalfLifeDays() {
+        return halfLifeDays;
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    private synchronized void apply(StockChangeEvent event) {
+        if (duringSeed != null) duringSeed.add(event);
+        if (!seeded) return;
+        if (event.getMovementId() != null && event.getMovementId() <= seededUpToId) return; // Ya contado en la siembra
+        applyTo(velocities, event);
+    }
+
+    private void applyTo(Map<Integer, Velocity> target, StockChangeEvent event) {
+        if (event.getTimestamp() == null) return;
+        long when = event.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (event.getType() == StockChangeType.VENTA) {
+            record(target, event.getProductId(), "VENTA", -event.getDelta(), when);
+        } else if (event.getType() == StockChangeType.COMPRA) {
+            record(target, event.getProductId(), "COMPRA", event.getDelta(), when);
+        }
+    }
+
+    private void record(Map<Integer, Velocity> target, int productId, String type, int quantity, long epochMillis) {
+        Velocity v = target.computeIfAbsent(productId, k -> new Velocity());
+        if ("VENTA".equals(type)) {
+            v.addSale(quantity, epochMillis, tauMillis);
+        } else {
+            v.lastRestock = Math.max(v.lastRestock, epochMillis);
+        }
+    }
+
+    /**
+     * Tasa de ventas con decaimiento exponencial continuo:
+     * cada venta suma q/tau y el total decae como e^(-dt/tau). Actualizar cuesta O(1).
+     */
+    private static final class Velocity {
+        private double rate;            // unidades por milisegundo a fecha 'updatedAt'
+        private long updatedAt;
+        private long lastRestock;
+
+        private void addSale(int quantity, long when, double tau) {
+            if (updatedAt == 0) {
+                updatedAt = when;
+            } else if (when > updatedAt) {
+                rate *= Math.exp(-(when - updatedAt) / tau);
+                updatedAt = when;
+            }
+            // Si llega algo fuera de orden (when < updatedAt) lo sumamos ya decaído
+            rate += quantity / tau * Math.exp(-Math.max(0, updatedAt - when) / tau);
+        }
+
+        private double rateAt(long now, double tau) {
+            if (updatedAt == 0) return 0.0;
+            return rate * Math.exp(-Math.max(0, now - updatedAt) / tau) * MILLIS_PER_DAY;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.techstore.service;
+
+import com.techstore.dao.ProductDAO;
+import com.techstore.model.StockChangeType;
+
+import java.sql.SQLException;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Índice SKU -> producto_id en memoria para las ventas por escáner.
+ * Tabla hash de direccionamiento abierto (sondeo lineal) sobre arrays paralelos String[] / int[]:
+ * sin objetos por entrada ni boxing, y las lecturas son optimistas (sin bloqueo) con StampedLock.
+ * Los dos arrays van juntos en una tabla que al crecer se sustituye entera con una sola
+ * asignación: una lectura optimista nunca empareja las claves de una tabla con los IDs de otra.
+ * Los SKU se guardan tal cual, sin espacios a los lados.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class SkuIndex {
+
+    public static final int NOT_FOUND = -1;
+    private static final int EVENT_BACKLOG = 10_000;
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Table table;
+    private int size;
+    private volatile boolean loaded;
+
+    public SkuIndex() {
+        this(1024);
+    }
+
+    public SkuIndex(int expectedSize) {
+        table = new Table(Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1);
+    }
+
+    /**
+     * Devuelve el producto_id del SKU o {@link #NOT_FOUND}.
+     * No reserva memoria en el camino normal (lectura optimista).
+     */
+    public int get(String sku) {
+        if (sku == null) return NOT_FOUND;
+        String key = sku.trim();
+
+        long stamp = lock.tryOptimisticRead();
+        int result = lookup(key);
+        if (!lock.validate(stamp)) {
+            // Hubo una escritura a la vez: repetimos con bloqueo de lectura
+            stamp = lock.readLock();
+            try {
+                result = lookup(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Añade o actualiza la entrada de un SKU.
+     */
+    public void put(String sku, int productId) {
+        if (sku == null) return;
+        String key = sku.trim();
+        long stamp = lock.writeLock();
+        try {
+            if ((size + 1) * 2 > table.keys.length) {
+                resize();
+            }
+            if (insert(table, key, productId)) size++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Carga el índice con todos los SKU de PRODUCTOS.
+     *
+     * @return Número de SKUs cargados.
+     * @throws SQLException Si falla la consulta.
+     */
+    public int load(ProductDAO productDAO) throws SQLException {
+        int count = productDAO.forEachSku(this::put);
+        loaded = true;
+        return count;
+    }
+
+    /**
+     * Mantiene el índice al día con los productos que entran por importación.
+     */
+    public StockEventBus.Subscription subscribeTo(StockEventBus bus) {
+        return bus.subscribe("sku-index", EVENT_BACKLOG, event -> {
+            if (event.getType() == StockChangeType.IMPORTACION && event.getSku() != null && event.getProductId() != null) {
+                put(event.getSku(), event.getProductId());
+            }
+        });
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    /**
+     * Claves e IDs en arrays paralelos del mismo tamaño.
+     */
+    private static final class Table {
+        private final String[] keys;
+        private final int[] ids;
+
+        private Table(int capacity) {
+            keys = new String[capacity];
+            ids = new int[capacity];
+        }
+    }
+
+    private int lookup(String key) {
+        Table t = table;
+        String[] k = t.keys;
+        int mask = k.length - 1;
+        int i = mix(key.hashCode()) & mask;
+        // Como mucho recorremos la tabla una vez (protección ante lecturas optimistas inconsistentes)
+        for (int probes = 0; probes < k.length; probes++) {
+            String candidate = k[i];
+            if (candidate == null) return NOT_FOUND;
+            if (candidate.equals(key)) return t.ids[i];
+            i = (i + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * @return true si el SKU es nuevo (false si solo se actualizó su ID).
+     */
+    private static boolean insert(Table t, String key, int productId) {
+        int mask = t.keys.length - 1;
+        int i = mix(key.hashCode()) & mask;
+        while (t.keys[i] != null) {
+            if (t.keys[i].equals(key)) {
+                t.ids[i] = productId;
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        t.ids[i] = productId;
+        t.keys[i] = key;
+        return true;
+    }
+
+    private void resize() {
+        Table old = table;
+        Table bigger = new Table(old.keys.length << 1);
+        for (int i = 0; i < old.keys.length; i++) {
+            if (old.keys[i] != null) insert(bigger, old.keys[i], old.ids[i]);
+        }
+        table = bigger; // Se publica ya completa
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,172 @@
+package com.techstore.service;
+
+import com.techstore.dao.ProductDAO;
+import com.techstore.dao.StockMovementDAO;
+import com.techstore.model.Product;
+import com.techstore.util.DatabaseConnection;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Arranque rápido: calienta en segundo plano todo lo que la primera venta pagaría en frío
+ * (driver, conexiones del pool, sentencias preparadas, catálogo e índices de búsqueda y SKU)
+ * mientras el menú ya está en pantalla.
+ * Antes de eso, si hay instantánea local del catálogo, la carga al momento para que catálogo,
+ * búsqueda y radar respondan aunque Oracle no esté disponible; el calentamiento se reintenta
+ * hasta que la base de datos responde y entonces se pasa a datos en vivo.
+ * También mide el tiempo hasta la primera venta para poder seguirlo entre versiones.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class StartupService {
+
+    private static final Logger log = LogManager.getLogger(StartupService.class);
+
+    private static final long FIRST_RETRY_MILLIS = 5_000;
+    private static final long MAX_RETRY_MILLIS = 60_000;
+
+    private final CatalogCache catalogCache;
+    private final ProductSearchIndex searchIndex;
+    private final SkuIndex skuIndex;
+    private final ProductDAO productDAO;
+    private final StockMovementDAO movementDAO;
+    private final CatalogSnapshotService snapshotService;
+    private final AtomicBoolean firstSaleRecorded = new AtomicBoolean();
+
+    public StartupService(CatalogCache catalogCache, ProductSearchIndex searchIndex, SkuIndex skuIndex) {
+        this(catalogCache, searchIndex, skuIndex, null);
+    }
+
+    public StartupService(CatalogCache catalogCache, ProductSearchIndex searchIndex, SkuIndex skuIndex,
+                          CatalogSnapshotService snapshotService) {
+        this(catalogCache, searchIndex, skuIndex, snapshotService, new ProductDAO(), new StockMovementDAO());
+    }
+
+    public StartupService(CatalogCache catalogCache, ProductSearchIndex searchIndex, SkuIndex skuIndex,
+                          CatalogSnapshotService snapshotService, ProductDAO productDAO, StockMovementDAO movementDAO) {
+        this.catalogCache = catalogCache;
+        this.searchIndex = searchIndex;
+        this.skuIndex = skuIndex;
+        this.productDAO = productDAO;
+        this.movementDAO = movementDAO;
+        this.snapshotService = snapshotService;
+    }
+
+    /**
+     * Carga la instantánea local en la caché del catálogo y en los índices de búsqueda y SKU.
+     * Es síncrono y no toca la base de datos, así que se puede llamar antes de mostrar el menú.
+     *
+     * @return La instantánea cargada o null si no hay (o no hay servicio de instantáneas).
+     */
+    public CatalogSnapshotService.Snapshot restoreSnapshot() {
+        if (snapshotService == null) return null;
+        long t0 = System.nanoTime();
+        CatalogSnapshotService.Snapshot snapshot = snapshotService.restore();
+        if (snapshot != null) {
+            searchIndex.rebuild(snapshot.getProducts());
+            for (Product p : snapshot.getProducts()) {
+                skuIndex.put(p.getSku(), p.getId());
+            }
+            log.info("[ARRANQUE] Instantánea local: {} productos en {} ms",
+                    snapshot.getProducts().size(), (System.nanoTime() - t0) / 1_000_000);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Lanza el calentamiento en un hilo daemon y devuelve inmediatamente.
+     * Si la base de datos no responde se reintenta con espera creciente (hasta 1 minuto);
+     * mientras tanto la aplicación sigue funcionando en frío o con la instantánea local.
+     * El futuro se completa con el primer calentamiento correcto.
+     */
+    public CompletableFuture<Void> startInBackground() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Thread warmer = new Thread(() -> {
+            long wait = FIRST_RETRY_MILLIS;
+            while (true) {
+                try {
+                    warmUp();
+                    done.complete(null);
+                    return;
+                } catch (Exception e) {
+                    log.warn("No se pudo precalentar la conexión (reintento en {} s): {}", wait / 1000, e.getMessage());
+                }
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException e) {
+                    done.completeExceptionally(e);
+                    return;
+                }
+                wait = Math.min(wait * 2, MAX_RETRY_MILLIS);
+            }
+        }, "startup-warmup");
+        warmer.setDaemon(true);
+        warmer.start();
+        return done;
+    }
+
+    /**
+     * Registra la primera venta correcta y muestra cuánto tardó desde el arranque de la JVM.
+     * Las siguientes llamadas no hacen nada.
+     */
+    public void recordFirstSale() {
+        if (firstSaleRecorded.compareAndSet(false, true)) {
+            long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+            log.info("[ARRANQUE] Tiempo hasta primera venta: {} ms", uptime);
+        }
+    }
+
+    private void warmUp() throws Exception {
+        long t0 = System.nanoTime();
+
+        // 1. Driver + conexiones abiertas y validadas
+        int connections = DatabaseConnection.warmUp();
+        long t1 = System.nanoTime();
+
+        // 2. Preparar las sentencias de la venta en cada conexión (caché implícita del driver):
+        //    lanzamos tantas en paralelo como conexiones hay para que cada una la tenga parseada.
+        //    Son las mismas que ejecuta sellProduct: bloque del UPDATE condicional con RETURNING (sobre un ID
+        //    que no existe, no toca nada) e INSERT del movimiento (en una transacción que se deshace).
+        ExecutorService primers = Executors.newFixedThreadPool(Math.max(1, connections));
+        try {
+            List<CompletableFuture<Void>> primes = new ArrayList<>();
+            for (int i = 0; i < connections; i++) {
+                primes.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        productDAO.decreaseStockIfAvailable(-1, 1);
+                        movementDAO.primeInsert();
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }, primers));
+            }
+            CompletableFuture.allOf(primes.toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            primers.shutdown();
+        }
+        long t2 = System.nanoTime();
+
+        // 3. Catálogo caliente en memoria y sus índices (búsqueda por nombre y SKU del escáner)
+        int products = catalogCache.load();
+        searchIndex.rebuild(catalogCache.getProducts());
+        skuIndex.load(productDAO);
+        movementDAO.seedRecentMovements(); // Historial reciente en memoria (opción 4 sin consulta)
+        movementDAO.startRecentTopUp();    // ... y al día con lo de otras cajas, en segundo plano
+        if (snapshotService != null) {
+            snapshotService.saveNow(); // Ya en vivo: la instantánea queda al día para el próximo arranque
+        }
+        long t3 = System.nanoTime();
+
+        log.info("[ARRANQUE] Pool: {} conexiones en {} ms | Sentencias: {} ms | Catálogo: {} productos en {} ms",
+                connections, (t1 - t0) / 1_000_000, (t2 - t1) / 1_000_000, products, (t3 - t2) / 1_000_000);
+    }
+}
@@ -0,0 +1,186 @@
+package com.techstore.service;
+
+import com.techstore.model.StockChangeEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.lmax.disruptor.AlertException;
+import com.lmax.disruptor.EventTranslatorOneArg;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.TimeoutException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bus de eventos en memoria para los cambios de stock.
+ * Cada suscriptor tiene su propio buffer circular acotado (RingBuffer del Disruptor, varios productores
+ * y un consumidor) y su propio hilo de consumo, de forma que publicar nunca bloquea: si un suscriptor
+ * va lento y llena su buffer, los eventos sobrantes se descartan solo para él y se contabilizan.
+ *
+ * Publicar no toma ningún cerrojo: cada caja reserva su posición en el anillo con un CAS (tryPublishEvent)
+ * y el consumidor, cuando no hay nada, duerme a intervalos cortos en lugar de esperar a una señal
+ * (SleepingWaitStrategy), así que la venta no compite con los hilos de los suscriptores.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class StockEventBus {
+
+    private static final Logger log = LogManager.getLogger(StockEventBus.class);
+
+    private static final StockEventBus DEFAULT = new StockEventBus();
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Bus compartido por toda la aplicación (inventario, importación y suscriptores).
+     */
+    public static StockEventBus getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Registra un suscriptor con su propio límite de eventos pendientes.
+     *
+     * @param name      Nombre del suscriptor (se usa para el hilo y los avisos).
+     * @param backlog   Número máximo de eventos pendientes antes de descartar.
+     * @param handler   Código que procesa cada evento (se ejecuta en el hilo del suscriptor).
+     * @return          La suscripción, que se puede cerrar para darse de baja.
+     */
+    public Subscription subscribe(String name, int backlog, Consumer<StockChangeEvent> handler) {
+        if (backlog <= 0) {
+            throw new IllegalArgumentException("El backlog debe ser mayor a 0.");
+        }
+        Subscription subscription = new Subscription(name, backlog, handler);
+        subscriptions.add(subscription);
+        subscription.start();
+        return subscription;
+    }
+
+    /**
+     * Publica un evento a todos los suscriptores sin bloquear al llamante.
+     * Debe invocarse solo después de que el cambio esté confirmado en la BBDD.
+     *
+     * @param event Evento a distribuir.
+     */
+    public void publish(StockChangeEvent event) {
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * Posición del anillo: se reutiliza, solo cambia el evento que lleva.
+     */
+    private static final class Slot {
+        private StockChangeEvent event;
+    }
+
+    private static final EventTranslatorOneArg<Slot, StockChangeEvent> TRANSLATOR = (slot, seq, event) -> slot.event = event;
+
+    /**
+     * Suscripción individual: anillo acotado + hilo consumidor dedicado.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private static final int SPIN_RETRIES = 200;
+        private static final long IDLE_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+        private final String name;
+        private final RingBuffer<Slot> ring;
+        private final SequenceBarrier barrier;
+        private final Sequence consumed = new Sequence();
+        private final Consumer<StockChangeEvent> handler;
+        private final AtomicLong dropped = new AtomicLong();
+        private final Thread worker;
+        private volatile boolean running = true;
+
+        private Subscription(String name, int backlog, Consumer<StockChangeEvent> handler) {
+            this.name = name;
+            // El anillo necesita una potencia de 2: se redondea hacia arriba
+            int size = Integer.highestOneBit(Math.max(1, backlog - 1)) << 1;
+            this.ring = RingBuffer.createMultiProducer(Slot::new, size,
+                    new SleepingWaitStrategy(SPIN_RETRIES, IDLE_SLEEP_NANOS));
+            this.barrier = ring.newBarrier();
+            this.ring.addGatingSequences(consumed);
+            this.handler = handler;
+            this.worker = new Thread(this::consume, "stock-events-" + name);
+            this.worker.setDaemon(true);
+        }
+
+        private void start() {
+            worker.start();
+        }
+
+        private void offer(StockChangeEvent event) {
+            // tryPublishEvent no espera: si el anillo está lleno el evento se pierde para este suscriptor
+            if (running && !ring.tryPublishEvent(TRANSLATOR, event)) {
+                dropped.incrementAndGet();
+            }
+        }
+
+        private void consume() {
+            long next = consumed.get() + 1;
+            boolean closing = false;
+            while (!closing) {
+                long available;
+                try {
+                    available = barrier.waitFor(next);
+                } catch (AlertException e) {
+                    // Baja: se procesa lo que ya estaba publicado y se termina
+                    closing = true;
+                    available = next - 1;
+                    while (ring.isPublished(available + 1)) available++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (TimeoutException e) {
+                    continue;
+                }
+                for (; next <= available; next++) {
+                    Slot slot = ring.get(next);
+                    StockChangeEvent event = slot.event;
+                    slot.event = null; // No retener el evento hasta la siguiente vuelta
+                    try {
+                        handler.accept(event);
+                    } catch (RuntimeException e) {
+                        // Un suscriptor defectuoso no debe tumbar su hilo ni afectar a los demás
+                        log.warn("Suscriptor '{}' falló procesando evento: {}", name, e.getMessage());
+                    }
+                }
+                consumed.set(available);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** Eventos pendientes de procesar (incluido el que se está procesando). */
+        public int getPending() {
+            return (int) (ring.getCursor() - consumed.get());
+        }
+
+        /** Eventos descartados por tener el buffer lleno. */
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        /**
+         * Da de baja la suscripción: no recibe más eventos y su hilo termina tras procesar los pendientes.
+         */
+        @Override
+        public void close() {
+            running = false;
+            subscriptions.remove(this);
+            barrier.alert();
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.techstore.service;
+
+import com.techstore.exception.TechStoreException;
+import com.techstore.model.ReconciliationReport;
+import com.techstore.model.StockDrift;
+import com.techstore.util.DatabaseConnection;
+import com.techstore.util.WorkloadClass;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conciliación del stock central (PRODUCTOS.stock_actual) con el libro de movimientos.
+ * Venta y movimiento no van en la misma transacción y las importaciones dan stock inicial sin movimiento,
+ * así que ambos pueden separarse; este proceso lo detecta y, si se pide, lo corrige.
+ *
+ * El rango de producto_id se parte en tramos que se concilian en paralelo. Para cada tramo, una sola
+ * consulta suma en Oracle los movimientos del rango (activos sin ubicación + resumen archivado con
+ * ubicacion_id = 0, con el índice de V6) y la cruza con PRODUCTOS; las filas se leen en streaming y solo
+ * se guardan los descuadres. Ningún tramo carga el libro entero ni en Oracle ni en memoria.
+ *
+ * La corrección no toca PRODUCTOS (las cajas siguen vendiendo): registra un AJUSTE con la diferencia,
+ * así el libro vuelve a cuadrar con el stock real. Antes de corregir se vuelve a medir cada descuadre y
+ * solo se corrigen los que siguen igual (una venta a medio registrar no se toma por descuadre).
+ * Todo corre como trabajo BULK: dentro de la aplicación el paralelismo real lo limita la cuota BULK del pool.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class StockReconciliationService {
+
+    private static final Logger log = LogManager.getLogger(StockReconciliationService.class);
+
+    private static final int DEFAULT_THREADS = 4;
+    private static final int PARTITIONS_PER_THREAD = 4;   // Tramos de más para repartir bien los rangos desiguales
+    private static final int FETCH_SIZE = 5000;
+    private static final int BATCH_SIZE = 500;            // También límite de elementos del IN al revisar
+
+    private static final String SQL_RANGO =
+            "SELECT MIN(producto_id), MAX(producto_id) FROM PRODUCTOS";
+
+    private static final String FILTRO_TRAMO = "BETWEEN ? AND ?";
+
+    // Público para que SchemaPlanCheck compruebe el plan de exactamente el mismo SQL
+    public static final String SQL_TRAMO =
+            "SELECT p.producto_id, p.sku, p.stock_actual, NVL(l.saldo, 0) AS saldo " +
+            "FROM PRODUCTOS p LEFT JOIN (" + libro(FILTRO_TRAMO) + ") l ON l.producto_id = p.producto_id " +
+            "WHERE p.producto_id " + FILTRO_TRAMO;
+
+    private static final String SQL_AJUSTE =
+            "INSERT INTO MOVIMIENTOS_STOCK (producto_id, tipo, cantidad, notas, ubicacion_id) VALUES (?, 'AJUSTE', ?, ?, ?)";
+
+    private final int threads;
+    private final int partitions;
+
+    public StockReconciliationService() {
+        this(DEFAULT_THREADS, 0);
+    }
+
+    /**
+     * @param threads    Tramos conciliados a la vez.
+     * @param partitions Número de tramos (0 = hilos × 4).
+     */
+    public StockReconciliationService(int threads, int partitions) {
+        this.threads = Math.max(1, threads);
+        this.partitions = partitions > 0 ? partitions : this.threads * PARTITIONS_PER_THREAD;
+    }
+
+    /**
+     * Compara el stock central de todos los productos con el saldo de sus movimientos.
+     *
+     * @return Informe con los productos revisados y los descuadres (mayor diferencia primero).
+     * @throws TechStoreException Si falla la base de datos.
+     */
+    public ReconciliationReport reconcile() throws TechStoreException {
+        long t0 = System.nanoTime();
+        try {
+            long[] range = WorkloadClass.BULK.call(this::productIdRange);
+            if (range == null) {
+                return new ReconciliationReport(0, 0, 0, new ArrayList<>());
+            }
+
+            List<long[]> ranges = split(range[0], range[1], partitions);
+            int parts = ranges.size();
+
+            ConcurrentLinkedQueue<StockDrift> drifts = new ConcurrentLinkedQueue<>();
+            AtomicLong checked = new AtomicLong();
+            ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, parts));
+            try {
+                List<Future<?>> tasks = new ArrayList<>();
+                for (long[] part : ranges) {
+                    // Cada hilo del pool marca su propio trabajo como masivo
+                    tasks.add(pool.submit(() -> WorkloadClass.BULK.call(() ->
+                            checked.addAndGet(reconcileRange(part[0], part[1], drifts)))));
+                }
+                for (Future<?> task : tasks) {
+                    task.get();
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+
+            List<StockDrift> result = new ArrayList<>(drifts);
+            result.sort(Comparator.comparingInt((StockDrift d) -> Math.abs(d.getDifference())).reversed()
+                    .thenComparingInt(StockDrift::getProductId));
+            long millis = (System.nanoTime() - t0) / 1_000_000;
+            log.info("CONCILIACIÓN: {} productos en {} tramos, {} descuadres, {} ms", checked.get(), parts, result.size(), millis);
+            return new ReconciliationReport(checked.get(), parts, millis, result);
+
+        } catch (SQLException e) {
+            throw new TechStoreException("Error de Base de Datos en la conciliación: " + e.getMessage(), e);
+        } catch (ExecutionException e) {
+            // El error real es el del tramo (en su hilo): se encadena para no perder su traza
+            Throwable cause = e.getCause();
+            throw new TechStoreException("Error de Base de Datos en la conciliación: "
+                    + (cause.getMessage() != null ? cause.getMessage() : cause), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TechStoreException("Conciliación interrumpida.");
+        }
+    }
+
+    /**
+     * Corrige los descuadres registrando un AJUSTE por producto (por lotes, una transacción por lote).
+     * Cada descuadre se vuelve a medir antes: si ya no existe o cambió, no se toca.
+     * Los lotes se forman por ID de producto (no en el orden de la conciliación, que es por diferencia),
+     * así cada lote toca un tramo contiguo de PRODUCTOS y del índice del libro.
+     *
+     * @param drifts Descuadres de una conciliación.
+     * @param reason Motivo que se guarda en las notas del ajuste.
+     * @return Ajustes registrados.
+     * @throws TechStoreException Si falla la base de datos (los lotes ya confirmados se quedan).
+     */
+    public int correct(List<StockDrift> drifts, String reason) throws TechStoreException {
+        List<StockDrift> byProduct = new ArrayList<>(drifts);
+        byProduct.sort(Comparator.comparingInt(StockDrift::getProductId));
+        try {
+            int corrected = 0;
+            for (int from = 0; from < byProduct.size(); from += BATCH_SIZE) {
+                List<StockDrift> batch = byProduct.subList(from, Math.min(from + BATCH_SIZE, byProduct.size()));
+                corrected += WorkloadClass.BULK.call(() -> correctBatch(batch, reason));
+            }
+            log.info("CONCILIACIÓN: {} ajustes registrados de {} descuadres", corrected, drifts.size());
+            return corrected;
+        } catch (SQLException e) {
+            throw new TechStoreException("Error de Base de Datos al corregir descuadres: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parte [min, max] en como mucho {@code partitions} tramos contiguos de la misma anchura (el último puede
+     * ser más corto). Nunca hay más tramos que IDs, ni tramos vacíos.
+     *
+     * @return Pares {desde, hasta}, ambos incluidos, en orden.
+     */
+    static List<long[]> split(long min, long max, int partitions) {
+        long span = max - min + 1;
+        long parts = Math.max(1, Math.min(partitions, span));
+        long width = (span + parts - 1) / parts;
+        List<long[]> ranges = new ArrayList<>();
+        for (long from = min; from <= max; from += width) {
+            ranges.add(new long[]{from, Math.min(max, from + width - 1)});
+        }
+        return ranges;
+    }
+
+    /**
+     * Consulta de revisión de un lote: diferencia actual (stock - libro) de los productos de una lista.
+     * El libro se filtra por la misma lista (no por el tramo MIN-MAX, que sumaría también los movimientos
+     * de todos los productos intermedios sin descuadre). Lleva {@code size} parámetros tres veces:
+     * movimientos, resumen y productos.
+     */
+    static String recheckSql(int size) {
+        String filter = "IN (" + String.join(", ", Collections.nCopies(size, "?")) + ")";
+        return "SELECT p.producto_id, p.stock_actual - NVL(l.saldo, 0) AS diferencia " +
+                "FROM PRODUCTOS p LEFT JOIN (" + libro(filter) + ") l ON l.producto_id = p.producto_id " +
+                "WHERE p.producto_id " + filter;
+    }
+
+    /**
+     * Descuadres del lote que siguen exactamente igual al revisarlos: los que desaparecieron o cambiaron
+     * (una venta a medio registrar, otro ajuste...) no se corrigen.
+     *
+     * @param current Diferencia actual por producto (los que ya no existen no están).
+     */
+    static List<StockDrift> unchanged(List<StockDrift> batch, Map<Integer, Integer> current) {
+        List<StockDrift> result = new ArrayList<>();
+        for (StockDrift d : batch) {
+            Integer difference = current.get(d.getProductId());
+            if (difference != null && difference == d.getDifference()) {
+                result.add(d);
+            }
+        }
+        return result;
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    /**
+     * Saldo del libro por producto (activos sin ubicación + resumen archivado con ubicacion_id = 0).
+     * El mismo filtro de producto ("BETWEEN ? AND ?" o "IN (...)") se aplica a las dos partes.
+     */
+    private static String libro(String productFilter) {
+        return "SELECT producto_id, SUM(CASE WHEN tipo = 'VENTA' THEN -cantidad ELSE cantidad END) AS saldo " +
+                "FROM (SELECT producto_id, tipo, cantidad FROM MOVIMIENTOS_STOCK " +
+                "      WHERE ubicacion_id IS NULL AND producto_id " + productFilter + " " +
+                "      UNION ALL " +
+                "      SELECT producto_id, tipo, cantidad_total FROM MOVIMIENTOS_RESUMEN " +
+                "      WHERE ubicacion_id = 0 AND producto_id " + productFilter + ") " +
+                "GROUP BY producto_id";
+    }
+
+    private long[] productIdRange() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_RANGO);
+             ResultSet rs = pstmt.executeQuery()) {
+            rs.next();
+            long min = rs.getLong(1);
+            if (rs.wasNull()) return null;
+            return new long[]{min, rs.getLong(2)};
+        }
+    }
+
+    /**
+     * Concilia un tramo de IDs. Lee de la principal: en la réplica, las ventas aún no replicadas serían descuadres falsos.
+     *
+     * @return Productos revisados.
+     */
+    private long reconcileRange(long from, long to, ConcurrentLinkedQueue<StockDrift> drifts) throws SQLException {
+        long checked = 0;
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_TRAMO)) {
+            pstmt.setLong(1, from);
+            pstmt.setLong(2, to);
+            pstmt.setLong(3, from);
+            pstmt.setLong(4, to);
+            pstmt.setLong(5, from);
+            pstmt.setLong(6, to);
+            pstmt.setFetchSize(FETCH_SIZE);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    checked++;
+                    int stock = rs.getInt(3);
+                    int ledger = rs.getInt(4);
+                    if (stock != ledger) {
+                        drifts.add(new StockDrift(rs.getInt(1), rs.getString(2), stock, ledger));
+                    }
+                }
+            }
+        }
+        return checked;
+    }
+
+    private int correctBatch(List<StockDrift> batch, String reason) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // 1. Diferencia actual de cada producto del lote
+                Map<Integer, Integer> current = new HashMap<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(recheckSql(batch.size()))) {
+                    int index = 1;
+                    for (int list = 0; list < 3; list++) { // Movimientos, resumen y productos
+                        for (StockDrift d : batch) {
+                            pstmt.setInt(index++, d.getProductId());
+                        }
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            current.put(rs.getInt(1), rs.getInt(2));
+                        }
+                    }
+                }
+
+                // 2. Un AJUSTE por cada descuadre que se mantiene igual
+                List<StockDrift> toCorrect = unchanged(batch, current);
+                try (PreparedStatement pstmt = conn.prepareStatement(SQL_AJUSTE)) {
+                    for (StockDrift d : toCorrect) {
+                        pstmt.setInt(1, d.getProductId());
+                        pstmt.setInt(2, d.getDifference());
+                        pstmt.setString(3, "Conciliación: " + reason);
+                        pstmt.setNull(4, Types.INTEGER);
+                        pstmt.addBatch();
+                    }
+                    if (!toCorrect.isEmpty()) {
+                        pstmt.executeBatch();
+                    }
+                }
+                conn.commit();
+                return toCorrect.size();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.techstore.tools;
+
+import com.techstore.service.MovementArchiveService;
+
+/**
+ * Lanzador del archivado de movimientos (pensado para cron o tarea programada).
+ *
+ * Uso: ArchiveMovementsJob [diasAConservar] [tamañoLote]
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class ArchiveMovementsJob {
+
+    public static void main(String[] args) throws Exception {
+        int days = args.length > 0 ? Integer.parseInt(args[0]) : 90;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+
+        System.out.println("=== ARCHIVADO DE MOVIMIENTOS (más de " + days + " días, lotes de " + batchSize + ") ===");
+        new MovementArchiveService().archiveOlderThan(days, batchSize);
+    }
+}
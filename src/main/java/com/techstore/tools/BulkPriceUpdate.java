@@ -0,0 +1,50 @@
+package com.techstore.tools;
+
+import com.techstore.model.PriceChange;
+import com.techstore.model.PriceChangeMode;
+import com.techstore.model.PriceChangeResult;
+import com.techstore.service.PriceUpdateService;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Lanzador del cambio masivo de precios (remarcado de temporada, subida de proveedor...).
+ *
+ * Uso: BulkPriceUpdate categoria|proveedor|skus valor porcentaje|importe cantidad [motivo]
+ *   Ejemplos: BulkPriceUpdate categoria 3 porcentaje -15 "Rebajas de enero"
+ *             BulkPriceUpdate skus TEC-001,TEC-002 importe 5
+ *
+ * Se ejecuta en su propio proceso, así que el evento PRECIOS solo llega a los suscriptores de este proceso.
+ * Las cajas en marcha ven los precios nuevos en el catálogo al caducar su caché (TTL); su índice de
+ * búsqueda se reconstruye con un evento PRECIOS publicado en la propia caja o al reiniciarla.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class BulkPriceUpdate {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.out.println("Uso: BulkPriceUpdate categoria|proveedor|skus valor porcentaje|importe cantidad [motivo]");
+            return;
+        }
+        PriceChange.PriceChangeBuilder change = PriceChange.builder()
+                .mode(args[2].equalsIgnoreCase("importe") ? PriceChangeMode.IMPORTE : PriceChangeMode.PORCENTAJE)
+                .value(new BigDecimal(args[3]))
+                .reason(args.length > 4 ? args[4] : "Cambio masivo de precios");
+
+        switch (args[0].toLowerCase()) {
+            case "categoria": change.categoryId(Integer.parseInt(args[1])); break;
+            case "proveedor": change.providerId(Integer.parseInt(args[1])); break;
+            case "skus": change.skus(Arrays.asList(args[1].split(","))); break;
+            default:
+                System.out.println("Ámbito no válido: usa categoria, proveedor o skus.");
+                return;
+        }
+
+        PriceChangeResult result = new PriceUpdateService().applyPriceChange(change.build());
+        System.out.println("Lote " + result.getBatchId() + ": " + result.getUpdated() + " productos actualizados en "
+                + result.getChunks() + " transacciones (" + result.getMillis() + " ms).");
+    }
+}
@@ -0,0 +1,222 @@
+package com.techstore.tools;
+
+import com.techstore.dao.ProductDAO;
+import com.techstore.model.ImportReport;
+import com.techstore.model.Product;
+import com.techstore.service.ProductImportWriter;
+import com.techstore.service.ReferenceDataCache;
+import com.techstore.service.StockEventBus;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.async.AsyncLoggerContext;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.jmx.RingBufferAdmin;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * Benchmark del coste de logging en una importación masiva, sobre el camino real de escritura
+ * ({@link ProductImportWriter}: validación de referencias, insert, evento IMPORTACION y logs por fila).
+ * La base de datos se sustituye por un ProductDAO que solo asigna el ID y registra lo mismo que el real,
+ * y las referencias se dan por válidas: lo que se mide es el import menos el viaje a Oracle.
+ *
+ * Compara:
+ *  1. El camino antiguo: println del producto + print(".") síncronos a la consola por fila.
+ *  2. Log4j2 asíncrono a nivel INFO (el detalle por fila es DEBUG y no se escribe).
+ *  3. Log4j2 asíncrono con DEBUG activado (el detalle va a consola y archivo en segundo plano).
+ *
+ * De cada modo se dan dos tiempos: lo que tarda el hilo de la importación y lo que tarda hasta que el
+ * último evento queda escrito. Con asyncQueueFullPolicy=Discard la cola llena descarta eventos DEBUG/INFO
+ * en lugar de frenar al que loguea, así que también se cuentan los eventos escritos y los descartados
+ * (emitidos según una calibración con pocas filas, en la que la cola no se llena, menos los escritos).
+ *
+ * Uso: ImportLoggingBenchmark [filas]
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class ImportLoggingBenchmark {
+
+    private static final int CALIBRATION_ROWS = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        LoggerContext context = (LoggerContext) LogManager.getContext(false);
+        CountingAppender written = new CountingAppender();
+        written.start();
+        context.getConfiguration().getLoggerConfig("com.techstore").addAppender(written, null, null);
+        context.updateLoggers();
+        RingBufferAdmin ringBuffer = context instanceof AsyncLoggerContext
+                ? ((AsyncLoggerContext) context).createRingBufferAdmin() : null;
+
+        // Calentamiento del JIT con pocas filas en cada modo
+        run(5_000, true, written, ringBuffer);
+        run(5_000, false, written, ringBuffer);
+
+        Result console = run(rows, true, written, ringBuffer);
+        Configurator.setLevel("com.techstore", Level.INFO);
+        Result info = measure(rows, written, ringBuffer);
+        Configurator.setLevel("com.techstore", Level.DEBUG);
+        Result debug = measure(rows, written, ringBuffer);
+        Configurator.setLevel("com.techstore", Level.INFO);
+
+        System.out.println("\n=== LOGGING EN IMPORTACIÓN (" + rows + " filas, camino de ProductImportWriter sin BBDD) ===");
+        System.out.printf("%-32s %12s %12s %14s %10s %11s%n",
+                "", "hilo (ms)", "escrito (ms)", "filas/s", "eventos", "descartados");
+        print("System.out síncrono (antes)", rows, console);
+        print("Log4j2 asíncrono, nivel INFO", rows, info);
+        print("Log4j2 asíncrono, nivel DEBUG", rows, debug);
+        if (ringBuffer == null) {
+            System.out.println("(Contexto de Log4j2 no asíncrono: sin cola, no hay descartes)");
+        }
+    }
+
+    /**
+     * Mide un modo Log4j2: calibra los eventos por fila con pocas filas y luego lanza la importación completa.
+     */
+    private static Result measure(int rows, CountingAppender written, RingBufferAdmin ringBuffer) throws Exception {
+        long small = run(CALIBRATION_ROWS, false, written, ringBuffer).events;
+        long large = run(CALIBRATION_ROWS * 2, false, written, ringBuffer).events;
+        long perRows = large - small;                       // Eventos de CALIBRATION_ROWS filas
+        long fixed = small - perRows;                       // Eventos por importación (resumen final...)
+        long expected = fixed + perRows * rows / CALIBRATION_ROWS;
+
+        Result result = run(rows, false, written, ringBuffer);
+        result.dropped = Math.max(0, expected - result.events);
+        return result;
+    }
+
+    private static Result run(int rows, boolean console, CountingAppender written, RingBufferAdmin ringBuffer)
+            throws Exception {
+        List<ProductImportWriter.Row> input = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            input.add(new ProductImportWriter.Row(i + 1, buildProduct(i)));
+        }
+        ProductImportWriter writer = new ProductImportWriter(new StubProductDAO(console), new AllValidReferences(),
+                new StockEventBus());
+        IntConsumer progress = console ? row -> System.out.print(".") : null;
+
+        drain(written, ringBuffer);
+        long before = written.count.sum();
+        long t0 = System.nanoTime();
+        writer.write(input, new ImportReport("benchmark"), "benchmark", progress);
+        long caller = System.nanoTime() - t0;
+        if (console) {
+            System.out.println();
+        }
+        drain(written, ringBuffer);
+        long total = System.nanoTime() - t0;
+        return new Result(caller, total, written.count.sum() - before);
+    }
+
+    /**
+     * Espera a que la cola asíncrona se vacíe (o, sin cola, a que dejen de llegar eventos).
+     */
+    private static void drain(CountingAppender written, RingBufferAdmin ringBuffer) throws InterruptedException {
+        if (ringBuffer != null) {
+            while (ringBuffer.getRemainingCapacity() < ringBuffer.getBufferSize()) {
+                Thread.sleep(1);
+            }
+            return;
+        }
+        long last;
+        do {
+            last = written.count.sum();
+            Thread.sleep(50);
+        } while (written.count.sum() != last);
+    }
+
+    private static Product buildProduct(int i) {
+        return Product.builder()
+                .sku("BENCH-" + i)
+                .name("Producto benchmark " + i)
+                .price(BigDecimal.TEN)
+                .costPrice(BigDecimal.ONE)
+                .stock(10)
+                .categoryId(1)
+                .providerId(1)
+                .active(true)
+                .build();
+    }
+
+    private static void print(String label, int rows, Result r) {
+        System.out.printf("%-32s %12.1f %12.1f %,14.0f %,10d %,11d%n",
+                label, r.callerNanos / 1e6, r.totalNanos / 1e6, rows / (r.totalNanos / 1e9), r.events, r.dropped);
+    }
+
+    /** Tiempos y eventos de una pasada. */
+    private static final class Result {
+        private final long callerNanos;
+        private final long totalNanos;
+        private final long events;
+        private long dropped;
+
+        private Result(long callerNanos, long totalNanos, long events) {
+            this.callerNanos = callerNanos;
+            this.totalNanos = totalNanos;
+            this.events = events;
+        }
+    }
+
+    /**
+     * ProductDAO sin base de datos: asigna el ID y registra lo mismo que el insert real
+     * (o, en el modo antiguo, el println que hacía antes).
+     */
+    private static final class StubProductDAO extends ProductDAO {
+        private static final Logger log = LogManager.getLogger(ProductDAO.class);
+        private final AtomicInteger nextId = new AtomicInteger();
+        private final boolean console;
+
+        private StubProductDAO(boolean console) {
+            this.console = console;
+        }
+
+        @Override
+        public void insert(Product product) {
+            product.setId(nextId.incrementAndGet());
+            if (console) {
+                System.out.println("✅ Producto registrado: " + product.getSku() + " - " + product.getName());
+            } else {
+                log.debug("Producto registrado: sku={} productId={} nombre={}", product.getSku(), product.getId(), product.getName());
+            }
+        }
+    }
+
+    /** Referencias siempre válidas (sin consultar categorías ni proveedores). */
+    private static final class AllValidReferences extends ReferenceDataCache {
+        @Override
+        public boolean isValidCategory(int categoryId) {
+            return true;
+        }
+
+        @Override
+        public boolean isValidProvider(int providerId) {
+            return true;
+        }
+    }
+
+    /** Cuenta los eventos que llegan de verdad a los appenders (después de la cola asíncrona). */
+    private static final class CountingAppender extends AbstractAppender {
+        private final LongAdder count = new LongAdder();
+
+        private CountingAppender() {
+            super("benchmark-contador", null, null, true, Property.EMPTY_ARRAY);
+        }
+
+        @Override
+        public void append(LogEvent event) {
+            count.increment();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.techstore.tools;
+
+import com.techstore.service.ImportWatcherService;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Lanzador del demonio de ingesta por carpeta.
+ *
+ * Uso: ImportWatcherDaemon [carpetaEntrada] [trabajadores]
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class ImportWatcherDaemon {
+
+    public static void main(String[] args) throws Exception {
+        Path inbox = Paths.get(args.length > 0 ? args[0] : "entrada");
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+
+        ImportWatcherService service = new ImportWatcherService(inbox, workers);
+        // Al parar (Ctrl+C) dejamos terminar los archivos en curso; los checkpoints cubren el resto
+        Runtime.getRuntime().addShutdownHook(new Thread(service::close));
+        service.start();
+        Thread.currentThread().join();
+    }
+}
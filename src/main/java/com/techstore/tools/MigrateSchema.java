@@ -0,0 +1,39 @@
+package com.techstore.tools;
+
+import com.techstore.util.SchemaMigrator;
+
+import java.util.List;
+
+/**
+ * Aplica o consulta las migraciones del esquema desde la línea de comandos.
+ *
+ * Uso: MigrateSchema [migrar|estado]   (por defecto: migrar)
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class MigrateSchema {
+
+    public static void main(String[] args) throws Exception {
+        String command = args.length > 0 ? args[0] : "migrar";
+        SchemaMigrator migrator = new SchemaMigrator();
+
+        if (command.equals("estado")) {
+            System.out.println("Versión actual del esquema: " + migrator.currentVersion());
+            List<SchemaMigrator.Migration> pending = migrator.pending();
+            if (pending.isEmpty()) {
+                System.out.println("No hay migraciones pendientes.");
+            } else {
+                System.out.println("Pendientes:");
+                for (SchemaMigrator.Migration m : pending) {
+                    System.out.println("  V" + m.getVersion() + " - " + m.getDescription());
+                }
+            }
+        } else if (command.equals("migrar")) {
+            int applied = migrator.migrate();
+            System.out.println("Migraciones aplicadas: " + applied + " | Versión actual: " + migrator.currentVersion());
+        } else {
+            System.out.println("Uso: MigrateSchema [migrar|estado]");
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.techstore.tools;
+
+import com.techstore.dao.ProductDAO;
+import com.techstore.dao.StockMovementDAO;
+import com.techstore.exception.StockInsufficientException;
+import com.techstore.exception.TechStoreException;
+import com.techstore.model.ImportReport;
+import com.techstore.model.Product;
+import com.techstore.service.CsvImportService;
+import com.techstore.service.InventoryService;
+import com.techstore.util.DatabaseConnection;
+import com.techstore.util.LatencyRecorder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generador de carga para simular un día punta de cajas (TPV) contra una BBDD local.
+ * Lanza N terminales concurrentes que venden y reabastecen con una popularidad de SKU sesgada (Zipf),
+ * mide throughput y latencias (p50/p99/p999) y al final verifica la consistencia del inventario:
+ * ningún stock negativo y stock de PRODUCTOS == suma de MOVIMIENTOS_STOCK para cada producto sembrado.
+ *
+ * Uso: PosLoadGenerator [terminales] [segundos] [productos] [sesgoZipf] [categoriaId] [proveedorId] [csvImportacion]
+ *   csvImportacion  CSV de productos que se importa en paralelo a las ventas (clase BULK), para comprobar
+ *                   que la latencia de las cajas no se resiente; al final se muestran las cuotas del pool.
+ *                   Si es un número, se genera un CSV temporal con esas filas (p. ej. 200000).
+ *
+ * Para validar las cuotas: una ejecución sin importación y otra igual con 200000; el p99 de las ventas
+ * debe quedarse prácticamente igual.
+ *
+ * ¡OJO! Inserta productos y movimientos: usar solo contra una base de datos de pruebas.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class PosLoadGenerator {
+
+    private static final int STOCK_INICIAL = 50;
+    private static final double PROBABILIDAD_REPOSICION = 0.10;
+
+    private final ProductDAO productDAO = new ProductDAO();
+    private final StockMovementDAO movementDAO = new StockMovementDAO();
+    private final InventoryService inventoryService = new InventoryService();
+
+    private final int terminals;
+    private final int durationSeconds;
+    private final int catalogSize;
+    private final double zipfSkew;
+    private final int categoryId;
+    private final int providerId;
+    private final String importFile;
+
+    public PosLoadGenerator(int terminals, int durationSeconds, int catalogSize, double zipfSkew,
+                            int categoryId, int providerId) {
+        this(terminals, durationSeconds, catalogSize, zipfSkew, categoryId, providerId, null);
+    }
+
+    public PosLoadGenerator(int terminals, int durationSeconds, int catalogSize, double zipfSkew,
+                            int categoryId, int providerId, String importFile) {
+        this.terminals = terminals;
+        this.durationSeconds = durationSeconds;
+        this.catalogSize = catalogSize;
+        this.zipfSkew = zipfSkew;
+        this.categoryId = categoryId;
+        this.providerId = providerId;
+        this.importFile = importFile;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int terminals = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int products = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        double skew = args.length > 3 ? Double.parseDouble(args[3]) : 1.1;
+        int categoryId = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+        int providerId = args.length > 5 ? Integer.parseInt(args[5]) : 1;
+        String importFile = args.length > 6 ? args[6] : null;
+
+        boolean ok = new PosLoadGenerator(terminals, seconds, products, skew, categoryId, providerId, importFile).run();
+        System.exit(ok ? 0 : 1);
+    }
+
+    /**
+     * Ejecuta siembra, carga y verificación.
+     *
+     * @return true si la verificación de consistencia fue correcta.
+     */
+    public boolean run() throws Exception {
+        System.out.println("=== GENERADOR DE CARGA TPV ===");
+        System.out.printf("Terminales: %d | Duración: %ds | Catálogo: %d | Zipf s=%.2f%n",
+                terminals, durationSeconds, catalogSize, zipfSkew);
+
+        int[] productIds = seedCatalog();
+        double[] cdf = zipfCdf(productIds.length, zipfSkew);
+
+        ExecutorService pool = Executors.newFixedThreadPool(terminals);
+        long deadline = System.nanoTime() + durationSeconds * 1_000_000_000L;
+        List<Future<TerminalStats>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        CompletableFuture<ImportReport> importJob = null;
+        if (importFile != null) {
+            String csv = importFile.matches("\\d+") ? generateImportCsv(Integer.parseInt(importFile)).toString() : importFile;
+            System.out.println("⏳ Importando " + csv + " en paralelo a las ventas...");
+            importJob = CompletableFuture.supplyAsync(() -> new CsvImportService().cargarProductosDesdeCsv(csv));
+        }
+        for (int t = 0; t < terminals; t++) {
+            int terminalId = t + 1;
+            futures.add(pool.submit(() -> runTerminal(terminalId, productIds, cdf, deadline)));
+        }
+
+        TerminalStats total = new TerminalStats();
+        for (Future<TerminalStats> f : futures) {
+            total.merge(f.get());
+        }
+        pool.shutdown();
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        printReport(total, elapsedSeconds);
+        if (importJob != null) {
+            // Las ventas ya terminaron: la importación sigue sin freno hasta acabar
+            ImportReport report = importJob.get();
+            System.out.printf("Importación: %d filas cargadas, %d rechazadas%s%n", report.getImported(),
+                    report.getRejected().size(), report.getFatalError() != null ? " (ERROR: " + report.getFatalError() + ")" : "");
+            System.out.println("\n=== CUOTAS DEL POOL ===");
+            System.out.println(DatabaseConnection.getPoolStats());
+        }
+        return verify(productIds);
+    }
+
+    // --- FASES ---
+
+    /**
+     * Crea el catálogo de prueba con stock 0 y le da su stock inicial como COMPRA,
+     * para que el libro de movimientos cuadre desde el primer momento.
+     */
+    private int[] seedCatalog() throws Exception {
+        System.out.println("⏳ Sembrando catálogo de prueba...");
+        String runId = Long.toString(System.currentTimeMillis(), 36).toUpperCase();
+        int[] ids = new int[catalogSize];
+        for (int i = 0; i < catalogSize; i++) {
+            Product p = Product.builder()
+                    .sku("LT-" + runId + "-" + i)
+                    .name("Producto carga " + i)
+                    .description("Generado por PosLoadGenerator")
+                    .price(new BigDecimal("9.99"))
+                    .costPrice(new BigDecimal("5.00"))
+                    .stock(0)
+                    .categoryId(categoryId)
+                    .providerId(providerId)
+                    .active(true)
+                    .build();
+            productDAO.insert(p);
+            ids[i] = p.getId();
+            inventoryService.addStock(ids[i], STOCK_INICIAL, "Siembra carga " + runId);
+        }
+        return ids;
+    }
+
+    /**
+     * Escribe un CSV temporal de importación con SKUs nuevos (no choca con el catálogo de prueba ni con otra ejecución).
+     */
+    private Path generateImportCsv(int rows) throws IOException {
+        String runId = Long.toString(System.currentTimeMillis(), 36).toUpperCase();
+        Path file = Files.createTempFile("carga-importacion-", ".csv");
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("ID;SKU;NOMBRE;DESCRIPCION;PRECIO_VENTA;PRECIO_COSTO;STOCK;CATEGORIA;PROVEEDOR;ACTIVO\n");
+            for (int i = 0; i < rows; i++) {
+                out.write(";LI-" + runId + "-" + i + ";Importado carga " + i + ";Generado por PosLoadGenerator;9.99;5.00;0;"
+                        + categoryId + ";" + providerId + ";1\n");
+            }
+        }
+        file.toFile().deleteOnExit();
+        System.out.println("CSV de importación generado: " + rows + " filas en " + file);
+        return file;
+    }
+
+    private TerminalStats runTerminal(int terminalId, int[] productIds, double[] cdf, long deadline) {
+        TerminalStats stats = new TerminalStats();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String nota = "Terminal " + terminalId;
+
+        while (System.nanoTime() < deadline) {
+            int productId = productIds[pick(cdf, random.nextDouble())];
+            boolean restock = random.nextDouble() < PROBABILIDAD_REPOSICION;
+            long t0 = System.nanoTime();
+            try {
+                if (restock) {
+                    inventoryService.addStock(productId, 10 + random.nextInt(20), nota);
+                    stats.restockLatency.record(System.nanoTime() - t0);
+                } else {
+                    inventoryService.sellProduct(productId, 1 + random.nextInt(3), nota);
+                    stats.saleLatency.record(System.nanoTime() - t0);
+                }
+            } catch (StockInsufficientException e) {
+                // Rechazo legítimo: también cuenta como operación completada
+                stats.saleLatency.record(System.nanoTime() - t0);
+                stats.rejectedSales++;
+            } catch (TechStoreException e) {
+                stats.errors++;
+            }
+        }
+        return stats;
+    }
+
+    private void printReport(TerminalStats total, double elapsedSeconds) {
+        int ops = total.saleLatency.getCount() + total.restockLatency.getCount();
+        System.out.println("\n=== RESULTADOS ===");
+        System.out.printf("Operaciones: %d en %.1fs -> %.1f ops/s%n", ops, elapsedSeconds, ops / elapsedSeconds);
+        System.out.println("Ventas       : " + total.saleLatency.summary());
+        System.out.println("Reposiciones : " + total.restockLatency.summary());
+        System.out.println("Ventas rechazadas por stock: " + total.rejectedSales + " | Errores: " + total.errors);
+    }
+
+    /**
+     * Comprueba que ningún producto sembrado quedó en negativo
+     * y que su stock coincide con el saldo de movimientos.
+     */
+    private boolean verify(int[] productIds) throws Exception {
+        System.out.println("\n=== VERIFICACIÓN DE CONSISTENCIA ===");
+        Map<Integer, Integer> ledger = movementDAO.getLedgerStockByProduct();
+
+        int negatives = 0;
+        int mismatches = 0;
+        for (int id : productIds) {
+            int stock = productDAO.getCurrentStock(id);
+            int expected = ledger.getOrDefault(id, 0);
+            if (stock < 0) {
+                negatives++;
+                System.out.println("❌ Stock negativo en producto " + id + ": " + stock);
+            }
+            if (stock != expected) {
+                mismatches++;
+                System.out.println("❌ Producto " + id + ": stock " + stock + " != movimientos " + expected);
+            }
+        }
+
+        boolean ok = negatives == 0 && mismatches == 0;
+        System.out.println(ok
+                ? "✅ Inventario consistente en " + productIds.length + " productos."
+                : "❌ " + negatives + " negativos y " + mismatches + " descuadres.");
+        return ok;
+    }
+
+    // --- AUXILIARES ---
+
+    /**
+     * Distribución acumulada de Zipf: el producto k tiene peso 1/k^s.
+     */
+    private static double[] zipfCdf(int n, double s) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, s);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= sum;
+        }
+        return cdf;
+    }
+
+    private static int pick(double[] cdf, double u) {
+        int lo = 0, hi = cdf.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cdf[mid] < u) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static final class TerminalStats {
+        private final LatencyRecorder saleLatency = new LatencyRecorder();
+        private final LatencyRecorder restockLatency = new LatencyRecorder();
+        private long rejectedSales;
+        private long errors;
+
+        private void merge(TerminalStats other) {
+            saleLatency.merge(other.saleLatency);
+            restockLatency.merge(other.restockLatency);
+            rejectedSales += other.rejectedSales;
+            errors += other.errors;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.techstore.tools;
+
+import com.techstore.model.ReconciliationReport;
+import com.techstore.model.StockDrift;
+import com.techstore.service.StockReconciliationService;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Lanzador de la conciliación de stock contra el libro de movimientos (pensado para cron o tarea programada).
+ *
+ * Uso: ReconcileStock [hilos] [corregir] [csvInforme] [tramos]
+ *   hilos       tramos de productos conciliados a la vez (por defecto 4)
+ *   corregir    true para registrar un AJUSTE por cada descuadre confirmado (por defecto false: solo informe)
+ *   csvInforme  ruta donde guardar todos los descuadres (opcional)
+ *   tramos      número de tramos de producto_id (por defecto hilos × 4)
+ *
+ * Como es un proceso aparte, se reserva para sí el pool: tantas conexiones BULK como hilos
+ * (salvo que se indique otra cosa con -Ddb.pool.size / -Ddb.pool.quota.bulk).
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class ReconcileStock {
+
+    private static final int TOP_DESCUADRES = 20;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        boolean correct = args.length > 1 && Boolean.parseBoolean(args[1]);
+        String csv = args.length > 2 && !args[2].isBlank() ? args[2] : null;
+        int partitions = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+        if (System.getProperty("db.pool.size") == null) {
+            System.setProperty("db.pool.size", String.valueOf(threads + 1));
+        }
+        if (System.getProperty("db.pool.quota.bulk") == null) {
+            System.setProperty("db.pool.quota.bulk", String.valueOf(threads));
+        }
+
+        System.out.println("=== CONCILIACIÓN DE STOCK (" + threads + " hilos" + (correct ? ", con corrección" : "") + ") ===");
+        StockReconciliationService service = new StockReconciliationService(threads, partitions);
+        ReconciliationReport report = service.reconcile();
+        List<StockDrift> drifts = report.getDrifts();
+
+        System.out.printf("Productos revisados: %d en %d tramos | %.1f s | Descuadres: %d%n",
+                report.getProductsChecked(), report.getPartitions(), report.getMillis() / 1000.0, drifts.size());
+        if (!drifts.isEmpty()) {
+            System.out.printf("%-10s | %-20s | %10s | %12s | %10s%n", "ID", "SKU", "STOCK", "MOVIMIENTOS", "DIFERENCIA");
+            for (StockDrift d : drifts.subList(0, Math.min(TOP_DESCUADRES, drifts.size()))) {
+                System.out.printf("%-10d | %-20s | %10d | %12d | %+10d%n",
+                        d.getProductId(), d.getSku(), d.getStock(), d.getLedgerStock(), d.getDifference());
+            }
+            if (drifts.size() > TOP_DESCUADRES) {
+                System.out.println("... y " + (drifts.size() - TOP_DESCUADRES) + " más.");
+            }
+        }
+
+        if (csv != null) {
+            try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(csv), StandardCharsets.UTF_8)) {
+                writer.write("PRODUCTO_ID;SKU;STOCK;MOVIMIENTOS;DIFERENCIA");
+                writer.newLine();
+                for (StockDrift d : drifts) {
+                    writer.write(d.getProductId() + ";" + (d.getSku() != null ? d.getSku() : "") + ";"
+                            + d.getStock() + ";" + d.getLedgerStock() + ";" + d.getDifference());
+                    writer.newLine();
+                }
+            }
+            System.out.println("Informe guardado en " + csv);
+        }
+
+        if (correct && !drifts.isEmpty()) {
+            int corrected = service.correct(drifts, "ReconcileStock");
+            System.out.println("Ajustes registrados: " + corrected + " (descuadres que cambiaron entre medias: "
+                    + (drifts.size() - corrected) + ")");
+        }
+    }
+}
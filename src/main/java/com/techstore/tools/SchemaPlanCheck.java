@@ -0,0 +1,268 @@
+package com.techstore.tools;
+
+import com.techstore.dao.ProductDAO;
+import com.techstore.dao.StockMovementDAO;
+import com.techstore.service.StockReconciliationService;
+import com.techstore.util.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Comprueba con EXPLAIN PLAN que las consultas conocidas de los DAOs usan sus índices:
+ * falla (código de salida 1) si alguna lee entera (TABLE ACCESS FULL) una tabla que no debería.
+ *
+ * Con un número de productos como argumento, antes siembra ese catálogo (con 20 movimientos por producto
+ * repartidos en un año, los de más de seis meses ya archivados en MOVIMIENTOS_STOCK_HIST, y stock en una
+ * ubicación de prueba) y recalcula estadísticas, para que el optimizador decida con volúmenes realistas;
+ * al terminar borra los datos sembrados. Los parámetros se sustituyen por valores típicos porque
+ * EXPLAIN PLAN no mira las variables de enlace.
+ *
+ * Uso: SchemaPlanCheck [productosSemilla]   (0 = usar los datos que ya hay)
+ *
+ * ¡OJO! Con semilla inserta y borra datos: usar solo contra una base de datos de pruebas.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class SchemaPlanCheck {
+
+    private static final String SEED_TAG = "PLANCHK";
+    private static final int MOVEMENTS_PER_PRODUCT = 20;
+    private static final int ARCHIVE_AFTER_DAYS = 180;
+
+    /**
+     * Consulta a comprobar: SQL del propio DAO (la misma constante que ejecuta), valores típicos para sus '?' y tablas que no puede leer enteras.
+     */
+    private static final class Check {
+        private final String name;
+        private final String sql;
+        private final String[] sampleValues;
+        private final List<String> indexedTables;
+
+        private Check(String name, String sql, String[] sampleValues, String... indexedTables) {
+            this.name = name;
+            this.sql = sql;
+            this.sampleValues = sampleValues;
+            this.indexedTables = Arrays.asList(indexedTables);
+        }
+    }
+
+    private static final String HACE_UN_DIA = "SYSTIMESTAMP - INTERVAL '1' DAY";
+    private static final String HACE_UNA_SEMANA = "SYSTIMESTAMP - INTERVAL '7' DAY";
+
+    private static final Check[] CHECKS = {
+            new Check("ProductDAO.getProductWithLowStock", ProductDAO.SQL_LOW_STOCK,
+                    new String[]{"5"}, "PRODUCTOS"),
+            new Check("ProductDAO.getProductWithLowTotalStock", ProductDAO.SQL_LOW_TOTAL_STOCK,
+                    new String[]{"5", "5"}, "PRODUCTOS", "STOCK_UBICACION"),
+            new Check("ProductDAO.getProductWithLowStockAt", ProductDAO.SQL_LOW_STOCK_AT,
+                    new String[]{"1", "5"}, "PRODUCTOS", "STOCK_UBICACION"),
+            new Check("ProductDAO.getProductById", ProductDAO.SQL_BY_ID,
+                    new String[]{"1"}, "PRODUCTOS"),
+            new Check("ProductDAO.getProductIdBySku", ProductDAO.SQL_ID_BY_SKU,
+                    new String[]{"'SKU-1'"}, "PRODUCTOS"),
+            new Check("StockMovementDAO.getRecentMovements", StockMovementDAO.SQL_RECENT,
+                    new String[]{"10"}, "MOVIMIENTOS_STOCK"),
+            new Check("StockMovementDAO.topUpRecentMovements", StockMovementDAO.SQL_RECENT_AFTER,
+                    new String[]{"1", "256"}, "MOVIMIENTOS_STOCK"),
+            new Check("StockMovementDAO.getMovementsBetween", StockMovementDAO.SQL_BETWEEN,
+                    new String[]{HACE_UNA_SEMANA, HACE_UN_DIA, HACE_UNA_SEMANA, HACE_UN_DIA},
+                    "MOVIMIENTOS_STOCK", "MOVIMIENTOS_STOCK_HIST"),
+            new Check("StockMovementDAO.getBestSellers", StockMovementDAO.SQL_BEST_SELLERS,
+                    new String[0], "MOVIMIENTOS_STOCK"),
+            // Recorre todo el stock central: se exige que lo haga sobre el índice de conciliación, no sobre la tabla
+            new Check("StockMovementDAO.getLedgerStockByProduct", StockMovementDAO.SQL_LEDGER,
+                    new String[0], "MOVIMIENTOS_STOCK"),
+            new Check("StockMovementDAO.streamSalesAndPurchasesSince", StockMovementDAO.SQL_SALES_AND_PURCHASES_SINCE,
+                    new String[]{HACE_UN_DIA}, "MOVIMIENTOS_STOCK"),
+            new Check("StockReconciliationService (tramo)", StockReconciliationService.SQL_TRAMO,
+                    new String[]{"1", "1000", "1", "1000", "1", "1000"}, "PRODUCTOS", "MOVIMIENTOS_STOCK"),
+    };
+
+    public static void main(String[] args) throws Exception {
+        int seedProducts = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+
+        int failures;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            Integer seedCategory = seedProducts > 0 ? seed(conn, seedProducts) : null;
+            try {
+                failures = runChecks(conn);
+            } finally {
+                if (seedCategory != null) {
+                    cleanUp(conn, seedCategory);
+                }
+            }
+        }
+
+        if (failures > 0) {
+            System.out.println("\n" + failures + " consulta(s) con lectura completa de tabla. Revisa los índices (db/migration).");
+            System.exit(1);
+        }
+        System.out.println("\nTodas las consultas usan índices.");
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    private static int runChecks(Connection conn) throws SQLException {
+        int failures = 0;
+        for (int i = 0; i < CHECKS.length; i++) {
+            Check check = CHECKS[i];
+            String statementId = "TSCHK" + i;
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("EXPLAIN PLAN SET STATEMENT_ID = '" + statementId + "' FOR " + withSampleValues(check));
+            }
+
+            List<String> plan = new ArrayList<>();
+            List<String> fullScans = new ArrayList<>();
+            String sql = "SELECT LPAD(' ', 2 * depth) || operation || ' ' || options AS paso, operation, options, object_name " +
+                    "FROM PLAN_TABLE WHERE statement_id = ? ORDER BY id";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, statementId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        String object = rs.getString("object_name");
+                        plan.add(rs.getString("paso") + (object != null ? " " + object : ""));
+                        if ("TABLE ACCESS".equals(rs.getString("operation")) && "FULL".equals(rs.getString("options"))
+                                && object != null && check.indexedTables.contains(object.toUpperCase())) {
+                            fullScans.add(object);
+                        }
+                    }
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM PLAN_TABLE WHERE statement_id = ?")) {
+                pstmt.setString(1, statementId);
+                pstmt.executeUpdate();
+            }
+
+            if (fullScans.isEmpty()) {
+                System.out.println("[OK]    " + check.name);
+            } else {
+                failures++;
+                System.out.println("[FALLO] " + check.name + " lee entera: " + String.join(", ", fullScans));
+                plan.forEach(line -> System.out.println("          " + line));
+            }
+        }
+        return failures;
+    }
+
+    private static String withSampleValues(Check check) {
+        StringBuilder sb = new StringBuilder();
+        int next = 0;
+        for (char c : check.sql.toCharArray()) {
+            if (c == '?') {
+                sb.append(check.sampleValues[next++]);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int seed(Connection conn, int products) throws SQLException {
+        System.out.println("Sembrando " + products + " productos, " + products * MOVEMENTS_PER_PRODUCT
+                + " movimientos (parte archivados) y stock en una ubicación de prueba...");
+        int categoryId;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO CATEGORIAS (nombre, descripcion, activo) VALUES (?, ?, 1)", new String[]{"CATEGORIA_ID"})) {
+            pstmt.setString(1, SEED_TAG);
+            pstmt.setString(2, "Datos temporales de SchemaPlanCheck");
+            pstmt.executeUpdate();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                keys.next();
+                categoryId = keys.getInt(1);
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO PRODUCTOS (sku, nombre, precio_venta, precio_costo, stock_actual, categoria_id, activo) " +
+                "SELECT '" + SEED_TAG + "-' || LEVEL, 'Producto de prueba ' || LEVEL, 10, 5, MOD(LEVEL * 7919, 1000), ?, 1 " +
+                "FROM DUAL CONNECT BY LEVEL <= ?")) {
+            pstmt.setInt(1, categoryId);
+            pstmt.setInt(2, products);
+            pstmt.executeUpdate();
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO MOVIMIENTOS_STOCK (producto_id, tipo, cantidad, fecha_mov, notas) " +
+                "SELECT p.producto_id, CASE WHEN MOD(n.l, 5) = 0 THEN 'COMPRA' ELSE 'VENTA' END, 1 + MOD(n.l, 3), " +
+                "       SYSTIMESTAMP - NUMTODSINTERVAL(MOD(p.producto_id * 31 + n.l * 439, 365 * 24), 'HOUR'), ? " +
+                "FROM PRODUCTOS p CROSS JOIN (SELECT LEVEL l FROM DUAL CONNECT BY LEVEL <= ?) n " +
+                "WHERE p.categoria_id = ?")) {
+            pstmt.setString(1, SEED_TAG);
+            pstmt.setInt(2, MOVEMENTS_PER_PRODUCT);
+            pstmt.setInt(3, categoryId);
+            pstmt.executeUpdate();
+        }
+        // Lo antiguo pasa al histórico igual que en el archivado, para que getMovementsBetween lea las dos tablas
+        try (PreparedStatement copy = conn.prepareStatement(
+                "INSERT INTO MOVIMIENTOS_STOCK_HIST (movimiento_id, producto_id, tipo, cantidad, fecha_mov, notas, ubicacion_id) " +
+                "SELECT movimiento_id, producto_id, tipo, cantidad, fecha_mov, notas, ubicacion_id FROM MOVIMIENTOS_STOCK " +
+                "WHERE notas = ? AND fecha_mov < SYSTIMESTAMP - NUMTODSINTERVAL(?, 'DAY')");
+             PreparedStatement delete = conn.prepareStatement(
+                "DELETE FROM MOVIMIENTOS_STOCK WHERE notas = ? AND fecha_mov < SYSTIMESTAMP - NUMTODSINTERVAL(?, 'DAY')")) {
+            copy.setString(1, SEED_TAG);
+            copy.setInt(2, ARCHIVE_AFTER_DAYS);
+            copy.executeUpdate();
+            delete.setString(1, SEED_TAG);
+            delete.setInt(2, ARCHIVE_AFTER_DAYS);
+            delete.executeUpdate();
+        }
+        int locationId;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO UBICACIONES (codigo, nombre, tipo) VALUES (?, ?, 'TIENDA')", new String[]{"UBICACION_ID"})) {
+            pstmt.setString(1, SEED_TAG);
+            pstmt.setString(2, "Ubicación temporal de SchemaPlanCheck");
+            pstmt.executeUpdate();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                keys.next();
+                locationId = keys.getInt(1);
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO STOCK_UBICACION (ubicacion_id, producto_id, cantidad) " +
+                "SELECT ?, producto_id, MOD(producto_id * 104729, 200) FROM PRODUCTOS WHERE categoria_id = ?")) {
+            pstmt.setInt(1, locationId);
+            pstmt.setInt(2, categoryId);
+            pstmt.executeUpdate();
+        }
+        // Estadísticas frescas: sin ellas el optimizador no sabe que las tablas han crecido
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("BEGIN " +
+                    "DBMS_STATS.GATHER_TABLE_STATS(USER, 'PRODUCTOS', cascade => TRUE); " +
+                    "DBMS_STATS.GATHER_TABLE_STATS(USER, 'MOVIMIENTOS_STOCK', cascade => TRUE); " +
+                    "DBMS_STATS.GATHER_TABLE_STATS(USER, 'MOVIMIENTOS_STOCK_HIST', cascade => TRUE); " +
+                    "DBMS_STATS.GATHER_TABLE_STATS(USER, 'STOCK_UBICACION', cascade => TRUE); " +
+                    "END;");
+        }
+        return categoryId;
+    }
+
+    private static void cleanUp(Connection conn, int categoryId) throws SQLException {
+        try (PreparedStatement movements = conn.prepareStatement("DELETE FROM MOVIMIENTOS_STOCK WHERE notas = ?");
+             PreparedStatement archived = conn.prepareStatement("DELETE FROM MOVIMIENTOS_STOCK_HIST WHERE notas = ?");
+             PreparedStatement stock = conn.prepareStatement(
+                     "DELETE FROM STOCK_UBICACION WHERE ubicacion_id IN (SELECT ubicacion_id FROM UBICACIONES WHERE codigo = ?)");
+             PreparedStatement location = conn.prepareStatement("DELETE FROM UBICACIONES WHERE codigo = ?");
+             PreparedStatement products = conn.prepareStatement("DELETE FROM PRODUCTOS WHERE categoria_id = ?");
+             PreparedStatement category = conn.prepareStatement("DELETE FROM CATEGORIAS WHERE categoria_id = ?")) {
+            movements.setString(1, SEED_TAG);
+            movements.executeUpdate();
+            archived.setString(1, SEED_TAG);
+            archived.executeUpdate();
+            stock.setString(1, SEED_TAG);
+            stock.executeUpdate();
+            location.setString(1, SEED_TAG);
+            location.executeUpdate();
+            products.setInt(1, categoryId);
+            products.executeUpdate();
+            category.setInt(1, categoryId);
+            category.executeUpdate();
+        }
+        System.out.println("Datos sembrados eliminados.");
+    }
+}
@@ -0,0 +1,247 @@
+package com.techstore.tools;
+
+import com.techstore.util.DatabaseConnection;
+import com.techstore.util.LatencyRecorder;
+import com.techstore.util.WorkloadLog;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reproduce un registro de carga SQL (grabado con -Dtechstore.workload.log) contra la base de datos
+ * configurada en database.properties, respetando los tiempos originales divididos por la velocidad,
+ * y compara la distribución de latencias original con la obtenida, en total y por sentencia.
+ *
+ * Uso: WorkloadReplay archivo [velocidad] [hilos] [soloLectura]
+ *   velocidad    1 = ritmo original, 10 = diez veces más rápido, 0 = sin esperas (por defecto 1)
+ *   hilos        ejecuciones simultáneas como máximo (por defecto, tamaño del pool)
+ *   soloLectura  true para repetir solo las consultas (por defecto false)
+ *
+ * Cada sentencia se repite suelta en autocommit: las transacciones de varias sentencias no se reagrupan.
+ * Los lotes grabados se repiten como lote (un addBatch por juego de parámetros y un executeBatch).
+ * ¡OJO! Sin soloLectura repite ventas, compras e importaciones: usar solo contra una base de datos de pruebas.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class WorkloadReplay {
+
+    private static final int TOP_SENTENCIAS = 15;
+
+    private final Path file;
+    private final double speed;
+    private final int threads;
+    private final boolean readOnly;
+
+    private final Map<Integer, OperationStats> stats = new ConcurrentHashMap<>();
+    private final LatencyRecorder lag = new LatencyRecorder();
+    private final AtomicLong errors = new AtomicLong();
+    private long skipped;
+
+    public WorkloadReplay(Path file, double speed, int threads, boolean readOnly) {
+        this.file = file;
+        this.speed = speed;
+        this.threads = threads;
+        this.readOnly = readOnly;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.out.println("Uso: WorkloadReplay archivo [velocidad] [hilos] [soloLectura]");
+            return;
+        }
+        double speed = args.length > 1 ? Double.parseDouble(args[1]) : 1.0;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : DatabaseConnection.getPoolSize();
+        boolean readOnly = args.length > 3 && Boolean.parseBoolean(args[3]);
+
+        new WorkloadReplay(Paths.get(args[0]), speed, threads, readOnly).run();
+    }
+
+    /**
+     * Latencias de una sentencia: las grabadas y las de la reproducción.
+     */
+    private static final class OperationStats {
+        private final String sql;
+        private final LatencyRecorder original = new LatencyRecorder();
+        private final LatencyRecorder replay = new LatencyRecorder();
+        private long originalTotalNanos;
+        private long failures;
+
+        private OperationStats(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    public void run() throws Exception {
+        System.out.printf("Reproduciendo %s a velocidad %s con %d hilos%s...%n",
+                file, speed == 0 ? "máxima" : speed + "x", threads, readOnly ? " (solo lectura)" : "");
+
+        DatabaseConnection.warmUp();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Semaphore inFlight = new Semaphore(threads * 4); // No leemos el registro mucho más rápido de lo que se ejecuta
+        long[] firstOffset = {-1};
+        long[] replayStart = {0};
+
+        long t0 = System.nanoTime();
+        WorkloadLog.read(file, entry -> {
+            if (readOnly && entry.getKind() != WorkloadLog.QUERY) {
+                skipped++;
+                return;
+            }
+            OperationStats op = stats.computeIfAbsent(entry.getSqlId(), id -> new OperationStats(entry.getSql()));
+            synchronized (op) {
+                op.original.record(entry.getLatencyNanos());
+                op.originalTotalNanos += entry.getLatencyNanos();
+            }
+
+            // Programación: mismo desfase que en la grabación, dividido por la velocidad
+            if (firstOffset[0] < 0) {
+                firstOffset[0] = entry.getOffsetNanos();
+                replayStart[0] = System.nanoTime();
+            }
+            long due = speed == 0 ? 0
+                    : replayStart[0] + (long) ((entry.getOffsetNanos() - firstOffset[0]) / speed);
+            if (due != 0) {
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    sleepNanos(wait);
+                }
+            }
+            inFlight.acquireUninterruptibly();
+            pool.execute(() -> {
+                try {
+                    if (due != 0) {
+                        synchronized (lag) {
+                            lag.record(Math.max(0, System.nanoTime() - due));
+                        }
+                    }
+                    execute(entry, op);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        });
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.HOURS);
+        double seconds = (System.nanoTime() - t0) / 1e9;
+
+        printReport(seconds);
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    private void execute(WorkloadLog.Entry entry, OperationStats op) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = entry.getKind() == WorkloadLog.CALL
+                     ? conn.prepareCall(entry.getSql()) : conn.prepareStatement(entry.getSql())) {
+            if (entry.getKind() != WorkloadLog.BATCH) {
+                bind(pstmt, entry.getParams());
+            }
+
+            long start = System.nanoTime();
+            if (entry.getKind() == WorkloadLog.QUERY) {
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        // Solo leemos las filas, igual que el tiempo grabado
+                    }
+                }
+            } else if (entry.getKind() == WorkloadLog.UPDATE) {
+                pstmt.executeUpdate();
+            } else if (entry.getKind() == WorkloadLog.BATCH) {
+                for (Object[] params : entry.getParamSets()) {
+                    bind(pstmt, params);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            } else {
+                pstmt.execute();
+            }
+            long latency = System.nanoTime() - start;
+            synchronized (op) {
+                op.replay.record(latency);
+            }
+        } catch (SQLException e) {
+            errors.incrementAndGet();
+            synchronized (op) {
+                op.failures++;
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement pstmt, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            Object value = params[i];
+            if (value instanceof WorkloadLog.OutParam) {
+                ((CallableStatement) pstmt).registerOutParameter(i + 1, ((WorkloadLog.OutParam) value).getSqlType());
+            } else if (value instanceof WorkloadLog.NullParam) {
+                pstmt.setNull(i + 1, ((WorkloadLog.NullParam) value).getSqlType());
+            } else {
+                pstmt.setObject(i + 1, value);
+            }
+        }
+    }
+
+    private void printReport(double seconds) {
+        LatencyRecorder originalTotal = new LatencyRecorder();
+        LatencyRecorder replayTotal = new LatencyRecorder();
+        for (OperationStats op : stats.values()) {
+            originalTotal.merge(op.original);
+            replayTotal.merge(op.replay);
+        }
+
+        System.out.println("\n=== RESULTADO DEL REPLAY ===");
+        System.out.printf("Operaciones: %d en %.1f s | Errores: %d | Omitidas: %d%n",
+                replayTotal.getCount(), seconds, errors.get(), skipped);
+        System.out.println("Original : " + originalTotal.summary());
+        System.out.println("Replay   : " + replayTotal.summary());
+        if (lag.getCount() > 0) {
+            // Si el retraso es alto, la base de datos no siguió el ritmo y el replay no es fiel al original
+            System.out.println("Retraso sobre el horario previsto: " + lag.summary());
+        }
+
+        List<OperationStats> ops = new ArrayList<>(stats.values());
+        ops.sort(Comparator.comparingLong((OperationStats op) -> op.originalTotalNanos).reversed());
+
+        System.out.println("\nSentencias con más tiempo acumulado en la grabación:");
+        System.out.printf("%-60s | %7s | %17s | %17s | %8s%n", "SQL", "N", "p50 orig/replay", "p99 orig/replay", "Δ p99");
+        for (OperationStats op : ops.subList(0, Math.min(TOP_SENTENCIAS, ops.size()))) {
+            long p99Original = op.original.percentile(99);
+            long p99Replay = op.replay.percentile(99);
+            String change = p99Original == 0 || op.replay.getCount() == 0 ? "-"
+                    : String.format("%+.0f%%", (p99Replay - p99Original) * 100.0 / p99Original);
+            System.out.printf("%-60s | %7d | %7.2f/%-7.2f ms | %7.2f/%-7.2f ms | %8s%s%n",
+                    abbreviate(op.sql, 60), op.original.getCount(),
+                    op.original.percentile(50) / 1e6, op.replay.percentile(50) / 1e6,
+                    p99Original / 1e6, p99Replay / 1e6, change,
+                    op.failures > 0 ? "  (" + op.failures + " errores)" : "");
+        }
+    }
+
+    private static String abbreviate(String sql, int max) {
+        String oneLine = sql == null ? "?" : sql.replaceAll("\\s+", " ").trim();
+        return oneLine.length() <= max ? oneLine : oneLine.substring(0, max - 3) + "...";
+    }
+
+    private static void sleepNanos(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.techstore.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compartimentos estancos del pool de conexiones: cada {@link WorkloadClass} tiene una cuota máxima
+ * de conexiones en uso y su propia cola con límite. Con las cuotas por defecto, informes y procesos
+ * masivos juntos nunca ocupan todo el pool, así que siempre quedan conexiones para las cajas.
+ *
+ * Admisión (en este orden):
+ *   1. BULK se frena solo: si la latencia de las cajas sube por encima de su referencia, cada petición
+ *      de conexión BULK espera una pausa que se duplica mientras dure la presión y se reduce a la mitad al pasar.
+ *   2. Si la clase tiene plazas libres, entra. Si no, espera en su cola; si la cola está llena o se agota
+ *      el tiempo de espera, SQLException (la operación falla en lugar de acumular trabajo).
+ * Una conexión pedida por un hilo que ya tiene otra abierta no pasa por la cuota (evita interbloqueos
+ * en servicios que anidan conexiones); sí cuenta para el tamaño total del pool. Cada plaza guarda el
+ * contador del hilo que la pidió, así que la conexión puede cerrarse desde otro hilo (una etapa de un
+ * CompletableFuture, por ejemplo) sin descuadrar la cuenta de ninguno de los dos.
+ *
+ * La latencia de las cajas es el tiempo desde que se pide una conexión INTERACTIVE hasta que se devuelve
+ * (espera + uso). Se sigue con dos medias exponenciales: una rápida (presión actual) y una lenta de
+ * referencia que solo se actualiza mientras no hay trabajo BULK en curso.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class ConnectionBulkhead {
+
+    private static final Logger log = LogManager.getLogger(ConnectionBulkhead.class);
+
+    private static final double FAST_ALPHA = 0.2;           // ~ últimas 5 operaciones
+    private static final double BASELINE_ALPHA = 0.01;      // ~ últimas 100 operaciones
+    private static final double PRESSURE_FACTOR = 3.0;      // presión = 3 veces la latencia de referencia
+    private static final long MIN_PAUSE_MILLIS = 10;
+    private static final long MAX_PAUSE_MILLIS = 500;
+    private static final long QUIET_NANOS = TimeUnit.SECONDS.toNanos(1); // sin ventas recientes no hay presión
+
+    private final Lane[] lanes = new Lane[WorkloadClass.values().length];
+    private final long queueTimeoutMillis;
+    private final long throttleFloorNanos;
+
+    // Conexiones abiertas por cada hilo (para no volver a pasar por la cuota en conexiones anidadas).
+    // Atómico: lo decrementa quien cierre la conexión, que puede no ser el hilo que la pidió.
+    private final ThreadLocal<AtomicInteger> held = ThreadLocal.withInitial(AtomicInteger::new);
+
+    // Medias de latencia de las cajas (ns). Se actualizan sin bloqueo: perder alguna muestra no importa.
+    private volatile double interactiveFast;
+    private volatile double interactiveBaseline;
+    private volatile long lastInteractiveNanos;
+    private volatile long bulkPauseMillis;
+    private final LongAdder bulkPauses = new LongAdder();
+
+    /**
+     * @param poolSize           Conexiones totales del pool (cuota de INTERACTIVE).
+     * @param reportingQuota     Conexiones máximas para REPORTING.
+     * @param bulkQuota          Conexiones máximas para BULK.
+     * @param reportingQueue     Peticiones REPORTING que pueden esperar a la vez.
+     * @param bulkQueue          Peticiones BULK que pueden esperar a la vez.
+     * @param queueTimeoutMillis Espera máxima en la cola de una clase.
+     * @param throttleFloorMillis Latencia de las cajas por debajo de la cual BULK nunca se frena.
+     */
+    public ConnectionBulkhead(int poolSize, int reportingQuota, int bulkQuota, int reportingQueue, int bulkQueue,
+                              long queueTimeoutMillis, long throttleFloorMillis) {
+        lanes[WorkloadClass.INTERACTIVE.ordinal()] = new Lane(poolSize, Integer.MAX_VALUE); // Las cajas nunca se rechazan, solo esperan
+        lanes[WorkloadClass.REPORTING.ordinal()] = new Lane(Math.min(reportingQuota, poolSize), reportingQueue);
+        lanes[WorkloadClass.BULK.ordinal()] = new Lane(Math.min(bulkQuota, poolSize), bulkQueue);
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.throttleFloorNanos = TimeUnit.MILLISECONDS.toNanos(throttleFloorMillis);
+    }
+
+    /**
+     * Cuotas por defecto: un cuarto del pool (mínimo 1) para REPORTING y otro para BULK, colas de 8.
+     */
+    public static ConnectionBulkhead defaults(int poolSize, long queueTimeoutMillis) {
+        int share = Math.max(1, poolSize / 4);
+        return new ConnectionBulkhead(poolSize, share, share, 8, 8, queueTimeoutMillis, 50);
+    }
+
+    /**
+     * Plaza concedida a una petición de conexión; se devuelve con {@link #release(Ticket)}.
+     */
+    public static final class Ticket {
+        private final WorkloadClass type;
+        private final long startNanos;
+        private final boolean counted;
+        private final AtomicInteger owner; // Conexiones abiertas del hilo que pidió esta
+
+        private Ticket(WorkloadClass type, long startNanos, boolean counted, AtomicInteger owner) {
+            this.type = type;
+            this.startNanos = startNanos;
+            this.counted = counted;
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * Admite una petición de conexión de la clase del hilo actual, esperando en su cola si hace falta.
+     *
+     * @throws SQLException Si la cola está llena, se agota la espera o se interrumpe el hilo.
+     */
+    public Ticket acquire() throws SQLException {
+        WorkloadClass type = WorkloadClass.current();
+        long start = System.nanoTime();
+        AtomicInteger open = held.get();
+        if (open.get() > 0) {
+            open.incrementAndGet();
+            return new Ticket(type, start, false, open);
+        }
+
+        if (type == WorkloadClass.BULK) {
+            throttle();
+        }
+        Lane lane = lanes[type.ordinal()];
+        if (!lane.permits.tryAcquire()) {
+            if (lane.waiting.incrementAndGet() > lane.maxQueue) {
+                lane.waiting.decrementAndGet();
+                lane.rejected.increment();
+                throw new SQLException("Cola de conexiones " + type + " llena (" + lane.maxQueue + " en espera).");
+            }
+            try {
+                if (!lane.permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    lane.rejected.increment();
+                    throw new SQLException("Sin plaza de conexión " + type + " tras " + queueTimeoutMillis + " ms.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrumpido esperando plaza de conexión " + type + ".");
+            } finally {
+                lane.waiting.decrementAndGet();
+            }
+        }
+        lane.inUse.incrementAndGet();
+        lane.admitted.increment();
+        lane.waitNanos.add(System.nanoTime() - start);
+        open.incrementAndGet();
+        return new Ticket(type, start, true, open);
+    }
+
+    /**
+     * Devuelve la plaza (la conexión ya volvió al pool o no se llegó a obtener).
+     * Puede llamarse desde cualquier hilo: descuenta la conexión del hilo que hizo el acquire.
+     */
+    public void release(Ticket ticket) {
+        ticket.owner.decrementAndGet();
+        if (ticket.counted) {
+            Lane lane = lanes[ticket.type.ordinal()];
+            lane.inUse.decrementAndGet();
+            lane.permits.release();
+        }
+        if (ticket.type == WorkloadClass.INTERACTIVE) {
+            recordInteractive(System.nanoTime() - ticket.startNanos);
+        }
+    }
+
+    /** Latencia actual de las cajas (media rápida, ms). */
+    public double getInteractiveLatencyMillis() {
+        return interactiveFast / 1e6;
+    }
+
+    /** Pausa que se aplica ahora mismo a cada petición BULK (ms). */
+    public long getBulkPauseMillis() {
+        return bulkPauseMillis;
+    }
+
+    /**
+     * Estado legible por clase: cuota, en uso, en cola, admitidas, rechazadas y espera media.
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (WorkloadClass type : WorkloadClass.values()) {
+            Lane lane = lanes[type.ordinal()];
+            long admitted = lane.admitted.sum();
+            sb.append(String.format("%-11s cuota=%d en uso=%d en cola=%d admitidas=%d rechazadas=%d espera media=%.2f ms%n",
+                    type, lane.quota, lane.inUse.get(), lane.waiting.get(), admitted, lane.rejected.sum(),
+                    admitted == 0 ? 0.0 : lane.waitNanos.sum() / 1e6 / admitted));
+        }
+        sb.append(String.format("Latencia cajas=%.2f ms (referencia %.2f ms) | pausa BULK=%d ms | pausas aplicadas=%d",
+                interactiveFast / 1e6, interactiveBaseline / 1e6, bulkPauseMillis, bulkPauses.sum()));
+        return sb.toString();
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    private void recordInteractive(long nanos) {
+        double fast = interactiveFast;
+        interactiveFast = fast == 0 ? nanos : fast + FAST_ALPHA * (nanos - fast);
+        lastInteractiveNanos = System.nanoTime();
+        // La referencia solo aprende con el sistema tranquilo: con BULK en marcha aprendería la latencia degradada
+        if (lanes[WorkloadClass.BULK.ordinal()].inUse.get() == 0) {
+            double baseline = interactiveBaseline;
+            interactiveBaseline = baseline == 0 ? nanos : baseline + BASELINE_ALPHA * (nanos - baseline);
+        }
+    }
+
+    private void throttle() {
+        boolean recent = System.nanoTime() - lastInteractiveNanos < QUIET_NANOS;
+        double limit = Math.max(throttleFloorNanos, interactiveBaseline * PRESSURE_FACTOR);
+        long pause = bulkPauseMillis;
+        if (recent && interactiveFast > limit) {
+            long next = Math.min(MAX_PAUSE_MILLIS, Math.max(MIN_PAUSE_MILLIS, pause * 2));
+            if (pause == 0) {
+                log.info("Latencia de cajas {} ms: se frenan los procesos masivos", String.format("%.1f", interactiveFast / 1e6));
+            }
+            pause = next;
+        } else {
+            pause = pause / 2;
+        }
+        bulkPauseMillis = pause;
+        if (pause == 0) return;
+
+        bulkPauses.increment();
+        try {
+            Thread.sleep(pause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Cuota y cola de una clase.
+     */
+    private static final class Lane {
+        private final int quota;
+        private final int maxQueue;
+        private final Semaphore permits;
+        private final AtomicInteger inUse = new AtomicInteger();
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+
+        private Lane(int quota, int maxQueue) {
+            this.quota = quota;
+            this.maxQueue = maxQueue;
+            this.permits = new Semaphore(quota, true); // Justo: en cola, el primero que llega es el primero que entra
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.techstore.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool de conexiones JDBC de tamaño fijo.
+ * Las conexiones se crean bajo demanda (o por adelantado con {@link #warmUp()}) y
+ * se reutilizan: el close() de la conexión entregada la devuelve al pool en lugar de cerrarla,
+ * así los DAOs siguen usando try-with-resources sin cambios.
+ * Si la grabación de carga está activa ({@link WorkloadRecorder}), las sentencias se entregan envueltas.
+ * Cada petición pasa antes por el {@link ConnectionBulkhead}, que reparte el pool entre clases de trabajo.
+ *
+ * Una conexión que lleva un rato libre puede haberla cortado un cortafuegos o el timeout de inactividad
+ * de la base de datos: al entregarla, si estuvo libre más de {@code validateAfterMillis}, se comprueba con
+ * isValid() y, si no responde, se descarta y se usa otra (o se abre una nueva). Además, si una operación
+ * sobre la conexión, sus sentencias o sus ResultSet falla con un error de conexión (SQLState 08xxx),
+ * la conexión física se descarta al cerrarla en lugar de volver al pool.
+ */
+public class ConnectionPool {
+
+    private static final Logger log = LogManager.getLogger(ConnectionPool.class);
+
+    private static final long DEFAULT_VALIDATE_AFTER_MILLIS = 30_000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final String url;
+    private final Properties connectionProps;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long validateAfterNanos;
+
+    private final BlockingQueue<IdleConnection> idle;
+    private final AtomicInteger created = new AtomicInteger();
+    private final WorkloadRecorder recorder = WorkloadRecorder.getInstance();
+    private final ConnectionBulkhead bulkhead;
+
+    public ConnectionPool(String url, String user, String password, int maxSize, long borrowTimeoutMillis) {
+        this(url, user, password, maxSize, borrowTimeoutMillis, ConnectionBulkhead.defaults(maxSize, borrowTimeoutMillis));
+    }
+
+    public ConnectionPool(String url, String user, String password, int maxSize, long borrowTimeoutMillis,
+                          ConnectionBulkhead bulkhead) {
+        this(url, user, password, maxSize, borrowTimeoutMillis, bulkhead, DEFAULT_VALIDATE_AFTER_MILLIS);
+    }
+
+    /**
+     * @param validateAfterMillis Tiempo libre a partir del cual una conexión se valida antes de entregarla.
+     */
+    public ConnectionPool(String url, String user, String password, int maxSize, long borrowTimeoutMillis,
+                          ConnectionBulkhead bulkhead, long validateAfterMillis) {
+        this.url = url;
+        this.bulkhead = bulkhead;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validateAfterNanos = TimeUnit.MILLISECONDS.toNanos(validateAfterMillis);
+        this.idle = new LinkedBlockingQueue<>(maxSize);
+
+        this.connectionProps = new Properties();
+        connectionProps.setProperty("user", user);
+        connectionProps.setProperty("password", password);
+        // Caché implícita de sentencias del driver Oracle: un PreparedStatement ya parseado
+        // se reutiliza en la misma conexión física, que ahora vive mientras viva el pool.
+        connectionProps.setProperty("oracle.jdbc.implicitStatementCacheSize", "25");
+    }
+
+    /**
+     * Entrega una conexión libre (validada si llevaba tiempo sin usarse), creando una nueva si aún no se alcanzó el máximo.
+     * Antes espera plaza en la cuota de la clase de trabajo del hilo ({@link WorkloadClass}).
+     *
+     * @throws SQLException Si la clase no tiene plaza, no se puede abrir o no queda ninguna libre tras el timeout.
+     */
+    public Connection borrow() throws SQLException {
+        ConnectionBulkhead.Ticket ticket = bulkhead.acquire();
+        try {
+            return wrap(take(), ticket);
+        } catch (SQLException | RuntimeException e) {
+            bulkhead.release(ticket);
+            throw e;
+        }
+    }
+
+    /**
+     * Abre y valida todas las conexiones del pool por adelantado.
+     *
+     * @return Número de conexiones listas en el pool.
+     */
+    public int warmUp() throws SQLException {
+        while (true) {
+            Connection physical = createIfAllowed();
+            if (physical == null) break;
+            if (!physical.isValid(5)) {
+                discard(physical);
+                throw new SQLException("La conexión recién abierta no es válida.");
+            }
+            release(physical, false);
+        }
+        return idle.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /** Conexiones libres en este momento. */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /** Cuotas y colas por clase de trabajo. */
+    public ConnectionBulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    private Connection take() throws SQLException {
+        while (true) {
+            IdleConnection entry = idle.poll();
+            if (entry == null) {
+                Connection physical = createIfAllowed();
+                if (physical != null) return physical;
+                try {
+                    entry = idle.poll(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrumpido esperando una conexión del pool.");
+                }
+                if (entry == null) {
+                    throw new SQLException("No hay conexiones libres tras " + borrowTimeoutMillis + " ms.");
+                }
+            }
+            if (isUsable(entry)) return entry.physical;
+            // Rota: se descarta y se libera su hueco, así la siguiente vuelta puede abrir una nueva
+            log.warn("Conexión del pool sin respuesta tras {} s libre: se descarta",
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - entry.sinceNanos));
+            discard(entry.physical);
+        }
+    }
+
+    private boolean isUsable(IdleConnection entry) {
+        if (System.nanoTime() - entry.sinceNanos < validateAfterNanos) return true;
+        try {
+            return entry.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection createIfAllowed() throws SQLException {
+        while (true) {
+            int current = created.get();
+            if (current >= maxSize) return null;
+            if (created.compareAndSet(current, current + 1)) break;
+        }
+        try {
+            return DriverManager.getConnection(url, connectionProps);
+        } catch (SQLException e) {
+            created.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void release(Connection physical, boolean broken) {
+        if (broken) {
+            log.warn("Conexión del pool descartada tras un error de conexión");
+            discard(physical);
+            return;
+        }
+        try {
+            if (physical.isClosed()) {
+                discard(physical);
+                return;
+            }
+            // Dejamos la conexión como la encontraría un DAO nuevo
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (!idle.offer(new IdleConnection(physical, System.nanoTime()))) {
+                discard(physical);
+            }
+        } catch (SQLException e) {
+            discard(physical);
+        }
+    }
+
+    private void discard(Connection physical) {
+        created.decrementAndGet();
+        try {
+            physical.close();
+        } catch (SQLException ignored) {
+            // Ya estaba rota: no hay nada más que hacer
+        }
+    }
+
+    private Connection wrap(Connection physical, ConnectionBulkhead.Ticket ticket) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, new PooledHandler(physical, ticket));
+    }
+
+    /**
+     * SQLState de clase 08 (excepción de conexión) o error recuperable solo con otra conexión:
+     * la conexión física ya no es de fiar.
+     */
+    static boolean isConnectionError(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLRecoverableException) return true;
+            if (t instanceof SQLException) {
+                String state = ((SQLException) t).getSQLState();
+                if (state != null && state.startsWith("08")) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Conexión libre y el momento en que volvió al pool.
+     */
+    private static final class IdleConnection {
+        private final Connection physical;
+        private final long sinceNanos;
+
+        private IdleConnection(Connection physical, long sinceNanos) {
+            this.physical = physical;
+            this.sinceNanos = sinceNanos;
+        }
+    }
+
+    /**
+     * Conexión entregada: close() la devuelve al pool, o la descarta si hubo un error de conexión.
+     */
+    private final class PooledHandler implements InvocationHandler {
+        private final Connection physical;
+        private final ConnectionBulkhead.Ticket ticket;
+        private boolean closed;
+        private volatile boolean broken;
+
+        private PooledHandler(Connection physical, ConnectionBulkhead.Ticket ticket) {
+            this.physical = physical;
+            this.ticket = ticket;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close")) {
+                if (!closed) {
+                    closed = true;
+                    release(physical, broken);
+                    bulkhead.release(ticket);
+                }
+                return null;
+            }
+            if (name.equals("isClosed")) {
+                return closed || physical.isClosed();
+            }
+            if (closed) {
+                throw new SQLException("Conexión ya devuelta al pool.");
+            }
+            Object result = call(physical, method, args);
+            if (result instanceof Statement) {
+                result = guard(result, method.getReturnType());
+            }
+            if (recorder != null) {
+                if (method.getReturnType() == CallableStatement.class) {
+                    return recorder.wrap((CallableStatement) result, (String) args[0]);
+                }
+                if (method.getReturnType() == PreparedStatement.class) {
+                    return recorder.wrap((PreparedStatement) result, (String) args[0]);
+                }
+                if (method.getReturnType() == Statement.class) {
+                    return recorder.wrap((Statement) result);
+                }
+            }
+            return result;
+        }
+
+        private Object call(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                if (isConnectionError(e.getCause())) {
+                    broken = true;
+                }
+                throw e.getCause();
+            }
+        }
+
+        // Sentencias y ResultSet avisan a la conexión si fallan por un error de conexión
+        private Object guard(Object target, Class<?> type) {
+            return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                Object result = call(target, method, args);
+                if (result instanceof ResultSet && method.getReturnType() == ResultSet.class) {
+                    return guard(result, ResultSet.class);
+                }
+                return result;
+            });
+        }
+    }
+}
@@ -3,19 +3,26 @@ package com.techstore.util;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
 
 /**
  * Clase de utilidad para gestionar la conexión a la base de datos.
  * Implementa el patrón Singleton y lee la configuración desde un archivo externo.
+ * Las conexiones salen de un pool que se crea en el primer uso (o al calentarlo en el arranque).
+ * Si se configura db.read.url, las lecturas que toleran cierto retraso van a una réplica de solo lectura.
+ * Cada pool se reparte entre clases de trabajo ({@link WorkloadClass}) con cuotas configurables:
+ * db.pool.quota.reporting / db.pool.quota.bulk (por defecto un cuarto del pool cada una, mínimo 1),
+ * db.pool.queue.reporting / db.pool.queue.bulk (peticiones en espera, por defecto 8)
+ * y db.bulk.throttle.ms (latencia de cajas por debajo de la cual BULK nunca se frena, por defecto 50).
+ * Las propiedades del pool (db.pool.*, db.read.pool.size, db.bulk.*) se pueden sobrescribir con -D al lanzar
+ * un proceso aparte (por ejemplo, una herramienta masiva que necesita más conexiones BULK).
  */
 public class DatabaseConnection {
 
     private static final Properties props = new Properties();
 
-    // Bloque estático: Se ejecuta una sola vez al cargar la clase
+    // Bloque estático: Se ejecuta una sola vez al cargar la clase (solo lee el archivo, no conecta)
     static {
         try (InputStream input = DatabaseConnection.class.getClassLoader().getResourceAsStream("database.properties")) {
             if (input == null) {
@@ -30,14 +37,143 @@ public class DatabaseConnection {
         }
     }
 
+    private static volatile ConnectionPool pool;
+    private static volatile ConnectionPool readPool;
+
     // Constructor privado
     private DatabaseConnection() {}
 
+    /**
+     * Conexión a la base de datos principal (escrituras y lecturas que deben ser exactas).
+     */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(
-                props.getProperty("db.url"),
-                props.getProperty("db.user"),
-                props.getProperty("db.password")
-        );
+        return getPool().borrow();
+    }
+
+    /**
+     * Conexión para consultas de solo lectura.
+     * Va a la réplica si está configurada; si no, a la principal.
+     */
+    public static Connection getReadConnection() throws SQLException {
+        return getReadConnection(false);
+    }
+
+    /**
+     * Conexión para consultas de solo lectura con opción de exigir datos al día.
+     *
+     * @param requireFresh true si la lectura no puede tolerar el retraso de la réplica (va a la principal).
+     */
+    public static Connection getReadConnection(boolean requireFresh) throws SQLException {
+        if (requireFresh || !hasReadReplica()) {
+            return getConnection();
+        }
+        return getReadPool().borrow();
+    }
+
+    /**
+     * Indica si hay una réplica de lectura configurada (propiedad db.read.url).
+     */
+    public static boolean hasReadReplica() {
+        String url = props.getProperty("db.read.url");
+        return url != null && !url.isBlank();
+    }
+
+    /**
+     * Abre y valida por adelantado todas las conexiones del pool.
+     * Pensado para llamarse en segundo plano durante el arranque.
+     *
+     * @return Número de conexiones listas.
+     * @throws SQLException Si no se puede conectar.
+     */
+    public static int warmUp() throws SQLException {
+        try {
+            // Cargar el driver aquí evita que lo pague la primera operación del usuario
+            Class.forName("oracle.jdbc.OracleDriver");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("Driver de Oracle no encontrado en el classpath.");
+        }
+        int ready = getPool().warmUp();
+        if (hasReadReplica()) {
+            getReadPool().warmUp();
+        }
+        return ready;
+    }
+
+    /**
+     * Tamaño máximo del pool (propiedad db.pool.size, por defecto 4).
+     */
+    public static int getPoolSize() {
+        return getPool().getMaxSize();
+    }
+
+    /**
+     * Estado de las cuotas por clase de trabajo del pool principal (y de la réplica si está en uso).
+     */
+    public static String getPoolStats() {
+        String stats = getPool().getBulkhead().summary();
+        ConnectionPool replica = readPool;
+        if (replica != null) {
+            stats += "\nRéplica:\n" + replica.getBulkhead().summary();
+        }
+        return stats;
+    }
+
+    private static ConnectionPool getPool() {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DatabaseConnection.class) {
+                p = pool;
+                if (p == null) {
+                    int size = Integer.parseInt(setting("db.pool.size", "4"));
+                    long timeout = Long.parseLong(setting("db.pool.timeout.ms", "30000"));
+                    p = new ConnectionPool(
+                            props.getProperty("db.url"),
+                            props.getProperty("db.user"),
+                            props.getProperty("db.password"),
+                            size, timeout, newBulkhead(size, timeout),
+                            Long.parseLong(setting("db.pool.validate.ms", "30000")));
+                    pool = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    private static ConnectionPool getReadPool() {
+        ConnectionPool p = readPool;
+        if (p == null) {
+            synchronized (DatabaseConnection.class) {
+                p = readPool;
+                if (p == null) {
+                    // Usuario y contraseña de la réplica son opcionales: por defecto los de la principal
+                    int size = Integer.parseInt(setting("db.read.pool.size", setting("db.pool.size", "4")));
+                    long timeout = Long.parseLong(setting("db.pool.timeout.ms", "30000"));
+                    p = new ConnectionPool(
+                            props.getProperty("db.read.url"),
+                            props.getProperty("db.read.user", props.getProperty("db.user")),
+                            props.getProperty("db.read.password", props.getProperty("db.password")),
+                            size, timeout, newBulkhead(size, timeout),
+                            Long.parseLong(setting("db.pool.validate.ms", "30000")));
+                    readPool = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    private static ConnectionBulkhead newBulkhead(int poolSize, long timeoutMillis) {
+        String share = String.valueOf(Math.max(1, poolSize / 4));
+        return new ConnectionBulkhead(poolSize,
+                Integer.parseInt(setting("db.pool.quota.reporting", share)),
+                Integer.parseInt(setting("db.pool.quota.bulk", share)),
+                Integer.parseInt(setting("db.pool.queue.reporting", "8")),
+                Integer.parseInt(setting("db.pool.queue.bulk", "8")),
+                timeoutMillis,
+                Long.parseLong(setting("db.bulk.throttle.ms", "50")));
+    }
+
+    // Propiedad del sistema (-D) si existe; si no, la de database.properties
+    private static String setting(String key, String defaultValue) {
+        return System.getProperty(key, props.getProperty(key, defaultValue));
     }
-}
\ No newline at end of file
+}
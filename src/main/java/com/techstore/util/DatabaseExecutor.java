@@ -0,0 +1,80 @@
+package com.techstore.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecutor dedicado para las variantes asíncronas de DAOs y servicios.
+ * Tiene tantos hilos como conexiones el pool (más hilos solo esperarían conexión)
+ * y una cola acotada: si se llena, el futuro falla en lugar de acumular trabajo sin límite.
+ * La tarea se ejecuta con la clase de trabajo ({@link WorkloadClass}) del hilo que la encarga.
+ */
+public class DatabaseExecutor {
+
+    private static final int QUEUE_CAPACITY = 256;
+
+    private static volatile ThreadPoolExecutor executor;
+
+    // Constructor privado
+    private DatabaseExecutor() {}
+
+    /**
+     * Operación de base de datos que puede lanzar excepciones comprobadas (SQLException, TechStoreException...).
+     */
+    @FunctionalInterface
+    public interface DbTask<T> {
+        T call() throws Exception;
+    }
+
+    /**
+     * Ejecuta la tarea en el ejecutor de BBDD.
+     * Las excepciones comprobadas llegan envueltas en CompletionException (causa = la original).
+     *
+     * @param task Operación bloqueante a ejecutar.
+     * @return Futuro con el resultado.
+     */
+    public static <T> CompletableFuture<T> supply(DbTask<T> task) {
+        WorkloadClass type = WorkloadClass.current();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return type.call(task::call);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, get());
+        } catch (RuntimeException e) {
+            // Cola llena (RejectedExecutionException): lo devolvemos como futuro fallido
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static ThreadPoolExecutor get() {
+        ThreadPoolExecutor e = executor;
+        if (e == null) {
+            synchronized (DatabaseExecutor.class) {
+                e = executor;
+                if (e == null) {
+                    int threads = DatabaseConnection.getPoolSize();
+                    AtomicInteger counter = new AtomicInteger();
+                    e = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                            r -> {
+                                Thread t = new Thread(r, "db-async-" + counter.incrementAndGet());
+                                t.setDaemon(true);
+                                return t;
+                            });
+                    e.allowCoreThreadTimeOut(true);
+                    executor = e;
+                }
+            }
+        }
+        return e;
+    }
+}
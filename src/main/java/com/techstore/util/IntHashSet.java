@@ -0,0 +1,76 @@
+package com.techstore.util;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto de enteros primitivos con direccionamiento abierto (sondeo lineal).
+ * Evita el boxing de HashSet<Integer>: un array int[] y nada más.
+ * No es thread-safe para escritura; se construye una vez y luego solo se consulta.
+ */
+public class IntHashSet {
+
+    private static final int EMPTY = Integer.MIN_VALUE; // Valor reservado: los IDs de Oracle nunca lo usan
+
+    private int[] slots;
+    private int size;
+
+    public IntHashSet(int expectedSize) {
+        // Capacidad potencia de 2 con factor de carga <= 0.5
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+    }
+
+    /**
+     * Añade un valor al conjunto.
+     *
+     * @return true si no estaba ya presente.
+     */
+    public boolean add(int value) {
+        if (value == EMPTY) {
+            throw new IllegalArgumentException("Valor reservado: " + value);
+        }
+        if ((size + 1) * 2 > slots.length) {
+            resize();
+        }
+        int mask = slots.length - 1;
+        int i = mix(value) & mask;
+        while (slots[i] != EMPTY) {
+            if (slots[i] == value) return false;
+            i = (i + 1) & mask;
+        }
+        slots[i] = value;
+        size++;
+        return true;
+    }
+
+    public boolean contains(int value) {
+        int mask = slots.length - 1;
+        int i = mix(value) & mask;
+        while (slots[i] != EMPTY) {
+            if (slots[i] == value) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize() {
+        int[] old = slots;
+        slots = new int[old.length << 1];
+        Arrays.fill(slots, EMPTY);
+        size = 0;
+        for (int v : old) {
+            if (v != EMPTY) add(v);
+        }
+    }
+
+    // Dispersión tipo Murmur para que IDs consecutivos no formen racimos
+    private static int mix(int x) {
+        x *= 0x9E3779B9;
+        return x ^ (x >>> 16);
+    }
+}
@@ -0,0 +1,64 @@
+package com.techstore.util;
+
+import java.util.Arrays;
+
+/**
+ * Acumula latencias (en nanosegundos) para calcular percentiles al final de una prueba.
+ * Guarda las muestras en un long[] que crece por duplicación; pensado para un solo hilo
+ * (cada hilo usa su recorder y al final se combinan con {@link #merge}).
+ */
+public class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int count;
+    private boolean sorted;
+
+    public void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+        sorted = false;
+    }
+
+    /**
+     * Añade todas las muestras de otro recorder a este.
+     */
+    public void merge(LatencyRecorder other) {
+        for (int i = 0; i < other.count; i++) {
+            record(other.samples[i]);
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Devuelve el percentil indicado en nanosegundos.
+     *
+     * @param percentile Valor entre 0 y 100 (ej: 99.9).
+     * @return Latencia en ns, o 0 si no hay muestras.
+     */
+    public long percentile(double percentile) {
+        if (count == 0) return 0;
+        if (!sorted) {
+            Arrays.sort(samples, 0, count);
+            sorted = true;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return samples[Math.max(0, Math.min(index, count - 1))];
+    }
+
+    /**
+     * Resumen legible: n, p50, p99, p999 y máximo en milisegundos.
+     */
+    public String summary() {
+        return String.format("n=%d | p50=%.2f ms | p99=%.2f ms | p999=%.2f ms | max=%.2f ms",
+                count,
+                percentile(50) / 1e6,
+                percentile(99) / 1e6,
+                percentile(99.9) / 1e6,
+                percentile(100) / 1e6);
+    }
+}
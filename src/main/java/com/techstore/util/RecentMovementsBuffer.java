@@ -0,0 +1,228 @@
+package com.techstore.util;
+
+import com.techstore.model.StockMovement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Anillo en memoria con los últimos N movimientos de stock, para servir el historial reciente
+ * (opción 4 del menú, un panel que lo consulte continuamente...) sin ir a la base de datos.
+ *
+ * Sin bloqueos: cada escritura reserva su posición con un contador atómico (getAndIncrement)
+ * y guarda en la ranura el movimiento junto a ese número de secuencia. Al leer, una ranura
+ * cuya secuencia no es la esperada se está escribiendo o ya la pisó una vuelta más nueva, y se salta.
+ * Lectores y escritores nunca se esperan entre sí.
+ *
+ * La lectura recorre las ranuras y se queda con los de ID más alto, así el resultado sale en el mismo
+ * orden que la consulta (ID descendente) aunque dos cajas confirmen en distinto orden o la siembra
+ * llegue después de alguna venta. El único objeto que crea es la lista del resultado.
+ *
+ * Alcance: el anillo es de este proceso. En vivo solo recibe lo que inserta su propio DAO; lo que
+ * confirman otras cajas o procesos llega con {@link #topUp}, que un hilo de fondo del DAO llama de forma
+ * periódica con los movimientos de ID mayor que {@link #getHighestLoadedId()}; los lectores nunca esperan
+ * a la base de datos. Esa marca solo avanza con lo
+ * leído de la base de datos (no con las inserciones locales), para no saltarse un ID menor de otra
+ * caja que aún no había confirmado. Un ID que se confirme después de que la base de datos ya
+ * devolviera uno mayor no entra en el anillo; en ese caso solo lo muestra la consulta completa.
+ *
+ * Los movimientos guardados se comparten entre lecturas: no deben modificarse.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class RecentMovementsBuffer {
+
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private static final RecentMovementsBuffer DEFAULT = new RecentMovementsBuffer(DEFAULT_CAPACITY);
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<Slot> slots;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger highestLoadedId = new AtomicInteger();
+    private final AtomicBoolean refresherClaimed = new AtomicBoolean();
+    private volatile boolean seeded;
+
+    /**
+     * @param capacity Movimientos que se conservan (se redondea a potencia de 2).
+     */
+    public RecentMovementsBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * Anillo compartido por los DAOs de movimientos de la aplicación.
+     */
+    public static RecentMovementsBuffer getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Ranura inmutable: el movimiento y la secuencia con la que se escribió.
+     */
+    private static final class Slot {
+        private final long sequence;
+        private final StockMovement movement;
+
+        private Slot(long sequence, StockMovement movement) {
+            this.sequence = sequence;
+            this.movement = movement;
+        }
+    }
+
+    /**
+     * Añade un movimiento recién confirmado (debe llevar ya su ID).
+     */
+    public void append(StockMovement movement) {
+        long seq = sequence.getAndIncrement();
+        slots.set((int) (seq & mask), new Slot(seq, movement));
+    }
+
+    /**
+     * Carga el historial leído de la base de datos al arrancar.
+     * Solo ocupa las ranuras aún libres: si ya entraron movimientos en vivo, no se pisan.
+     * Un movimiento que llegue por las dos vías queda repetido en el anillo; la lectura lo descarta.
+     *
+     * @param newestFirst Movimientos ordenados del más reciente al más antiguo (como getRecentMovements).
+     * @return Movimientos sembrados.
+     */
+    public int seed(List<StockMovement> newestFirst) {
+        long start;
+        int count;
+        while (true) {
+            long current = sequence.get();
+            count = (int) Math.max(0, Math.min(newestFirst.size(), capacity - current));
+            if (sequence.compareAndSet(current, current + count)) {
+                start = current;
+                break;
+            }
+        }
+        // Del más antiguo al más reciente de los que caben
+        for (int i = 0; i < count; i++) {
+            long seq = start + i;
+            slots.set((int) (seq & mask), new Slot(seq, newestFirst.get(count - 1 - i)));
+        }
+        raiseHighestLoadedId(newestFirst);
+        seeded = true;
+        return count;
+    }
+
+    /**
+     * Añade los movimientos leídos de la base de datos después de la siembra (los de otras cajas).
+     * Los que ya están en el anillo (casi siempre los que este proceso añadió con {@link #append})
+     * no se vuelven a añadir, para que un repetido no ocupe la ranura de un movimiento más antiguo.
+     * Si una venta local se añade justo mientras se actualiza puede quedar repetida; la lectura la descarta.
+     *
+     * @param newestFirst Movimientos ordenados del más reciente al más antiguo.
+     * @return Movimientos añadidos (sin contar los que ya estaban).
+     */
+    public int topUp(List<StockMovement> newestFirst) {
+        int added = 0;
+        if (!newestFirst.isEmpty()) {
+            IntHashSet present = idsInRing();
+            for (int i = newestFirst.size() - 1; i >= 0; i--) {
+                StockMovement m = newestFirst.get(i);
+                if (!present.contains(m.getId())) {
+                    append(m);
+                    added++;
+                }
+            }
+        }
+        raiseHighestLoadedId(newestFirst);
+        return added;
+    }
+
+    /**
+     * Reserva la actualización periódica de este anillo: solo el primero que llama la obtiene,
+     * así varios DAOs sobre el mismo anillo no arrancan cada uno su hilo.
+     *
+     * @return true si quien llama debe arrancar la actualización.
+     */
+    public boolean claimRefresher() {
+        return refresherClaimed.compareAndSet(false, true);
+    }
+
+    /**
+     * Mayor ID leído de la base de datos (siembra o actualización): la siguiente consulta pide los posteriores.
+     */
+    public int getHighestLoadedId() {
+        return highestLoadedId.get();
+    }
+
+    /**
+     * Indica si ya se cargó el historial de arranque (antes de eso el anillo solo tiene lo de esta sesión).
+     */
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Últimos movimientos, del más reciente al más antiguo (por ID).
+     *
+     * @param limit Máximo de movimientos (como mucho la capacidad).
+     * @return Copia con los movimientos encontrados (menos de {@code limit} si aún no hay tantos o si,
+     *         durante la lectura, los escritores dieron una vuelta completa al anillo).
+     */
+    public List<StockMovement> getRecent(int limit) {
+        int max = Math.min(limit, capacity);
+        List<StockMovement> result = new ArrayList<>(max);
+        if (max <= 0) return result;
+
+        long head = sequence.get();
+        long from = Math.max(0, head - capacity);
+        for (long seq = head - 1; seq >= from; seq--) {
+            Slot slot = slots.get((int) (seq & mask));
+            if (slot == null || slot.sequence != seq) continue; // A medio escribir o ya sustituida
+            insertById(result, slot.movement, max);
+        }
+        return result;
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    private void raiseHighestLoadedId(List<StockMovement> newestFirst) {
+        if (!newestFirst.isEmpty()) {
+            int id = newestFirst.get(0).getId();
+            highestLoadedId.accumulateAndGet(id, Math::max);
+        }
+    }
+
+    private IntHashSet idsInRing() {
+        IntHashSet ids = new IntHashSet(capacity);
+        long head = sequence.get();
+        for (long seq = Math.max(0, head - capacity); seq < head; seq++) {
+            Slot slot = slots.get((int) (seq & mask));
+            if (slot != null && slot.sequence == seq) ids.add(slot.movement.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Inserción ordenada por ID descendente conservando solo los {@code max} mayores (sin repetidos).
+     * Con los tamaños del historial (decenas) es más barato que ordenar y no crea objetos.
+     */
+    private static void insertById(List<StockMovement> result, StockMovement m, int max) {
+        int id = m.getId();
+        int size = result.size();
+        if (size == max && result.get(size - 1).getId() >= id) return;
+
+        int pos = size;
+        while (pos > 0 && result.get(pos - 1).getId() < id) pos--;
+        if (pos > 0 && result.get(pos - 1).getId() == id) return;
+        if (size == max) result.remove(size - 1);
+        result.add(pos, m);
+    }
+}
@@ -0,0 +1,268 @@
+package com.techstore.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Migraciones versionadas del esquema.
+ * Los scripts viven en src/main/resources/db/migration con el nombre V{n}__descripcion.sql y se aplican
+ * en orden; cada uno aplicado se anota en SCHEMA_VERSION con su checksum, así que nunca se repite.
+ *
+ * Para bases de datos creadas a mano antes de existir este módulo, los "ya existe" de Oracle
+ * (tabla, índice o restricción con ese nombre o esas columnas) se toman como aplicados y solo se avisan.
+ * Un CREATE TABLE omitido así no crea las restricciones que lleva dentro: por eso V7 las vuelve a añadir
+ * una a una con ALTER TABLE, y solo se anota cuando todas existen (o los datos permiten crearlas).
+ * Está pensado para que lo lance un único proceso (arranque con --migrate o la herramienta MigrateSchema).
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class SchemaMigrator {
+
+    private static final Logger log = LogManager.getLogger(SchemaMigrator.class);
+
+    private static final String LOCATION = "db/migration/";
+
+    /** Scripts en orden de aplicación. Para una migración nueva: añadir el archivo y su nombre aquí. */
+    static final String[] MIGRATIONS = {
+            "V1__tablas_base.sql",
+            "V2__archivo_movimientos.sql",
+            "V3__indices_consultas.sql",
+            "V4__auditoria_precios.sql",
+            "V5__stock_por_ubicacion.sql",
+            "V6__indice_conciliacion.sql",
+            "V7__restricciones.sql",
+    };
+
+    // ORA-00955 nombre ya usado, ORA-01408 columnas ya indexadas, ORA-02260/02261 clave ya existe,
+    // ORA-02264 nombre de restricción ya usado, ORA-02275 FK ya existe,
+    // ORA-01430 columna ya existe, ORA-02441 la clave primaria a borrar ya no existe
+    private static final int[] ALREADY_EXISTS = {955, 1408, 2260, 2261, 2264, 2275, 1430, 2441};
+
+    /**
+     * Migración disponible en el classpath.
+     */
+    public static final class Migration {
+        private final int version;
+        private final String description;
+        private final String script;
+        private final List<String> statements;
+        private final long checksum;
+
+        private Migration(int version, String description, String script, List<String> statements, long checksum) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+            this.statements = statements;
+            this.checksum = checksum;
+        }
+
+        public int getVersion() { return version; }
+        public String getDescription() { return description; }
+        public String getScript() { return script; }
+        public long getChecksum() { return checksum; }
+    }
+
+    /**
+     * Aplica las migraciones pendientes.
+     *
+     * @return Número de migraciones aplicadas en esta llamada.
+     * @throws SQLException Si falla una sentencia (la migración queda sin anotar y se reintentará).
+     */
+    public int migrate() throws SQLException {
+        List<Migration> migrations = loadMigrations();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            ensureVersionTable(conn);
+            Map<Integer, Long> applied = appliedVersions(conn);
+
+            int count = 0;
+            for (Migration m : migrations) {
+                Long checksum = applied.get(m.getVersion());
+                if (checksum != null) {
+                    if (checksum != m.getChecksum()) {
+                        log.warn("La migración {} cambió después de aplicarse (checksum distinto); no se vuelve a ejecutar", m.getScript());
+                    }
+                    continue;
+                }
+                apply(conn, m);
+                count++;
+            }
+            if (count == 0) {
+                log.info("Esquema al día (versión {})", migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).getVersion());
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Versión más alta aplicada (0 si no hay ninguna o no existe SCHEMA_VERSION).
+     */
+    public int currentVersion() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (!versionTableExists(conn)) return 0;
+            return appliedVersions(conn).keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+        }
+    }
+
+    /**
+     * Migraciones que aún no se han aplicado.
+     */
+    public List<Migration> pending() throws SQLException {
+        List<Migration> pending = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            Map<Integer, Long> applied = versionTableExists(conn) ? appliedVersions(conn) : Map.of();
+            for (Migration m : loadMigrations()) {
+                if (!applied.containsKey(m.getVersion())) pending.add(m);
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Lee y trocea los scripts del classpath (no toca la base de datos).
+     */
+    public static List<Migration> loadMigrations() {
+        List<Migration> migrations = new ArrayList<>();
+        for (String script : MIGRATIONS) {
+            int sep = script.indexOf("__");
+            int version = Integer.parseInt(script.substring(1, sep));
+            String description = script.substring(sep + 2, script.length() - 4).replace('_', ' ');
+
+            String text = readResource(LOCATION + script);
+            CRC32 crc = new CRC32();
+            crc.update(text.getBytes(StandardCharsets.UTF_8));
+            migrations.add(new Migration(version, description, script, splitStatements(text), crc.getValue()));
+        }
+        return migrations;
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    private void apply(Connection conn, Migration m) throws SQLException {
+        long t0 = System.nanoTime();
+        log.info("Aplicando migración {} ({} sentencias)", m.getScript(), m.statements.size());
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : m.statements) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    if (!isAlreadyExists(e)) {
+                        throw new SQLException("Fallo en " + m.getScript() + ": " + e.getMessage() + "\n" + sql, e);
+                    }
+                    log.warn("{}: ya existía, se omite ({})", m.getScript(), e.getMessage().trim());
+                }
+            }
+        }
+        long millis = (System.nanoTime() - t0) / 1_000_000;
+
+        String sql = "INSERT INTO SCHEMA_VERSION (version, descripcion, script, checksum, duracion_ms) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, m.getVersion());
+            pstmt.setString(2, m.getDescription());
+            pstmt.setString(3, m.getScript());
+            pstmt.setLong(4, m.getChecksum());
+            pstmt.setLong(5, millis);
+            pstmt.executeUpdate();
+        }
+        log.info("Migración V{} aplicada en {} ms", m.getVersion(), millis);
+    }
+
+    private static boolean isAlreadyExists(SQLException e) {
+        for (int code : ALREADY_EXISTS) {
+            if (e.getErrorCode() == code) return true;
+        }
+        return false;
+    }
+
+    private static void ensureVersionTable(Connection conn) throws SQLException {
+        if (versionTableExists(conn)) return;
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE SCHEMA_VERSION (" +
+                    "version NUMBER NOT NULL, " +
+                    "descripcion VARCHAR2(200), " +
+                    "script VARCHAR2(200) NOT NULL, " +
+                    "checksum NUMBER NOT NULL, " +
+                    "aplicado_en TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL, " +
+                    "duracion_ms NUMBER, " +
+                    "CONSTRAINT pk_schema_version PRIMARY KEY (version))");
+        }
+    }
+
+    private static boolean versionTableExists(Connection conn) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        try (ResultSet rs = meta.getTables(null, meta.getUserName(), "SCHEMA_VERSION", new String[]{"TABLE"})) {
+            return rs.next();
+        }
+    }
+
+    private static Map<Integer, Long> appliedVersions(Connection conn) throws SQLException {
+        Map<Integer, Long> applied = new LinkedHashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM SCHEMA_VERSION ORDER BY version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getLong(2));
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Separa el script en sentencias: cada una termina con ';' al final de línea.
+     * Los comentarios '--' se quitan (los scripts no llevan '--' dentro de textos).
+     */
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\r?\n")) {
+            int comment = line.indexOf("--");
+            String code = (comment >= 0 ? line.substring(0, comment) : line).stripTrailing();
+            if (code.isBlank()) continue;
+            if (code.endsWith(";")) {
+                current.append(code, 0, code.length() - 1);
+                statements.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(code).append('\n');
+            }
+        }
+        if (!current.toString().isBlank()) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private static String readResource(String path) {
+        try (InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalStateException("No se encuentra la migración " + path + " en el classpath");
+            }
+            StringBuilder sb = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    sb.append(line).append('\n');
+                }
+            }
+            return sb.toString();
+        } catch (IOException e) {
+            throw new IllegalStateException("Error leyendo la migración " + path, e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.techstore.util;
+
+/**
+ * Tipo de trabajo que pide conexiones al pool. Cada clase tiene su propia cuota de conexiones
+ * y su propia cola (ver {@link ConnectionBulkhead}), para que una importación o un informe
+ * no dejen a las cajas sin conexión.
+ *
+ * La clase va asociada al hilo: por defecto todo es INTERACTIVE y los procesos masivos
+ * ejecutan su trabajo dentro de la clase que les toca:
+ * <pre>
+ *     int total = WorkloadClass.BULK.call(() -> archivar(...)); // conexiones pedidas dentro = BULK
+ *     WorkloadClass.REPORTING.run(() -> exportar(...));
+ * </pre>
+ * Al terminar (también con excepción) el hilo vuelve a la clase que tenía.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public enum WorkloadClass {
+
+    /** Ventas, reposiciones y consultas de las cajas: prioridad máxima. */
+    INTERACTIVE,
+    /** Informes y exportaciones: pueden esperar, pero no deben quedarse sin conexión. */
+    REPORTING,
+    /** Importaciones, cambios masivos de precio, archivado: ceden ante las cajas. */
+    BULK;
+
+    private static final ThreadLocal<WorkloadClass> CURRENT = ThreadLocal.withInitial(() -> INTERACTIVE);
+
+    /**
+     * Clase de trabajo del hilo actual.
+     */
+    public static WorkloadClass current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Trabajo con resultado que puede lanzar una excepción comprobada.
+     */
+    @FunctionalInterface
+    public interface Work<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * Trabajo sin resultado que puede lanzar una excepción comprobada.
+     */
+    @FunctionalInterface
+    public interface Task<E extends Exception> {
+        void run() throws E;
+    }
+
+    /**
+     * Ejecuta el trabajo en el hilo actual marcado con esta clase y devuelve su resultado.
+     */
+    public <T, E extends Exception> T call(Work<T, E> work) throws E {
+        WorkloadClass previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return work.call();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Ejecuta el trabajo en el hilo actual marcado con esta clase.
+     */
+    public <E extends Exception> void run(Task<E> task) throws E {
+        call(() -> {
+            task.run();
+            return null;
+        });
+    }
+}
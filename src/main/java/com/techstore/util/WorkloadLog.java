@@ -0,0 +1,252 @@
+package com.techstore.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Formato binario del registro de carga SQL (lo escribe {@link WorkloadRecorder} y lo lee la herramienta de replay).
+ *
+ * Cabecera: MAGIC (int) | VERSION (int) | inicio de la grabación (long, epoch millis)
+ * Registros, cada uno precedido de su tipo (byte):
+ *   SQL        id (int) | texto   -> se escribe una vez por sentencia distinta
+ *   EJECUCION  id (int) | tipo de operación (byte) | desfase desde el inicio (long, ns) | latencia (long, ns)
+ *              | filas (int, -1 = desconocido) | nº parámetros (short) | parámetros
+ *              En los lotes (BATCH) el nº de parámetros es el de cada juego y va seguido del nº de juegos (int)
+ *              y de todos los juegos uno tras otro; la latencia y las filas son las del executeBatch completo.
+ *              En los bloques PL/SQL (CALL) los parámetros de salida van como OUT con su tipo SQL.
+ * Cada parámetro: etiqueta (byte) + valor según su tipo. Textos: longitud en bytes (int) + UTF-8.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public final class WorkloadLog {
+
+    static final int MAGIC = 0x5453574C; // "TSWL"
+    static final int VERSION = 3;
+    /** La versión 3 solo añade CALL y los parámetros OUT: un registro de la 2 se lee igual. */
+    private static final int OLDEST_READABLE_VERSION = 2;
+
+    static final byte RECORD_SQL = 1;
+    static final byte RECORD_EXECUTION = 2;
+
+    /** Tipo de operación JDBC grabada. */
+    public static final byte QUERY = 1;
+    public static final byte UPDATE = 2;
+    public static final byte EXECUTE = 3;
+    /** addBatch + executeBatch: un juego de parámetros por cada addBatch. */
+    public static final byte BATCH = 4;
+    /** prepareCall + execute: bloque PL/SQL con parámetros de salida (registerOutParameter). */
+    public static final byte CALL = 5;
+
+    private static final byte P_NULL = 0;
+    private static final byte P_INT = 1;
+    private static final byte P_LONG = 2;
+    private static final byte P_STRING = 3;
+    private static final byte P_DECIMAL = 4;
+    private static final byte P_TIMESTAMP = 5;
+    private static final byte P_BOOLEAN = 6;
+    private static final byte P_DOUBLE = 7;
+    private static final byte P_OUT = 8;
+
+    private WorkloadLog() {}
+
+    /**
+     * Parámetro nulo: guarda el tipo SQL para poder repetir el setNull.
+     */
+    public static final class NullParam {
+        private final int sqlType;
+
+        public NullParam(int sqlType) {
+            this.sqlType = sqlType;
+        }
+
+        public int getSqlType() {
+            return sqlType;
+        }
+    }
+
+    /**
+     * Parámetro de salida de un CALL: guarda el tipo SQL para repetir el registerOutParameter.
+     */
+    public static final class OutParam {
+        private final int sqlType;
+
+        public OutParam(int sqlType) {
+            this.sqlType = sqlType;
+        }
+
+        public int getSqlType() {
+            return sqlType;
+        }
+    }
+
+    /**
+     * Una ejecución grabada.
+     */
+    public static final class Entry {
+        private final int sqlId;
+        private final String sql;
+        private final byte kind;
+        private final long offsetNanos;
+        private final long latencyNanos;
+        private final int rows;
+        private final Object[][] paramSets;
+
+        Entry(int sqlId, String sql, byte kind, long offsetNanos, long latencyNanos, int rows, Object[][] paramSets) {
+            this.sqlId = sqlId;
+            this.sql = sql;
+            this.kind = kind;
+            this.offsetNanos = offsetNanos;
+            this.latencyNanos = latencyNanos;
+            this.rows = rows;
+            this.paramSets = paramSets;
+        }
+
+        public int getSqlId() { return sqlId; }
+        public String getSql() { return sql; }
+        public byte getKind() { return kind; }
+        public long getOffsetNanos() { return offsetNanos; }
+        public long getLatencyNanos() { return latencyNanos; }
+        public int getRows() { return rows; }
+
+        /** Parámetros en orden (índice 0 = parámetro 1); NullParam para los nulos, OutParam para los de salida. En un lote, los del primer juego. */
+        public Object[] getParams() { return paramSets.length > 0 ? paramSets[0] : new Object[0]; }
+
+        /** Juegos de parámetros: uno por addBatch en los lotes, uno solo en el resto de operaciones. */
+        public Object[][] getParamSets() { return paramSets; }
+    }
+
+    /**
+     * Recorre el registro en orden sin cargarlo entero en memoria.
+     * Un final truncado (aplicación cerrada a la fuerza) se ignora.
+     *
+     * @return Epoch millis del inicio de la grabación.
+     * @throws IOException Si no se puede leer o no es un registro de carga.
+     */
+    public static long read(Path file, Consumer<Entry> consumer) throws IOException {
+        try (InputStream raw = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw, 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("No es un registro de carga válido: " + file);
+            }
+            int version = in.readInt();
+            if (version < OLDEST_READABLE_VERSION || version > VERSION) {
+                throw new IOException("Versión de registro de carga no soportada (" + version + "): " + file);
+            }
+            long startedAt = in.readLong();
+            Map<Integer, String> statements = new HashMap<>();
+            while (true) {
+                int type = in.read();
+                if (type < 0) break;
+                try {
+                    if (type == RECORD_SQL) {
+                        statements.put(in.readInt(), readText(in));
+                    } else if (type == RECORD_EXECUTION) {
+                        int id = in.readInt();
+                        byte kind = in.readByte();
+                        long offset = in.readLong();
+                        long latency = in.readLong();
+                        int rows = in.readInt();
+                        int paramCount = in.readShort();
+                        Object[][] sets = new Object[kind == BATCH ? in.readInt() : 1][paramCount];
+                        for (Object[] params : sets) {
+                            for (int i = 0; i < paramCount; i++) {
+                                params[i] = readParam(in);
+                            }
+                        }
+                        consumer.accept(new Entry(id, statements.get(id), kind, offset, latency, rows, sets));
+                    } else {
+                        throw new IOException("Registro desconocido (" + type + ") en " + file);
+                    }
+                } catch (EOFException truncated) {
+                    break;
+                }
+            }
+            return startedAt;
+        }
+    }
+
+    static void writeHeader(DataOutputStream out, long startedAt) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(startedAt);
+    }
+
+    static void writeParam(DataOutputStream out, Object value) throws IOException {
+        if (value == null || value instanceof NullParam) {
+            out.writeByte(P_NULL);
+            out.writeInt(value == null ? Types.NULL : ((NullParam) value).getSqlType());
+        } else if (value instanceof OutParam) {
+            out.writeByte(P_OUT);
+            out.writeInt(((OutParam) value).getSqlType());
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(P_INT);
+            out.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            out.writeByte(P_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof BigDecimal) {
+            out.writeByte(P_DECIMAL);
+            out.writeUTF(value.toString());
+        } else if (value instanceof Timestamp) {
+            Timestamp ts = (Timestamp) value;
+            out.writeByte(P_TIMESTAMP);
+            out.writeLong(ts.getTime());
+            out.writeInt(ts.getNanos());
+        } else if (value instanceof Boolean) {
+            out.writeByte(P_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(P_DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else {
+            out.writeByte(P_STRING);
+            writeText(out, value.toString());
+        }
+    }
+
+    static void writeText(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Object readParam(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case P_NULL: return new NullParam(in.readInt());
+            case P_INT: return in.readInt();
+            case P_LONG: return in.readLong();
+            case P_STRING: return readText(in);
+            case P_DECIMAL: return new BigDecimal(in.readUTF());
+            case P_TIMESTAMP: {
+                Timestamp ts = new Timestamp(in.readLong());
+                ts.setNanos(in.readInt());
+                return ts;
+            }
+            case P_BOOLEAN: return in.readBoolean();
+            case P_DOUBLE: return in.readDouble();
+            case P_OUT: return new OutParam(in.readInt());
+            default: throw new IOException("Tipo de parámetro desconocido: " + tag);
+        }
+    }
+}
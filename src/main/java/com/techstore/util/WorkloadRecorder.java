@@ -0,0 +1,396 @@
+package com.techstore.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grabador opcional de la carga SQL real: cada sentencia que ejecutan los DAOs (y los servicios que
+ * usan JDBC directamente) se anota con su SQL, parámetros, momento, latencia y filas en un registro
+ * binario compacto (formato en {@link WorkloadLog}), para reproducirla después con la herramienta de replay.
+ *
+ * Se activa con -Dtechstore.workload.log=ruta/al/archivo. Sin esa propiedad no hay ningún coste:
+ * el pool entrega las sentencias del driver sin envolver.
+ *
+ * Se engancha en el pool de conexiones: envuelve Statement/PreparedStatement/CallableStatement, recuerda los parámetros
+ * de los setXxx (y el tipo de los registerOutParameter) (un juego por cada addBatch en los lotes) y mide la ejecución. En las consultas la latencia incluye también el tiempo pasado
+ * dentro de ResultSet.next() (la lectura de filas), pero no el mapeo a objetos del DAO.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+public class WorkloadRecorder {
+
+    private static final Logger log = LogManager.getLogger(WorkloadRecorder.class);
+
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+    private static volatile WorkloadRecorder instance;
+    private static volatile boolean configured;
+
+    private final Path file;
+    private final DataOutputStream out;
+    private final long baseNanos;
+    private final Map<String, Integer> statementIds = new HashMap<>();
+    private volatile boolean failed;
+    private long operations;
+
+    // Constructor accesible para testing (en producción se usa getInstance)
+    WorkloadRecorder(Path file) throws IOException {
+        this.file = file;
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        this.baseNanos = System.nanoTime();
+        WorkloadLog.writeHeader(out, System.currentTimeMillis());
+    }
+
+    /**
+     * Grabador configurado por la propiedad del sistema, o null si la grabación está desactivada.
+     */
+    public static WorkloadRecorder getInstance() {
+        if (!configured) {
+            synchronized (WorkloadRecorder.class) {
+                if (!configured) {
+                    String path = System.getProperty("techstore.workload.log");
+                    if (path != null && !path.isBlank()) {
+                        instance = open(Paths.get(path));
+                    }
+                    configured = true;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Envuelve una sentencia preparada para grabar sus ejecuciones.
+     */
+    public PreparedStatement wrap(PreparedStatement target, String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new StatementHandler(target, sql));
+    }
+
+    /**
+     * Envuelve un bloque PL/SQL preparado con prepareCall: se graba como CALL, con sus parámetros de salida.
+     */
+    public CallableStatement wrap(CallableStatement target, String sql) {
+        return (CallableStatement) Proxy.newProxyInstance(CallableStatement.class.getClassLoader(),
+                new Class<?>[]{CallableStatement.class}, new StatementHandler(target, sql));
+    }
+
+    /**
+     * Envuelve una sentencia simple (el SQL llega en cada execute).
+     */
+    public Statement wrap(Statement target) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                new Class<?>[]{Statement.class}, new StatementHandler(target, null));
+    }
+
+    /**
+     * Vuelca a disco lo pendiente y cierra el registro.
+     */
+    public synchronized void close() {
+        if (failed) return;
+        try {
+            out.close();
+            log.info("Registro de carga cerrado: {} operaciones en {}", operations, file);
+        } catch (IOException e) {
+            log.warn("Error cerrando el registro de carga: {}", e.getMessage());
+        }
+        failed = true;
+    }
+
+    // --- MÉTODOS PRIVADOS (AUXILIARES) ---
+
+    private static WorkloadRecorder open(Path file) {
+        try {
+            WorkloadRecorder recorder = new WorkloadRecorder(file);
+            Thread flusher = new Thread(recorder::flushLoop, "workload-recorder");
+            flusher.setDaemon(true);
+            flusher.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(recorder::close, "workload-recorder-close"));
+            log.info("Grabando la carga SQL en {}", file.toAbsolutePath());
+            return recorder;
+        } catch (IOException e) {
+            log.warn("No se pudo abrir el registro de carga {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void flushLoop() {
+        while (!failed) {
+            try {
+                Thread.sleep(FLUSH_INTERVAL_MILLIS);
+                synchronized (this) {
+                    if (!failed) out.flush();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                disable(e);
+            }
+        }
+    }
+
+    private synchronized void append(String sql, byte kind, long startNanos, long latencyNanos, int rows,
+                                     Object[] params, int paramCount) {
+        if (failed || sql == null) return;
+        try {
+            writeExecution(sql, kind, startNanos, latencyNanos, rows, paramCount);
+            for (int i = 0; i < paramCount; i++) {
+                WorkloadLog.writeParam(out, params[i]);
+            }
+            operations++;
+        } catch (IOException e) {
+            disable(e);
+        }
+    }
+
+    private synchronized void appendBatch(String sql, long startNanos, long latencyNanos, int rows, List<Object[]> sets) {
+        if (failed || sql == null || sets.isEmpty()) return;
+        int paramCount = 0;
+        for (Object[] params : sets) {
+            paramCount = Math.max(paramCount, params.length);
+        }
+        try {
+            writeExecution(sql, WorkloadLog.BATCH, startNanos, latencyNanos, rows, paramCount);
+            out.writeInt(sets.size());
+            for (Object[] params : sets) {
+                for (int i = 0; i < paramCount; i++) {
+                    WorkloadLog.writeParam(out, i < params.length ? params[i] : null);
+                }
+            }
+            operations++;
+        } catch (IOException e) {
+            disable(e);
+        }
+    }
+
+    private void writeExecution(String sql, byte kind, long startNanos, long latencyNanos, int rows,
+                                int paramCount) throws IOException {
+        Integer id = statementIds.get(sql);
+        if (id == null) {
+            id = statementIds.size() + 1;
+            statementIds.put(sql, id);
+            out.writeByte(WorkloadLog.RECORD_SQL);
+            out.writeInt(id);
+            WorkloadLog.writeText(out, sql);
+        }
+        out.writeByte(WorkloadLog.RECORD_EXECUTION);
+        out.writeInt(id);
+        out.writeByte(kind);
+        out.writeLong(startNanos - baseNanos);
+        out.writeLong(latencyNanos);
+        out.writeInt(rows);
+        out.writeShort(paramCount);
+    }
+
+    private void disable(IOException cause) {
+        // Nunca tumbamos una venta por no poder grabar: se desactiva y se avisa
+        failed = true;
+        log.warn("Grabación de carga desactivada por error de escritura: {}", cause.getMessage());
+    }
+
+    private static int paramIndex(Object[] args) {
+        return args != null && args.length >= 2 && args[0] instanceof Integer ? (Integer) args[0] : 0;
+    }
+
+    /**
+     * Intercepta setXxx (parámetros), addBatch (guarda el juego actual), execute* (mide)
+     * y close (cierra la consulta pendiente).
+     */
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedSql;
+        private Object[] params = new Object[8];
+        private int paramCount;
+        private QueryTrace pending;
+        private final List<Object[]> batch = new ArrayList<>();
+        private final List<String> batchSql = new ArrayList<>();
+
+        private StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            int index = name.startsWith("set") || name.equals("registerOutParameter") ? paramIndex(args) : 0;
+            if (index > 0) {
+                if (index > params.length) params = Arrays.copyOf(params, Math.max(index, params.length * 2));
+                params[index - 1] = name.equals("registerOutParameter") ? new WorkloadLog.OutParam((Integer) args[1])
+                        : name.equals("setNull") ? new WorkloadLog.NullParam((Integer) args[1]) : args[1];
+                paramCount = Math.max(paramCount, index);
+            } else if (name.equals("clearParameters")) {
+                Arrays.fill(params, null);
+                paramCount = 0;
+            } else if (name.equals("addBatch")) {
+                if (args == null) {
+                    batch.add(Arrays.copyOf(params, paramCount));
+                } else {
+                    batchSql.add((String) args[0]);
+                }
+            } else if (name.equals("clearBatch")) {
+                clearBatch();
+            } else if (name.equals("close")) {
+                finishPending();
+            }
+
+            if (!name.startsWith("execute")) {
+                return call(method, args);
+            }
+
+            finishPending();
+            if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                return executeBatch(method, args);
+            }
+            String sql = preparedSql != null ? preparedSql : (args != null && args.length > 0 ? (String) args[0] : null);
+            long start = System.nanoTime();
+            Object result = call(method, args);
+            long latency = System.nanoTime() - start;
+
+            if (result instanceof ResultSet) {
+                pending = new QueryTrace(sql, start, latency, Arrays.copyOf(params, paramCount));
+                return wrapResultSet((ResultSet) result, pending);
+            }
+            byte kind = target instanceof CallableStatement ? WorkloadLog.CALL
+                    : name.startsWith("executeUpdate") || name.startsWith("executeLargeUpdate")
+                    ? WorkloadLog.UPDATE : WorkloadLog.EXECUTE;
+            int rows = result instanceof Integer ? (Integer) result
+                    : result instanceof Long ? (int) (long) (Long) result : -1;
+            if (result instanceof Boolean && !(Boolean) result) {
+                rows = target.getUpdateCount();
+            }
+            append(sql, kind, start, latency, rows, params, paramCount);
+            return result;
+        }
+
+        /**
+         * Un lote de sentencia preparada se graba como una sola operación BATCH con todos sus juegos de parámetros.
+         * Los lotes de SQL sueltos (Statement.addBatch(sql)) se graban como una EXECUTE por sentencia,
+         * repartiendo la latencia del lote a partes iguales.
+         */
+        private Object executeBatch(Method method, Object[] args) throws Throwable {
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = call(method, args);
+            } catch (Throwable t) {
+                clearBatch(); // Tras un fallo el driver no garantiza qué queda en el lote: no lo arrastramos
+                throw t;
+            }
+            long latency = System.nanoTime() - start;
+
+            int rows = 0;
+            int count = result instanceof int[] ? ((int[]) result).length : ((long[]) result).length;
+            for (int i = 0; i < count; i++) {
+                long n = result instanceof int[] ? ((int[]) result)[i] : ((long[]) result)[i];
+                if (n < 0) { // SUCCESS_NO_INFO: no se sabe cuántas filas
+                    rows = -1;
+                    break;
+                }
+                rows += (int) n;
+            }
+
+            if (preparedSql != null) {
+                appendBatch(preparedSql, start, latency, rows, batch);
+            } else if (!batchSql.isEmpty()) {
+                long share = latency / batchSql.size();
+                for (String sql : batchSql) {
+                    append(sql, WorkloadLog.EXECUTE, start, share, -1, params, 0);
+                }
+            }
+            clearBatch();
+            return result;
+        }
+
+        private void clearBatch() {
+            batch.clear();
+            batchSql.clear();
+        }
+
+        private Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void finishPending() {
+            if (pending != null) {
+                pending.finish();
+                pending = null;
+            }
+        }
+    }
+
+    /**
+     * Consulta en curso: acumula el tiempo de lectura de filas hasta que se cierra su ResultSet o la sentencia.
+     */
+    private final class QueryTrace {
+        private final String sql;
+        private final long startNanos;
+        private final Object[] params;
+        private long latencyNanos;
+        private int rows;
+        private boolean done;
+
+        private QueryTrace(String sql, long startNanos, long executeNanos, Object[] params) {
+            this.sql = sql;
+            this.startNanos = startNanos;
+            this.latencyNanos = executeNanos;
+            this.params = params;
+        }
+
+        private void finish() {
+            if (done) return;
+            done = true;
+            append(sql, WorkloadLog.QUERY, startNanos, latencyNanos, rows, params, params.length);
+        }
+    }
+
+    private ResultSet wrapResultSet(ResultSet target, QueryTrace trace) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            String name = method.getName();
+            long start = name.equals("next") ? System.nanoTime() : 0;
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (start != 0) {
+                trace.latencyNanos += System.nanoTime() - start;
+                if ((Boolean) result) trace.rows++;
+            } else if (name.equals("close")) {
+                trace.finish();
+            }
+            return result;
+        };
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, handler);
+    }
+}
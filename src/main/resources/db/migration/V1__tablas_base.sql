@@ -0,0 +1,55 @@
+-- =====================================================================
+-- V1: Tablas base de TechStore (Oracle 12c o superior: IDENTITY y FETCH FIRST)
+-- =====================================================================
+
+CREATE TABLE CATEGORIAS (
+    categoria_id    NUMBER GENERATED BY DEFAULT AS IDENTITY,
+    nombre          VARCHAR2(100)  NOT NULL,
+    descripcion     VARCHAR2(500),
+    activo          NUMBER(1)      DEFAULT 1 NOT NULL,
+    CONSTRAINT pk_categorias PRIMARY KEY (categoria_id),
+    CONSTRAINT ck_categorias_activo CHECK (activo IN (0, 1))
+);
+
+CREATE TABLE PROVEEDORES (
+    proveedor_id    NUMBER GENERATED BY DEFAULT AS IDENTITY,
+    nombre          VARCHAR2(150)  NOT NULL,
+    contacto_email  VARCHAR2(150),
+    telefono        VARCHAR2(30),
+    activo          NUMBER(1)      DEFAULT 1 NOT NULL,
+    creado_en       TIMESTAMP      DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT pk_proveedores PRIMARY KEY (proveedor_id),
+    CONSTRAINT ck_proveedores_activo CHECK (activo IN (0, 1))
+);
+
+CREATE TABLE PRODUCTOS (
+    producto_id     NUMBER GENERATED BY DEFAULT AS IDENTITY,
+    sku             VARCHAR2(50)   NOT NULL,
+    nombre          VARCHAR2(150)  NOT NULL,
+    descripcion     VARCHAR2(1000),
+    precio_venta    NUMBER(12,2)   NOT NULL,
+    precio_costo    NUMBER(12,2),
+    stock_actual    NUMBER(10)     DEFAULT 0 NOT NULL,
+    categoria_id    NUMBER         NOT NULL,
+    proveedor_id    NUMBER,
+    activo          NUMBER(1)      DEFAULT 1 NOT NULL,
+    creado_en       TIMESTAMP      DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    actualizado_en  TIMESTAMP,
+    CONSTRAINT pk_productos PRIMARY KEY (producto_id),
+    CONSTRAINT uk_productos_sku UNIQUE (sku),                        -- Búsqueda por SKU (escáner, importación)
+    CONSTRAINT fk_productos_categoria FOREIGN KEY (categoria_id) REFERENCES CATEGORIAS (categoria_id),
+    CONSTRAINT fk_productos_proveedor FOREIGN KEY (proveedor_id) REFERENCES PROVEEDORES (proveedor_id),
+    CONSTRAINT ck_productos_stock CHECK (stock_actual >= 0),        -- La venta condicional nunca deja negativos
+    CONSTRAINT ck_productos_activo CHECK (activo IN (0, 1))
+);
+
+CREATE TABLE MOVIMIENTOS_STOCK (
+    movimiento_id   NUMBER GENERATED BY DEFAULT AS IDENTITY,
+    producto_id     NUMBER         NOT NULL,
+    tipo            VARCHAR2(20)   NOT NULL,                        -- VENTA, COMPRA, AJUSTE...
+    cantidad        NUMBER(10)     NOT NULL,                        -- En AJUSTE lleva signo
+    fecha_mov       TIMESTAMP      DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    notas           VARCHAR2(500),
+    CONSTRAINT pk_movimientos_stock PRIMARY KEY (movimiento_id),
+    CONSTRAINT fk_movimientos_producto FOREIGN KEY (producto_id) REFERENCES PRODUCTOS (producto_id)
+);
@@ -0,0 +1,23 @@
+-- =====================================================================
+-- V2: Archivo de movimientos antiguos (MovementArchiveService)
+-- =====================================================================
+
+CREATE TABLE MOVIMIENTOS_STOCK_HIST (
+    movimiento_id   NUMBER         NOT NULL,                        -- Conserva el ID original
+    producto_id     NUMBER         NOT NULL,
+    tipo            VARCHAR2(20)   NOT NULL,
+    cantidad        NUMBER(10)     NOT NULL,
+    fecha_mov       TIMESTAMP      NOT NULL,
+    notas           VARCHAR2(500),
+    CONSTRAINT pk_movimientos_hist PRIMARY KEY (movimiento_id)
+);
+
+-- Totales por producto y tipo de todo lo archivado: el libro mayor y los best sellers no leen el histórico
+CREATE TABLE MOVIMIENTOS_RESUMEN (
+    producto_id     NUMBER         NOT NULL,
+    tipo            VARCHAR2(20)   NOT NULL,
+    cantidad_total  NUMBER(14)     DEFAULT 0 NOT NULL,
+    num_movimientos NUMBER(12)     DEFAULT 0 NOT NULL,
+    actualizado_en  TIMESTAMP      DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT pk_movimientos_resumen PRIMARY KEY (producto_id, tipo)
+);
@@ -0,0 +1,23 @@
+-- =====================================================================
+-- V3: Índices para las consultas de los DAOs
+-- (las claves primarias y el UNIQUE de sku ya crean los suyos)
+-- =====================================================================
+
+-- ProductDAO.getProductWithLowStock: WHERE stock_actual < ?
+CREATE INDEX idx_productos_stock ON PRODUCTOS (stock_actual);
+
+-- Claves foráneas: sin índice, borrar o cambiar una categoría/proveedor bloquea toda la tabla hija
+CREATE INDEX idx_productos_categoria ON PRODUCTOS (categoria_id);
+CREATE INDEX idx_productos_proveedor ON PRODUCTOS (proveedor_id);
+CREATE INDEX idx_movimientos_producto ON MOVIMIENTOS_STOCK (producto_id);
+
+-- StockMovementDAO.getBestSellers: WHERE tipo = 'VENTA' + JOIN por producto_id + SUM(cantidad).
+-- Con cantidad al final el índice cubre la consulta y no hace falta leer la tabla;
+-- también sirve (fast full scan) para el libro mayor de getLedgerStockByProduct.
+CREATE INDEX idx_movimientos_tipo_producto ON MOVIMIENTOS_STOCK (tipo, producto_id, cantidad);
+
+-- Rangos por fecha: getMovementsBetween, streamSalesAndPurchasesSince y el archivado (fecha_mov < ?)
+CREATE INDEX idx_movimientos_fecha ON MOVIMIENTOS_STOCK (fecha_mov);
+CREATE INDEX idx_movimientos_hist_fecha ON MOVIMIENTOS_STOCK_HIST (fecha_mov);
+
+-- getRecentMovements (ORDER BY movimiento_id DESC FETCH FIRST n) usa la clave primaria recorrida al revés.
@@ -0,0 +1,22 @@
+-- =====================================================================
+-- V4: Auditoría de cambios masivos de precio (PriceUpdateService)
+-- =====================================================================
+
+-- Un número de lote por cada cambio masivo: agrupa todas sus filas de auditoría
+CREATE SEQUENCE SEQ_PRECIOS_LOTE START WITH 1 INCREMENT BY 1 NOCACHE;
+
+CREATE TABLE PRECIOS_AUDITORIA (
+    auditoria_id    NUMBER GENERATED BY DEFAULT AS IDENTITY,
+    lote_id         NUMBER         NOT NULL,
+    producto_id     NUMBER         NOT NULL,
+    precio_anterior NUMBER(12,2)   NOT NULL,
+    precio_nuevo    NUMBER(12,2)   NOT NULL,
+    motivo          VARCHAR2(200),
+    cambiado_en     TIMESTAMP      DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT pk_precios_auditoria PRIMARY KEY (auditoria_id),
+    CONSTRAINT fk_precios_auditoria_producto FOREIGN KEY (producto_id) REFERENCES PRODUCTOS (producto_id)
+);
+
+-- Historial de precios de un producto y deshacer un lote completo
+CREATE INDEX idx_precios_auditoria_producto ON PRECIOS_AUDITORIA (producto_id, cambiado_en);
+CREATE INDEX idx_precios_auditoria_lote ON PRECIOS_AUDITORIA (lote_id);
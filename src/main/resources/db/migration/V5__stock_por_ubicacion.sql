@@ -0,0 +1,49 @@
+-- =====================================================================
+-- V5: Stock por ubicación (tiendas y almacenes)
+-- PRODUCTOS.stock_actual queda como stock central (sin ubicación); el de cada ubicación
+-- vive en su propia fila de STOCK_UBICACION, así las ventas de distintas tiendas no
+-- compiten por la misma fila. Stock total = stock_actual + SUM(STOCK_UBICACION.cantidad).
+-- =====================================================================
+
+CREATE TABLE UBICACIONES (
+    ubicacion_id    NUMBER GENERATED BY DEFAULT AS IDENTITY,
+    codigo          VARCHAR2(20)   NOT NULL,
+    nombre          VARCHAR2(100)  NOT NULL,
+    tipo            VARCHAR2(20)   DEFAULT 'TIENDA' NOT NULL,       -- TIENDA o ALMACEN
+    activo          NUMBER(1)      DEFAULT 1 NOT NULL,
+    CONSTRAINT pk_ubicaciones PRIMARY KEY (ubicacion_id),
+    CONSTRAINT uk_ubicaciones_codigo UNIQUE (codigo),
+    CONSTRAINT ck_ubicaciones_activo CHECK (activo IN (0, 1))
+);
+
+CREATE TABLE STOCK_UBICACION (
+    ubicacion_id    NUMBER         NOT NULL,
+    producto_id     NUMBER         NOT NULL,
+    cantidad        NUMBER(10)     DEFAULT 0 NOT NULL,
+    actualizado_en  TIMESTAMP      DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT pk_stock_ubicacion PRIMARY KEY (ubicacion_id, producto_id),
+    CONSTRAINT fk_stock_ubicacion_ubicacion FOREIGN KEY (ubicacion_id) REFERENCES UBICACIONES (ubicacion_id),
+    CONSTRAINT fk_stock_ubicacion_producto FOREIGN KEY (producto_id) REFERENCES PRODUCTOS (producto_id),
+    CONSTRAINT ck_stock_ubicacion_cantidad CHECK (cantidad >= 0)
+);
+
+-- Totales por producto (catálogo y radar de stock total) y clave foránea hacia PRODUCTOS
+CREATE INDEX idx_stock_ubicacion_producto ON STOCK_UBICACION (producto_id, cantidad);
+
+-- Movimientos: ubicación afectada (NULL = stock central)
+ALTER TABLE MOVIMIENTOS_STOCK ADD (ubicacion_id NUMBER);
+
+ALTER TABLE MOVIMIENTOS_STOCK ADD CONSTRAINT fk_movimientos_ubicacion
+    FOREIGN KEY (ubicacion_id) REFERENCES UBICACIONES (ubicacion_id);
+
+CREATE INDEX idx_movimientos_ubicacion ON MOVIMIENTOS_STOCK (ubicacion_id, producto_id);
+
+ALTER TABLE MOVIMIENTOS_STOCK_HIST ADD (ubicacion_id NUMBER);
+
+-- El resumen del archivado separa también por ubicación (0 = stock central) para que el
+-- libro mayor del stock central siga cuadrando después de archivar
+ALTER TABLE MOVIMIENTOS_RESUMEN ADD (ubicacion_id NUMBER DEFAULT 0 NOT NULL);
+
+ALTER TABLE MOVIMIENTOS_RESUMEN DROP PRIMARY KEY;
+
+ALTER TABLE MOVIMIENTOS_RESUMEN ADD CONSTRAINT pk_movimientos_resumen PRIMARY KEY (producto_id, tipo, ubicacion_id);
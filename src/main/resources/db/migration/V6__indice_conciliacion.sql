@@ -0,0 +1,8 @@
+-- =====================================================================
+-- V6: Índice para la conciliación de stock (StockReconciliationService)
+-- Cada partición suma el libro de movimientos de un rango de producto_id.
+-- Con ubicacion_id, tipo y cantidad en el índice, el rango se lee solo del índice
+-- (sin ir a la tabla), y cada partición recorre únicamente su trozo.
+-- =====================================================================
+
+CREATE INDEX idx_movimientos_conciliacion ON MOVIMIENTOS_STOCK (producto_id, ubicacion_id, tipo, cantidad);
@@ -0,0 +1,43 @@
+-- =====================================================================
+-- V7: Restricciones de las tablas base, una a una
+-- En una base de datos creada a mano antes de las migraciones, el CREATE TABLE de V1/V4/V5
+-- fallaba con "ya existe" (se omite) y con él se perdían todas sus restricciones: SKU único,
+-- stock no negativo, claves foráneas... Aquí se añaden por separado. Si ya existen (ORA-02260,
+-- 02261, 02264, 02275) se omiten; si los datos no las cumplen, la migración falla y no se anota
+-- hasta corregirlos.
+-- =====================================================================
+
+-- Claves primarias (las foráneas las necesitan)
+ALTER TABLE CATEGORIAS ADD CONSTRAINT pk_categorias PRIMARY KEY (categoria_id);
+ALTER TABLE PROVEEDORES ADD CONSTRAINT pk_proveedores PRIMARY KEY (proveedor_id);
+ALTER TABLE PRODUCTOS ADD CONSTRAINT pk_productos PRIMARY KEY (producto_id);
+ALTER TABLE MOVIMIENTOS_STOCK ADD CONSTRAINT pk_movimientos_stock PRIMARY KEY (movimiento_id);
+ALTER TABLE PRECIOS_AUDITORIA ADD CONSTRAINT pk_precios_auditoria PRIMARY KEY (auditoria_id);
+ALTER TABLE UBICACIONES ADD CONSTRAINT pk_ubicaciones PRIMARY KEY (ubicacion_id);
+ALTER TABLE STOCK_UBICACION ADD CONSTRAINT pk_stock_ubicacion PRIMARY KEY (ubicacion_id, producto_id);
+
+-- Únicas
+ALTER TABLE PRODUCTOS ADD CONSTRAINT uk_productos_sku UNIQUE (sku);
+ALTER TABLE UBICACIONES ADD CONSTRAINT uk_ubicaciones_codigo UNIQUE (codigo);
+
+-- Comprobaciones
+ALTER TABLE CATEGORIAS ADD CONSTRAINT ck_categorias_activo CHECK (activo IN (0, 1));
+ALTER TABLE PROVEEDORES ADD CONSTRAINT ck_proveedores_activo CHECK (activo IN (0, 1));
+ALTER TABLE PRODUCTOS ADD CONSTRAINT ck_productos_stock CHECK (stock_actual >= 0);
+ALTER TABLE PRODUCTOS ADD CONSTRAINT ck_productos_activo CHECK (activo IN (0, 1));
+ALTER TABLE UBICACIONES ADD CONSTRAINT ck_ubicaciones_activo CHECK (activo IN (0, 1));
+ALTER TABLE STOCK_UBICACION ADD CONSTRAINT ck_stock_ubicacion_cantidad CHECK (cantidad >= 0);
+
+-- Foráneas (el reabastecimiento por ubicación confía en ellas para saber si existen producto y ubicación)
+ALTER TABLE PRODUCTOS ADD CONSTRAINT fk_productos_categoria
+    FOREIGN KEY (categoria_id) REFERENCES CATEGORIAS (categoria_id);
+ALTER TABLE PRODUCTOS ADD CONSTRAINT fk_productos_proveedor
+    FOREIGN KEY (proveedor_id) REFERENCES PROVEEDORES (proveedor_id);
+ALTER TABLE MOVIMIENTOS_STOCK ADD CONSTRAINT fk_movimientos_producto
+    FOREIGN KEY (producto_id) REFERENCES PRODUCTOS (producto_id);
+ALTER TABLE PRECIOS_AUDITORIA ADD CONSTRAINT fk_precios_auditoria_producto
+    FOREIGN KEY (producto_id) REFERENCES PRODUCTOS (producto_id);
+ALTER TABLE STOCK_UBICACION ADD CONSTRAINT fk_stock_ubicacion_ubicacion
+    FOREIGN KEY (ubicacion_id) REFERENCES UBICACIONES (ubicacion_id);
+ALTER TABLE STOCK_UBICACION ADD CONSTRAINT fk_stock_ubicacion_producto
+    FOREIGN KEY (producto_id) REFERENCES PRODUCTOS (producto_id);
@@ -0,0 +1,96 @@
+package com.techstore.service;
+
+import com.techstore.dao.ProductDAO;
+import com.techstore.model.Product;
+import com.techstore.model.StockChangeEvent;
+import com.techstore.model.StockChangeType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la recarga del catálogo y del índice de búsqueda tras un cambio masivo de precios.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+class CatalogCacheTest {
+
+    @Test
+    void unCambioDePreciosRecargaLaCacheYElIndice() throws Exception {
+        StubProductDAO dao = new StubProductDAO();
+        dao.products = List.of(product(1, "Ratón óptico", "10.00"), product(2, "Teclado", "20.00"));
+        CatalogCache cache = new CatalogCache(dao, 60_000);
+        cache.load();
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.rebuild(cache.getProducts());
+
+        StockEventBus bus = new StockEventBus();
+        try (StockEventBus.Subscription c = cache.subscribeTo(bus);
+             StockEventBus.Subscription i = index.subscribeTo(bus, cache)) {
+            Thread.sleep(5); // El cambio se confirma después de la última carga
+            dao.products = List.of(product(1, "Ratón óptico", "8.50"), product(2, "Teclado", "16.00"));
+            bus.publish(priceChange());
+
+            waitFor(() -> new BigDecimal("8.50").equals(cache.get(1).getPrice()));
+            waitFor(() -> new BigDecimal("8.50").equals(index.search("raton", 1).get(0).getPrice()));
+        }
+        assertEquals(new BigDecimal("16.00"), cache.get(2).getPrice());
+        assertEquals(2, dao.loads.get(), "Los dos suscriptores comparten una sola recarga");
+    }
+
+    @Test
+    void noRecargaSiLosDatosSonPosterioresAlCambio() throws Exception {
+        StubProductDAO dao = new StubProductDAO();
+        dao.products = List.of(product(1, "Cable", "5.00"));
+        CatalogCache cache = new CatalogCache(dao, 60_000);
+        LocalDateTime changedAt = LocalDateTime.now().minusSeconds(1);
+        cache.load();
+
+        cache.refreshIfOlderThan(CatalogCache.toEpochMillis(changedAt));
+
+        assertEquals(1, dao.loads.get());
+    }
+
+    // --- AUXILIARES ---
+
+    private static StockChangeEvent priceChange() {
+        return StockChangeEvent.builder()
+                .type(StockChangeType.PRECIOS)
+                .reason("Lote 1: prueba")
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private static Product product(int id, String name, String price) {
+        return Product.builder().id(id).sku("SKU-" + id).name(name).price(new BigDecimal(price))
+                .costPrice(BigDecimal.ONE).stock(5).categoryId(1).active(true).build();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "El evento no se aplicó a tiempo");
+            Thread.sleep(5);
+        }
+    }
+
+    /** ProductDAO sin base de datos: devuelve el catálogo actual y cuenta las cargas. */
+    private static final class StubProductDAO extends ProductDAO {
+        private volatile List<Product> products = new ArrayList<>();
+        private final AtomicInteger loads = new AtomicInteger();
+
+        @Override
+        public List<Product> getAllProducts() {
+            loads.incrementAndGet();
+            return new ArrayList<>(products);
+        }
+    }
+}
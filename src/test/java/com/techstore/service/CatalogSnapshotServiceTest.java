@@ -0,0 +1,214 @@
+package com.techstore.service;
+
+import com.techstore.dao.ProductDAO;
+import com.techstore.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del formato binario de la instantánea del catálogo: ida y vuelta, nulos,
+ * textos UTF-8, importes con escala y archivos dañados o incompletos.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+class CatalogSnapshotServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void idaYVueltaConservaTodosLosCampos() throws Exception {
+        List<Product> catalogo = Arrays.asList(
+                Product.builder().id(1).sku("SKU-1").name("Ratón óptico").description("Con cable 🖱")
+                        .price(new BigDecimal("19.90")).costPrice(new BigDecimal("7.125")).stock(12)
+                        .categoryId(3).providerId(4).active(true)
+                        .createdAt(LocalDateTime.of(2024, 5, 17, 10, 30, 15)).build(),
+                Product.builder().id(2).sku("SKU-2").name("Sin opcionales").description(null)
+                        .price(null).costPrice(new BigDecimal("-1.5")).stock(null)
+                        .categoryId(null).providerId(null).active(false).createdAt(null).build(),
+                Product.builder().id(Integer.MAX_VALUE).sku("").name("Texto vacío").description("")
+                        .price(new BigDecimal("1E+3")).costPrice(BigDecimal.ZERO).stock(0)
+                        .categoryId(1).providerId(Integer.MAX_VALUE).active(true).build());
+
+        CatalogSnapshotService service = serviceWith(catalogo);
+        assertTrue(service.saveNow());
+
+        CatalogSnapshotService.Snapshot snapshot = service.read();
+        assertNotNull(snapshot);
+        assertEquals(3, snapshot.getProducts().size());
+        assertEquals(catalogo.get(0), snapshot.getProducts().get(0));
+        assertEquals(catalogo.get(1), snapshot.getProducts().get(1));
+        Product tercero = snapshot.getProducts().get(2);
+        assertEquals("", tercero.getSku());
+        assertEquals("", tercero.getDescription());
+        assertEquals(0, new BigDecimal("1000").compareTo(tercero.getPrice()), "Escala negativa se guarda como entera");
+        assertTrue(snapshot.getSavedAt() > 0);
+    }
+
+    @Test
+    void catalogoVacio() throws Exception {
+        CatalogSnapshotService service = serviceWith(new ArrayList<>());
+        assertTrue(service.saveNow());
+
+        CatalogSnapshotService.Snapshot snapshot = service.read();
+        assertNotNull(snapshot);
+        assertTrue(snapshot.getProducts().isEmpty());
+    }
+
+    @Test
+    void muchosProductosConTextosLargos() throws Exception {
+        List<Product> catalogo = new ArrayList<>();
+        for (int i = 1; i <= 5_000; i++) {
+            catalogo.add(Product.builder().id(i).sku("SKU-" + i).name("Producto ñ " + i)
+                    .description("d".repeat(i % 300)).price(BigDecimal.valueOf(i, 2)).stock(i)
+                    .categoryId(1).active(true).build());
+        }
+        CatalogSnapshotService service = serviceWith(catalogo);
+        assertTrue(service.saveNow());
+
+        assertEquals(catalogo, service.read().getProducts());
+    }
+
+    @Test
+    void sinArchivoNoHayInstantanea() {
+        CatalogSnapshotService service = new CatalogSnapshotService(new CatalogCache(), dir.resolve("no-existe.snap"), 60);
+
+        assertNull(service.read());
+        assertNull(service.restore());
+    }
+
+    @Test
+    void unByteCambiadoSeDetectaPorCrc() throws Exception {
+        CatalogSnapshotService service = serviceWith(List.of(simple(1)));
+        assertTrue(service.saveNow());
+        Path file = dir.resolve("catalogo.snap");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[30] ^= 0x01;
+        Files.write(file, bytes);
+
+        assertNull(service.read());
+    }
+
+    @Test
+    void archivoTruncadoSeIgnora() throws Exception {
+        CatalogSnapshotService service = serviceWith(List.of(simple(1), simple(2)));
+        assertTrue(service.saveNow());
+        Path file = dir.resolve("catalogo.snap");
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 20));
+        assertNull(service.read());
+
+        Files.write(file, new byte[10]);
+        assertNull(service.read());
+    }
+
+    @Test
+    void recuentoQueNoCuadraConLosDatosSeIgnora() throws Exception {
+        // CRC correcto pero dice tener más productos de los que hay: no debe fallar con una excepción
+        ByteBuffer b = ByteBuffer.allocate(4 + 4 + 8 + 4 + 8);
+        b.putInt(0x54534E50).putInt(1).putLong(123L).putInt(5);
+        writeWithCrc(b);
+
+        assertNull(serviceWith(List.of()).read());
+    }
+
+    @Test
+    void formatoDesconocidoSeIgnora() throws Exception {
+        ByteBuffer b = ByteBuffer.allocate(4 + 4 + 8 + 4 + 8);
+        b.putInt(0x12345678).putInt(1).putLong(123L).putInt(0);
+        writeWithCrc(b);
+
+        assertNull(serviceWith(List.of()).read());
+    }
+
+    @Test
+    void restaurarSiembraLaCacheComoDesactualizadaYNoSeVuelveAGuardar() throws Exception {
+        assertTrue(serviceWith(List.of(simple(1), simple(2))).saveNow());
+
+        CatalogCache fria = new CatalogCache(new StubProductDAO(List.of()), 60_000);
+        CatalogSnapshotService service = new CatalogSnapshotService(fria, dir.resolve("catalogo.snap"), 60);
+        CatalogSnapshotService.Snapshot snapshot = service.restore();
+
+        assertNotNull(snapshot);
+        assertTrue(fria.isStale());
+        assertFalse(fria.isLoaded());
+        assertEquals(simple(2), fria.get(2));
+        assertFalse(service.saveNow(), "Nunca se sobrescribe la instantánea con sus propios datos");
+    }
+
+    @Test
+    void guardadosConcurrentesDejanSiempreUnArchivoValido() throws Exception {
+        List<Product> catalogo = new ArrayList<>();
+        for (int i = 1; i <= 2_000; i++) {
+            catalogo.add(simple(i));
+        }
+        CatalogSnapshotService service = serviceWith(catalogo);
+        service.start();
+
+        List<Thread> hilos = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            hilos.add(new Thread(() -> {
+                for (int i = 0; i < 20; i++) {
+                    service.saveNow();
+                }
+            }));
+        }
+        hilos.forEach(Thread::start);
+        service.close(); // A la vez que los demás: espera al guardado en curso y hace el último
+        for (Thread t : hilos) {
+            t.join();
+        }
+
+        CatalogSnapshotService.Snapshot snapshot = service.read();
+        assertNotNull(snapshot, "El CRC cuadra: ningún guardado mezcló bytes con otro");
+        assertEquals(catalogo, snapshot.getProducts());
+    }
+
+    // --- AUXILIARES ---
+
+    private CatalogSnapshotService serviceWith(List<Product> catalogo) throws Exception {
+        CatalogCache cache = new CatalogCache(new StubProductDAO(catalogo), 60_000);
+        cache.load();
+        return new CatalogSnapshotService(cache, dir.resolve("catalogo.snap"), 60);
+    }
+
+    private void writeWithCrc(ByteBuffer b) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(b.array(), 0, b.position());
+        b.putLong(crc.getValue());
+        Files.write(dir.resolve("catalogo.snap"), b.array());
+    }
+
+    private static Product simple(int id) {
+        return Product.builder().id(id).sku("S" + id).name("P" + id).price(BigDecimal.ONE)
+                .costPrice(BigDecimal.ONE).stock(id).categoryId(1).active(true).build();
+    }
+
+    /** ProductDAO sin base de datos que devuelve un catálogo fijo. */
+    private static final class StubProductDAO extends ProductDAO {
+        private final List<Product> products;
+
+        private StubProductDAO(List<Product> products) {
+            this.products = products;
+        }
+
+        @Override
+        public List<Product> getAllProducts() {
+            return new ArrayList<>(products);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.techstore.service;
+
+import com.techstore.model.ImportReport;
+import com.techstore.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del lector CSV mapeado en memoria (sin base de datos: solo parse).
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+class CsvImportServiceTest {
+
+    private static final String CABECERA = "ID;SKU;NOMBRE;DESCRIPCION;PRECIO_VENTA;PRECIO_COSTO;STOCK;CATEGORIA;PROVEEDOR;ACTIVO\n";
+
+    @TempDir
+    Path dir;
+
+    private final CsvImportService service = new CsvImportService(null); // parse no usa el writer
+
+    @Test
+    void leeUnaFilaCompleta() throws IOException {
+        ImportReport report = new ImportReport("test");
+        List<ProductImportWriter.Row> filas = parse(CABECERA + "99;SKU-1;Ratón;Inalámbrico;19.90;7,5;12;3;4;1\n", report);
+
+        assertEquals(1, filas.size());
+        assertEquals(1, filas.get(0).getRowNumber());
+        Product p = filas.get(0).getProduct();
+        assertNull(p.getId(), "El ID del archivo se ignora");
+        assertEquals("SKU-1", p.getSku());
+        assertEquals("Ratón", p.getName());
+        assertEquals("Inalámbrico", p.getDescription());
+        assertEquals(new BigDecimal("19.90"), p.getPrice());
+        assertEquals(new BigDecimal("7.5"), p.getCostPrice());
+        assertEquals(12, p.getStock());
+        assertEquals(3, p.getCategoryId());
+        assertEquals(4, p.getProviderId());
+        assertTrue(p.isActive());
+        assertEquals(1, report.getRowsRead());
+        assertTrue(report.getRejected().isEmpty());
+    }
+
+    @Test
+    void camposVaciosOpcionalesYActivoCero() throws IOException {
+        List<ProductImportWriter.Row> filas = parse(CABECERA + ";SKU-2;Cable;;1;0.5;0;1;;0\n", new ImportReport("test"));
+
+        Product p = filas.get(0).getProduct();
+        assertNull(p.getDescription());
+        assertNull(p.getProviderId());
+        assertFalse(p.isActive());
+    }
+
+    @Test
+    void comillasConSeparadorComillasEscapadasYSaltoDeLinea() throws IOException {
+        String csv = CABECERA + ";\"SKU;3\";\"Monitor 27\"\"\";\"Línea 1\nLínea 2\";100;80;5;1;2;1\n"
+                + ";SKU-4;Teclado;;10;5;1;1;2;1\n";
+        ImportReport report = new ImportReport("test");
+        List<ProductImportWriter.Row> filas = parse(csv, report);
+
+        assertEquals(2, filas.size());
+        Product p = filas.get(0).getProduct();
+        assertEquals("SKU;3", p.getSku());
+        assertEquals("Monitor 27\"", p.getName());
+        assertEquals("Línea 1\nLínea 2", p.getDescription());
+        assertEquals("SKU-4", filas.get(1).getProduct().getSku());
+        assertEquals(2, filas.get(1).getRowNumber());
+    }
+
+    @Test
+    void finesDeLineaCrLf() throws IOException {
+        String csv = CABECERA.replace("\n", "\r\n")
+                + ";SKU-5;Funda;\"Con \"\"asa\"\"\";9.99;3;4;1;;1\r\n"
+                + ";SKU-6;Soporte;;5;2;1;1;2;\r\n";
+        List<ProductImportWriter.Row> filas = parse(csv, new ImportReport("test"));
+
+        assertEquals(2, filas.size());
+        assertEquals("Con \"asa\"", filas.get(0).getProduct().getDescription());
+        assertNull(filas.get(0).getProduct().getProviderId());
+        assertTrue(filas.get(1).getProduct().isActive(), "ACTIVO vacío (solo \\r) cuenta como activo");
+        assertEquals(2, filas.get(1).getProduct().getProviderId());
+    }
+
+    @Test
+    void textoUtf8MultibyteYBom() throws IOException {
+        byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+        byte[] body = (CABECERA + ";SKU-Ñ;Cámara 📷 €;Ünïcödé;1;1;1;1;1;1\n").getBytes(StandardCharsets.UTF_8);
+        byte[] file = new byte[bom.length + body.length];
+        System.arraycopy(bom, 0, file, 0, bom.length);
+        System.arraycopy(body, 0, file, bom.length, body.length);
+        Path path = dir.resolve("utf8.csv");
+        Files.write(path, file);
+
+        List<ProductImportWriter.Row> filas = service.parse(path, 0, new ImportReport("test"));
+
+        assertEquals(1, filas.size());
+        assertEquals("SKU-Ñ", filas.get(0).getProduct().getSku());
+        assertEquals("Cámara 📷 €", filas.get(0).getProduct().getName());
+        assertEquals("Ünïcödé", filas.get(0).getProduct().getDescription());
+    }
+
+    @Test
+    void textoMasLargoQueElBufferInterno() throws IOException {
+        String larga = "x".repeat(1000) + "ñ".repeat(500);
+        List<ProductImportWriter.Row> filas = parse(CABECERA + ";SKU-L;Largo;" + larga + ";1;1;1;1;1;1\n", new ImportReport("test"));
+
+        assertEquals(larga, filas.get(0).getProduct().getDescription());
+    }
+
+    @Test
+    void ultimaLineaSinSaltoYLineasVacias() throws IOException {
+        String csv = CABECERA + "\n;SKU-7;A;;1;1;1;1;1;1\n\n;SKU-8;B;;1;1;1;1;1;\"1\"";
+        ImportReport report = new ImportReport("test");
+        List<ProductImportWriter.Row> filas = parse(csv, report);
+
+        assertEquals(2, filas.size());
+        assertEquals("SKU-8", filas.get(1).getProduct().getSku());
+        assertTrue(filas.get(1).getProduct().isActive());
+        assertEquals(2, report.getRowsRead());
+    }
+
+    @Test
+    void archivoVacioOSoloCabecera() throws IOException {
+        assertTrue(parse("", new ImportReport("test")).isEmpty());
+        assertTrue(parse(CABECERA, new ImportReport("test")).isEmpty());
+        assertTrue(parse(CABECERA.trim(), new ImportReport("test")).isEmpty());
+    }
+
+    @Test
+    void filasMalFormadasSeRechazanYElRestoSeCarga() throws IOException {
+        String csv = CABECERA
+                + ";SKU-9;Corta;;1\n"
+                + ";SKU-10;Precio;;abc;1;1;1;1;1\n"
+                + ";SKU-11;Stock;;1;1;99999999999;1;1;1\n"
+                + ";SKU-12;Buena;;1;1;1;1;1;1\n";
+        ImportReport report = new ImportReport("test");
+        List<ProductImportWriter.Row> filas = parse(csv, report);
+
+        assertEquals(1, filas.size());
+        assertEquals("SKU-12", filas.get(0).getProduct().getSku());
+        assertEquals(4, report.getRowsRead());
+        assertEquals(3, report.getRejected().size());
+        assertEquals("SKU-9", report.getRejected().get(0).getSku());
+        assertTrue(report.getRejected().get(0).getReason().startsWith("Faltan columnas"));
+        assertEquals(2, report.getRejected().get(1).getRowNumber());
+        assertTrue(report.getRejected().get(2).getReason().contains("demasiado grande"));
+    }
+
+    @Test
+    void comillasSinCerrarSoloRechazanSuFila() throws IOException {
+        String csv = CABECERA
+                + ";SKU-13;Antes;;1;1;1;1;1;1\n"
+                + ";SKU-14;\"Sin cerrar;;1;1;1;1;1;1\n"
+                + ";SKU-15;Después;;1;1;1;1;1;1\n";
+        ImportReport report = new ImportReport("test");
+        List<ProductImportWriter.Row> filas = parse(csv, report);
+
+        assertEquals(2, filas.size());
+        assertEquals("SKU-13", filas.get(0).getProduct().getSku());
+        assertEquals("SKU-15", filas.get(1).getProduct().getSku());
+        assertEquals(3, filas.get(1).getRowNumber());
+        assertEquals(1, report.getRejected().size());
+        assertEquals(2, report.getRejected().get(0).getRowNumber());
+        assertEquals("SKU-14", report.getRejected().get(0).getSku());
+        assertEquals("Comillas sin cerrar", report.getRejected().get(0).getReason());
+    }
+
+    @Test
+    void comillasSinCerrarEnLaUltimaFila() throws IOException {
+        ImportReport report = new ImportReport("test");
+        List<ProductImportWriter.Row> filas = parse(CABECERA + ";SKU-16;Ok;;1;1;1;1;1;1\n;\"SKU-17", report);
+
+        assertEquals(1, filas.size());
+        assertEquals(1, report.getRejected().size());
+        assertNull(report.getRejected().get(0).getSku());
+    }
+
+    @Test
+    void reanudaTrasLaUltimaFilaConfirmada() throws IOException {
+        String csv = CABECERA + ";S1;A;;1;1;1;1;1;1\n;S2;B;;1;1;1;1;1;1\n;S3;C;;1;1;1;1;1;1\n";
+        ImportReport report = new ImportReport("test");
+        List<ProductImportWriter.Row> filas = service.parse(write(csv), 2, report);
+
+        assertEquals(1, filas.size());
+        assertEquals("S3", filas.get(0).getProduct().getSku());
+        assertEquals(3, filas.get(0).getRowNumber());
+        assertEquals(1, report.getRowsRead());
+    }
+
+    // --- AUXILIARES ---
+
+    private List<ProductImportWriter.Row> parse(String csv, ImportReport report) throws IOException {
+        return service.parse(write(csv), 0, report);
+    }
+
+    private Path write(String csv) throws IOException {
+        Path path = Files.createTempFile(dir, "import", ".csv");
+        Files.write(path, csv.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+}
@@ -0,0 +1,93 @@
+package com.techstore.service;
+
+import com.techstore.model.ImportReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de los puntos de control de la carpeta de entrada (sin base de datos: el importador es simulado).
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+class ImportWatcherServiceTest {
+
+    @TempDir
+    Path inbox;
+
+    @Test
+    void unCheckpointDeOtroArchivoConElMismoNombreNoSeAplica() throws Exception {
+        Path checkpoints = Files.createDirectories(inbox.resolve(".checkpoints"));
+        Files.writeString(checkpoints.resolve("proveedor.csv.ckpt"), "30 999 1", StandardCharsets.UTF_8);
+        StubCsvImportService csv = new StubCsvImportService(0, false);
+        Files.writeString(inbox.resolve("proveedor.csv"), "contenido nuevo", StandardCharsets.UTF_8);
+
+        try (ImportWatcherService service = new ImportWatcherService(inbox, 1, new ExcelImportService(), csv)) {
+            service.start();
+            waitFor(() -> Files.exists(inbox.resolve("archivados/proveedor.csv")));
+        }
+
+        assertEquals(0, csv.resumedAfter, "Se empieza desde el principio");
+        assertFalse(Files.exists(checkpoints.resolve("proveedor.csv.ckpt")));
+    }
+
+    @Test
+    void alIrACuarentenaPorUnErrorSeBorraElCheckpoint() throws Exception {
+        StubCsvImportService csv = new StubCsvImportService(120, true);
+        Files.writeString(inbox.resolve("proveedor.csv"), "contenido", StandardCharsets.UTF_8);
+
+        try (ImportWatcherService service = new ImportWatcherService(inbox, 1, new ExcelImportService(), csv)) {
+            service.start();
+            waitFor(() -> Files.exists(inbox.resolve("cuarentena/proveedor.csv")));
+        }
+
+        assertTrue(csv.checkpointSeen, "Hubo checkpoint mientras se procesaba");
+        assertFalse(Files.exists(inbox.resolve(".checkpoints/proveedor.csv.ckpt")));
+    }
+
+    // --- AUXILIARES ---
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "El archivo no se procesó a tiempo");
+            Thread.sleep(20);
+        }
+    }
+
+    /** Importador sin base de datos: "importa" un número fijo de filas y, si se pide, falla al final. */
+    private final class StubCsvImportService extends CsvImportService {
+        private final int rows;
+        private final boolean fail;
+        private volatile int resumedAfter = -1;
+        private volatile boolean checkpointSeen;
+
+        private StubCsvImportService(int rows, boolean fail) {
+            super(null);
+            this.rows = rows;
+            this.fail = fail;
+        }
+
+        @Override
+        public ImportReport cargarProductosDesdeCsv(String rutaArchivo, int resumeAfterRow, IntConsumer onRowImported) {
+            resumedAfter = resumeAfterRow;
+            for (int row = resumeAfterRow + 1; row <= resumeAfterRow + rows; row++) {
+                onRowImported.accept(row);
+            }
+            checkpointSeen = Files.exists(inbox.resolve(".checkpoints/proveedor.csv.ckpt"));
+            if (fail) throw new IllegalStateException("Conexión perdida");
+            ImportReport report = new ImportReport(rutaArchivo);
+            report.setRowsRead(rows);
+            report.setImported(rows);
+            return report;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.techstore.service;
+
+import com.techstore.dao.ProductDAO;
+import com.techstore.dao.StockMovementDAO;
+import com.techstore.exception.TechStoreException;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjIntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la traducción de SKU (códigos escaneados) a ID de producto, sin base de datos.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+class InventoryServiceSkuTest {
+
+    @Test
+    void laPrimeraBusquedaCargaElIndiceSinPrecalentar() throws Exception {
+        StubProductDAO dao = new StubProductDAO();
+        dao.skus.put("8412345678905", 7);
+        SkuIndex index = new SkuIndex();
+        InventoryService service = service(dao, index);
+
+        assertEquals(7, service.findProductIdBySku("8412345678905"));
+        assertTrue(index.isLoaded());
+        assertEquals(0, dao.lookups.get(), "Resuelto en memoria tras la carga");
+    }
+
+    @Test
+    void unSkuDeOtraCajaSeConsultaYSeAnadeAlIndice() throws Exception {
+        StubProductDAO dao = new StubProductDAO();
+        SkuIndex index = new SkuIndex();
+        InventoryService service = service(dao, index);
+        service.findProductIdBySku("OTRO"); // Carga el índice (sin el SKU nuevo)
+        dao.skus.put("0012345678905", 42); // Alta en otra caja
+
+        assertEquals(42, service.findProductIdBySku("0012345678905"));
+        assertEquals(42, index.get("0012345678905"));
+    }
+
+    @Test
+    void unCodigoNumericoInexistenteNoSeConvierteEnId() throws Exception {
+        InventoryService service = service(new StubProductDAO(), new SkuIndex());
+
+        assertEquals(SkuIndex.NOT_FOUND, service.findProductIdBySku("12"));
+        TechStoreException error = assertThrows(TechStoreException.class, () -> service.resolveSku("12"));
+        assertTrue(error.getMessage().contains("no existe"));
+    }
+
+    // --- AUXILIARES ---
+
+    private static InventoryService service(ProductDAO dao, SkuIndex index) {
+        return new InventoryService(dao, new StockMovementDAO(), new StockEventBus(), index, null);
+    }
+
+    /** ProductDAO sin base de datos con una tabla de SKUs en memoria. */
+    private static final class StubProductDAO extends ProductDAO {
+        private final Map<String, Integer> skus = new HashMap<>();
+        private final AtomicInteger lookups = new AtomicInteger();
+
+        @Override
+        public int forEachSku(ObjIntConsumer<String> sink) {
+            skus.forEach(sink::accept);
+            return skus.size();
+        }
+
+        @Override
+        public int getProductIdBySku(String sku) {
+            lookups.incrementAndGet();
+            return skus.getOrDefault(sku, -1);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.techstore.service;
+
+import com.techstore.dao.LocationStockDAO;
+import com.techstore.dao.ProductDAO;
+import com.techstore.dao.StockMovementDAO;
+import com.techstore.exception.StockInsufficientException;
+import com.techstore.exception.TechStoreException;
+import com.techstore.model.StockChangeEvent;
+import com.techstore.model.StockChangeType;
+import com.techstore.model.StockMovement;
+import com.techstore.util.RecentMovementsBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de los cambios de stock del servicio de inventario (sin base de datos: DAOs simulados):
+ * valores de los eventos, stock insuficiente, productos inexistentes, ajustes por recuento y stock por ubicación.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+class InventoryServiceStockTest {
+
+    private final StubProductDAO products = new StubProductDAO();
+    private final StubMovementDAO movements = new StubMovementDAO();
+    private final StockEventBus bus = new StockEventBus();
+    private final BlockingQueue<StockChangeEvent> events = new LinkedBlockingQueue<>();
+    private final StockEventBus.Subscription subscription = bus.subscribe("prueba", 64, events::add);
+    private final StubLocationStockDAO locations = new StubLocationStockDAO();
+    private final InventoryService service = new InventoryService(products, movements, bus, new SkuIndex(), locations);
+
+    @AfterEach
+    void closeSubscription() {
+        subscription.close();
+    }
+
+    @Test
+    void laVentaTomaElStockDelUpdateSinLeerloAntes() throws Exception {
+        products.stock.put(1, 10);
+
+        service.sellProduct(1, 3, "Cliente");
+
+        StockChangeEvent event = nextEvent();
+        assertEquals(StockChangeType.VENTA, event.getType());
+        assertEquals(10, event.getOldStock());
+        assertEquals(7, event.getNewStock());
+        assertEquals(0, products.reads, "El camino feliz no consulta el stock");
+        assertEquals(1, movements.inserted.size());
+    }
+
+    @Test
+    void sinStockSuficienteNoSeRegistraNiSePublica() throws Exception {
+        products.stock.put(1, 2);
+
+        StockInsufficientException error = assertThrows(StockInsufficientException.class,
+                () -> service.sellProduct(1, 3, null));
+
+        assertTrue(error.getMessage().contains("Tienes 2"));
+        assertTrue(movements.inserted.isEmpty());
+        assertNull(events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void venderOReponerUnProductoInexistenteFalla() {
+        TechStoreException venta = assertThrows(TechStoreException.class, () -> service.sellProduct(99, 1, null));
+        TechStoreException compra = assertThrows(TechStoreException.class, () -> service.addStock(99, 1, null));
+
+        assertTrue(venta.getMessage().contains("no existe"));
+        assertTrue(compra.getMessage().contains("no existe"));
+        assertTrue(movements.inserted.isEmpty());
+    }
+
+    @Test
+    void laCompraPublicaElStockAnteriorYElResultante() throws Exception {
+        products.stock.put(1, 4);
+
+        service.addStock(1, 6, "Proveedor");
+
+        StockChangeEvent event = nextEvent();
+        assertEquals(4, event.getOldStock());
+        assertEquals(10, event.getNewStock());
+    }
+
+    @Test
+    void elAjusteFijaElValorContadoYRegistraLaDiferenciaConElBloqueado() throws Exception {
+        products.stock.put(1, 10);
+        products.soldBeforeLock = 2; // Una venta confirmada justo antes de bloquear la fila
+
+        service.adjustStock(1, 5, "Recuento");
+
+        assertEquals(5, products.stock.get(1), "Se escribe el valor absoluto contado");
+        assertEquals(-3, movements.inserted.get(0).getQuantity(), "La diferencia es con el stock bloqueado (8)");
+        StockChangeEvent event = nextEvent();
+        assertEquals(8, event.getOldStock());
+        assertEquals(5, event.getNewStock());
+    }
+
+    @Test
+    void unAjusteSinDiferenciaNoRegistraMovimiento() throws Exception {
+        products.stock.put(1, 5);
+
+        service.adjustStock(1, 5, "Recuento");
+
+        assertTrue(movements.inserted.isEmpty());
+    }
+
+    @Test
+    void laVentaEnUnaUbicacionPublicaSuUbicacionYNoLeeProductos() throws Exception {
+        locations.stock.put(key(3, 1), 5);
+
+        service.sellProduct(3, 1, 2, "Cliente");
+
+        StockChangeEvent event = nextEvent();
+        assertEquals(3, event.getLocationId());
+        assertEquals(5, event.getOldStock());
+        assertEquals(3, event.getNewStock());
+        assertEquals(0, products.reads, "La existencia del producto no se consulta aparte");
+        assertEquals(3, movements.inserted.get(0).getLocationId());
+    }
+
+    @Test
+    void sinStockSuficienteEnLaUbicacionNoSeVende() {
+        locations.stock.put(key(3, 1), 1);
+
+        StockInsufficientException error = assertThrows(StockInsufficientException.class,
+                () -> service.sellProduct(3, 1, 2, null));
+
+        assertTrue(error.getMessage().contains("Tienes 1"));
+        assertEquals(1, locations.stock.get(key(3, 1)));
+        assertTrue(movements.inserted.isEmpty());
+    }
+
+    @Test
+    void laPrimeraEntradaEnUnaUbicacionCreaLaFila() throws Exception {
+        service.addStock(3, 1, 4, "Proveedor");
+
+        assertEquals(4, locations.stock.get(key(3, 1)));
+        StockChangeEvent event = nextEvent();
+        assertEquals(3, event.getLocationId());
+        assertEquals(0, event.getOldStock());
+        assertEquals(4, event.getNewStock());
+    }
+
+    @Test
+    void laClaveForaneaDiceQueFaltaAlReponerEnUnaUbicacion() {
+        locations.missingParent = "FK_STOCK_UBICACION_PRODUCTO";
+        TechStoreException producto = assertThrows(TechStoreException.class, () -> service.addStock(3, 99, 1, null));
+        locations.missingParent = "FK_STOCK_UBICACION_UBICACION";
+        TechStoreException ubicacion = assertThrows(TechStoreException.class, () -> service.addStock(77, 1, 1, null));
+
+        assertTrue(producto.getMessage().contains("producto ID 99 no existe"));
+        assertTrue(ubicacion.getMessage().contains("ubicación ID 77 no existe"));
+        assertTrue(movements.inserted.isEmpty());
+    }
+
+    // --- AUXILIARES ---
+
+    private static long key(int locationId, int productId) {
+        return ((long) locationId << 32) | productId;
+    }
+
+    private StockChangeEvent nextEvent() throws InterruptedException {
+        StockChangeEvent event = events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(event, "No llegó el evento");
+        return event;
+    }
+
+    /** ProductDAO sin base de datos: el stock vive en un mapa y las operaciones imitan a las sentencias. */
+    private static final class StubProductDAO extends ProductDAO {
+        private final Map<Integer, Integer> stock = new HashMap<>();
+        private int reads;
+        private int soldBeforeLock;
+
+        @Override
+        public int getCurrentStock(int productId) {
+            reads++;
+            return stock.getOrDefault(productId, -1);
+        }
+
+        @Override
+        public int decreaseStockIfAvailable(int productId, int quantity) {
+            Integer current = stock.get(productId);
+            if (current == null || current < quantity) return -1;
+            stock.put(productId, current - quantity);
+            return current - quantity;
+        }
+
+        @Override
+        public int increaseStock(int productId, int quantity) {
+            Integer current = stock.get(productId);
+            if (current == null) return -1;
+            stock.put(productId, current + quantity);
+            return current + quantity;
+        }
+
+        @Override
+        public int setStock(int productId, int countedStock) {
+            Integer current = stock.get(productId);
+            if (current == null) return -1;
+            int locked = current - soldBeforeLock;
+            stock.put(productId, countedStock);
+            return locked;
+        }
+    }
+
+    /** LocationStockDAO sin base de datos: filas ubicación × producto en un mapa. */
+    private static final class StubLocationStockDAO extends LocationStockDAO {
+        private final Map<Long, Integer> stock = new HashMap<>();
+        private String missingParent; // Si no es null, el INSERT falla con ORA-02291 sobre esa clave foránea
+
+        @Override
+        public int getStock(int locationId, int productId) {
+            return stock.getOrDefault(key(locationId, productId), 0);
+        }
+
+        @Override
+        public int increaseStock(int locationId, int productId, int quantity) throws SQLException {
+            Integer current = stock.get(key(locationId, productId));
+            if (current == null && missingParent != null) {
+                throw new SQLException("ORA-02291: restricción de integridad (TECHSTORE." + missingParent
+                        + ") violada - clave principal no encontrada", "23000", 2291);
+            }
+            int newStock = (current == null ? 0 : current) + quantity;
+            stock.put(key(locationId, productId), newStock);
+            return newStock;
+        }
+
+        @Override
+        public int decreaseStockIfAvailable(int locationId, int productId, int quantity) {
+            Integer current = stock.get(key(locationId, productId));
+            if (current == null || current < quantity) return -1;
+            stock.put(key(locationId, productId), current - quantity);
+            return current - quantity;
+        }
+    }
+
+    /** StockMovementDAO que guarda los movimientos en una lista. */
+    private static final class StubMovementDAO extends StockMovementDAO {
+        private final List<StockMovement> inserted = new ArrayList<>();
+
+        private StubMovementDAO() {
+            super(new RecentMovementsBuffer(8));
+        }
+
+        @Override
+        public void insert(StockMovement movement) {
+            inserted.add(movement);
+        }
+    }
+}
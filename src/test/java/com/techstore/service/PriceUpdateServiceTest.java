@@ -0,0 +1,122 @@
+package com.techstore.service;
+
+import com.techstore.exception.TechStoreException;
+import com.techstore.model.PriceChange;
+import com.techstore.model.PriceChangeMode;
+import com.techstore.model.PriceChangeResult;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del cambio masivo de precios sin base de datos: validación del ámbito, comprobación previa
+ * de precios que quedarían en 0 o negativos y reparto de los SKUs en grupos.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+class PriceUpdateServiceTest {
+
+    @Test
+    void hayQueIndicarUnUnicoAmbito() {
+        assertScopeRejected(change().build());
+        assertScopeRejected(change().categoryId(1).providerId(2).build());
+        assertScopeRejected(change().categoryId(1).skus(List.of("A")).build());
+        assertScopeRejected(change().skus(List.of()).build());
+    }
+
+    @Test
+    void sinModoOSinValorNoSeAcepta() {
+        assertThrows(TechStoreException.class, () -> PriceUpdateService.validate(change().mode(null).categoryId(1).build()));
+        assertThrows(TechStoreException.class, () -> PriceUpdateService.validate(change().value(null).categoryId(1).build()));
+    }
+
+    @Test
+    void unaRebajaDel100PorCientoOMasNoSeAcepta() {
+        TechStoreException error = assertThrows(TechStoreException.class, () -> PriceUpdateService.validate(
+                change().mode(PriceChangeMode.PORCENTAJE).value(BigDecimal.valueOf(-100)).categoryId(1).build()));
+
+        assertTrue(error.getMessage().contains("100 %"));
+    }
+
+    @Test
+    void losSkusSeRepartenEnGruposDeComoMucho500() throws Exception {
+        List<String> skus = new ArrayList<>();
+        for (int i = 0; i < 1201; i++) {
+            skus.add("SKU-" + i);
+        }
+
+        List<PriceUpdateService.Segment> segments = PriceUpdateService.validate(change().skus(skus).build());
+
+        assertEquals(3, segments.size());
+        assertEquals(List.of(500, 500, 201), List.of(segments.get(0).values.size(), segments.get(1).values.size(),
+                segments.get(2).values.size()));
+        assertEquals("SKU-1000", segments.get(2).values.get(0));
+        for (PriceUpdateService.Segment segment : segments) {
+            assertEquals(segment.values.size(), segment.predicate.chars().filter(c -> c == '?').count());
+        }
+    }
+
+    @Test
+    void siAlgunPrecioQuedariaSinValorNoSeTocaNada() {
+        StubPriceUpdateService service = new StubPriceUpdateService(0, 0, 2); // Solo el tercer grupo falla
+        List<String> skus = new ArrayList<>();
+        for (int i = 0; i < 1100; i++) {
+            skus.add("SKU-" + i);
+        }
+
+        TechStoreException error = assertThrows(TechStoreException.class,
+                () -> service.applyPriceChange(change().value(BigDecimal.valueOf(-50)).skus(skus).build()));
+
+        assertTrue(error.getMessage().contains("2 producto(s)"));
+        assertEquals(3, service.checked, "Se revisan todos los grupos antes de decidir");
+        assertFalse(service.applied);
+    }
+
+    @Test
+    void sinPreciosInvalidosSeAplica() throws Exception {
+        StubPriceUpdateService service = new StubPriceUpdateService(0);
+
+        service.applyPriceChange(change().categoryId(3).build());
+
+        assertTrue(service.applied);
+    }
+
+    // --- AUXILIARES ---
+
+    private static PriceChange.PriceChangeBuilder change() {
+        return PriceChange.builder().mode(PriceChangeMode.IMPORTE).value(BigDecimal.ONE).reason("Prueba");
+    }
+
+    private static void assertScopeRejected(PriceChange change) {
+        TechStoreException error = assertThrows(TechStoreException.class, () -> PriceUpdateService.validate(change));
+        assertTrue(error.getMessage().contains("único ámbito"));
+    }
+
+    /** Servicio sin base de datos: cada grupo devuelve el número de precios inválidos indicado. */
+    private static final class StubPriceUpdateService extends PriceUpdateService {
+        private final int[] invalidPerSegment;
+        private int checked;
+        private boolean applied;
+
+        private StubPriceUpdateService(int... invalidPerSegment) {
+            super(new StockEventBus(), 100);
+            this.invalidPerSegment = invalidPerSegment;
+        }
+
+        @Override
+        int countInvalidPrices(Segment segment, String newPrice, BigDecimal value) {
+            return invalidPerSegment[checked++];
+        }
+
+        @Override
+        PriceChangeResult applyAll(List<Segment> segments, String newPrice, PriceChange change, long t0) {
+            applied = true;
+            return new PriceChangeResult(1, 0, 0, 0);
+        }
+    }
+}
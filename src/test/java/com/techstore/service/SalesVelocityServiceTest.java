@@ -0,0 +1,120 @@
+package com.techstore.service;
+
+import com.techstore.dao.StockMovementDAO;
+import com.techstore.model.StockChangeEvent;
+import com.techstore.model.StockChangeType;
+import com.techstore.util.RecentMovementsBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la siembra del motor de velocidad (sin base de datos): no bloquea las consultas y
+ * cada movimiento cuenta una sola vez aunque su evento llegue durante o después del recorrido.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+class SalesVelocityServiceTest {
+
+    private static final long NOW = System.currentTimeMillis();
+
+    @Test
+    void lasConsultasNoEsperanALaSiembra() throws Exception {
+        SalesVelocityService[] service = new SalesVelocityService[1];
+        StubMovementDAO dao = new StubMovementDAO(List.of(1, 2, 3), () -> {
+            double rate = CompletableFuture.supplyAsync(() -> service[0].getDailySales(1)).get(1, TimeUnit.SECONDS);
+            assertEquals(0.0, rate, "Mientras se recorre, responde con las medias anteriores");
+        });
+        service[0] = new SalesVelocityService(dao, 7.0);
+
+        assertEquals(3, service[0].seed(30));
+        assertTrue(service[0].getDailySales(1) > 0);
+    }
+
+    @Test
+    void cadaMovimientoCuentaUnaSolaVezPorSuId() throws Exception {
+        StockEventBus bus = new StockEventBus();
+        SalesVelocityService[] service = new SalesVelocityService[1];
+        StockEventBus.Subscription[] subscription = new StockEventBus.Subscription[1];
+        StubMovementDAO dao = new StubMovementDAO(List.of(1, 2, 3), () -> {
+            bus.publish(sale(3)); // Ya en el recorrido: su evento llega tarde
+            bus.publish(sale(4)); // Confirmado después de la lectura
+            waitFor(() -> subscription[0].getPending() == 0);
+        });
+        service[0] = new SalesVelocityService(dao, 7.0);
+        subscription[0] = service[0].subscribeTo(bus);
+        try {
+            service[0].seed(30);
+            bus.publish(sale(2)); // Repetido tras la siembra: se descarta
+            bus.publish(sale(5));
+            waitFor(() -> subscription[0].getPending() == 0);
+        } finally {
+            subscription[0].close();
+        }
+
+        SalesVelocityService reference = new SalesVelocityService(new StubMovementDAO(List.of(1, 2, 3, 4, 5), null), 7.0);
+        reference.seed(30);
+        assertEquals(reference.getDailySales(1), service[0].getDailySales(1), reference.getDailySales(1) * 1e-6);
+    }
+
+    // --- AUXILIARES ---
+
+    private static StockChangeEvent sale(int movementId) {
+        return StockChangeEvent.builder()
+                .type(StockChangeType.VENTA)
+                .productId(1)
+                .movementId(movementId)
+                .oldStock(10)
+                .newStock(9)
+                .timestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(NOW), ZoneId.systemDefault()))
+                .build();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "No ocurrió a tiempo");
+            Thread.sleep(5);
+        }
+    }
+
+    private interface Hook {
+        void run() throws Exception;
+    }
+
+    /** Histórico simulado: una venta de una unidad del producto 1 por cada ID; el gancho corre a mitad del recorrido. */
+    private static final class StubMovementDAO extends StockMovementDAO {
+        private final List<Integer> ids;
+        private final Hook duringStream;
+
+        private StubMovementDAO(List<Integer> ids, Hook duringStream) {
+            super(new RecentMovementsBuffer(8));
+            this.ids = ids;
+            this.duringStream = duringStream;
+        }
+
+        @Override
+        public int streamSalesAndPurchasesSince(LocalDateTime since, MovementSink sink) {
+            for (int i = 0; i < ids.size(); i++) {
+                sink.accept(ids.get(i), 1, "VENTA", 1, NOW);
+                if (i == 0 && duringStream != null) {
+                    try {
+                        duringStream.run();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+            return ids.size();
+        }
+    }
+}
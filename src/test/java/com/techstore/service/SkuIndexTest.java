@@ -0,0 +1,115 @@
+package com.techstore.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del índice SKU en memoria, incluidas lecturas concurrentes mientras la tabla crece.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+class SkuIndexTest {
+
+    @Test
+    void buscaPorSkuSinEspaciosALosLados() {
+        SkuIndex index = new SkuIndex(4);
+        index.put(" ABC-123 ", 7);
+
+        assertEquals(7, index.get("ABC-123"));
+        assertEquals(7, index.get("  ABC-123"));
+        assertEquals(SkuIndex.NOT_FOUND, index.get("abc-123"));
+        assertEquals(SkuIndex.NOT_FOUND, index.get(null));
+    }
+
+    @Test
+    void actualizarUnSkuNoLoDuplica() {
+        SkuIndex index = new SkuIndex(4);
+        index.put("8412345678905", 1);
+        index.put("8412345678905", 2);
+
+        assertEquals(2, index.get("8412345678905"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void creceSinPerderEntradas() {
+        SkuIndex index = new SkuIndex(1);
+        for (int i = 0; i < 20_000; i++) {
+            index.put("SKU-" + i, i);
+        }
+
+        assertEquals(20_000, index.size());
+        for (int i = 0; i < 20_000; i++) {
+            assertEquals(i, index.get("SKU-" + i));
+        }
+        assertEquals(SkuIndex.NOT_FOUND, index.get("SKU-20000"));
+    }
+
+    @Test
+    void lasLecturasNoFallanMientrasUnaImportacionHaceCrecerLaTabla() throws InterruptedException {
+        final int perRound = 4096;
+        final int rounds = 500;
+        String[] skus = new String[perRound];
+        for (int i = 0; i < perRound; i++) {
+            skus[i] = "SKU-" + i;
+        }
+        // Cada ronda es un índice nuevo con tabla mínima: la escritura lo hace crecer muchas veces
+        AtomicReference<SkuIndex> current = new AtomicReference<>(new SkuIndex(1));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicBoolean done = new AtomicBoolean();
+
+        Thread writer = new Thread(() -> {
+            for (int r = 0; r < rounds && failure.get() == null; r++) {
+                SkuIndex index = new SkuIndex(1);
+                current.set(index);
+                for (int i = 0; i < perRound; i++) {
+                    index.put(skus[i], i);
+                }
+            }
+            done.set(true);
+        });
+
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            readers.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    while (!done.get() && failure.get() == null) {
+                        SkuIndex index = current.get();
+                        int i = random.nextInt(perRound);
+                        int id = index.get(skus[i]);
+                        if (id != i && id != SkuIndex.NOT_FOUND) {
+                            throw new AssertionError(skus[i] + " devolvió " + id);
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            }));
+        }
+
+        readers.forEach(Thread::start);
+        writer.start();
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        if (failure.get() != null) {
+            fail("Lectura concurrente incorrecta", failure.get());
+        }
+        SkuIndex last = current.get();
+        assertEquals(perRound, last.size());
+        for (int i = 0; i < perRound; i++) {
+            assertEquals(i, last.get(skus[i]));
+        }
+    }
+}
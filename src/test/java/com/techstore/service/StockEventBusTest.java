@@ -0,0 +1,140 @@
+package com.techstore.service;
+
+import com.techstore.model.StockChangeEvent;
+import com.techstore.model.StockChangeType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del bus de eventos de stock: aislamiento entre suscriptores, descartes y baja.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+class StockEventBusTest {
+
+    @Test
+    void unSuscriptorLentoSoloPierdeSusEventosYPublicarNoSeBloquea() throws Exception {
+        StockEventBus bus = new StockEventBus();
+        CountDownLatch gate = new CountDownLatch(1);
+        List<Integer> rapidos = new CopyOnWriteArrayList<>();
+        try (StockEventBus.Subscription lento = bus.subscribe("lento", 4, e -> await(gate));
+             StockEventBus.Subscription rapido = bus.subscribe("rapido", 1024, e -> rapidos.add(e.getProductId()))) {
+
+            long t0 = System.nanoTime();
+            for (int i = 1; i <= 500; i++) {
+                bus.publish(event(i));
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+
+            waitFor(() -> rapidos.size() == 500);
+            assertTrue(millis < 1_000, "Publicar no espera al suscriptor lento (" + millis + " ms)");
+            for (int i = 0; i < 500; i++) {
+                assertEquals(i + 1, rapidos.get(i), "El rápido los recibe todos y en orden");
+            }
+            assertEquals(0, rapido.getDropped());
+            assertTrue(lento.getDropped() >= 496, "Solo caben 4 en el anillo del lento");
+            gate.countDown();
+        }
+    }
+
+    @Test
+    void elContadorDeDescartesEsExacto() throws Exception {
+        StockEventBus bus = new StockEventBus();
+        CountDownLatch gate = new CountDownLatch(1);
+        List<Integer> recibidos = new CopyOnWriteArrayList<>();
+        try (StockEventBus.Subscription s = bus.subscribe("lento", 4, e -> {
+            await(gate);
+            recibidos.add(e.getProductId());
+        })) {
+            for (int i = 1; i <= 10; i++) {
+                bus.publish(event(i));
+            }
+            // El primero se está procesando (bloqueado) y sigue ocupando su posición hasta terminar
+            assertEquals(6, s.getDropped());
+            assertEquals(4, s.getPending());
+
+            gate.countDown();
+            waitFor(() -> recibidos.size() == 4);
+            assertEquals(List.of(1, 2, 3, 4), recibidos);
+            waitFor(() -> s.getPending() == 0);
+        }
+    }
+
+    @Test
+    void alDarseDeBajaProcesaLoPendienteYNoRecibeMas() throws Exception {
+        StockEventBus bus = new StockEventBus();
+        CountDownLatch gate = new CountDownLatch(1);
+        List<Integer> recibidos = new CopyOnWriteArrayList<>();
+        StockEventBus.Subscription s = bus.subscribe("baja", 16, e -> {
+            await(gate);
+            recibidos.add(e.getProductId());
+        });
+        bus.publish(event(1));
+        bus.publish(event(2));
+        bus.publish(event(3));
+
+        s.close();
+        bus.publish(event(4));
+        gate.countDown();
+
+        waitFor(() -> recibidos.size() == 3);
+        waitFor(() -> !threadAlive("stock-events-baja"));
+        assertEquals(List.of(1, 2, 3), recibidos);
+    }
+
+    @Test
+    void unSuscriptorQueFallaSigueRecibiendo() throws Exception {
+        StockEventBus bus = new StockEventBus();
+        List<Integer> recibidos = new CopyOnWriteArrayList<>();
+        try (StockEventBus.Subscription s = bus.subscribe("defectuoso", 8, e -> {
+            if (e.getProductId() == 1) throw new IllegalStateException("fallo");
+            recibidos.add(e.getProductId());
+        })) {
+            bus.publish(event(1));
+            bus.publish(event(2));
+
+            waitFor(() -> recibidos.contains(2));
+        }
+    }
+
+    // --- AUXILIARES ---
+
+    private static StockChangeEvent event(int productId) {
+        return StockChangeEvent.builder()
+                .type(StockChangeType.VENTA)
+                .productId(productId)
+                .oldStock(10)
+                .newStock(9)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean threadAlive(String name) {
+        return Thread.getAllStackTraces().keySet().stream().anyMatch(t -> t.getName().equals(name) && t.isAlive());
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "No ocurrió a tiempo");
+            Thread.sleep(5);
+        }
+    }
+}
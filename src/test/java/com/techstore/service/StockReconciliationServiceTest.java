@@ -0,0 +1,85 @@
+package com.techstore.service;
+
+import com.techstore.model.StockDrift;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la conciliación sin base de datos: reparto en tramos, consulta de revisión
+ * y regla de revisar antes de registrar el AJUSTE.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+class StockReconciliationServiceTest {
+
+    @Test
+    void unSoloProductoEsUnSoloTramo() {
+        List<long[]> ranges = StockReconciliationService.split(7, 7, 16);
+
+        assertEquals(1, ranges.size());
+        assertArrayEquals(new long[]{7, 7}, ranges.get(0));
+    }
+
+    @Test
+    void masTramosQueIdsDaUnTramoPorId() {
+        List<long[]> ranges = StockReconciliationService.split(1, 3, 16);
+
+        assertEquals(3, ranges.size());
+        assertArrayEquals(new long[]{3, 3}, ranges.get(2));
+    }
+
+    @Test
+    void losTramosCubrenTodoElRangoSinHuecosNiSolapes() {
+        // IDs dispersos: solo importan MIN y MAX, los huecos quedan dentro de algún tramo
+        for (int partitions = 1; partitions <= 20; partitions++) {
+            List<long[]> ranges = StockReconciliationService.split(5, 1_000_003, partitions);
+
+            assertTrue(ranges.size() <= partitions);
+            assertEquals(5, ranges.get(0)[0]);
+            assertEquals(1_000_003, ranges.get(ranges.size() - 1)[1]);
+            for (int i = 0; i < ranges.size(); i++) {
+                assertTrue(ranges.get(i)[0] <= ranges.get(i)[1], "Tramo vacío");
+                if (i > 0) assertEquals(ranges.get(i - 1)[1] + 1, ranges.get(i)[0]);
+            }
+        }
+    }
+
+    @Test
+    void laRevisionFiltraElLibroYLosProductosPorLaMismaLista() {
+        String sql = StockReconciliationService.recheckSql(3);
+
+        assertFalse(sql.contains("BETWEEN"));
+        assertEquals(3, count(sql, "IN (?, ?, ?)"), "Movimientos, resumen y productos");
+        assertEquals(9, count(sql, "?"));
+    }
+
+    @Test
+    void soloSeCorrigenLosDescuadresQueSiguenIgual() {
+        StockDrift igual = drift(1, 10, 8);         // +2
+        StockDrift cambiado = drift(2, 5, 9);       // -4, ahora -3 (venta a medio registrar)
+        StockDrift resuelto = drift(3, 4, 1);       // +3, ya cuadra
+        StockDrift borrado = drift(4, 2, 0);        // El producto ya no existe
+
+        List<StockDrift> result = StockReconciliationService.unchanged(List.of(igual, cambiado, resuelto, borrado),
+                Map.of(1, 2, 2, -3, 3, 0));
+
+        assertEquals(List.of(igual), result);
+    }
+
+    // --- AUXILIARES ---
+
+    private static StockDrift drift(int productId, int stock, int ledger) {
+        return new StockDrift(productId, "SKU-" + productId, stock, ledger);
+    }
+
+    private static int count(String text, String part) {
+        int n = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + part.length())) n++;
+        return n;
+    }
+}
@@ -0,0 +1,147 @@
+package com.techstore.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de los compartimentos del pool (sin base de datos): cuotas, cola llena, conexiones anidadas,
+ * cierre desde otro hilo y freno de los procesos masivos con su recuperación.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+class ConnectionBulkheadTest {
+
+    private static final long TIMEOUT_MILLIS = 100;
+
+    @Test
+    void sinPlazaEnLaCuotaSeEsperaYFallaTrasElPlazo() throws Exception {
+        ConnectionBulkhead bulkhead = bulkhead(1, 1, 1);
+        ConnectionBulkhead.Ticket ocupada = inOtherThread(() -> WorkloadClass.BULK.call(bulkhead::acquire));
+
+        long t0 = System.nanoTime();
+        SQLException error = assertThrows(SQLException.class, () -> WorkloadClass.BULK.call(bulkhead::acquire));
+        assertTrue((System.nanoTime() - t0) / 1_000_000 >= TIMEOUT_MILLIS - 10, "Esperó en la cola");
+        assertTrue(error.getMessage().startsWith("Sin plaza"));
+
+        bulkhead.release(ocupada);
+        bulkhead.release(WorkloadClass.BULK.call(bulkhead::acquire));
+        assertTrue(bulkhead.summary().contains("rechazadas=1"));
+    }
+
+    @Test
+    void conLaColaLlenaSeRechazaAlMomento() throws Exception {
+        ConnectionBulkhead bulkhead = bulkhead(1, 0, 1);
+        ConnectionBulkhead.Ticket ocupada = inOtherThread(() -> WorkloadClass.REPORTING.call(bulkhead::acquire));
+
+        long t0 = System.nanoTime();
+        SQLException error = assertThrows(SQLException.class, () -> WorkloadClass.REPORTING.call(bulkhead::acquire));
+        assertTrue((System.nanoTime() - t0) / 1_000_000 < TIMEOUT_MILLIS, "No esperó");
+        assertTrue(error.getMessage().contains("llena"));
+
+        bulkhead.release(ocupada);
+    }
+
+    @Test
+    void lasCajasNoCompitenConLaCuotaDeBulk() throws Exception {
+        ConnectionBulkhead bulkhead = bulkhead(1, 1, 1);
+        ConnectionBulkhead.Ticket masiva = inOtherThread(() -> WorkloadClass.BULK.call(bulkhead::acquire));
+
+        bulkhead.release(bulkhead.acquire()); // INTERACTIVE: entra aunque BULK esté lleno
+
+        bulkhead.release(masiva);
+    }
+
+    @Test
+    void unaConexionAnidadaNoPasaPorLaCuota() throws Exception {
+        ConnectionBulkhead bulkhead = bulkhead(1, 1, 1);
+
+        WorkloadClass.BULK.run(() -> {
+            ConnectionBulkhead.Ticket exterior = bulkhead.acquire();
+            ConnectionBulkhead.Ticket anidada = bulkhead.acquire(); // La cuota (1) ya está ocupada por este hilo
+            bulkhead.release(anidada);
+            bulkhead.release(exterior);
+        });
+
+        // Las dos devueltas: otro hilo entra sin esperar
+        bulkhead.release(inOtherThread(() -> WorkloadClass.BULK.call(bulkhead::acquire)));
+    }
+
+    @Test
+    void cerrarDesdeOtroHiloNoDejaAlHiloExentoDeSuCuota() throws Exception {
+        ConnectionBulkhead bulkhead = bulkhead(1, 1, 1);
+        ConnectionBulkhead.Ticket propia = WorkloadClass.BULK.call(bulkhead::acquire);
+        inOtherThread(() -> {
+            bulkhead.release(propia); // Por ejemplo, la cierra una etapa de un CompletableFuture
+            return null;
+        });
+        ConnectionBulkhead.Ticket ajena = inOtherThread(() -> WorkloadClass.BULK.call(bulkhead::acquire));
+
+        // Este hilo ya no tiene ninguna abierta: su siguiente petición pasa por la cuota (llena)
+        assertThrows(SQLException.class, () -> WorkloadClass.BULK.call(bulkhead::acquire));
+
+        bulkhead.release(ajena);
+    }
+
+    @Test
+    void bulkSeFrenaConLasCajasLentasYSeRecuperaAlPasar() throws Exception {
+        ConnectionBulkhead bulkhead = bulkhead(1, 1, 1);
+        for (int i = 0; i < 50; i++) {
+            bulkhead.release(bulkhead.acquire()); // Referencia: cajas rápidas
+        }
+        assertEquals(0, bulkPause(bulkhead));
+
+        for (int i = 0; i < 5; i++) {
+            ConnectionBulkhead.Ticket venta = bulkhead.acquire();
+            Thread.sleep(20); // Cajas lentas
+            bulkhead.release(venta);
+        }
+        assertTrue(bulkPause(bulkhead) > 0, "Con presión en las cajas, BULK espera");
+
+        for (int i = 0; i < 60; i++) {
+            bulkhead.release(bulkhead.acquire()); // Pasa la presión
+        }
+        long pausa = -1;
+        for (int i = 0; i < 10 && pausa != 0; i++) {
+            pausa = bulkPause(bulkhead);
+        }
+        assertEquals(0, pausa, "La pausa se reduce a la mitad en cada petición hasta desaparecer");
+    }
+
+    // --- AUXILIARES ---
+
+    private static ConnectionBulkhead bulkhead(int reportingQuota, int reportingQueue, int bulkQuota) {
+        return new ConnectionBulkhead(4, reportingQuota, bulkQuota, reportingQueue, 1, TIMEOUT_MILLIS, 1);
+    }
+
+    /** Pide y devuelve una plaza BULK; devuelve la pausa aplicada en esa petición. */
+    private static long bulkPause(ConnectionBulkhead bulkhead) throws SQLException {
+        bulkhead.release(WorkloadClass.BULK.call(bulkhead::acquire));
+        return bulkhead.getBulkPauseMillis();
+    }
+
+    private interface SqlWork<T> {
+        T call() throws SQLException;
+    }
+
+    /** Ejecuta en otro hilo y espera (cada hilo lleva su propia cuenta de conexiones abiertas). */
+    private static <T> T inOtherThread(SqlWork<T> work) throws Exception {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        Thread t = new Thread(() -> {
+            try {
+                result.set(work.call());
+            } catch (Exception e) {
+                error.set(e);
+            }
+        });
+        t.start();
+        t.join();
+        if (error.get() != null) throw error.get();
+        return result.get();
+    }
+}
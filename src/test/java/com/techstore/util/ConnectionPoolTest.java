@@ -0,0 +1,220 @@
+package com.techstore.util;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del pool de conexiones con un driver JDBC falso (sin base de datos):
+ * reutilización, validación de conexiones libres y descarte tras errores de conexión.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+class ConnectionPoolTest {
+
+    private static final String URL = "jdbc:techstore-falso:pool";
+
+    private static final FakeDriver driver = new FakeDriver();
+
+    @BeforeAll
+    static void registrarDriver() throws SQLException {
+        DriverManager.registerDriver(driver);
+    }
+
+    @AfterAll
+    static void quitarDriver() throws SQLException {
+        DriverManager.deregisterDriver(driver);
+    }
+
+    @BeforeEach
+    void limpiar() {
+        driver.opened.clear();
+    }
+
+    @Test
+    void laConexionDevueltaSeReutiliza() throws SQLException {
+        ConnectionPool pool = newPool(60_000);
+
+        pool.borrow().close();
+        pool.borrow().close();
+
+        assertEquals(1, driver.opened.size());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    void unaConexionLibreQueNoRespondeSeSustituye() throws SQLException {
+        ConnectionPool pool = newPool(0); // Se valida siempre
+
+        pool.borrow().close();
+        FakeConnection first = driver.opened.get(0);
+        first.alive = false; // El cortafuegos cortó el socket mientras estaba libre
+
+        try (Connection conn = pool.borrow();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT 1 FROM DUAL")) {
+            pstmt.executeQuery();
+        }
+
+        assertEquals(2, driver.opened.size());
+        assertTrue(first.closed, "La conexión rota debe cerrarse");
+        assertTrue(driver.opened.get(1).alive);
+    }
+
+    @Test
+    void sinSuperarElUmbralNoSeValida() throws SQLException {
+        ConnectionPool pool = newPool(60_000);
+
+        pool.borrow().close();
+        pool.borrow().close();
+
+        assertEquals(0, driver.opened.get(0).validations);
+    }
+
+    @Test
+    void unErrorDeConexionEnUnaSentenciaDescartaLaConexion() throws SQLException {
+        ConnectionPool pool = newPool(60_000);
+
+        try (Connection conn = pool.borrow();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT 1 FROM DUAL")) {
+            driver.opened.get(0).alive = false;
+            assertThrows(SQLException.class, pstmt::executeQuery);
+        }
+
+        assertEquals(0, pool.getIdleCount());
+        assertTrue(driver.opened.get(0).closed);
+
+        pool.borrow().close();
+        assertEquals(2, driver.opened.size());
+    }
+
+    @Test
+    void otrosErroresNoDescartanLaConexion() throws SQLException {
+        ConnectionPool pool = newPool(60_000);
+
+        try (Connection conn = pool.borrow();
+             PreparedStatement pstmt = conn.prepareStatement("INSERT DUPLICADO")) {
+            assertThrows(SQLException.class, pstmt::executeUpdate);
+        }
+
+        assertEquals(1, pool.getIdleCount());
+        assertFalse(driver.opened.get(0).closed);
+    }
+
+    @Test
+    void detectaErroresDeConexion() {
+        assertTrue(ConnectionPool.isConnectionError(new SQLException("IO Error", "08006")));
+        assertTrue(ConnectionPool.isConnectionError(new RuntimeException(new SQLException("Closed", "08003"))));
+        assertFalse(ConnectionPool.isConnectionError(new SQLException("Clave duplicada", "23000")));
+        assertFalse(ConnectionPool.isConnectionError(new SQLException("Sin estado")));
+    }
+
+    // --- AUXILIARES ---
+
+    private static ConnectionPool newPool(long validateAfterMillis) {
+        return new ConnectionPool(URL, "u", "p", 2, 1000, ConnectionBulkhead.defaults(2, 1000), validateAfterMillis);
+    }
+
+    /**
+     * Estado de una conexión física falsa.
+     */
+    private static final class FakeConnection {
+        private volatile boolean alive = true;
+        private volatile boolean closed;
+        private volatile int validations;
+
+        private Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (p, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                closed = true;
+                                return null;
+                            case "isClosed":
+                                return closed;
+                            case "isValid":
+                                validations++;
+                                return alive && !closed;
+                            case "getAutoCommit":
+                                return true;
+                            case "prepareStatement":
+                                return statement((String) args[0]);
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private PreparedStatement statement(String sql) {
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (p, method, args) -> {
+                        if (method.getName().startsWith("execute")) {
+                            if (!alive) throw new SQLException("IO Error: Connection reset", "08006");
+                            if (sql.contains("DUPLICADO")) throw new SQLException("ORA-00001", "23000");
+                        }
+                        return method.getReturnType() == int.class ? 0 : null;
+                    });
+        }
+    }
+
+    /**
+     * Driver que abre conexiones falsas y las anota para poder inspeccionarlas.
+     */
+    private static final class FakeDriver implements Driver {
+        private final List<FakeConnection> opened = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Connection connect(String url, Properties info) {
+            if (!acceptsURL(url)) return null;
+            FakeConnection conn = new FakeConnection();
+            opened.add(conn);
+            return conn.proxy();
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url != null && url.startsWith("jdbc:techstore-falso:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.techstore.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias de IntHashSet: altas, repetidos, crecimiento y valor reservado.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+class IntHashSetTest {
+
+    @Test
+    void anadirYConsultarValores() {
+        IntHashSet set = new IntHashSet(4);
+
+        assertTrue(set.add(7));
+        assertTrue(set.add(0));
+        assertTrue(set.add(-3));
+
+        assertTrue(set.contains(7));
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(-3));
+        assertFalse(set.contains(8));
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    void unValorRepetidoNoSeCuentaDosVeces() {
+        IntHashSet set = new IntHashSet(4);
+
+        assertTrue(set.add(42));
+        assertFalse(set.add(42));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void creceSinPerderValoresAunqueSeSubestimeElTamano() {
+        IntHashSet set = new IntHashSet(1);
+        for (int i = 1; i <= 10_000; i++) {
+            assertTrue(set.add(i));
+        }
+
+        assertEquals(10_000, set.size());
+        for (int i = 1; i <= 10_000; i++) {
+            assertTrue(set.contains(i), "Falta el " + i);
+        }
+        assertFalse(set.contains(10_001));
+        assertFalse(set.contains(0));
+    }
+
+    @Test
+    void coincideConHashSetConValoresAleatorios() {
+        Random random = new Random(27);
+        IntHashSet set = new IntHashSet(16);
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 5_000; i++) {
+            int value = random.nextInt(20_000) - 10_000;
+            assertEquals(expected.add(value), set.add(value));
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (int value = -10_000; value < 10_000; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+
+    @Test
+    void elValorReservadoSeRechaza() {
+        IntHashSet set = new IntHashSet(4);
+
+        assertThrows(IllegalArgumentException.class, () -> set.add(Integer.MIN_VALUE));
+        assertFalse(set.contains(Integer.MIN_VALUE));
+        assertEquals(0, set.size());
+    }
+}
@@ -0,0 +1,150 @@
+package com.techstore.util;
+
+import com.techstore.model.StockMovement;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del anillo de movimientos recientes: orden, repetidos, siembra, actualización
+ * desde la base de datos y lectores concurrentes con varios escritores.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+class RecentMovementsBufferTest {
+
+    @Test
+    void laLecturaSaleEnOrdenDeIdAunqueLleguenDesordenados() {
+        RecentMovementsBuffer buffer = new RecentMovementsBuffer(8);
+        buffer.append(movement(2));
+        buffer.append(movement(1));
+        buffer.append(movement(4));
+        buffer.append(movement(3));
+
+        assertEquals(List.of(4, 3, 2), ids(buffer.getRecent(3)));
+    }
+
+    @Test
+    void laSiembraNoPisaLoInsertadoEnVivoNiRepite() {
+        RecentMovementsBuffer buffer = new RecentMovementsBuffer(4);
+        buffer.append(movement(10));
+        buffer.seed(List.of(movement(10), movement(9), movement(8), movement(7), movement(6)));
+
+        assertTrue(buffer.isSeeded());
+        assertEquals(List.of(10, 9, 8), ids(buffer.getRecent(4)), "Solo caben tres sembrados y el 10 no se repite");
+        assertEquals(10, buffer.getHighestLoadedId());
+    }
+
+    @Test
+    void laActualizacionTraeLoDeOtrasCajasYSoloAvanzaConLaBaseDeDatos() {
+        RecentMovementsBuffer buffer = new RecentMovementsBuffer(16);
+        buffer.seed(List.of(movement(5), movement(4)));
+        buffer.append(movement(8)); // Insertado por esta caja
+
+        assertEquals(5, buffer.getHighestLoadedId(), "Las inserciones locales no mueven la marca");
+
+        assertEquals(2, buffer.topUp(List.of(movement(8), movement(7), movement(6)))); // 6 y 7 son de otra caja
+        assertEquals(List.of(8, 7, 6, 5, 4), ids(buffer.getRecent(10)));
+        assertEquals(8, buffer.getHighestLoadedId());
+
+        buffer.topUp(List.of());
+        assertEquals(8, buffer.getHighestLoadedId());
+    }
+
+    @Test
+    void laActualizacionNoRepiteLoYaInsertadoNiPierdeRanuras() {
+        RecentMovementsBuffer buffer = new RecentMovementsBuffer(4);
+        buffer.seed(List.of(movement(2), movement(1)));
+        buffer.append(movement(3));
+        buffer.append(movement(4));
+
+        assertEquals(0, buffer.topUp(List.of(movement(4), movement(3))), "Ya estaban en el anillo");
+        assertEquals(List.of(4, 3, 2, 1), ids(buffer.getRecent(4)), "Los repetidos no desplazan a los sembrados");
+        assertEquals(4, buffer.getHighestLoadedId());
+    }
+
+    @Test
+    void soloUnoArrancaLaActualizacionDelAnillo() {
+        RecentMovementsBuffer buffer = new RecentMovementsBuffer(8);
+
+        assertTrue(buffer.claimRefresher());
+        assertFalse(buffer.claimRefresher());
+    }
+
+    @Test
+    void lectoresConcurrentesVenSiempreIdsDescendentesSinRepetidos() throws Exception {
+        RecentMovementsBuffer buffer = new RecentMovementsBuffer(64);
+        AtomicInteger nextId = new AtomicInteger();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int w = 0; w < 4; w++) {
+            threads.add(new Thread(() -> {
+                await(start);
+                for (int i = 0; i < 50_000; i++) {
+                    buffer.append(movement(nextId.incrementAndGet()));
+                }
+            }));
+        }
+        for (int r = 0; r < 3; r++) {
+            threads.add(new Thread(() -> {
+                await(start);
+                while (writing.get()) {
+                    List<Integer> ids = ids(buffer.getRecent(20));
+                    for (int i = 1; i < ids.size(); i++) {
+                        if (ids.get(i - 1) <= ids.get(i)) {
+                            errors.add("Orden o repetido: " + ids);
+                            return;
+                        }
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (int w = 0; w < 4; w++) {
+            threads.get(w).join();
+        }
+        writing.set(false);
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertTrue(errors.isEmpty(), () -> errors.peek());
+        List<Integer> last = ids(buffer.getRecent(64));
+        assertEquals(64, last.size());
+        assertEquals(nextId.get(), last.get(0));
+    }
+
+    // --- AUXILIARES ---
+
+    private static StockMovement movement(int id) {
+        return StockMovement.builder().id(id).productId(1).type("VENTA").quantity(1).build();
+    }
+
+    private static List<Integer> ids(List<StockMovement> movements) {
+        List<Integer> ids = new ArrayList<>(movements.size());
+        for (StockMovement m : movements) {
+            ids.add(m.getId());
+        }
+        return ids;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
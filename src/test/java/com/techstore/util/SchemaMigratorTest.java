@@ -0,0 +1,75 @@
+package com.techstore.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de los scripts de migración (sin base de datos): las restricciones de las tablas base
+ * existen también como sentencias sueltas, para las bases de datos creadas a mano.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+class SchemaMigratorTest {
+
+    private static final Pattern CONSTRAINT = Pattern.compile("CONSTRAINT\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    @Test
+    void cadaRestriccionDeV1SeAnadeSueltaEnV7() {
+        List<SchemaMigrator.Migration> migrations = SchemaMigrator.loadMigrations();
+        List<String> v1 = constraintNames(statementsOf(migrations, 1));
+        List<String> v7 = constraintNames(statementsOf(migrations, 7));
+
+        assertFalse(v1.isEmpty());
+        for (String name : v1) {
+            assertTrue(v7.contains(name), "Falta en V7: " + name);
+        }
+    }
+
+    @Test
+    void v7SoloTieneUnaRestriccionPorSentencia() {
+        for (String sql : statementsOf(SchemaMigrator.loadMigrations(), 7)) {
+            assertTrue(sql.startsWith("ALTER TABLE"), sql);
+            assertEquals(1, constraintNames(List.of(sql)).size(), sql);
+        }
+    }
+
+    // --- AUXILIARES ---
+
+    private static List<String> statementsOf(List<SchemaMigrator.Migration> migrations, int version) {
+        for (SchemaMigrator.Migration m : migrations) {
+            if (m.getVersion() == version) {
+                return SchemaMigrator.splitStatements(readScript(m));
+            }
+        }
+        throw new AssertionError("No existe la migración V" + version);
+    }
+
+    private static String readScript(SchemaMigrator.Migration m) {
+        try (InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream("db/migration/" + m.getScript())) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<String> constraintNames(List<String> statements) {
+        List<String> names = new ArrayList<>();
+        for (String sql : statements) {
+            Matcher m = CONSTRAINT.matcher(sql);
+            while (m.find()) {
+                names.add(m.group(1).toLowerCase());
+            }
+        }
+        return names;
+    }
+}
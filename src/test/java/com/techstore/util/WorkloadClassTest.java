@@ -0,0 +1,49 @@
+package com.techstore.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la clase de trabajo asociada al hilo.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+class WorkloadClassTest {
+
+    @Test
+    void elTrabajoSeEjecutaConSuClaseYLuegoSeRestaura() {
+        assertEquals(WorkloadClass.INTERACTIVE, WorkloadClass.current());
+
+        WorkloadClass dentro = WorkloadClass.BULK.call(WorkloadClass::current);
+
+        assertEquals(WorkloadClass.BULK, dentro);
+        assertEquals(WorkloadClass.INTERACTIVE, WorkloadClass.current());
+    }
+
+    @Test
+    void anidadoVuelveALaClaseExterior() {
+        WorkloadClass[] vistas = new WorkloadClass[2];
+        WorkloadClass.REPORTING.run(() -> {
+            vistas[0] = WorkloadClass.BULK.call(WorkloadClass::current);
+            vistas[1] = WorkloadClass.current();
+        });
+
+        assertEquals(WorkloadClass.BULK, vistas[0]);
+        assertEquals(WorkloadClass.REPORTING, vistas[1]);
+        assertEquals(WorkloadClass.INTERACTIVE, WorkloadClass.current());
+    }
+
+    @Test
+    void unaExcepcionComprobadaLlegaTalCualYRestauraLaClase() {
+        SQLException error = assertThrows(SQLException.class, () -> WorkloadClass.BULK.run(() -> {
+            throw new SQLException("conexión perdida", "08006");
+        }));
+
+        assertEquals("08006", error.getSQLState());
+        assertEquals(WorkloadClass.INTERACTIVE, WorkloadClass.current());
+    }
+}
@@ -0,0 +1,138 @@
+package com.techstore.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la grabación de carga: ida y vuelta por el formato binario, incluidos los lotes y los bloques PL/SQL.
+ *
+ * @author César Gálvez
+ * @version 1.0
+ */
+class WorkloadRecorderTest {
+
+    private static final String SQL = "INSERT INTO MOVIMIENTOS_STOCK (producto_id, cantidad) VALUES (?, ?)";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void cadaAddBatchGrabaSuJuegoDeParametros() throws Exception {
+        Path file = dir.resolve("carga.wlog");
+        WorkloadRecorder recorder = new WorkloadRecorder(file);
+        PreparedStatement pstmt = recorder.wrap(fakeStatement(new int[]{1, 1, 1}), SQL);
+
+        for (int i = 1; i <= 3; i++) {
+            pstmt.setInt(1, i);
+            if (i == 2) {
+                pstmt.setNull(2, Types.INTEGER);
+            } else {
+                pstmt.setInt(2, i * 10);
+            }
+            pstmt.addBatch();
+        }
+        pstmt.executeBatch();
+        pstmt.setInt(1, 9);
+        pstmt.setInt(2, 90);
+        pstmt.executeUpdate();
+        recorder.close();
+
+        List<WorkloadLog.Entry> entries = read(file);
+        assertEquals(2, entries.size());
+
+        WorkloadLog.Entry batch = entries.get(0);
+        assertEquals(WorkloadLog.BATCH, batch.getKind());
+        assertEquals(SQL, batch.getSql());
+        assertEquals(3, batch.getRows());
+        Object[][] sets = batch.getParamSets();
+        assertEquals(3, sets.length);
+        assertArrayEquals(new Object[]{1, 10}, sets[0]);
+        assertEquals(2, sets[1][0]);
+        assertEquals(Types.INTEGER, ((WorkloadLog.NullParam) sets[1][1]).getSqlType());
+        assertArrayEquals(new Object[]{3, 30}, sets[2]);
+
+        WorkloadLog.Entry update = entries.get(1);
+        assertEquals(WorkloadLog.UPDATE, update.getKind());
+        assertEquals(batch.getSqlId(), update.getSqlId());
+        assertArrayEquals(new Object[]{9, 90}, update.getParams());
+        assertEquals(1, update.getParamSets().length);
+    }
+
+    @Test
+    void elLoteSeVaciaTrasEjecutarloYConClearBatch() throws Exception {
+        Path file = dir.resolve("carga.wlog");
+        WorkloadRecorder recorder = new WorkloadRecorder(file);
+        PreparedStatement pstmt = recorder.wrap(fakeStatement(new int[]{PreparedStatement.SUCCESS_NO_INFO}), SQL);
+
+        pstmt.setInt(1, 1);
+        pstmt.addBatch();
+        pstmt.clearBatch();
+        pstmt.setInt(1, 2);
+        pstmt.addBatch();
+        pstmt.executeBatch();
+        pstmt.executeBatch(); // Lote vacío: no se graba
+        recorder.close();
+
+        List<WorkloadLog.Entry> entries = read(file);
+        assertEquals(1, entries.size());
+        assertEquals(1, entries.get(0).getParamSets().length);
+        assertEquals(2, entries.get(0).getParams()[0]);
+        assertEquals(-1, entries.get(0).getRows(), "SUCCESS_NO_INFO deja las filas como desconocidas");
+    }
+
+    @Test
+    void unBloquePlSqlSeGrabaComoCallConSusParametrosDeSalida() throws Exception {
+        Path file = dir.resolve("carga.wlog");
+        WorkloadRecorder recorder = new WorkloadRecorder(file);
+        String block = "BEGIN UPDATE PRODUCTOS SET stock_actual = stock_actual - ? WHERE producto_id = ? "
+                + "RETURNING stock_actual INTO ?; END;";
+        CallableStatement cstmt = recorder.wrap((CallableStatement) Proxy.newProxyInstance(
+                CallableStatement.class.getClassLoader(), new Class<?>[]{CallableStatement.class},
+                (proxy, method, args) -> method.getName().equals("execute") ? false
+                        : method.getName().equals("getUpdateCount") ? -1 : null), block);
+
+        cstmt.setInt(1, 2);
+        cstmt.setInt(2, 7);
+        cstmt.registerOutParameter(3, Types.INTEGER);
+        cstmt.execute();
+        recorder.close();
+
+        List<WorkloadLog.Entry> entries = read(file);
+        assertEquals(1, entries.size());
+        assertEquals(WorkloadLog.CALL, entries.get(0).getKind());
+        Object[] params = entries.get(0).getParams();
+        assertEquals(2, params[0]);
+        assertEquals(7, params[1]);
+        assertEquals(Types.INTEGER, ((WorkloadLog.OutParam) params[2]).getSqlType());
+    }
+
+    // --- AUXILIARES ---
+
+    private static List<WorkloadLog.Entry> read(Path file) throws Exception {
+        List<WorkloadLog.Entry> entries = new ArrayList<>();
+        WorkloadLog.read(file, entries::add);
+        return entries;
+    }
+
+    /** Sentencia sin driver: executeBatch devuelve los recuentos indicados, executeUpdate una fila. */
+    private static PreparedStatement fakeStatement(int[] batchCounts) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "executeBatch": return batchCounts;
+                        case "executeUpdate": return 1;
+                        default: return null;
+                    }
+                });
+    }
+}